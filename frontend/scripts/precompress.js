@@ -0,0 +1,45 @@
+// Writes .br and .gz copies of the text files in the production build so the
+// backend can serve them pre-compressed instead of compressing on every request.
+// Runs automatically after `npm run build` (see "postbuild" in package.json).
+
+const fs = require("fs");
+const path = require("path");
+const zlib = require("zlib");
+
+const BUILD_DIR = path.join(__dirname, "..", "build");
+const COMPRESSIBLE = /\.(js|css|html|json|svg|txt|ico)$/;
+const MIN_SIZE = 1024;
+
+function* filesIn(dir) {
+  for (const entry of fs.readdirSync(dir, { withFileTypes: true })) {
+    const file = path.join(dir, entry.name);
+    if (entry.isDirectory()) {
+      yield* filesIn(file);
+    } else {
+      yield file;
+    }
+  }
+}
+
+let count = 0;
+for (const file of filesIn(BUILD_DIR)) {
+  if (!COMPRESSIBLE.test(file)) {
+    continue;
+  }
+  const content = fs.readFileSync(file);
+  if (content.length < MIN_SIZE) {
+    continue;
+  }
+  fs.writeFileSync(`${file}.gz`, zlib.gzipSync(content, { level: zlib.constants.Z_BEST_COMPRESSION }));
+  fs.writeFileSync(
+    `${file}.br`,
+    zlib.brotliCompressSync(content, {
+      params: {
+        [zlib.constants.BROTLI_PARAM_QUALITY]: zlib.constants.BROTLI_MAX_QUALITY,
+        [zlib.constants.BROTLI_PARAM_SIZE_HINT]: content.length,
+      },
+    })
+  );
+  count++;
+}
+console.log(`precompress: wrote .br and .gz for ${count} files in ${BUILD_DIR}`);
@@ -0,0 +1,45 @@
+// k6 load test for the ride endpoints: concurrent-request throughput with
+// and without app.virtualThreads.enabled.  See "Load testing" in README.md.
+//
+//   k6 run -e SESSION=<JSESSIONID cookie> -e VUS=400 loadtest/rides.js
+
+import http from 'k6/http';
+import { check } from 'k6';
+
+const BASE_URL = __ENV.BASE_URL || 'http://localhost:8080';
+const SESSION = __ENV.SESSION;
+
+export const options = {
+  scenarios: {
+    rides: {
+      executor: 'constant-vus',
+      vus: Number(__ENV.VUS || 400),
+      duration: __ENV.DURATION || '60s',
+    },
+  },
+  summaryTrendStats: ['avg', 'p(50)', 'p(95)', 'p(99)', 'max'],
+  thresholds: {
+    http_req_failed: ['rate<0.01'],
+  },
+};
+
+const PATHS = [
+  '/api/ride_request/all',
+  '/api/ride_request/all?view=summary',
+  '/api/ride_request/page?size=50',
+];
+
+export function setup() {
+  if (!SESSION) {
+    throw new Error('Set SESSION to the JSESSIONID cookie of a logged in admin or driver');
+  }
+}
+
+export default function () {
+  const path = PATHS[__ITER % PATHS.length];
+  const res = http.get(`${BASE_URL}${path}`, {
+    cookies: { JSESSIONID: SESSION },
+    tags: { endpoint: path },
+  });
+  check(res, { 'status is 200': (r) => r.status === 200 });
+}
@@ -0,0 +1,72 @@
+package edu.ucsb.cs156.gauchoride.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import edu.ucsb.cs156.gauchoride.services.CurrentUserServiceImpl;
+import edu.ucsb.cs156.gauchoride.services.GrantedAuthoritiesService;
+
+/**
+ * CurrentUserServiceImpl.getCurrentUser, as called by the controllers.
+ *
+ * outsideRequest resolves the user from scratch on every call (no request
+ * scope, so nothing is cached); perRequest models one HTTP request that asks
+ * for the current user three times, as a controller that checks roles and
+ * then uses the user does.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CurrentUserServiceBenchmark {
+
+  private CurrentUserServiceImpl currentUserService;
+
+  @Setup
+  public void setup() {
+    currentUserService = new CurrentUserServiceImpl();
+    ReflectionTestUtils.setField(currentUserService, "userRepository", Fixtures.userRepository(Fixtures.user(1)));
+    ReflectionTestUtils.setField(currentUserService, "grantedAuthoritiesService", new GrantedAuthoritiesService());
+    SecurityContextHolder.getContext().setAuthentication(Fixtures.authentication());
+  }
+
+  @TearDown
+  public void tearDown() {
+    SecurityContextHolder.clearContext();
+    RequestContextHolder.resetRequestAttributes();
+  }
+
+  @Benchmark
+  public Object outsideRequest() {
+    RequestContextHolder.resetRequestAttributes();
+    return currentUserService.getCurrentUser();
+  }
+
+  @Benchmark
+  public void perRequest(Blackhole blackhole) {
+    RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(new MockHttpServletRequest()));
+    blackhole.consume(currentUserService.getCurrentUser());
+    blackhole.consume(currentUserService.getCurrentUser());
+    blackhole.consume(currentUserService.getCurrentUser());
+    RequestContextHolder.resetRequestAttributes();
+  }
+}
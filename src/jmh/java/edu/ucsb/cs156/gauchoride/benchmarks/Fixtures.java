@@ -0,0 +1,139 @@
+package edu.ucsb.cs156.gauchoride.benchmarks;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.oauth2.client.authentication.OAuth2AuthenticationToken;
+import org.springframework.security.oauth2.core.user.DefaultOAuth2User;
+import org.springframework.security.oauth2.core.user.OAuth2User;
+
+import edu.ucsb.cs156.gauchoride.entities.Ride;
+import edu.ucsb.cs156.gauchoride.entities.Shift;
+import edu.ucsb.cs156.gauchoride.entities.User;
+import edu.ucsb.cs156.gauchoride.models.RideSummary;
+import edu.ucsb.cs156.gauchoride.models.UserSummary;
+import edu.ucsb.cs156.gauchoride.repositories.UserRepository;
+
+/**
+ * Test data shared by the benchmarks.
+ */
+final class Fixtures {
+
+  static final String EMAIL = "cgaucho@ucsb.edu";
+
+  private Fixtures() {
+  }
+
+  static User user(long id) {
+    return User.builder()
+        .id(id)
+        .email(id == 1 ? EMAIL : "user%d@ucsb.edu".formatted(id))
+        .googleSub("1157146528395640%05d".formatted(id))
+        .pictureUrl("https://lh3.googleusercontent.com/a/photo%d".formatted(id))
+        .fullName("Chris Gaucho %d".formatted(id))
+        .givenName("Chris")
+        .familyName("Gaucho")
+        .emailVerified(true)
+        .locale("en")
+        .hostedDomain("ucsb.edu")
+        .driver(id % 10 == 0)
+        .build();
+  }
+
+  static Ride ride(long id) {
+    return Ride.builder()
+        .id(id)
+        .riderId(id % 500)
+        .student("Chris Gaucho %d".formatted(id % 500))
+        .day("Tuesday")
+        .startTime("11:00AM")
+        .endTime("12:15PM")
+        .pickupLocation("Phelps Hall")
+        .pickupRoom("1160")
+        .dropoffLocation("South Hall")
+        .dropoffRoom("1431")
+        .course("CMPSC 156")
+        .notes("Please wait by the elevator")
+        .build();
+  }
+
+  static Shift shift(long id) {
+    return Shift.builder()
+        .id(id)
+        .day("Wednesday")
+        .shiftStart("8:00AM")
+        .shiftEnd("12:30PM")
+        .driverID(id % 40)
+        .driverBackupID((id + 1) % 40)
+        .build();
+  }
+
+  static UserSummary userSummary(long id) {
+    User user = user(id);
+    return new UserSummary(user.getId(), user.getEmail(), user.getGivenName(), user.getFamilyName(),
+        user.getAdmin(), user.getDriver(), user.getRider(), user.getVersion());
+  }
+
+  static RideSummary rideSummary(long id) {
+    Ride ride = ride(id);
+    return new RideSummary(ride.getId(), ride.getRiderId(), ride.getStudent(), ride.getDay(),
+        ride.getStartTime(), ride.getEndTime(), ride.getPickupLocation(), ride.getPickupRoom(),
+        ride.getDropoffLocation(), ride.getDropoffRoom(), ride.getCourse());
+  }
+
+  static List<?> rows(String type, int count) {
+    List<Object> rows = new ArrayList<>(count);
+    for (long id = 1; id <= count; id++) {
+      switch (type) {
+        case "ride" -> rows.add(ride(id));
+        case "shift" -> rows.add(shift(id));
+        case "user" -> rows.add(user(id));
+        case "ride-summary" -> rows.add(rideSummary(id));
+        case "user-summary" -> rows.add(userSummary(id));
+        default -> throw new IllegalArgumentException(type);
+      }
+    }
+    return rows;
+  }
+
+  /** the OAuth2 login of user 1, as Spring Security sees it */
+  static OAuth2AuthenticationToken authentication() {
+    Map<String, Object> attributes = Map.of(
+        "sub", "115714652839564000001",
+        "email", EMAIL,
+        "email_verified", true,
+        "name", "Chris Gaucho 1",
+        "given_name", "Chris",
+        "family_name", "Gaucho",
+        "picture", "https://lh3.googleusercontent.com/a/photo1",
+        "locale", "en",
+        "hd", "ucsb.edu");
+    List<SimpleGrantedAuthority> authorities = List.of(
+        new SimpleGrantedAuthority("ROLE_USER"), new SimpleGrantedAuthority("ROLE_MEMBER"));
+    OAuth2User principal = new DefaultOAuth2User(authorities, attributes, "email");
+    return new OAuth2AuthenticationToken(principal, authorities, "google");
+  }
+
+  /**
+   * A UserRepository whose findByEmail always finds the given user.  A plain
+   * proxy rather than a Mockito mock: Mockito records every invocation, which
+   * would grow without bound over a benchmark run.
+   */
+  static UserRepository userRepository(User user) {
+    Optional<User> found = Optional.of(user);
+    return (UserRepository) Proxy.newProxyInstance(UserRepository.class.getClassLoader(),
+        new Class<?>[] { UserRepository.class },
+        (proxy, method, args) -> switch (method.getName()) {
+          case "findByEmail" -> found;
+          case "save" -> args[0];
+          case "hashCode" -> System.identityHashCode(proxy);
+          case "equals" -> proxy == args[0];
+          case "toString" -> "UserRepository stub";
+          default -> throw new UnsupportedOperationException(method.getName());
+        });
+  }
+}
@@ -0,0 +1,69 @@
+package edu.ucsb.cs156.gauchoride.benchmarks;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Jackson serialization of Ride, Shift and User lists, configured the way
+ * Spring Boot configures the ObjectMapper.
+ *
+ * writeValueAsString builds the whole body as one String, as the list
+ * endpoints used to (ShiftScheduleCache now only does so when the schedule
+ * changes); writeToStream writes to an OutputStream as the message converters and
+ * the ?stream=true endpoints do.  Run with -prof gc to compare allocation.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class JsonSerializationBenchmark {
+
+  // *-summary: the ?view=summary projections of the same rows
+  @Param({ "ride", "shift", "user", "ride-summary", "user-summary" })
+  public String type;
+
+  @Param({ "1000", "10000", "100000" })
+  public int rows;
+
+  private ObjectMapper mapper;
+  private List<?> list;
+
+  @Setup
+  public void setup() {
+    mapper = Jackson2ObjectMapperBuilder.json().build();
+    list = Fixtures.rows(type, rows);
+  }
+
+  @Benchmark
+  public String writeValueAsString() {
+    try {
+      return mapper.writeValueAsString(list);
+    } catch (IOException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  @Benchmark
+  public void writeToStream() throws IOException {
+    mapper.writeValue(OutputStream.nullOutputStream(), list);
+  }
+}
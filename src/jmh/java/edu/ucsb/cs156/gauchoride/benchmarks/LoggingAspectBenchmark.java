@@ -0,0 +1,83 @@
+package edu.ucsb.cs156.gauchoride.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.slf4j.LoggerFactory;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import ch.qos.logback.classic.Logger;
+
+import edu.ucsb.cs156.gauchoride.aop.LoggingAspect;
+
+/**
+ * LoggingAspect.logControllers, measured as the cost it adds to a controller
+ * call: a controller proxied with the aspect against the same controller
+ * called directly.  logLevel INFO writes the log line (to a file, see
+ * logback.xml); WARN measures the cost when the line is filtered out.
+ * Run with -prof gc to see the allocation per call (gc.alloc.rate.norm).
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LoggingAspectBenchmark {
+
+  public static class SampleController {
+    @GetMapping("/api/shift/all")
+    public String allShifts() {
+      return "[]";
+    }
+  }
+
+  @Param({ "INFO", "WARN" })
+  public String logLevel;
+
+  private SampleController direct;
+  private SampleController advised;
+
+  @Setup(Level.Trial)
+  public void setup() {
+    ((Logger) LoggerFactory.getLogger(LoggingAspect.class)).setLevel(ch.qos.logback.classic.Level.toLevel(logLevel));
+    direct = new SampleController();
+    AspectJProxyFactory factory = new AspectJProxyFactory(new SampleController());
+    factory.setProxyTargetClass(true);
+    factory.addAspect(new LoggingAspect());
+    advised = factory.getProxy();
+    RequestContextHolder.setRequestAttributes(
+        new ServletRequestAttributes(new MockHttpServletRequest("GET", "/api/shift/all")));
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    RequestContextHolder.resetRequestAttributes();
+  }
+
+  @Benchmark
+  public String withoutAspect() {
+    return direct.allShifts();
+  }
+
+  @Benchmark
+  public String withAspect() {
+    return advised.allShifts();
+  }
+}
@@ -0,0 +1,74 @@
+package edu.ucsb.cs156.gauchoride.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import edu.ucsb.cs156.gauchoride.entities.User;
+import edu.ucsb.cs156.gauchoride.interceptors.RoleInterceptor;
+
+/**
+ * RoleInterceptor.preHandle, which runs before every /api request.
+ *
+ * cachedRoles is the common case: the roles are cached and already in the
+ * token.  uncachedRoles forgets the cache first, so every call looks the
+ * user up and rebuilds the authentication token.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RoleInterceptorBenchmark {
+
+  private RoleInterceptor roleInterceptor;
+  private MockHttpServletRequest request;
+  private MockHttpServletResponse response;
+
+  @Setup
+  public void setup() throws Exception {
+    User driver = Fixtures.user(1);
+    driver.setDriver(true);
+    roleInterceptor = new RoleInterceptor();
+    ReflectionTestUtils.setField(roleInterceptor, "userRepository", Fixtures.userRepository(driver));
+    ReflectionTestUtils.setField(roleInterceptor, "maximumSize", 10_000L);
+    ReflectionTestUtils.setField(roleInterceptor, "expireAfterWriteSeconds", 300L);
+    ReflectionTestUtils.invokeMethod(roleInterceptor, "buildCache");
+    request = new MockHttpServletRequest("GET", "/api/shift/all");
+    response = new MockHttpServletResponse();
+    SecurityContextHolder.getContext().setAuthentication(Fixtures.authentication());
+    roleInterceptor.preHandle(request, response, null);
+  }
+
+  @TearDown
+  public void tearDown() {
+    SecurityContextHolder.clearContext();
+  }
+
+  @Benchmark
+  public boolean cachedRoles() {
+    return roleInterceptor.preHandle(request, response, null);
+  }
+
+  @Benchmark
+  public boolean uncachedRoles() {
+    roleInterceptor.invalidateAll();
+    SecurityContextHolder.getContext().setAuthentication(Fixtures.authentication());
+    return roleInterceptor.preHandle(request, response, null);
+  }
+}
@@ -0,0 +1,257 @@
+package edu.ucsb.cs156.gauchoride.benchmarks;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.domain.EntityScan;
+import org.springframework.boot.autoconfigure.flyway.FlywayAutoConfiguration;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceAutoConfiguration;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceTransactionManagerAutoConfiguration;
+import org.springframework.boot.autoconfigure.jdbc.JdbcTemplateAutoConfiguration;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernateJpaAutoConfiguration;
+import org.springframework.boot.autoconfigure.transaction.TransactionAutoConfiguration;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.http.ResponseEntity;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import edu.ucsb.cs156.gauchoride.controllers.ShiftController;
+import edu.ucsb.cs156.gauchoride.controllers.UsersController;
+import edu.ucsb.cs156.gauchoride.repositories.ShiftRepository;
+import edu.ucsb.cs156.gauchoride.repositories.UserRepository;
+import edu.ucsb.cs156.gauchoride.services.ShiftScheduleCache;
+
+/**
+ * Peak heap of GET /api/admin/users and GET /api/shift/all over 10,000 and
+ * 100,000 rows in H2: buffered is the default response (every row read, then
+ * the whole body serialized), streamed is ?stream=true (rows read and written
+ * app.streaming.chunkSize at a time).
+ *
+ * The controllers are called directly, with the migrated schema and the real
+ * repositories behind them.  Each time a repository call returns, each time
+ * the response is flushed (after every chunk) and each time another MB of it
+ * is written, a full GC is forced and the heap still in use is sampled; retainedMb is the largest sample less the
+ * heap in use before the request.  The buffered figure is a lower bound: its
+ * rows and its serialized body are not sampled at the same moment.  The
+ * times include the forced GCs, so only retainedMb is meant to be compared.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class StreamingHeapBenchmark {
+
+  private static final MemoryMXBean MEMORY = ManagementFactory.getMemoryMXBean();
+
+  // the response is also sampled each time this much more of it is written
+  private static final long SAMPLE_BYTES = 1024 * 1024;
+
+  @Param({ "users", "shifts" })
+  public String endpoint;
+
+  @Param({ "10000", "100000" })
+  public int rows;
+
+  private ConfigurableApplicationContext context;
+  private UsersController usersController;
+  private ShiftController shiftController;
+  private ShiftScheduleCache shiftScheduleCache;
+
+  // largest heap in use seen by sample() during the current request
+  private long peakBytes;
+
+  /** the parts of the application the two endpoints use */
+  @Configuration
+  @ImportAutoConfiguration({ DataSourceAutoConfiguration.class, DataSourceTransactionManagerAutoConfiguration.class,
+      JdbcTemplateAutoConfiguration.class, FlywayAutoConfiguration.class, HibernateJpaAutoConfiguration.class,
+      TransactionAutoConfiguration.class, JacksonAutoConfiguration.class })
+  @EntityScan("edu.ucsb.cs156.gauchoride.entities")
+  @EnableJpaRepositories("edu.ucsb.cs156.gauchoride.repositories")
+  @Import(ShiftScheduleCache.class)
+  static class Database {
+  }
+
+  @AuxCounters(AuxCounters.Type.EVENTS)
+  @State(Scope.Thread)
+  public static class Heap {
+    public double retainedMb;
+
+    @Setup(Level.Iteration)
+    public void reset() {
+      retainedMb = 0;
+    }
+  }
+
+  @Setup(Level.Trial)
+  public void setup() {
+    context = new SpringApplication(Database.class).run(
+        "--spring.main.web-application-type=none",
+        "--spring.datasource.url=jdbc:h2:mem:streaming;DB_CLOSE_DELAY=-1",
+        // measure the queries, not entities held by the second-level cache
+        "--spring.jpa.properties.hibernate.cache.use_second_level_cache=false",
+        "--spring.jpa.properties.hibernate.cache.use_query_cache=false",
+        "--logging.level.root=WARN");
+    insertRows(context.getBean(JdbcTemplate.class));
+
+    ObjectMapper mapper = context.getBean(ObjectMapper.class);
+    UserRepository userRepository = sampled(UserRepository.class, context.getBean(UserRepository.class));
+    ShiftRepository shiftRepository = sampled(ShiftRepository.class, context.getBean(ShiftRepository.class));
+
+    usersController = new UsersController();
+    ReflectionTestUtils.setField(usersController, "userRepository", userRepository);
+    ReflectionTestUtils.setField(usersController, "mapper", mapper);
+    ReflectionTestUtils.setField(usersController, "streamChunkSize", 500);
+
+    shiftScheduleCache = context.getBean(ShiftScheduleCache.class);
+    ReflectionTestUtils.setField(shiftScheduleCache, "shiftRepository", shiftRepository);
+    shiftController = new ShiftController();
+    ReflectionTestUtils.setField(shiftController, "shiftRepository", shiftRepository);
+    ReflectionTestUtils.setField(shiftController, "mapper", mapper);
+    ReflectionTestUtils.setField(shiftController, "shiftScheduleCache", shiftScheduleCache);
+    ReflectionTestUtils.setField(shiftController, "streamChunkSize", 500);
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    context.close();
+  }
+
+  private void insertRows(JdbcTemplate jdbc) {
+    String sql = endpoint.equals("users")
+        ? "INSERT INTO users (email, google_sub, picture_url, full_name, given_name, family_name, email_verified,"
+            + " locale, hosted_domain, driver, rider, admin) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, FALSE, FALSE)"
+        : "INSERT INTO shift (day_of_week, start_minute, end_minute, driverid, driver_backupid)"
+            + " VALUES (3, 480, 750, ?, ?)";
+    List<Object[]> batch = new ArrayList<>();
+    for (long id = 1; id <= rows; id++) {
+      if (endpoint.equals("users")) {
+        var user = Fixtures.user(id);
+        batch.add(new Object[] { user.getEmail(), user.getGoogleSub(), user.getPictureUrl(), user.getFullName(),
+            user.getGivenName(), user.getFamilyName(), user.getEmailVerified(), user.getLocale(),
+            user.getHostedDomain(), user.getDriver() });
+      } else {
+        batch.add(new Object[] { id % 40, (id + 1) % 40 });
+      }
+      if (batch.size() == 1000 || id == rows) {
+        jdbc.batchUpdate(sql, batch);
+        batch.clear();
+      }
+    }
+  }
+
+  /** the repository, with the heap sampled each time one of its methods returns */
+  @SuppressWarnings("unchecked")
+  private <T> T sampled(Class<T> type, T repository) {
+    return (T) Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[] { type },
+        (proxy, method, args) -> {
+          try {
+            Object result = method.invoke(repository, args);
+            sample();
+            return result;
+          } catch (InvocationTargetException e) {
+            throw e.getCause();
+          }
+        });
+  }
+
+  /** where the response is written to; discards the body */
+  private final OutputStream response = new OutputStream() {
+    private long unsampled;
+
+    @Override
+    public void write(int b) {
+      write(new byte[] { (byte) b }, 0, 1);
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) {
+      unsampled += len;
+      if (unsampled >= SAMPLE_BYTES) {
+        unsampled = 0;
+        sample();
+      }
+    }
+
+    @Override
+    public void flush() {
+      unsampled = 0;
+      sample();
+    }
+  };
+
+  private void sample() {
+    System.gc();
+    peakBytes = Math.max(peakBytes, MEMORY.getHeapMemoryUsage().getUsed());
+  }
+
+  private long startRequest() {
+    if (endpoint.equals("shifts")) {
+      // read the schedule again rather than serve the one cached by the last request
+      shiftScheduleCache.invalidate();
+    }
+    peakBytes = 0;
+    System.gc();
+    return MEMORY.getHeapMemoryUsage().getUsed();
+  }
+
+  private void endRequest(Heap heap, long baselineBytes) {
+    heap.retainedMb = Math.max(heap.retainedMb, (peakBytes - baselineBytes) / (1024.0 * 1024.0));
+  }
+
+  @Benchmark
+  public void buffered(Heap heap) throws IOException {
+    long baseline = startRequest();
+    if (endpoint.equals("users")) {
+      ResponseEntity<String> users = usersController.users();
+      response.write(users.getBody().getBytes(StandardCharsets.UTF_8));
+    } else {
+      ResponseEntity<byte[]> shifts = shiftController.allShifts(null, new MockHttpServletRequest());
+      response.write(shifts.getBody());
+    }
+    endRequest(heap, baseline);
+  }
+
+  @Benchmark
+  public void streamed(Heap heap) throws IOException {
+    long baseline = startRequest();
+    ResponseEntity<StreamingResponseBody> body = endpoint.equals("users")
+        ? usersController.usersStreamed()
+        : shiftController.allShiftsStreamed(new MockHttpServletRequest());
+    body.getBody().writeTo(response);
+    endRequest(heap, baseline);
+  }
+}
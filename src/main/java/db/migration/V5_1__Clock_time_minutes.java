@@ -0,0 +1,96 @@
+package db.migration;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+import org.flywaydb.core.api.migration.BaseJavaMigration;
+import org.flywaydb.core.api.migration.Context;
+
+import edu.ucsb.cs156.gauchoride.converters.ClockTimeConverter;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Fills in the start_minute and end_minute columns V5 added from the old
+ * text columns, e.g. '1:37PM' or ' 1:37 pm'.
+ *
+ * The times are parsed with ClockTimeConverter, so exactly the values the
+ * application accepts are converted.  A value it does not accept is left
+ * NULL and logged with the id of its row, as is a day V5 could not
+ * convert, so they can be corrected by hand; the migration still succeeds.
+ */
+
+@Slf4j
+public class V5_1__Clock_time_minutes extends BaseJavaMigration {
+
+  private static final int BATCH_SIZE = 500;
+
+  /** table, text column, minute column */
+  private static final String[][] TIME_COLUMNS = {
+      { "ride", "start_time", "start_minute" },
+      { "ride", "end_time", "end_minute" },
+      { "shift", "shift_start", "start_minute" },
+      { "shift", "shift_end", "end_minute" },
+  };
+
+  @Override
+  public void migrate(Context context) throws SQLException {
+    Connection connection = context.getConnection();
+    for (String[] column : TIME_COLUMNS) {
+      fillMinutes(connection, column[0], column[1], column[2]);
+    }
+    reportUnknownDays(connection, "ride");
+    reportUnknownDays(connection, "shift");
+  }
+
+  private void fillMinutes(Connection connection, String table, String textColumn, String minuteColumn)
+      throws SQLException {
+    String select = "SELECT id, %s FROM %s WHERE %s IS NULL AND %s IS NOT NULL"
+        .formatted(textColumn, table, minuteColumn, textColumn);
+    String update = "UPDATE %s SET %s = ? WHERE id = ?".formatted(table, minuteColumn);
+    int converted = 0;
+    int rejected = 0;
+    try (Statement statement = connection.createStatement();
+        ResultSet rs = statement.executeQuery(select);
+        PreparedStatement updateMinute = connection.prepareStatement(update)) {
+      int pending = 0;
+      while (rs.next()) {
+        long id = rs.getLong(1);
+        String time = rs.getString(2);
+        try {
+          updateMinute.setInt(1, ClockTimeConverter.toMinuteOfDay(time));
+        } catch (IllegalArgumentException e) {
+          log.warn("{} {} has {} '{}', which is not a clock time; {} is left empty",
+              table, id, textColumn, time, minuteColumn);
+          rejected++;
+          continue;
+        }
+        updateMinute.setLong(2, id);
+        updateMinute.addBatch();
+        converted++;
+        if (++pending == BATCH_SIZE) {
+          updateMinute.executeBatch();
+          pending = 0;
+        }
+      }
+      if (pending > 0) {
+        updateMinute.executeBatch();
+      }
+    }
+    log.info("Converted {} {}.{} values to minutes; {} could not be converted", converted, table, textColumn,
+        rejected);
+  }
+
+  private void reportUnknownDays(Connection connection, String table) throws SQLException {
+    String select = "SELECT id, day FROM %s WHERE day_of_week IS NULL AND day IS NOT NULL".formatted(table);
+    try (Statement statement = connection.createStatement();
+        ResultSet rs = statement.executeQuery(select)) {
+      while (rs.next()) {
+        log.warn("{} {} has day '{}', which is not the name of a day; day_of_week is left empty",
+            table, rs.getLong(1), rs.getString(2));
+      }
+    }
+  }
+}
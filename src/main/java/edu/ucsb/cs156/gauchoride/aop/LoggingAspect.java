@@ -2,7 +2,6 @@ package edu.ucsb.cs156.gauchoride.aop;
 
 import lombok.extern.slf4j.Slf4j;
 import org.aspectj.lang.JoinPoint;
-import org.aspectj.lang.ProceedingJoinPoint;
 import org.aspectj.lang.annotation.Aspect;
 import org.aspectj.lang.annotation.Before;
 import org.springframework.stereotype.Component;
@@ -11,16 +10,14 @@ import org.springframework.web.context.request.ServletRequestAttributes;
 
 import javax.servlet.http.HttpServletRequest;
 
-import java.util.ArrayList;
-import java.util.Arrays;
-import java.util.Optional;
+import java.util.Set;
 
 @Slf4j
 @Aspect
 @Component
 public class LoggingAspect {
   // language=PointcutExpression
-  private static final String pointcut = """
+  static final String pointcut = """
       @annotation(org.springframework.web.bind.annotation.RequestMapping) ||
       @annotation(org.springframework.web.bind.annotation.GetMapping) ||
       @annotation(org.springframework.web.bind.annotation.PostMapping) ||
@@ -29,25 +26,23 @@ public class LoggingAspect {
       @annotation(org.springframework.web.bind.annotation.PatchMapping)
       """;
 
-  private ArrayList<String> stoplist = new ArrayList<String>(Arrays.asList(
-      "edu.ucsb.cs156.gauchoride.controllers.FrontendProxyController"));
+  // handlers that are not logged (e.g. the dev proxy, which serves every frontend asset)
+  private static final Set<String> STOPLIST = Set.of(
+      "edu.ucsb.cs156.gauchoride.controllers.FrontendProxyController");
 
   @Before(pointcut)
   public void logControllers(JoinPoint joinPoint) {
-    getCurrentHttpRequest().ifPresent(
-        request -> {
-          String declaringTypeName = joinPoint.getSignature().getDeclaringTypeName();
-          if (!stoplist.contains(declaringTypeName)) {
-            log.info("===== %s %s handled by %s in %s".formatted(request.getMethod(), request.getRequestURI(),
-                joinPoint.getSignature().getName(), declaringTypeName));
-          }
-        });
-  }
-
-  private static Optional<HttpServletRequest> getCurrentHttpRequest() {
-    return Optional.ofNullable(RequestContextHolder.getRequestAttributes())
-        .filter(ServletRequestAttributes.class::isInstance)
-        .map(ServletRequestAttributes.class::cast)
-        .map(ServletRequestAttributes::getRequest);
+    // check the level first so nothing is computed when the line would be dropped
+    if (!log.isInfoEnabled()) {
+      return;
+    }
+    String declaringTypeName = joinPoint.getSignature().getDeclaringTypeName();
+    if (STOPLIST.contains(declaringTypeName)
+        || !(RequestContextHolder.getRequestAttributes() instanceof ServletRequestAttributes attributes)) {
+      return;
+    }
+    HttpServletRequest request = attributes.getRequest();
+    log.info("===== {} {} handled by {} in {}", request.getMethod(), request.getRequestURI(),
+        joinPoint.getSignature().getName(), declaringTypeName);
   }
 }
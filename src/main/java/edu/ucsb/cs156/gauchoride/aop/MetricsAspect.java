@@ -0,0 +1,67 @@
+package edu.ucsb.cs156.gauchoride.aop;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+/**
+ * Times every controller method (the same methods LoggingAspect logs) as
+ * gauchoride.controller, tagged with the controller, the method and the
+ * exception thrown, if any.  The timer's count doubles as a call counter and
+ * the exception tag as an error counter; percentiles are configured in
+ * application.properties.
+ *
+ * HTTP request timings (http.server.requests), repository call timings
+ * (spring.data.repository.invocations) and connection pool usage
+ * (hikaricp.connections.*) are recorded by Spring Boot itself.
+ *
+ * Each timer is built and registered once, on its first call, and looked up
+ * in a map after that.
+ */
+
+@Aspect
+@Component
+public class MetricsAspect {
+
+  static final String TIMER_NAME = "gauchoride.controller";
+
+  @Autowired
+  MeterRegistry meterRegistry;
+
+  private record TimerKey(Class<?> controller, String method, Class<? extends Throwable> exception) {
+  }
+
+  private final Map<TimerKey, Timer> timers = new ConcurrentHashMap<>();
+
+  @Around(LoggingAspect.pointcut)
+  public Object timeControllers(ProceedingJoinPoint joinPoint) throws Throwable {
+    Timer.Sample sample = Timer.start(meterRegistry);
+    Class<? extends Throwable> exception = null;
+    try {
+      return joinPoint.proceed();
+    } catch (Throwable t) {
+      exception = t.getClass();
+      throw t;
+    } finally {
+      sample.stop(timers.computeIfAbsent(
+          new TimerKey(joinPoint.getSignature().getDeclaringType(), joinPoint.getSignature().getName(), exception),
+          this::timer));
+    }
+  }
+
+  private Timer timer(TimerKey key) {
+    return Timer.builder(TIMER_NAME)
+        .description("Time spent in controller methods")
+        .tag("controller", key.controller().getSimpleName())
+        .tag("method", key.method())
+        .tag("exception", key.exception() == null ? "none" : key.exception().getSimpleName())
+        .register(meterRegistry);
+  }
+}
@@ -0,0 +1,97 @@
+package edu.ucsb.cs156.gauchoride.config;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.List;
+import java.util.OptionalLong;
+import java.util.UUID;
+
+import javax.cache.CacheManager;
+import javax.cache.Caching;
+
+import org.hibernate.cache.jcache.ConfigSettings;
+import org.hibernate.cache.spi.RegionFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import com.github.benmanes.caffeine.jcache.configuration.CaffeineConfiguration;
+import com.github.benmanes.caffeine.jcache.spi.CaffeineCachingProvider;
+
+/**
+ * Hibernate second-level cache regions, kept in Caffeine through JCache.
+ *
+ * Users (read on every request to resolve roles) and shifts (read by every
+ * schedule page and the dispatcher) are cached as entities; the results of
+ * UserRepository.findByEmail and ShiftRepository.findAll are cached as
+ * queries.  Hibernate updates or evicts these entries itself whenever a user
+ * or shift is saved or deleted through JPA, and drops cached query results
+ * as soon as the table they read is written.  Writes that bypass JPA (the
+ * bulk import) are handled by EntityCacheService.
+ *
+ * Users expire after app.entityCache.usersExpireAfterWriteSeconds, no later
+ * than the roles RoleInterceptor caches from them, so a role changed outside
+ * this node is seen within the same window.
+ */
+
+@Configuration
+public class HibernateCacheConfig {
+
+  public static final String USERS_REGION = "users";
+  public static final String SHIFTS_REGION = "shifts";
+  public static final String USERS_BY_EMAIL_REGION = "users-by-email";
+  public static final String ALL_SHIFTS_REGION = "all-shifts";
+
+  public static final List<String> ENTITY_REGIONS = List.of(USERS_REGION, SHIFTS_REGION);
+  public static final List<String> QUERY_REGIONS = List.of(USERS_BY_EMAIL_REGION, ALL_SHIFTS_REGION);
+
+  @Value("${app.entityCache.maximumSize:10000}")
+  private long maximumSize;
+
+  @Value("${app.entityCache.expireAfterWriteSeconds:3600}")
+  private long expireAfterWriteSeconds;
+
+  @Value("${app.entityCache.usersExpireAfterWriteSeconds:300}")
+  private long usersExpireAfterWriteSeconds;
+
+  @Bean
+  public HibernatePropertiesCustomizer entityCacheManager() {
+    // a cache manager of our own, so that each application context gets
+    // its own regions
+    CacheManager cacheManager = Caching.getCachingProvider(CaffeineCachingProvider.class.getName())
+        .getCacheManager(URI.create("gauchoride:hibernate:" + UUID.randomUUID()), getClass().getClassLoader());
+
+    for (String region : ENTITY_REGIONS) {
+      cacheManager.createCache(region, region(OptionalLong.of(maximumSize), expireAfterWriteSeconds(region)));
+    }
+    for (String region : QUERY_REGIONS) {
+      cacheManager.createCache(region, region(OptionalLong.of(maximumSize), expireAfterWriteSeconds(region)));
+    }
+    cacheManager.createCache(RegionFactory.DEFAULT_QUERY_RESULTS_REGION_UNQUALIFIED_NAME,
+        region(OptionalLong.of(maximumSize), expireAfterWriteSeconds));
+    // one entry per table; evicting one would make cached queries on that
+    // table look current when they may not be
+    cacheManager.createCache(RegionFactory.DEFAULT_UPDATE_TIMESTAMPS_REGION_UNQUALIFIED_NAME,
+        region(OptionalLong.empty(), expireAfterWriteSeconds));
+
+    return properties -> properties.put(ConfigSettings.CACHE_MANAGER, cacheManager);
+  }
+
+  private long expireAfterWriteSeconds(String region) {
+    return region.equals(USERS_REGION) || region.equals(USERS_BY_EMAIL_REGION)
+        ? usersExpireAfterWriteSeconds
+        : expireAfterWriteSeconds;
+  }
+
+  private CaffeineConfiguration<Object, Object> region(OptionalLong maximumSize, long expireAfterWriteSeconds) {
+    CaffeineConfiguration<Object, Object> configuration = new CaffeineConfiguration<>();
+    configuration.setMaximumSize(maximumSize);
+    if (maximumSize.isPresent()) {
+      configuration.setExpireAfterWrite(OptionalLong.of(Duration.ofSeconds(expireAfterWriteSeconds).toNanos()));
+    }
+    // Hibernate stores its own disassembled copies; no need to copy again
+    configuration.setStoreByValue(false);
+    return configuration;
+  }
+}
@@ -0,0 +1,102 @@
+package edu.ucsb.cs156.gauchoride.config;
+
+import java.io.IOException;
+import java.time.Duration;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.filter.ShallowEtagHeaderFilter;
+import org.springframework.web.servlet.config.annotation.ResourceHandlerRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+import org.springframework.web.servlet.resource.EncodedResourceResolver;
+import org.springframework.web.servlet.resource.PathResourceResolver;
+
+/**
+ * HTTP caching for the frontend and for the larger JSON lists.
+ *
+ * The production build of the frontend puts its bundles under /static with a
+ * content hash in every file name, so they can be cached for a year and never
+ * revalidated (immutable); index.html refers to the current bundles, so it must always be
+ * revalidated.  Pre-compressed .br/.gz copies written by the frontend build
+ * are served to clients that accept them.
+ *
+ * The JSON lists get an ETag computed from the response body; a client that
+ * sends it back in If-None-Match gets a 304 with no body when nothing changed.
+ */
+
+@Configuration
+public class HttpCachingConfig implements WebMvcConfigurer {
+
+  static final String[] ETAG_PATHS = { "/api/shift/all", "/api/ride_request/all" };
+
+  @Value("${app.http.staticMaxAgeDays:365}")
+  private long staticMaxAgeDays;
+
+  @Override
+  public void addResourceHandlers(ResourceHandlerRegistry registry) {
+    registry.addResourceHandler("/static/**")
+        .addResourceLocations("classpath:/public/static/")
+        .setCacheControl(immutable(CacheControl.maxAge(Duration.ofDays(staticMaxAgeDays)).cachePublic()))
+        .resourceChain(true)
+        .addResolver(new EncodedResourceResolver())
+        .addResolver(new PathResourceResolver());
+    registry.addResourceHandler("/index.html")
+        .addResourceLocations("classpath:/public/")
+        .setCacheControl(CacheControl.noCache())
+        .resourceChain(true)
+        .addResolver(new EncodedResourceResolver())
+        .addResolver(new PathResourceResolver());
+  }
+
+  /**
+   * @param cacheControl directives for a resource that never changes
+   * @return the same directives followed by immutable, which Spring 5.3's
+   *         CacheControl has no method for
+   */
+  static CacheControl immutable(CacheControl cacheControl) {
+    return new CacheControl() {
+      @Override
+      public String getHeaderValue() {
+        return cacheControl.getHeaderValue() + ", immutable";
+      }
+    };
+  }
+
+  @Bean
+  public FilterRegistrationBean<ShallowEtagHeaderFilter> etagFilter() {
+    FilterRegistrationBean<ShallowEtagHeaderFilter> registration = new FilterRegistrationBean<>(new ApiEtagFilter());
+    registration.addUrlPatterns(ETAG_PATHS);
+    registration.setName("apiEtagFilter");
+    return registration;
+  }
+
+  /**
+   * Adds a weak ETag (the body may be compressed on the way out) and lets the
+   * browser keep the response, but only for this user and only after checking
+   * the ETag with the server.  Spring Security's default no-store header is
+   * only written when no Cache-Control header is present.
+   */
+  static class ApiEtagFilter extends ShallowEtagHeaderFilter {
+    ApiEtagFilter() {
+      setWriteWeakETag(true);
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
+        FilterChain filterChain) throws ServletException, IOException {
+      if (!isAsyncDispatch(request)) {
+        response.setHeader(HttpHeaders.CACHE_CONTROL, CacheControl.noCache().cachePrivate().getHeaderValue());
+      }
+      super.doFilterInternal(request, response, filterChain);
+    }
+  }
+}
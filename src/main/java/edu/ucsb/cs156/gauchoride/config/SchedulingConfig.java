@@ -0,0 +1,16 @@
+package edu.ucsb.cs156.gauchoride.config;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * Runs the @Scheduled methods of the services (e.g. the change feed
+ * heartbeat).  Set app.scheduling.enabled=false to turn them all off.
+ */
+
+@Configuration
+@EnableScheduling
+@ConditionalOnProperty(name = "app.scheduling.enabled", havingValue = "true", matchIfMissing = true)
+public class SchedulingConfig {
+}
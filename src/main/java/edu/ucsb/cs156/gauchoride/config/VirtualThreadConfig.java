@@ -0,0 +1,68 @@
+package edu.ucsb.cs156.gauchoride.config;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.apache.coyote.ProtocolHandler;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.task.TaskExecutionAutoConfiguration;
+import org.springframework.boot.web.embedded.tomcat.TomcatProtocolHandlerCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.support.TaskExecutorAdapter;
+import org.springframework.scheduling.annotation.AsyncAnnotationBeanPostProcessor;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Opt-in (app.virtualThreads.enabled=true): serve requests on Java 21
+ * virtual threads instead of Tomcat's pool of platform threads, and run
+ * Spring's async tasks (e.g. the ?stream=true response bodies) on them too.
+ *
+ * Requests spend most of their time blocked in JPA calls or, through
+ * FrontendProxyController, in HTTP calls; a blocked virtual thread costs a
+ * little heap instead of one of a fixed number of pool threads.  The
+ * database connection pool still limits how many requests use the database
+ * at once.
+ *
+ * The application is compiled for Java 17 unless built with -P jdk21, so the
+ * executor is created reflectively; enabling this on an older JVM stops the
+ * application at startup.
+ */
+
+@Slf4j
+@Configuration
+@ConditionalOnProperty(name = "app.virtualThreads.enabled", havingValue = "true")
+public class VirtualThreadConfig {
+
+  @Bean(destroyMethod = "shutdown")
+  public ExecutorService virtualThreadExecutor() {
+    ExecutorService executor = newVirtualThreadPerTaskExecutor();
+    log.info("Serving requests on virtual threads");
+    return executor;
+  }
+
+  @Bean
+  public TomcatProtocolHandlerCustomizer<ProtocolHandler> virtualThreadProtocolHandler(
+      ExecutorService virtualThreadExecutor) {
+    return protocolHandler -> protocolHandler.setExecutor(virtualThreadExecutor);
+  }
+
+  @Bean(name = { TaskExecutionAutoConfiguration.APPLICATION_TASK_EXECUTOR_BEAN_NAME,
+      AsyncAnnotationBeanPostProcessor.DEFAULT_TASK_EXECUTOR_BEAN_NAME })
+  public AsyncTaskExecutor applicationTaskExecutor(ExecutorService virtualThreadExecutor) {
+    return new TaskExecutorAdapter(virtualThreadExecutor);
+  }
+
+  static ExecutorService newVirtualThreadPerTaskExecutor() {
+    try {
+      return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+    } catch (NoSuchMethodException e) {
+      throw new IllegalStateException(
+          "app.virtualThreads.enabled needs Java 21 or later; running on Java %s".formatted(Runtime.version()));
+    } catch (ReflectiveOperationException e) {
+      throw new IllegalStateException("Could not create a virtual thread executor", e);
+    }
+  }
+}
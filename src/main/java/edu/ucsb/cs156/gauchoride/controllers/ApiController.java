@@ -3,17 +3,40 @@ package edu.ucsb.cs156.gauchoride.controllers;
 import net.bytebuddy.implementation.bytecode.Throw;
 import org.springframework.beans.factory.annotation.Autowired;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.ResponseStatus;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import edu.ucsb.cs156.gauchoride.converters.ClockTimeConverter;
+import edu.ucsb.cs156.gauchoride.converters.DayOfWeekConverter;
+import edu.ucsb.cs156.gauchoride.errors.BadRequestException;
 import edu.ucsb.cs156.gauchoride.errors.EntityNotFoundException;
+import edu.ucsb.cs156.gauchoride.errors.IdempotencyKeyReusedException;
+import edu.ucsb.cs156.gauchoride.errors.PreconditionFailedException;
+import edu.ucsb.cs156.gauchoride.errors.RequestInProgressException;
+import edu.ucsb.cs156.gauchoride.errors.ScheduleConflictException;
 import edu.ucsb.cs156.gauchoride.models.CurrentUser;
 import edu.ucsb.cs156.gauchoride.services.CurrentUserService;
 
 import java.nio.file.AccessDeniedException;
+import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.function.BiFunction;
+import java.util.function.ToLongFunction;
 
 /**
  * Base class for all API controllers.
@@ -24,6 +47,9 @@ import java.util.Map;
 
 @Slf4j
 public abstract class ApiController {
+  protected static final SimpleGrantedAuthority ROLE_ADMIN = new SimpleGrantedAuthority("ROLE_ADMIN");
+  protected static final SimpleGrantedAuthority ROLE_DRIVER = new SimpleGrantedAuthority("ROLE_DRIVER");
+
   @Autowired
   private CurrentUserService currentUserService;
 
@@ -37,6 +63,17 @@ public abstract class ApiController {
     return currentUserService.getCurrentUser();
   }
 
+  /**
+   * Whether a user may see every rider's rides, not only their own
+   * 
+   * @param currentUser the user
+   * @return true for admins and drivers
+   */
+
+  protected boolean isAdminOrDriver(CurrentUser currentUser) {
+    return currentUser.getRoles().contains(ROLE_ADMIN) || currentUser.getRoles().contains(ROLE_DRIVER);
+  }
+
   /**
    * This creates a plain old java object that can be returned as a JSON response
    * 
@@ -47,6 +84,99 @@ public abstract class ApiController {
     return Map.of("message", message);
   }
 
+  /**
+   * Checks a day and a time range before they are stored; days and times are
+   * kept in typed database columns, so values that cannot be converted are
+   * rejected here with a 400 instead of failing when the entity is saved.
+   * 
+   * @param day   day name, e.g. "Tuesday"
+   * @param start start time, e.g. "11:00AM"
+   * @param end   end time, e.g. "1:37PM"
+   * @throws BadRequestException if a value is malformed or end is not after
+   *                             start
+   */
+  protected void checkDayAndTimes(String day, String start, String end) {
+    DayOfWeekConverter.parse(day);
+    ClockTimeConverter.checkRange(start, end);
+  }
+
+  /**
+   * Checks the If-Match header of a conditional update against the current
+   * version of the record, which is its ETag (see withETag).  Without the
+   * header the update goes ahead; an update based on a stale read is still
+   * caught by the record's @Version column when it is saved.
+   * 
+   * @param ifMatch    the If-Match header, or null
+   * @param entityType type of the record
+   * @param id         id of the record
+   * @param version    current version of the record
+   * @throws PreconditionFailedException if the header names only other
+   *                                     versions
+   */
+  protected void checkIfMatch(String ifMatch, Class<?> entityType, long id, long version) {
+    if (ifMatch == null) {
+      return;
+    }
+    String current = "\"%d\"".formatted(version);
+    for (String tag : ifMatch.split(",")) {
+      // weak tags (W/"3") never match: If-Match uses strong comparison
+      if (tag.trim().equals("*") || tag.trim().equals(current)) {
+        return;
+      }
+    }
+    throw new PreconditionFailedException(entityType, id, version);
+  }
+
+  /**
+   * A 200 response whose ETag is the version of the record, for clients to
+   * send back in If-Match when they update it
+   * 
+   * @param body    the record
+   * @param version its version
+   * @return the response
+   */
+  protected <T> ResponseEntity<T> withETag(T body, long version) {
+    return ResponseEntity.ok().eTag(Long.toString(version)).body(body);
+  }
+
+  /**
+   * Writes a JSON array to the response while reading its rows from the
+   * database, instead of building the whole body in memory.
+   * 
+   * Rows are read chunkSize at a time with keyset pagination (each chunk
+   * starts after the id of the last row of the previous one), so only one
+   * chunk is in memory at any time and no transaction is held open while
+   * the client is reading.
+   * 
+   * @param mapper    the ObjectMapper used to serialize each row
+   * @param nextChunk returns up to pageable.getPageSize() rows with id greater
+   *                  than the given id, in id order
+   * @param idOf      returns the id of a row
+   * @param chunkSize number of rows to read per query
+   * @return a body that Spring MVC writes asynchronously
+   */
+  protected <T> StreamingResponseBody streamJsonArray(ObjectMapper mapper,
+      BiFunction<Long, Pageable, List<T>> nextChunk, ToLongFunction<T> idOf, int chunkSize) {
+    ObjectWriter writer = mapper.writer().without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+    return outputStream -> {
+      JsonGenerator generator = mapper.getFactory().createGenerator(outputStream);
+      generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+      generator.writeStartArray();
+      long afterId = 0L;
+      List<T> chunk;
+      do {
+        chunk = nextChunk.apply(afterId, PageRequest.of(0, chunkSize));
+        for (T row : chunk) {
+          writer.writeValue(generator, row);
+          afterId = idOf.applyAsLong(row);
+        }
+        generator.flush();
+      } while (chunk.size() == chunkSize);
+      generator.writeEndArray();
+      generator.close();
+    };
+  }
+
   /**
    * This catches any EntityNotFoundExceptions and returns a 404 (NOT_FOUND)
    * response
@@ -60,4 +190,100 @@ public abstract class ApiController {
         "type", e.getClass().getSimpleName(),
         "message", e.getMessage());
   }
+
+  /**
+   * This catches any BadRequestExceptions (e.g. a malformed cursor or
+   * request parameter) and returns a 400 (BAD_REQUEST) response; any other
+   * IllegalArgumentException is a bug and stays a 500
+   * 
+   * @return a Map object that can be returned as a JSON response
+   */
+  @ExceptionHandler({ BadRequestException.class })
+  @ResponseStatus(HttpStatus.BAD_REQUEST)
+  public Object handleBadRequestException(BadRequestException e) {
+    return Map.of(
+        "type", e.getClass().getSimpleName(),
+        "message", Objects.requireNonNullElse(e.getMessage(), ""));
+  }
+
+  /**
+   * This catches any ScheduleConflictExceptions and returns a 409 (CONFLICT)
+   * response that includes the record the request overlaps
+   * 
+   * @return a Map object that can be returned as a JSON response
+   */
+  @ExceptionHandler({ ScheduleConflictException.class })
+  @ResponseStatus(HttpStatus.CONFLICT)
+  public Object handleScheduleConflictException(ScheduleConflictException e) {
+    return Map.of(
+        "type", e.getClass().getSimpleName(),
+        "message", e.getMessage(),
+        "conflict", e.getConflict());
+  }
+
+  /**
+   * This catches any RequestInProgressExceptions (a repeated request whose
+   * first attempt has not finished) and returns a 409 (CONFLICT) response
+   * 
+   * @return a Map object that can be returned as a JSON response
+   */
+  @ExceptionHandler({ RequestInProgressException.class })
+  @ResponseStatus(HttpStatus.CONFLICT)
+  public Object handleRequestInProgressException(Throwable e) {
+    return Map.of(
+        "type", e.getClass().getSimpleName(),
+        "message", e.getMessage());
+  }
+
+  /**
+   * This catches any IdempotencyKeyReusedExceptions (an Idempotency-Key sent
+   * with a different request than the first time) and returns a 422
+   * (UNPROCESSABLE_ENTITY) response
+   * 
+   * @return a Map object that can be returned as a JSON response
+   */
+  @ExceptionHandler({ IdempotencyKeyReusedException.class })
+  @ResponseStatus(HttpStatus.UNPROCESSABLE_ENTITY)
+  public Object handleIdempotencyKeyReusedException(Throwable e) {
+    return Map.of(
+        "type", e.getClass().getSimpleName(),
+        "message", e.getMessage());
+  }
+
+  /**
+   * This catches any PreconditionFailedExceptions (an If-Match header that
+   * does not match the record any more) and returns a 412
+   * (PRECONDITION_FAILED) response
+   * 
+   * @return a Map object that can be returned as a JSON response
+   */
+  @ExceptionHandler({ PreconditionFailedException.class })
+  @ResponseStatus(HttpStatus.PRECONDITION_FAILED)
+  public Object handlePreconditionFailedException(Throwable e) {
+    return Map.of(
+        "type", e.getClass().getSimpleName(),
+        "message", e.getMessage());
+  }
+
+  /**
+   * This catches any OptimisticLockingFailureExceptions (a record changed by
+   * another request between reading and saving it) and returns a 409
+   * (CONFLICT) response; the client should read the record again
+   * 
+   * @return a Map object that can be returned as a JSON response
+   */
+  @ExceptionHandler({ OptimisticLockingFailureException.class })
+  @ResponseStatus(HttpStatus.CONFLICT)
+  public Object handleOptimisticLockingFailureException(OptimisticLockingFailureException e) {
+    String message = "The record was changed by another request";
+    if (e instanceof ObjectOptimisticLockingFailureException objectFailure
+        && objectFailure.getPersistentClassName() != null) {
+      String entity = objectFailure.getPersistentClassName();
+      message = "%s with id %s was changed by another request"
+          .formatted(entity.substring(entity.lastIndexOf('.') + 1), objectFailure.getIdentifier());
+    }
+    return Map.of(
+        "type", e.getClass().getSimpleName(),
+        "message", message);
+  }
 }
@@ -0,0 +1,57 @@
+package edu.ucsb.cs156.gauchoride.controllers;
+
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import edu.ucsb.cs156.gauchoride.entities.Ride;
+import edu.ucsb.cs156.gauchoride.entities.Shift;
+import edu.ucsb.cs156.gauchoride.models.ImportReport;
+import edu.ucsb.cs156.gauchoride.services.BulkImportService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+
+@Tag(name = "Bulk import (admin only)")
+@RequestMapping("/api/admin/import")
+@RestController
+public class BulkImportController extends ApiController {
+
+    private static final String TEXT_CSV = "text/csv";
+
+    @Autowired
+    BulkImportService bulkImportService;
+
+    @Operation(summary = "Create many rides from a JSON array of rides")
+    @PreAuthorize("hasRole('ROLE_ADMIN')")
+    @PostMapping(value = "/rides", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public ImportReport importRides(@RequestBody List<Ride> rides) {
+        return bulkImportService.importRides(rides);
+    }
+
+    @Operation(summary = "Create many rides from CSV with a header line, e.g. riderId,student,day,startTime,endTime,pickupLocation,pickupRoom,dropoffLocation,dropoffRoom,course,notes")
+    @PreAuthorize("hasRole('ROLE_ADMIN')")
+    @PostMapping(value = "/rides", consumes = TEXT_CSV)
+    public ImportReport importRidesCsv(@RequestBody String csv) {
+        return bulkImportService.importRides(bulkImportService.parseCsv(csv, Ride.class));
+    }
+
+    @Operation(summary = "Create many shifts from a JSON array of shifts")
+    @PreAuthorize("hasRole('ROLE_ADMIN')")
+    @PostMapping(value = "/shifts", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public ImportReport importShifts(@RequestBody List<Shift> shifts) {
+        return bulkImportService.importShifts(shifts);
+    }
+
+    @Operation(summary = "Create many shifts from CSV with a header line, e.g. day,shiftStart,shiftEnd,driverID,driverBackupID")
+    @PreAuthorize("hasRole('ROLE_ADMIN')")
+    @PostMapping(value = "/shifts", consumes = TEXT_CSV)
+    public ImportReport importShiftsCsv(@RequestBody String csv) {
+        return bulkImportService.importShifts(bulkImportService.parseCsv(csv, Shift.class));
+    }
+}
@@ -0,0 +1,51 @@
+package edu.ucsb.cs156.gauchoride.controllers;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import edu.ucsb.cs156.gauchoride.models.CurrentUser;
+import edu.ucsb.cs156.gauchoride.services.ChangeFeedService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.tags.Tag;
+
+@Tag(name = "Change feed")
+@RequestMapping("/api/changes")
+@RestController
+public class ChangeFeedController extends ApiController {
+
+    @Autowired
+    ChangeFeedService changeFeedService;
+
+    @Value("${app.changes.timeoutMillis:1800000}")
+    long timeoutMillis;
+
+    @Operation(summary = "Server-sent events for ride and shift changes; rides are only the user's own if not admin/driver")
+    @PreAuthorize("hasRole('ROLE_ADMIN') || hasRole('ROLE_DRIVER') || hasRole('ROLE_USER')")
+    @GetMapping(value = "", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter changes(
+            @Parameter(name="rides", description="boolean, send ride changes", example="true", required = false)
+            @RequestParam(defaultValue = "true") boolean rides,
+
+            @Parameter(name="shifts", description="boolean, send shift changes", example="true", required = false)
+            @RequestParam(defaultValue = "true") boolean shifts,
+
+            @Parameter(name="mine", description="boolean, only changes to the user's own rides (admin/driver)", example="false", required = false)
+            @RequestParam(defaultValue = "false") boolean mine) {
+
+        CurrentUser currentUser = getCurrentUser();
+        boolean allRides = !mine && isAdminOrDriver(currentUser);
+
+        SseEmitter emitter = new SseEmitter(timeoutMillis);
+        changeFeedService.subscribe(emitter,
+                new ChangeFeedService.Filter(rides, shifts, allRides, currentUser.getUser().getId()));
+        return emitter;
+    }
+}
@@ -0,0 +1,34 @@
+package edu.ucsb.cs156.gauchoride.controllers;
+
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import edu.ucsb.cs156.gauchoride.models.RideAssignment;
+import edu.ucsb.cs156.gauchoride.services.DispatchService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.tags.Tag;
+
+@Tag(name = "Dispatch")
+@RequestMapping("/api/dispatch")
+@RestController
+public class DispatchController extends ApiController {
+
+    @Autowired
+    DispatchService dispatchService;
+
+    @Operation(summary = "List the shift and driver assigned to each ride on a day")
+    @PreAuthorize("hasRole('ROLE_ADMIN') || hasRole('ROLE_DRIVER')")
+    @GetMapping("/assignments")
+    public List<RideAssignment> assignments(
+            @Parameter(name="day", description="String, day of the week", example="Tuesday", required = true)
+            @RequestParam String day) {
+        return dispatchService.getAssignments(day);
+    }
+}
@@ -0,0 +1,32 @@
+package edu.ucsb.cs156.gauchoride.controllers;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import edu.ucsb.cs156.gauchoride.models.DriverManifest;
+import edu.ucsb.cs156.gauchoride.services.DriverManifestService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.tags.Tag;
+
+@Tag(name = "Driver manifest")
+@RequestMapping("/api/driver")
+@RestController
+public class DriverManifestController extends ApiController {
+
+    @Autowired
+    DriverManifestService driverManifestService;
+
+    @Operation(summary = "List the current driver's stops on a day, in pickup order")
+    @PreAuthorize("hasRole('ROLE_ADMIN') || hasRole('ROLE_DRIVER')")
+    @GetMapping("/manifest")
+    public DriverManifest manifest(
+            @Parameter(name="day", description="String, day of the week", example="Tuesday", required = true)
+            @RequestParam String day) {
+        return driverManifestService.getManifest(getCurrentUser().getUser().getId(), day);
+    }
+}
@@ -1,28 +1,41 @@
 package edu.ucsb.cs156.gauchoride.controllers;
 
+import edu.ucsb.cs156.gauchoride.converters.DayOfWeekConverter;
 import edu.ucsb.cs156.gauchoride.entities.Ride;
+import edu.ucsb.cs156.gauchoride.entities.User;
 import edu.ucsb.cs156.gauchoride.errors.EntityNotFoundException;
+import edu.ucsb.cs156.gauchoride.models.CurrentUser;
+import edu.ucsb.cs156.gauchoride.models.CursorPage;
+import edu.ucsb.cs156.gauchoride.models.RideSummary;
 import edu.ucsb.cs156.gauchoride.repositories.RideRepository;
+import edu.ucsb.cs156.gauchoride.services.IdempotencyService;
+import edu.ucsb.cs156.gauchoride.services.ScheduleConflictService;
 
 import io.swagger.v3.oas.annotations.tags.Tag;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
-import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.oauth2.jwt.NimbusReactiveJwtDecoder.SecretKeyReactiveJwtDecoderBuilder;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
 import javax.validation.Valid;
 
+import java.util.List;
+import java.util.function.Supplier;
+
 
 @Tag(name = "Ride Request")
 @RequestMapping("/api/ride_request")
@@ -33,41 +46,117 @@ public class RideController extends ApiController {
     @Autowired
     RideRepository rideRepository;
 
+    @Autowired
+    ScheduleConflictService scheduleConflictService;
+
+    @Autowired
+    IdempotencyService idempotencyService;
+
+    @Value("${app.rides.defaultPageSize:50}")
+    int defaultPageSize;
+
+    @Value("${app.rides.maxPageSize:500}")
+    int maxPageSize;
+
     @Operation(summary = "List all rides, only user's if not admin/driver")
     @PreAuthorize("hasRole('ROLE_ADMIN') || hasRole('ROLE_DRIVER') || hasRole('ROLE_USER')")
     @GetMapping("/all")
     public Iterable<Ride> allRides() {
         Iterable<Ride> rides;
+        CurrentUser currentUser = getCurrentUser();
 
-        if (getCurrentUser().getRoles().contains(new SimpleGrantedAuthority("ROLE_ADMIN")) ||
-            getCurrentUser().getRoles().contains(new SimpleGrantedAuthority("ROLE_DRIVER"))) {
+        if (isAdminOrDriver(currentUser)) {
             rides = rideRepository.findAll();
         } else {
-            rides = rideRepository.findAllByRiderId(getCurrentUser().getUser().getId());
+            rides = rideRepository.findAllByRiderId(currentUser.getUser().getId());
         }
 
         return rides;
     }
 
+    @Operation(summary = "List all rides without their notes, only user's if not admin/driver")
+    @PreAuthorize("hasRole('ROLE_ADMIN') || hasRole('ROLE_DRIVER') || hasRole('ROLE_USER')")
+    @GetMapping(value = "/all", params = "view=summary")
+    public List<RideSummary> allRideSummaries() {
+        CurrentUser currentUser = getCurrentUser();
+
+        if (isAdminOrDriver(currentUser)) {
+            return rideRepository.findAllSummaries();
+        }
+        return rideRepository.findSummariesByRiderId(currentUser.getUser().getId());
+    }
+
+    @Operation(summary = "List rides one page at a time (keyset pagination), only user's if not admin/driver")
+    @PreAuthorize("hasRole('ROLE_ADMIN') || hasRole('ROLE_DRIVER') || hasRole('ROLE_USER')")
+    @GetMapping("/page")
+    public CursorPage<Ride> pageOfRides(
+            @Parameter(name="cursor", description="String, nextCursor from the previous page; omit for the first page", required = false)
+            @RequestParam(required = false) String cursor,
+
+            @Parameter(name="size", description="int, maximum number of rides to return", example="50", required = false)
+            @RequestParam(required = false) Integer size,
+
+            @Parameter(name="day", description="String, only rides on this day", example="Tuesday", required = false)
+            @RequestParam(required = false) String day,
+
+            @Parameter(name="riderId", description="long, only rides of this rider (admin/driver only)", required = false)
+            @RequestParam(required = false) Long riderId,
+
+            @Parameter(name="course", description="String, only rides for this course", example="CMPSC 156", required = false)
+            @RequestParam(required = false) String course) {
+
+        CurrentUser currentUser = getCurrentUser();
+        long afterId = CursorPage.decodeCursor(cursor);
+        if (day != null) {
+            DayOfWeekConverter.parse(day);
+        }
+        int pageSize = (size == null) ? defaultPageSize : Math.max(1, Math.min(size, maxPageSize));
+        Long riderFilter = isAdminOrDriver(currentUser) ? riderId : Long.valueOf(currentUser.getUser().getId());
+
+        // ask for one extra row to find out whether there is another page
+        List<Ride> rides = rideRepository.findPageAfter(afterId, day, riderFilter, course,
+                PageRequest.of(0, pageSize + 1));
+
+        String nextCursor = null;
+        if (rides.size() > pageSize) {
+            rides = rides.subList(0, pageSize);
+            nextCursor = CursorPage.encodeCursor(rides.get(pageSize - 1).getId());
+        }
+
+        return CursorPage.<Ride>builder()
+                .items(rides)
+                .nextCursor(nextCursor)
+                .build();
+    }
+
+    @Operation(summary = "List the rides that overlap a shift (same day, overlapping times)")
+    @PreAuthorize("hasRole('ROLE_ADMIN') || hasRole('ROLE_DRIVER')")
+    @GetMapping("/shift")
+    public List<Ride> ridesDuringShift(
+            @Parameter(name="shiftId", description="long, Id of the Shift", example="1", required = true)
+            @RequestParam Long shiftId) {
+        return rideRepository.findOverlappingShift(shiftId);
+    }
+
     @Operation(summary = "Get a single ride by id, only user's if not admin/driver")
     @PreAuthorize("hasRole('ROLE_ADMIN') || hasRole('ROLE_DRIVER') || hasRole('ROLE_USER')")
     @GetMapping("")
-    public Ride getById(
+    public ResponseEntity<Ride> getById(
             @Parameter(name="id", description = "long, Id of the Ride to get", 
             required = true)  
             @RequestParam Long id) {
         Ride ride;
+        CurrentUser currentUser = getCurrentUser();
         
-        if (getCurrentUser().getRoles().contains(new SimpleGrantedAuthority("ROLE_ADMIN")) ||
-            getCurrentUser().getRoles().contains(new SimpleGrantedAuthority("ROLE_DRIVER"))) {
+        if (isAdminOrDriver(currentUser)) {
             ride = rideRepository.findById(id)
                 .orElseThrow(() -> new EntityNotFoundException(Ride.class, id));;
         } else {
-            ride = rideRepository.findByIdAndRiderId(id, getCurrentUser().getUser().getId())
+            ride = rideRepository.findByIdAndRiderId(id, currentUser.getUser().getId())
                 .orElseThrow(() -> new EntityNotFoundException(Ride.class, id));
         }
 
-        return ride;
+        return withETag(ride, ride.getVersion());
     }
 
     @Operation(summary = "Create a new ride")
@@ -101,14 +190,20 @@ public class RideController extends ApiController {
         @RequestParam String course,
 
         @Parameter(name="notes", description="String, extra information for the rider", example="I'm inside the room specified, unable to move by myself.", required = false)
-        @RequestParam String notes          
+        @RequestParam String notes,
+
+        @Parameter(name="Idempotency-Key", description="String, a key unique to this request; sending it again with the same key returns the ride created the first time instead of a duplicate", example="6f1c2e0a-4b7d-4c39-9a53-2f0e8d1b7c44", required = false)
+        @RequestHeader(name = "Idempotency-Key", required = false) String idempotencyKey
         )
         {
 
+        checkDayAndTimes(day, startTime, endTime);
+
         Ride ride = new Ride();
+        User user = getCurrentUser().getUser();
         
-        ride.setRiderId(getCurrentUser().getUser().getId());
-        ride.setStudent(getCurrentUser().getUser().getFullName());
+        ride.setRiderId(user.getId());
+        ride.setStudent(user.getFullName());
         ride.setDay(day);
         ride.setStartTime(startTime);
         ride.setEndTime(endTime);
@@ -119,9 +214,17 @@ public class RideController extends ApiController {
         ride.setCourse(course);
         ride.setNotes(notes);
 
-        Ride savedRide = rideRepository.save(ride);
-
-        return savedRide;
+        // a repeated request returns before the check, so it does not
+        // conflict with the ride it created the first time
+        Supplier<Ride> create = () -> scheduleConflictService.saveRide(null, day, startTime, endTime, user.getId(),
+            () -> rideRepository.save(ride));
+        if (idempotencyKey == null) {
+            return create.get();
+        }
+        String fingerprint = IdempotencyService.fingerprint(day, startTime, endTime, pickupLocation, pickupRoom,
+            dropoffLocation, dropoffRoom, course, notes);
+        return idempotencyService.execute(Ride.class, user.getId(), idempotencyKey, fingerprint, create,
+            Ride::getId, id -> rideRepository.findById(id));
     }
 
     @Operation(summary = "Delete a ride, only user's if not admin/driver")
@@ -133,13 +236,13 @@ public class RideController extends ApiController {
         @RequestParam Long id) {
 
         Ride ride;
+        CurrentUser currentUser = getCurrentUser();
 
-        if (getCurrentUser().getRoles().contains(new SimpleGrantedAuthority("ROLE_ADMIN")) ||
-            getCurrentUser().getRoles().contains(new SimpleGrantedAuthority("ROLE_DRIVER"))) {
+        if (isAdminOrDriver(currentUser)) {
             ride = rideRepository.findById(id)
                 .orElseThrow(() -> new EntityNotFoundException(Ride.class, id));;
         } else {
-            ride = rideRepository.findByIdAndRiderId(id, getCurrentUser().getUser().getId())
+            ride = rideRepository.findByIdAndRiderId(id, currentUser.getUser().getId())
                 .orElseThrow(() -> new EntityNotFoundException(Ride.class, id));
         }
 
@@ -151,23 +254,28 @@ public class RideController extends ApiController {
     @Operation(summary = "Update a single ride, only user's if not admin/driver")
     @PreAuthorize("hasRole('ROLE_ADMIN') || hasRole('ROLE_DRIVER') || hasRole('ROLE_USER')")
     @PutMapping("")
-    public Ride updateRide(
+    public ResponseEntity<Ride> updateRide(
             @Parameter(name="id", description="long, Id of the Ride to be edited", 
             required = true)
             @RequestParam Long id,
+            @Parameter(name="If-Match", description="String, ETag of the ride as last read; the update fails with 412 if the ride has changed since", example="\"3\"", required = false)
+            @RequestHeader(name = "If-Match", required = false) String ifMatch,
             @RequestBody @Valid Ride incoming) {
 
         Ride ride;
+        CurrentUser currentUser = getCurrentUser();
 
-        if (getCurrentUser().getRoles().contains(new SimpleGrantedAuthority("ROLE_ADMIN")) ||
-            getCurrentUser().getRoles().contains(new SimpleGrantedAuthority("ROLE_DRIVER"))) {
+        if (isAdminOrDriver(currentUser)) {
             ride = rideRepository.findById(id)
                 .orElseThrow(() -> new EntityNotFoundException(Ride.class, id));;
         } else {
-            ride = rideRepository.findByIdAndRiderId(id, getCurrentUser().getUser().getId())
+            ride = rideRepository.findByIdAndRiderId(id, currentUser.getUser().getId())
                 .orElseThrow(() -> new EntityNotFoundException(Ride.class, id));
         }
 
+        checkIfMatch(ifMatch, Ride.class, id, ride.getVersion());
+        checkDayAndTimes(incoming.getDay(), incoming.getStartTime(), incoming.getEndTime());
+
         ride.setDay(incoming.getDay());
         ride.setStartTime(incoming.getStartTime());
         ride.setEndTime(incoming.getEndTime());
@@ -177,8 +285,9 @@ public class RideController extends ApiController {
         ride.setDropoffRoom(incoming.getDropoffRoom());             
         ride.setCourse(incoming.getCourse());
         ride.setNotes(incoming.getNotes());                         
-        rideRepository.save(ride);
+        Ride savedRide = scheduleConflictService.saveRide(id, ride.getDay(), ride.getStartTime(), ride.getEndTime(),
+                ride.getRiderId(), () -> rideRepository.save(ride));
 
-        return ride;
+        return withETag(savedRide, savedRide.getVersion());
     }
 }
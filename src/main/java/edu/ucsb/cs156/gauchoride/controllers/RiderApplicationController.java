@@ -1,14 +1,24 @@
 package edu.ucsb.cs156.gauchoride.controllers;
 
+import edu.ucsb.cs156.gauchoride.converters.ApplicationStatusConverter;
+import edu.ucsb.cs156.gauchoride.entities.ApplicationStatus;
 import edu.ucsb.cs156.gauchoride.entities.RiderApplication;
+import edu.ucsb.cs156.gauchoride.errors.BadRequestException;
 import edu.ucsb.cs156.gauchoride.errors.EntityNotFoundException;
+import edu.ucsb.cs156.gauchoride.models.CursorPage;
+import edu.ucsb.cs156.gauchoride.models.RiderApplicationSummary;
+import edu.ucsb.cs156.gauchoride.models.StatusCount;
 import edu.ucsb.cs156.gauchoride.repositories.RiderApplicationRepository;
+import edu.ucsb.cs156.gauchoride.services.RiderApplicationStatusService;
 
 import io.swagger.v3.oas.annotations.tags.Tag;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
@@ -18,6 +28,7 @@ import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
@@ -38,6 +49,19 @@ public class RiderApplicationController extends ApiController {
 
     @Autowired
     RiderApplicationRepository riderApplicationRepository;
+
+    @Autowired
+    RiderApplicationStatusService riderApplicationStatusService;
+
+    @Value("${app.riderApplications.defaultPageSize:50}")
+    int defaultPageSize;
+
+    @Value("${app.riderApplications.maxPageSize:500}")
+    int maxPageSize;
+
+    // bounds used when the queue is not filtered by date
+    private static final LocalDate EARLIEST = LocalDate.of(1900, 1, 1);
+    private static final LocalDate LATEST = LocalDate.of(9999, 12, 31);
     
 
     // // Endpoints for ROLE_MEMBER
@@ -81,10 +105,18 @@ public class RiderApplicationController extends ApiController {
         return applications;
     };
 
+    @Operation(summary = "Get summaries of all rider applications owned by the current user")
+    @PreAuthorize("hasRole('ROLE_MEMBER')")
+    @GetMapping(value = "/rider", params = "view=summary")
+    public List<RiderApplicationSummary> applicationSummaries()
+    {
+        return riderApplicationRepository.findSummariesByUserId(getCurrentUser().getUser().getId());
+    };
+
     @Operation(summary = "Get a single rider application but only if owned by the current user")
     @PreAuthorize("hasRole('ROLE_MEMBER')")
     @GetMapping("/riderApplication")
-    public RiderApplication getById(
+    public ResponseEntity<RiderApplication> getById(
                     @Parameter(name="id", description = "Long, Id of the RiderApplication to get", 
                     required = true)  
                     @RequestParam Long id)
@@ -92,7 +124,7 @@ public class RiderApplicationController extends ApiController {
         RiderApplication application;
         application = riderApplicationRepository.findByIdAndUserId(id, getCurrentUser().getUser().getId())
                     .orElseThrow(() -> new EntityNotFoundException(RiderApplication.class, id));
-        return application;
+        return withETag(application, application.getVersion());
     };    
 
     @Operation(summary = "Edit an existing rider application but only if it is owned by the current user and the application is in the correct status")
@@ -102,14 +134,17 @@ public class RiderApplicationController extends ApiController {
                             @Parameter(name="id", description="long, Id of the Application to be edited", 
                             required = true)
                             @RequestParam Long id,
+                            @Parameter(name="If-Match", description="String, ETag of the application as last read; fails with 412 if it has changed since", example="\"3\"", required = false)
+                            @RequestHeader(name = "If-Match", required = false) String ifMatch,
                             @RequestBody @Valid RiderApplication incoming)
     {
         RiderApplication application;
 
         application = riderApplicationRepository.findByIdAndUserId(id, getCurrentUser().getUser().getId())
                     .orElseThrow(() -> new EntityNotFoundException(RiderApplication.class, id));
+        checkIfMatch(ifMatch, RiderApplication.class, id, application.getVersion());
 
-        if ("pending".equals(application.getStatus()))
+        if (riderApplicationStatusService.isPending(application))
         {
             // Get the current date
             LocalDate localDate = LocalDate.now();
@@ -119,8 +154,8 @@ public class RiderApplicationController extends ApiController {
             application.setUpdated_date(currentDate);
             application.setDescription(incoming.getDescription());
 
-            riderApplicationRepository.save(application);
-            return ResponseEntity.ok(application);
+            RiderApplication savedApplication = riderApplicationRepository.save(application);
+            return withETag(savedApplication, savedApplication.getVersion());
         }
         else
         {
@@ -135,21 +170,24 @@ public class RiderApplicationController extends ApiController {
     public Object cancelApplication(
                             @Parameter(name="id", description="long, Id of the Application to be edited", 
                             required = true)
-                            @RequestParam Long id)
+                            @RequestParam Long id,
+                            @Parameter(name="If-Match", description="String, ETag of the application as last read; fails with 412 if it has changed since", example="\"3\"", required = false)
+                            @RequestHeader(name = "If-Match", required = false) String ifMatch)
                             
     {
         RiderApplication application;
 
         application = riderApplicationRepository.findByIdAndUserId(id, getCurrentUser().getUser().getId())
                     .orElseThrow(() -> new EntityNotFoundException(RiderApplication.class, id));
+        checkIfMatch(ifMatch, RiderApplication.class, id, application.getVersion());
         
-        if ("pending".equals(application.getStatus()))
+        if (riderApplicationStatusService.isPending(application))
         {
             // Get the current date
             LocalDate localDate = LocalDate.now();
             Date currentDate = Date.valueOf(localDate);
 
-            application.setStatus("cancelled");
+            riderApplicationStatusService.changeStatus(application, ApplicationStatus.CANCELLED);
             application.setUpdated_date(currentDate);
             application.setCancelled_date(currentDate);
             riderApplicationRepository.save(application);
@@ -175,6 +213,14 @@ public class RiderApplicationController extends ApiController {
         return applications;
     };
 
+    @Operation(summary = "Get summaries of all rider applications")
+    @PreAuthorize("hasRole('ROLE_ADMIN')")
+    @GetMapping(value = "/rider/admin/all", params = "view=summary")
+    public List<RiderApplicationSummary> applicationSummariesAdmin()
+    {
+        return riderApplicationRepository.findAllSummaries();
+    };
+
     @Operation(summary = "Get all pending rider applications")
     @PreAuthorize("hasRole('ROLE_ADMIN')")
     @GetMapping("/rider/admin/pending")
@@ -186,10 +232,105 @@ public class RiderApplicationController extends ApiController {
         return pendingApplications;
     };
 
+    @Operation(summary = "Get summaries of all pending rider applications")
+    @PreAuthorize("hasRole('ROLE_ADMIN')")
+    @GetMapping(value = "/rider/admin/pending", params = "view=summary")
+    public List<RiderApplicationSummary> pendingApplicationSummaries()
+    {
+        return riderApplicationRepository.findSummariesByStatus("pending");
+    };
+
+    @Operation(summary = "Page through rider applications by creation date (keyset pagination), optionally of one status and date range")
+    @PreAuthorize("hasRole('ROLE_ADMIN')")
+    @GetMapping("/rider/admin/queue")
+    public CursorPage<RiderApplicationSummary> applicationQueue(
+            @Parameter(name="cursor", description="String, nextCursor from the previous page; omit for the first page", required = false)
+            @RequestParam(required = false) String cursor,
+
+            @Parameter(name="size", description="int, maximum number of applications to return", example="50", required = false)
+            @RequestParam(required = false) Integer size,
+
+            @Parameter(name="status", description="String, only applications with this status", example="pending", required = false)
+            @RequestParam(required = false) String status,
+
+            @Parameter(name="from", description="date, only applications created on or after this day", example="2024-01-08", required = false)
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+
+            @Parameter(name="to", description="date, only applications created on or before this day", example="2024-03-22", required = false)
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+
+            @Parameter(name="sort", description="String, asc for oldest first, desc for newest first", example="asc", required = false)
+            @RequestParam(defaultValue = "asc") String sort)
+    {
+        boolean newestFirst;
+        if (sort.equalsIgnoreCase("asc")) {
+            newestFirst = false;
+        } else if (sort.equalsIgnoreCase("desc")) {
+            newestFirst = true;
+        } else {
+            throw new BadRequestException("Invalid sort: %s".formatted(sort));
+        }
+        if (status != null) {
+            status = ApplicationStatusConverter.format(ApplicationStatusConverter.parse(status));
+        }
+        Date fromDate = Date.valueOf(from == null ? EARLIEST : from);
+        Date toDate = Date.valueOf(to == null ? LATEST : to);
+        if (fromDate.after(toDate)) {
+            throw new BadRequestException("from %s is after to %s".formatted(from, to));
+        }
+        CursorPage.Position position = CursorPage.decodePosition(cursor);
+        Date positionDate;
+        try {
+            positionDate = position == null ? null : Date.valueOf(position.key());
+        } catch (IllegalArgumentException e) {
+            throw new BadRequestException("Invalid cursor: %s".formatted(cursor));
+        }
+        int pageSize = (size == null) ? defaultPageSize : Math.max(1, Math.min(size, maxPageSize));
+
+        // ask for one extra row to find out whether there is another page
+        PageRequest limit = PageRequest.of(0, pageSize + 1);
+        List<RiderApplicationSummary> applications;
+        if (newestFirst) {
+            Date beforeDate = position == null ? toDate : positionDate;
+            long beforeId = position == null ? Long.MAX_VALUE : position.id();
+            applications = status == null
+                ? riderApplicationRepository.findQueueBefore(fromDate, toDate, beforeDate, beforeId, limit)
+                : riderApplicationRepository.findQueueBeforeByStatus(status, fromDate, toDate, beforeDate, beforeId,
+                    limit);
+        } else {
+            Date afterDate = position == null ? fromDate : positionDate;
+            long afterId = position == null ? 0L : position.id();
+            applications = status == null
+                ? riderApplicationRepository.findQueueAfter(fromDate, toDate, afterDate, afterId, limit)
+                : riderApplicationRepository.findQueueAfterByStatus(status, fromDate, toDate, afterDate, afterId,
+                    limit);
+        }
+
+        String nextCursor = null;
+        if (applications.size() > pageSize) {
+            applications = applications.subList(0, pageSize);
+            RiderApplicationSummary last = applications.get(pageSize - 1);
+            nextCursor = CursorPage.encodeCursor(last.getCreated_date().toString(), last.getId());
+        }
+
+        return CursorPage.<RiderApplicationSummary>builder()
+                .items(applications)
+                .nextCursor(nextCursor)
+                .build();
+    };
+
+    @Operation(summary = "Count rider applications by status")
+    @PreAuthorize("hasRole('ROLE_ADMIN')")
+    @GetMapping("/rider/admin/counts")
+    public List<StatusCount> applicationCounts()
+    {
+        return riderApplicationRepository.countByStatus();
+    };
+
     @Operation(summary = "Get a specific rider application")
     @PreAuthorize("hasRole('ROLE_ADMIN')")
     @GetMapping("/rider/admin")
-    public RiderApplication specificApplication(
+    public ResponseEntity<RiderApplication> specificApplication(
                             @Parameter(name="id", description="long, Id of the Application to find", 
                             required = true)
                             @RequestParam Long id)
@@ -197,13 +338,13 @@ public class RiderApplicationController extends ApiController {
         RiderApplication application;
         application = riderApplicationRepository.findById(id)
                 .orElseThrow(() -> new EntityNotFoundException(RiderApplication.class, id));
-        return application;
+        return withETag(application, application.getVersion());
     };
 
     @Operation(summary = "Update the status/notes field of an application")
     @PreAuthorize("hasRole('ROLE_ADMIN')")
     @PutMapping("/rider/admin")
-    public RiderApplication updateApplicationAdmin(
+    public ResponseEntity<RiderApplication> updateApplicationAdmin(
                             @Parameter(name="id", description="long, Id of the Application to be updated", 
                             required = true)
                             @RequestParam Long id,
@@ -214,15 +355,19 @@ public class RiderApplicationController extends ApiController {
 
                             @Parameter(name="notes", description="String, Notes to notify the Applicant", 
                                         required = false)
-                            @RequestParam String notes)
+                            @RequestParam String notes,
+
+                            @Parameter(name="If-Match", description="String, ETag of the application as last read; fails with 412 if it has changed since", example="\"3\"", required = false)
+                            @RequestHeader(name = "If-Match", required = false) String ifMatch)
     {
         RiderApplication application;
         application = riderApplicationRepository.findById(id)
                 .orElseThrow(() -> new EntityNotFoundException(RiderApplication.class, id));
+        checkIfMatch(ifMatch, RiderApplication.class, id, application.getVersion());
 
         if (!status.isEmpty())
         {
-            application.setStatus(status);
+            riderApplicationStatusService.changeStatus(application, status);
         }
 
         if (!notes.isEmpty())
@@ -230,8 +375,8 @@ public class RiderApplicationController extends ApiController {
             application.setNotes(notes);
         }      
         
-        riderApplicationRepository.save(application);
-        return application;
+        RiderApplication savedApplication = riderApplicationRepository.save(application);
+        return withETag(savedApplication, savedApplication.getVersion());
     };
 
 }
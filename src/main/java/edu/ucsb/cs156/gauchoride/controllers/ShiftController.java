@@ -3,20 +3,31 @@ package edu.ucsb.cs156.gauchoride.controllers;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 
+import edu.ucsb.cs156.gauchoride.converters.DayOfWeekConverter;
 import edu.ucsb.cs156.gauchoride.entities.Shift;
 import edu.ucsb.cs156.gauchoride.repositories.ShiftRepository;
 import edu.ucsb.cs156.gauchoride.repositories.UserRepository;
 import edu.ucsb.cs156.gauchoride.errors.EntityNotFoundException;
 import edu.ucsb.cs156.gauchoride.models.CurrentUser;
+import edu.ucsb.cs156.gauchoride.models.CursorPage;
+import edu.ucsb.cs156.gauchoride.models.DayCoverage;
+import edu.ucsb.cs156.gauchoride.models.DriverShiftTotals;
+import edu.ucsb.cs156.gauchoride.services.ScheduleConflictService;
+import edu.ucsb.cs156.gauchoride.services.ShiftScheduleCache;
 import lombok.extern.slf4j.Slf4j;
 
 import java.nio.file.AccessDeniedException;
 import java.time.LocalTime;
+import java.util.List;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.web.filter.ShallowEtagHeaderFilter;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PostMapping;
@@ -25,12 +36,15 @@ import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 
 import io.swagger.v3.oas.annotations.tags.Tag;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 
+import javax.servlet.http.HttpServletRequest;
 import javax.validation.Valid;
 
 
@@ -45,25 +59,108 @@ public class ShiftController extends ApiController {
     @Autowired
     ObjectMapper mapper;
 
-    @Operation(summary = "Get a list of all shifts")
+    @Autowired
+    ShiftScheduleCache shiftScheduleCache;
+
+    @Autowired
+    ScheduleConflictService scheduleConflictService;
+
+    @Value("${app.streaming.chunkSize:500}")
+    int streamChunkSize;
+
+    @Value("${app.shifts.defaultPageSize:50}")
+    int defaultPageSize;
+
+    @Value("${app.shifts.maxPageSize:500}")
+    int maxPageSize;
+
+    @Operation(summary = "Get a list of all shifts, or of the shifts on one day")
     @PreAuthorize("hasRole('ROLE_ADMIN') || hasRole('ROLE_DRIVER') || hasRole('ROLE_USER')")
     @GetMapping("/all")
-    public ResponseEntity<String> allShifts()
-            throws JsonProcessingException {
-        Iterable<Shift> shifts = shiftRepository.findAll();
-        String body = mapper.writeValueAsString(shifts);
-        return ResponseEntity.ok().body(body);
+    public ResponseEntity<byte[]> allShifts(
+            @Parameter(name="day", description="String, only shifts on this day", example="Tuesday", required = false)
+            @RequestParam(required = false) String day,
+            HttpServletRequest request) {
+        // the cached schedule comes with its ETag; no need for the filter to hash it again
+        ShallowEtagHeaderFilter.disableContentCaching(request);
+        ShiftScheduleCache.Schedule schedule = shiftScheduleCache.get(day);
+        return ResponseEntity.ok()
+                .eTag(schedule.etag())
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(schedule.body());
+    }
+
+    @Operation(summary = "Get a list of all shifts, streamed as they are read from the database")
+    @PreAuthorize("hasRole('ROLE_ADMIN') || hasRole('ROLE_DRIVER') || hasRole('ROLE_USER')")
+    @GetMapping(value = "/all", params = "stream=true")
+    public ResponseEntity<StreamingResponseBody> allShiftsStreamed(HttpServletRequest request) {
+        // the ETag filter would otherwise buffer the whole body to hash it
+        ShallowEtagHeaderFilter.disableContentCaching(request);
+        StreamingResponseBody body = streamJsonArray(mapper, shiftRepository::findByIdGreaterThanOrderByIdAsc,
+                Shift::getId, streamChunkSize);
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(body);
+    }
+
+    @Operation(summary = "List shifts one page at a time (keyset pagination), optionally of one day or driver")
+    @PreAuthorize("hasRole('ROLE_ADMIN') || hasRole('ROLE_DRIVER') || hasRole('ROLE_USER')")
+    @GetMapping("/page")
+    public CursorPage<Shift> pageOfShifts(
+            @Parameter(name="cursor", description="String, nextCursor from the previous page; omit for the first page", required = false)
+            @RequestParam(required = false) String cursor,
+
+            @Parameter(name="size", description="int, maximum number of shifts to return", example="50", required = false)
+            @RequestParam(required = false) Integer size,
+
+            @Parameter(name="day", description="String, only shifts on this day", example="Tuesday", required = false)
+            @RequestParam(required = false) String day,
+
+            @Parameter(name="driverID", description="long, only shifts of this driver", required = false)
+            @RequestParam(required = false) Long driverID) {
+
+        long afterId = CursorPage.decodeCursor(cursor);
+        if (day != null) {
+            DayOfWeekConverter.parse(day);
+        }
+        int pageSize = (size == null) ? defaultPageSize : Math.max(1, Math.min(size, maxPageSize));
+
+        // ask for one extra row to find out whether there is another page
+        List<Shift> shifts = shiftRepository.findPageAfter(afterId, day, driverID, PageRequest.of(0, pageSize + 1));
+
+        String nextCursor = null;
+        if (shifts.size() > pageSize) {
+            shifts = shifts.subList(0, pageSize);
+            nextCursor = CursorPage.encodeCursor(shifts.get(pageSize - 1).getId());
+        }
+
+        return CursorPage.<Shift>builder()
+                .items(shifts)
+                .nextCursor(nextCursor)
+                .build();
+    }
+
+    @Operation(summary = "Number of shifts and scheduled minutes per driver")
+    @PreAuthorize("hasRole('ROLE_ADMIN') || hasRole('ROLE_DRIVER')")
+    @GetMapping("/stats/drivers")
+    public List<DriverShiftTotals> totalsByDriver() {
+        return shiftRepository.totalsByDriver();
+    }
+
+    @Operation(summary = "Number of shifts and drivers, first start, last end and scheduled minutes per day")
+    @PreAuthorize("hasRole('ROLE_ADMIN') || hasRole('ROLE_DRIVER')")
+    @GetMapping("/stats/days")
+    public List<DayCoverage> coverageByDay() {
+        return shiftRepository.coverageByDay();
     }
 
     @Operation(summary = "Get shift by id")
     @PreAuthorize("hasRole('ROLE_ADMIN') || hasRole('ROLE_DRIVER') || hasRole('ROLE_USER')")
     @GetMapping("")
-    public Shift shiftByID(
+    public ResponseEntity<Shift> shiftByID(
             @Parameter(name = "id", description = "Long, id number of shift to get", example = "1", required = true) @RequestParam Long id)
             throws JsonProcessingException {
         Shift shift = shiftRepository.findById(id)
                 .orElseThrow(() -> new EntityNotFoundException(Shift.class, id));
-        return shift;
+        return withETag(shift, shift.getVersion());
     }
 
     @Operation(summary = "Create a new shift for the table")
@@ -78,6 +175,8 @@ public class ShiftController extends ApiController {
         )
         {
 
+        checkDayAndTimes(day, shiftStart, shiftEnd);
+
         Shift shift = new Shift();
 
         shift.setDay(day);
@@ -86,7 +185,9 @@ public class ShiftController extends ApiController {
         shift.setDriverID(driverID);
         shift.setDriverBackupID(driverBackupID);
 
-        Shift savedShift = shiftRepository.save(shift);
+        Shift savedShift = scheduleConflictService.saveShift(null, day, shiftStart, shiftEnd, driverID,
+                () -> shiftRepository.save(shift));
+        shiftScheduleCache.invalidate();
 
         return savedShift;
     }
@@ -100,6 +201,7 @@ public class ShiftController extends ApiController {
                 .orElseThrow(() -> new EntityNotFoundException(Shift.class, id));
         
         shiftRepository.delete(shift);
+        shiftScheduleCache.invalidate();
 
         return genericMessage("Shift with id %s deleted".formatted(id));
     }
@@ -107,13 +209,19 @@ public class ShiftController extends ApiController {
     @Operation(summary= "Update a shift")
     @PreAuthorize("hasRole('ROLE_ADMIN')")
     @PutMapping("")
-    public Shift updateShifts(
+    public ResponseEntity<Shift> updateShifts(
             @Parameter(name="id") @RequestParam Long id,
+            @Parameter(name="If-Match", description="String, ETag of the shift as last read; the update fails with 412 if the shift has changed since", example="\"3\"", required = false)
+            @RequestHeader(name = "If-Match", required = false) String ifMatch,
             @RequestBody @Valid Shift incoming) throws AccessDeniedException{
         
         Shift shift = shiftRepository.findById(id)
                 .orElseThrow(() -> new EntityNotFoundException(Shift.class, id));
 
+        checkIfMatch(ifMatch, Shift.class, id, shift.getVersion());
+
+        checkDayAndTimes(incoming.getDay(), incoming.getShiftStart(), incoming.getShiftEnd());
+
         shift.setDay(incoming.getDay());
         shift.setShiftStart(incoming.getShiftStart());
         shift.setShiftEnd(incoming.getShiftEnd());
@@ -121,9 +229,11 @@ public class ShiftController extends ApiController {
         shift.setDriverBackupID(incoming.getDriverBackupID());
 
 
-        shiftRepository.save(shift);
+        Shift savedShift = scheduleConflictService.saveShift(id, shift.getDay(), shift.getShiftStart(),
+                shift.getShiftEnd(), shift.getDriverID(), () -> shiftRepository.save(shift));
+        shiftScheduleCache.invalidate();
 
-        return shift;
+        return withETag(savedShift, savedShift.getVersion());
 
     }
 }
\ No newline at end of file
@@ -4,25 +4,33 @@ import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 
 import edu.ucsb.cs156.gauchoride.entities.User;
+import edu.ucsb.cs156.gauchoride.models.UserSummary;
 import edu.ucsb.cs156.gauchoride.repositories.UserRepository;
 
 import edu.ucsb.cs156.gauchoride.errors.EntityNotFoundException;
+import edu.ucsb.cs156.gauchoride.interceptors.RoleInterceptor;
 
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import io.swagger.v3.oas.annotations.tags.Tag;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 
+import java.util.List;
+
 
 @Tag(name = "User information (admin only)")
 @RequestMapping("/api/admin/users")
@@ -34,6 +42,12 @@ public class UsersController extends ApiController {
     @Autowired
     ObjectMapper mapper;
 
+    @Value("${app.streaming.chunkSize:500}")
+    int streamChunkSize;
+
+    @Autowired
+    RoleInterceptor roleInterceptor;
+
     @Operation(summary = "Get a list of all users")
     @PreAuthorize("hasRole('ROLE_ADMIN')")
     @GetMapping("")
@@ -44,15 +58,31 @@ public class UsersController extends ApiController {
         return ResponseEntity.ok().body(body);
     }
 
+    @Operation(summary = "Get a list of all users, streamed as they are read from the database")
+    @PreAuthorize("hasRole('ROLE_ADMIN')")
+    @GetMapping(value = "", params = "stream=true")
+    public ResponseEntity<StreamingResponseBody> usersStreamed() {
+        StreamingResponseBody body = streamJsonArray(mapper, userRepository::findByIdGreaterThanOrderByIdAsc,
+                User::getId, streamChunkSize);
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(body);
+    }
+
+    @Operation(summary = "Get a list of all users, with only the columns shown in the users table")
+    @PreAuthorize("hasRole('ROLE_ADMIN')")
+    @GetMapping(value = "", params = "view=summary")
+    public List<UserSummary> userSummaries() {
+        return userRepository.findAllSummaries();
+    }
+
     @Operation(summary = "Get user by id")
     @PreAuthorize("hasRole('ROLE_ADMIN')")
     @GetMapping("/get")
-    public User users(
+    public ResponseEntity<User> users(
             @Parameter(name = "id", description = "Long, id number of user to get", example = "1", required = true) @RequestParam Long id)
             throws JsonProcessingException {
         User user = userRepository.findById(id)
                 .orElseThrow(() -> new EntityNotFoundException(User.class, id));
-        return user;
+        return withETag(user, user.getVersion());
     }
 
     @Operation(summary = "Delete a user (admin)")
@@ -64,6 +94,7 @@ public class UsersController extends ApiController {
           .orElseThrow(() -> new EntityNotFoundException(User.class, id));
 
           userRepository.delete(user);
+          roleInterceptor.invalidate(user.getEmail());
 
         return genericMessage("User with id %s deleted".formatted(id));
     }
@@ -72,38 +103,52 @@ public class UsersController extends ApiController {
     @Operation(summary = "Toggle the admin field")
     @PreAuthorize("hasRole('ROLE_ADMIN')")
     @PostMapping("/toggleAdmin")
-    public Object toggleAdmin( @Parameter(name = "id", description = "Long, id number of user to toggle their admin field", example = "1", required = true) @RequestParam Long id){
+    public Object toggleAdmin( @Parameter(name = "id", description = "Long, id number of user to toggle their admin field", example = "1", required = true) @RequestParam Long id,
+            @Parameter(name = "If-Match", description = "String, ETag of the user as last read; fails with 412 if the user has changed since", example = "\"3\"", required = false) @RequestHeader(name = "If-Match", required = false) String ifMatch){
         User user = userRepository.findById(id)
         .orElseThrow(() -> new EntityNotFoundException(User.class, id));
 
+        checkIfMatch(ifMatch, User.class, id, user.getVersion());
+
         user.setAdmin(!user.getAdmin());
-        userRepository.save(user);
-        return genericMessage("User with id %s has toggled admin status to %s".formatted(id, user.getAdmin()));
+        User savedUser = userRepository.save(user);
+        roleInterceptor.invalidate(user.getEmail());
+        return withETag(genericMessage("User with id %s has toggled admin status to %s".formatted(id, user.getAdmin())),
+                savedUser.getVersion());
     }
 
 
     @Operation(summary = "Toggle the driver field")
     @PreAuthorize("hasRole('ROLE_ADMIN')")
     @PostMapping("/toggleDriver")
-    public Object toggleDriver( @Parameter(name = "id", description = "Long, id number of user to toggle their driver field", example = "1", required = true) @RequestParam Long id){
+    public Object toggleDriver( @Parameter(name = "id", description = "Long, id number of user to toggle their driver field", example = "1", required = true) @RequestParam Long id,
+            @Parameter(name = "If-Match", description = "String, ETag of the user as last read; fails with 412 if the user has changed since", example = "\"3\"", required = false) @RequestHeader(name = "If-Match", required = false) String ifMatch){
 
         User user = userRepository.findById(id)
         .orElseThrow(() -> new EntityNotFoundException(User.class, id));
 
+        checkIfMatch(ifMatch, User.class, id, user.getVersion());
+
         user.setDriver(!user.getDriver());
-        userRepository.save(user);
-        return genericMessage("User with id %s has toggled driver status to %s".formatted(id, user.getDriver()));
+        User savedUser = userRepository.save(user);
+        roleInterceptor.invalidate(user.getEmail());
+        return withETag(genericMessage("User with id %s has toggled driver status to %s".formatted(id, user.getDriver())),
+                savedUser.getVersion());
     }
 
     @Operation(summary = "Toggle the rider field")
     @PreAuthorize("hasRole('ROLE_ADMIN')")
     @PostMapping("/toggleRider")
-    public Object toggleRider( @Parameter(name = "id") @RequestParam Long id){
+    public Object toggleRider( @Parameter(name = "id") @RequestParam Long id,
+            @Parameter(name = "If-Match", description = "String, ETag of the user as last read; fails with 412 if the user has changed since", example = "\"3\"", required = false) @RequestHeader(name = "If-Match", required = false) String ifMatch){
         User user = userRepository.findById(id)
         .orElseThrow(() -> new EntityNotFoundException(User.class, id));
 
+        checkIfMatch(ifMatch, User.class, id, user.getVersion());
+
         user.setRider(!user.getRider());
-        userRepository.save(user);
-        return genericMessage("User with id %s has toggled rider status to %s".formatted(id, user.getRider()));
+        User savedUser = userRepository.save(user);
+        return withETag(genericMessage("User with id %s has toggled rider status to %s".formatted(id, user.getRider())),
+                savedUser.getVersion());
     }
 }
\ No newline at end of file
@@ -0,0 +1,59 @@
+package edu.ucsb.cs156.gauchoride.converters;
+
+import javax.persistence.AttributeConverter;
+import javax.persistence.Converter;
+
+import edu.ucsb.cs156.gauchoride.entities.ApplicationStatus;
+import edu.ucsb.cs156.gauchoride.errors.BadRequestException;
+
+/**
+ * Stores a rider application status such as "pending" as the smallint code
+ * of its ApplicationStatus, so that only known statuses can be stored and
+ * the status index stays small.
+ *
+ * The entity keeps the status name, so the JSON format of the REST API is
+ * unchanged; names are matched case-insensitively and read back in lower
+ * case.
+ */
+
+@Converter
+public class ApplicationStatusConverter implements AttributeConverter<String, Short> {
+
+  @Override
+  public Short convertToDatabaseColumn(String status) {
+    return status == null ? null : parse(status).getCode();
+  }
+
+  @Override
+  public String convertToEntityAttribute(Short code) {
+    return code == null ? null : format(ApplicationStatus.fromCode(code));
+  }
+
+  /**
+   * Parse a status name
+   *
+   * @param status status name, e.g. "pending"
+   * @return the status
+   * @throws BadRequestException if status is not the name of a status
+   */
+  public static ApplicationStatus parse(String status) {
+    if (status != null) {
+      for (ApplicationStatus s : ApplicationStatus.values()) {
+        if (s.name().equalsIgnoreCase(status.trim())) {
+          return s;
+        }
+      }
+    }
+    throw new BadRequestException("Invalid status: %s".formatted(status));
+  }
+
+  /**
+   * Format a status the way the REST API expects it
+   *
+   * @param status the status
+   * @return status name, e.g. "pending"
+   */
+  public static String format(ApplicationStatus status) {
+    return status.getLabel();
+  }
+}
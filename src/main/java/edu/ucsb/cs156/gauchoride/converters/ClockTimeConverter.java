@@ -0,0 +1,95 @@
+package edu.ucsb.cs156.gauchoride.converters;
+
+import java.time.LocalTime;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import javax.persistence.AttributeConverter;
+import javax.persistence.Converter;
+
+import edu.ucsb.cs156.gauchoride.errors.BadRequestException;
+
+/**
+ * Stores a 12-hour clock time such as "11:00AM" or "01:37PM" as minutes
+ * since midnight, so that times can be compared, sorted and indexed in the
+ * database.
+ *
+ * The entity keeps the clock time string, so the JSON format of the REST API
+ * is unchanged; times are read back without a leading zero, e.g. "1:37PM".
+ */
+
+@Converter
+public class ClockTimeConverter implements AttributeConverter<String, Integer> {
+
+  private static final Pattern CLOCK_TIME = Pattern.compile("^(0?[1-9]|1[0-2]):([0-5][0-9])\\s*([AP]M)$",
+      Pattern.CASE_INSENSITIVE);
+
+  @Override
+  public Integer convertToDatabaseColumn(String time) {
+    return time == null ? null : toMinuteOfDay(time);
+  }
+
+  @Override
+  public String convertToEntityAttribute(Integer minuteOfDay) {
+    return minuteOfDay == null ? null : format(minuteOfDay);
+  }
+
+  /**
+   * Parse a clock time
+   *
+   * @param time clock time in the format H:MM(A/P)M, e.g. "11:00AM"
+   * @return minutes since midnight, 0 to 1439
+   * @throws BadRequestException if time is not in that format
+   */
+  public static int toMinuteOfDay(String time) {
+    Matcher m = time == null ? null : CLOCK_TIME.matcher(time.trim());
+    if (m == null || !m.matches()) {
+      throw new BadRequestException("Invalid time: %s".formatted(time));
+    }
+    int hour = Integer.parseInt(m.group(1)) % 12;
+    if (m.group(3).equalsIgnoreCase("PM")) {
+      hour += 12;
+    }
+    return hour * 60 + Integer.parseInt(m.group(2));
+  }
+
+  /**
+   * Parse a clock time
+   *
+   * @param time clock time in the format H:MM(A/P)M, e.g. "11:00AM"
+   * @return the time of day
+   * @throws BadRequestException if time is not in that format
+   */
+  public static LocalTime parse(String time) {
+    return LocalTime.ofSecondOfDay(toMinuteOfDay(time) * 60L);
+  }
+
+  /**
+   * Check that a time range is well formed and ends after it starts
+   *
+   * @param start start time, e.g. "11:00AM"
+   * @param end   end time, e.g. "1:37PM"
+   * @throws BadRequestException if a time is malformed or end is not after
+   *                             start
+   */
+  public static void checkRange(String start, String end) {
+    if (toMinuteOfDay(end) <= toMinuteOfDay(start)) {
+      throw new BadRequestException("End time %s is not after start time %s".formatted(end, start));
+    }
+  }
+
+  /**
+   * Format minutes since midnight the way the REST API expects it
+   *
+   * @param minuteOfDay minutes since midnight, 0 to 1439
+   * @return clock time, e.g. "1:37PM"
+   */
+  public static String format(int minuteOfDay) {
+    if (minuteOfDay < 0 || minuteOfDay >= 24 * 60) {
+      throw new IllegalArgumentException("Invalid minute of day: %d".formatted(minuteOfDay));
+    }
+    int hour = minuteOfDay / 60;
+    int hour12 = hour % 12 == 0 ? 12 : hour % 12;
+    return "%d:%02d%s".formatted(hour12, minuteOfDay % 60, hour < 12 ? "AM" : "PM");
+  }
+}
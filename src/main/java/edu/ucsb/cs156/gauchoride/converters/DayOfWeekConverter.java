@@ -0,0 +1,60 @@
+package edu.ucsb.cs156.gauchoride.converters;
+
+import java.time.DayOfWeek;
+import java.time.format.TextStyle;
+import java.util.Locale;
+
+import javax.persistence.AttributeConverter;
+import javax.persistence.Converter;
+
+import edu.ucsb.cs156.gauchoride.errors.BadRequestException;
+
+/**
+ * Stores a day name such as "Tuesday" as its ISO-8601 day number
+ * (1 = Monday ... 7 = Sunday), so that days sort and index in week order.
+ *
+ * The entity keeps the day name, so the JSON format of the REST API is
+ * unchanged; names are matched case-insensitively and read back capitalized.
+ */
+
+@Converter
+public class DayOfWeekConverter implements AttributeConverter<String, Integer> {
+
+  @Override
+  public Integer convertToDatabaseColumn(String day) {
+    return day == null ? null : parse(day).getValue();
+  }
+
+  @Override
+  public String convertToEntityAttribute(Integer isoDay) {
+    return isoDay == null ? null : format(DayOfWeek.of(isoDay));
+  }
+
+  /**
+   * Parse a day name
+   *
+   * @param day day name, e.g. "Tuesday"
+   * @return the day of the week
+   * @throws BadRequestException if day is not the name of a day
+   */
+  public static DayOfWeek parse(String day) {
+    if (day != null) {
+      for (DayOfWeek d : DayOfWeek.values()) {
+        if (d.name().equalsIgnoreCase(day.trim())) {
+          return d;
+        }
+      }
+    }
+    throw new BadRequestException("Invalid day: %s".formatted(day));
+  }
+
+  /**
+   * Format a day of the week the way the REST API expects it
+   *
+   * @param day day of the week
+   * @return day name, e.g. "Tuesday"
+   */
+  public static String format(DayOfWeek day) {
+    return day.getDisplayName(TextStyle.FULL, Locale.US);
+  }
+}
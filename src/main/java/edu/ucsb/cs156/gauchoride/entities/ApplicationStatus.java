@@ -0,0 +1,48 @@
+package edu.ucsb.cs156.gauchoride.entities;
+
+import java.util.Locale;
+
+/**
+ * The states a rider application moves through.  Each has a fixed code,
+ * which is what the database stores (see ApplicationStatusConverter); codes
+ * must never be reused or renumbered.
+ */
+
+public enum ApplicationStatus {
+  PENDING(0),
+  ACCEPTED(1),
+  DECLINED(2),
+  EXPIRED(3),
+  CANCELLED(4);
+
+  private final short code;
+
+  ApplicationStatus(int code) {
+    this.code = (short) code;
+  }
+
+  public short getCode() {
+    return code;
+  }
+
+  /**
+   * @return the name used by the REST API, e.g. "pending"
+   */
+  public String getLabel() {
+    return name().toLowerCase(Locale.ROOT);
+  }
+
+  /**
+   * @param code a stored code
+   * @return the status with that code
+   * @throws IllegalArgumentException if no status has that code
+   */
+  public static ApplicationStatus fromCode(short code) {
+    for (ApplicationStatus status : values()) {
+      if (status.code == code) {
+        return status;
+      }
+    }
+    throw new IllegalArgumentException("Invalid status code: %d".formatted(code));
+  }
+}
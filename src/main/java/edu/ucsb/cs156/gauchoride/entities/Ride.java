@@ -1,12 +1,19 @@
 package edu.ucsb.cs156.gauchoride.entities;
 
+import javax.persistence.Column;
+import javax.persistence.Convert;
 import javax.persistence.Entity;
+import javax.persistence.EntityListeners;
 import javax.persistence.GenerationType;
 import javax.persistence.Id;
 
+import edu.ucsb.cs156.gauchoride.converters.ClockTimeConverter;
+import edu.ucsb.cs156.gauchoride.converters.DayOfWeekConverter;
+import edu.ucsb.cs156.gauchoride.events.EntityChangePublisher;
 import io.swagger.v3.oas.annotations.media.Schema;
 
 import javax.persistence.GeneratedValue;
+import javax.persistence.Version;
 
 import lombok.Data;
 import lombok.NoArgsConstructor;
@@ -18,6 +25,7 @@ import lombok.Builder;
 @NoArgsConstructor
 @Builder
 @Entity(name = "ride")
+@EntityListeners(EntityChangePublisher.class)
 public class Ride {
   @Id
   @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -27,9 +35,16 @@ public class Ride {
   private String student;
 
   @Schema(allowableValues = "Monday, Tuesday, Wednesday, Thursday, Friday, Saturday, Sunday")
+  @Convert(converter = DayOfWeekConverter.class)
+  @Column(name = "day_of_week") // stored as ISO day number, 1 = Monday
   private String day;
   
+  @Convert(converter = ClockTimeConverter.class)
+  @Column(name = "start_minute") // stored as minutes since midnight
   private String startTime; // format: HH:MM(A/P)M e.g. "11:00AM" or "1:37PM"
+
+  @Convert(converter = ClockTimeConverter.class)
+  @Column(name = "end_minute") // stored as minutes since midnight
   private String endTime; // format: HH:MM(A/P)M e.g. "11:00AM" or "1:37PM"
 
   private String pickupLocation;
@@ -40,4 +55,8 @@ public class Ride {
   private String course; // e.g. CMPSC 156
   
   private String notes;           
-}
\ No newline at end of file
+
+  // incremented on every update; also the ETag of the record
+  @Version
+  private long version;
+}
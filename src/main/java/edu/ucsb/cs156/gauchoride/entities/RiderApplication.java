@@ -2,13 +2,19 @@ package edu.ucsb.cs156.gauchoride.entities;
 
 import java.sql.Date;
 
+import javax.persistence.Column;
+import javax.persistence.Convert;
 import javax.persistence.Entity;
 import javax.persistence.GenerationType;
 import javax.persistence.Id;
+import javax.persistence.Index;
+import javax.persistence.Table;
 
+import edu.ucsb.cs156.gauchoride.converters.ApplicationStatusConverter;
 import io.swagger.v3.oas.annotations.media.Schema;
 
 import javax.persistence.GeneratedValue;
+import javax.persistence.Version;
 
 import lombok.Data;
 import lombok.NoArgsConstructor;
@@ -20,6 +26,12 @@ import lombok.Builder;
 @NoArgsConstructor
 @Builder
 @Entity(name = "riderApplication")
+@Table(indexes = {
+  // admin queue: keyset pagination by creation date, optionally of one status
+  @Index(name = "rider_application_status_code_created_idx", columnList = "status_code, created_date, id"),
+  @Index(name = "rider_application_created_idx", columnList = "created_date, id"),
+  @Index(name = "rider_application_user_id_idx", columnList = "userId")
+})
 
 public class RiderApplication {
   @Id
@@ -27,6 +39,8 @@ public class RiderApplication {
   private long id;
 
   @Schema(allowableValues = "pending, accepted, declined, expired, cancelled")
+  @Convert(converter = ApplicationStatusConverter.class)
+  @Column(name = "status_code") // stored as ApplicationStatus code, 0 = pending
   private String status;
 
   private Long userId;
@@ -40,4 +54,7 @@ public class RiderApplication {
   private String description;
   private String notes;          
 
+  // incremented on every update; also the ETag of the record
+  @Version
+  private long version;
 }
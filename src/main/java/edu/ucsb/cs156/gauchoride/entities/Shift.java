@@ -4,28 +4,53 @@ import lombok.Data;
 import lombok.NoArgsConstructor;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
+import javax.persistence.Cacheable;
+import javax.persistence.Column;
+import javax.persistence.Convert;
 import javax.persistence.Entity;
+import javax.persistence.EntityListeners;
 import javax.persistence.Id;
 import javax.persistence.GeneratedValue;
 import javax.persistence.GenerationType;
+import javax.persistence.Version;
 import io.swagger.v3.oas.annotations.media.Schema;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import edu.ucsb.cs156.gauchoride.config.HibernateCacheConfig;
+import edu.ucsb.cs156.gauchoride.converters.ClockTimeConverter;
+import edu.ucsb.cs156.gauchoride.converters.DayOfWeekConverter;
+import edu.ucsb.cs156.gauchoride.events.EntityChangePublisher;
 
 @Data
 @AllArgsConstructor
 @NoArgsConstructor
 @Builder
 @Entity(name = "shift")
+@EntityListeners(EntityChangePublisher.class)
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = HibernateCacheConfig.SHIFTS_REGION)
 public class Shift {
   @Id
   @GeneratedValue(strategy = GenerationType.IDENTITY)
   private long id;
 
   @Schema(allowableValues = "Monday, Tuesday, Wednesday, Thursday, Friday, Saturday, Sunday")
+  @Convert(converter = DayOfWeekConverter.class)
+  @Column(name = "day_of_week") // stored as ISO day number, 1 = Monday
   private String day;
 
+  @Convert(converter = ClockTimeConverter.class)
+  @Column(name = "start_minute") // stored as minutes since midnight
   private String shiftStart; // format: HH:MM(A/P)M e.g. "11:00AM" or "01:37PM"
+
+  @Convert(converter = ClockTimeConverter.class)
+  @Column(name = "end_minute") // stored as minutes since midnight
   private String shiftEnd; //format: HH:MM(A/P)M e.g. "11:00AM" or "01:37PM"
 
   private long driverID;
   private long driverBackupID;
-}
\ No newline at end of file
+
+  // incremented on every update; also the ETag of the record
+  @Version
+  private long version;
+}
@@ -5,16 +5,31 @@ import lombok.NoArgsConstructor;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.AccessLevel;
+import javax.persistence.Cacheable;
 import javax.persistence.Entity;
 import javax.persistence.Id;
 import javax.persistence.GeneratedValue;
 import javax.persistence.GenerationType;
+import javax.persistence.Table;
+import javax.persistence.UniqueConstraint;
+import javax.persistence.Version;
+
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+
+import edu.ucsb.cs156.gauchoride.config.HibernateCacheConfig;
 
 @Data
 @AllArgsConstructor
 @NoArgsConstructor(access = AccessLevel.PROTECTED)
 @Builder
 @Entity(name = "users")
+@Table(uniqueConstraints = {
+  // findByEmail runs on most requests; see V6__Lookup_indexes.sql
+  @UniqueConstraint(name = "users_email_key", columnNames = "email")
+})
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = HibernateCacheConfig.USERS_REGION)
 public class User {
   @Id
   @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -35,4 +50,8 @@ public class User {
   private boolean driver=false;
   @Builder.Default
   private boolean rider=false;
-}
\ No newline at end of file
+
+  // incremented on every update; also the ETag of the record
+  @Version
+  private long version;
+}
@@ -0,0 +1,12 @@
+package edu.ucsb.cs156.gauchoride.errors;
+
+/**
+ * A request parameter or body value the client got wrong, e.g. a malformed
+ * cursor, day or time.  It is an IllegalArgumentException so that code
+ * validating its own data can still catch both.
+ */
+public class BadRequestException extends IllegalArgumentException {
+  public BadRequestException(String message) {
+    super(message);
+  }
+}
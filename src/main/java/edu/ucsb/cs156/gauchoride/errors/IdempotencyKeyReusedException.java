@@ -0,0 +1,11 @@
+package edu.ucsb.cs156.gauchoride.errors;
+
+/**
+ * An Idempotency-Key sent again with a different request than the one it
+ * was first used for; the client should use a new key for a new request.
+ */
+public class IdempotencyKeyReusedException extends RuntimeException {
+  public IdempotencyKeyReusedException(String key) {
+    super("Idempotency-Key %s was already used for a different request".formatted(key));
+  }
+}
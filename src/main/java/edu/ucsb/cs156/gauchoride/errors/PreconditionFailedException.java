@@ -0,0 +1,12 @@
+package edu.ucsb.cs156.gauchoride.errors;
+
+/**
+ * A conditional update (If-Match) of a record that has changed since the
+ * client read it.
+ */
+public class PreconditionFailedException extends RuntimeException {
+  public PreconditionFailedException(Class<?> entityType, long id, long version) {
+    super("%s with id %s has changed; its current version is %s"
+      .formatted(entityType.getSimpleName(), id, version));
+  }
+}
@@ -0,0 +1,12 @@
+package edu.ucsb.cs156.gauchoride.errors;
+
+/**
+ * A request repeated (with the same Idempotency-Key) while the first one is
+ * still being handled on another node, or for longer than its lease on this
+ * one; the client should retry later.
+ */
+public class RequestInProgressException extends RuntimeException {
+  public RequestInProgressException(String key) {
+    super("A request with Idempotency-Key %s is still in progress".formatted(key));
+  }
+}
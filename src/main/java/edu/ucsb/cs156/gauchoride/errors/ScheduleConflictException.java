@@ -0,0 +1,18 @@
+package edu.ucsb.cs156.gauchoride.errors;
+
+import lombok.Getter;
+
+/**
+ * A shift or ride that would overlap another one of the same driver or
+ * rider; conflict is the record already stored.
+ */
+@Getter
+public class ScheduleConflictException extends RuntimeException {
+  private final Object conflict;
+
+  public ScheduleConflictException(Class<?> entityType, long id, Object conflict) {
+    super("%s overlaps %s with id %s"
+      .formatted(entityType.getSimpleName(), entityType.getSimpleName(), id));
+    this.conflict = conflict;
+  }
+}
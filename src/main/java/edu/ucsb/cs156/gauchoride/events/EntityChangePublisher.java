@@ -0,0 +1,48 @@
+package edu.ucsb.cs156.gauchoride.events;
+
+import javax.persistence.PostPersist;
+import javax.persistence.PostRemove;
+import javax.persistence.PostUpdate;
+
+import org.hibernate.Hibernate;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+
+import edu.ucsb.cs156.gauchoride.events.EntityChangedEvent.ChangeType;
+
+/**
+ * JPA entity listener that turns inserts, updates and deletes into
+ * EntityChangedEvents.  Register it on an entity with
+ * {@code @EntityListeners(EntityChangePublisher.class)}.
+ *
+ * The events are published while the transaction is still open; listeners
+ * should use {@code @TransactionalEventListener} so they only see committed
+ * changes.
+ */
+
+@Component
+public class EntityChangePublisher {
+
+  @Autowired
+  ApplicationEventPublisher publisher;
+
+  @PostPersist
+  public void created(Object entity) {
+    publish(entity, ChangeType.CREATED);
+  }
+
+  @PostUpdate
+  public void updated(Object entity) {
+    publish(entity, ChangeType.UPDATED);
+  }
+
+  @PostRemove
+  public void deleted(Object entity) {
+    publish(entity, ChangeType.DELETED);
+  }
+
+  private void publish(Object entity, ChangeType changeType) {
+    publisher.publishEvent(new EntityChangedEvent(Hibernate.getClass(entity), entity, changeType));
+  }
+}
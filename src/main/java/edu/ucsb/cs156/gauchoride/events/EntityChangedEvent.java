@@ -0,0 +1,32 @@
+package edu.ucsb.cs156.gauchoride.events;
+
+import lombok.Value;
+
+/**
+ * Published whenever a ride or shift is created, updated or deleted, so that
+ * in-memory views of that data (e.g. the dispatch index) can update
+ * themselves instead of reloading everything.
+ *
+ * RELOADED means that many rows were changed at once (e.g. by a bulk import);
+ * entity is null and listeners should reload everything of entityType.
+ */
+
+@Value
+public class EntityChangedEvent {
+
+  public enum ChangeType {
+    CREATED, UPDATED, DELETED, RELOADED
+  }
+
+  Class<?> entityType;
+  Object entity;
+  ChangeType changeType;
+
+  public static EntityChangedEvent reloaded(Class<?> entityType) {
+    return new EntityChangedEvent(entityType, null, ChangeType.RELOADED);
+  }
+
+  public boolean isAbout(Class<?> type) {
+    return type.equals(entityType);
+  }
+}
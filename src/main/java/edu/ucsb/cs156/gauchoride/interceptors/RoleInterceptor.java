@@ -1,66 +1,139 @@
 package edu.ucsb.cs156.gauchoride.interceptors;
 
+import javax.annotation.PostConstruct;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 import org.springframework.web.servlet.HandlerInterceptor;
-import org.springframework.web.servlet.ModelAndView;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
 
 import edu.ucsb.cs156.gauchoride.repositories.UserRepository;
+import edu.ucsb.cs156.gauchoride.services.CurrentUserRequestCache;
 import lombok.extern.slf4j.Slf4j;
 
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
-import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.GrantedAuthority;
-import org.springframework.security.core.context.SecurityContext;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.oauth2.client.authentication.OAuth2AuthenticationToken;
 import org.springframework.security.oauth2.core.user.OAuth2User;
 
+import java.time.Duration;
 import java.util.Optional;
-import java.util.HashSet;
 import java.util.Set;
 import java.util.Collection;
 import java.util.stream.Collectors;
 import edu.ucsb.cs156.gauchoride.entities.User;
 
+/**
+ * Keeps ROLE_ADMIN and ROLE_DRIVER in the security context in sync with the
+ * admin and driver flags stored in the database.
+ *
+ * The flags are cached per email in a bounded in-memory cache, so most
+ * requests need neither a database lookup nor a new authentication token.
+ * UsersController invalidates the entry for a user whenever it changes that
+ * user's roles; entries also expire after a while so that changes made
+ * elsewhere (e.g. on another instance) are eventually picked up.
+ */
+
 @Slf4j
 @Component
 public class RoleInterceptor implements HandlerInterceptor {
 
+    private static final String ROLE_ADMIN = "ROLE_ADMIN";
+    private static final String ROLE_DRIVER = "ROLE_DRIVER";
+
     @Autowired
     UserRepository userRepository;
 
+    @Value("${app.roleCache.maximumSize:10000}")
+    private long maximumSize;
+
+    @Value("${app.roleCache.expireAfterWriteSeconds:300}")
+    private long expireAfterWriteSeconds;
+
+    private Cache<String, CachedRoles> rolesByEmail;
+
+    private record CachedRoles(boolean admin, boolean driver) {
+    }
+
+    @PostConstruct
+    void buildCache() {
+        rolesByEmail = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(Duration.ofSeconds(expireAfterWriteSeconds))
+                .build();
+    }
+
+    /**
+     * Forget the cached roles for a user; the next request from that user
+     * reads them from the database again.
+     *
+     * @param email email of the user whose roles changed
+     */
+    public void invalidate(String email) {
+        if (email != null) {
+            rolesByEmail.invalidate(email);
+        }
+    }
+
+    /**
+     * Forget the cached roles of all users
+     */
+    public void invalidateAll() {
+        rolesByEmail.invalidateAll();
+    }
+
     @Override
     public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
         Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
 
-        if (authentication.getClass() == OAuth2AuthenticationToken.class) {
+        if (authentication != null && authentication.getClass() == OAuth2AuthenticationToken.class) {
             OAuth2User principal = ((OAuth2AuthenticationToken) authentication).getPrincipal();
             String email = principal.getAttribute("email");
-            Optional<User> optionalUser = userRepository.findByEmail(email);
-            if (optionalUser.isPresent()) {
-                User user = optionalUser.get();
-                Collection<? extends GrantedAuthority> authorities = authentication.getAuthorities();
-                Set<GrantedAuthority> revisedAuthorities = authorities.stream().filter(
-                        grantedAuth -> !grantedAuth.getAuthority().equals("ROLE_ADMIN")
-                                && !grantedAuth.getAuthority().equals("ROLE_DRIVER"))
-                        .collect(Collectors.toSet());
-                if (user.getAdmin()) {
-                    revisedAuthorities.add(new SimpleGrantedAuthority("ROLE_ADMIN"));
+            CachedRoles roles = email == null ? null : rolesByEmail.getIfPresent(email);
+            if (roles == null) {
+                Optional<User> optionalUser = userRepository.findByEmail(email);
+                if (optionalUser.isEmpty()) {
+                    return true;
                 }
-                if (user.getDriver()) {
-                    revisedAuthorities.add(new SimpleGrantedAuthority("ROLE_DRIVER"));
+                User user = optionalUser.get();
+                CurrentUserRequestCache.setUser(user);
+                roles = new CachedRoles(user.getAdmin(), user.getDriver());
+                if (email != null) {
+                    rolesByEmail.put(email, roles);
                 }
-                Authentication newAuth = new OAuth2AuthenticationToken(principal, revisedAuthorities,
-                        (((OAuth2AuthenticationToken) authentication).getAuthorizedClientRegistrationId()));
-                SecurityContextHolder.getContext().setAuthentication(newAuth);
             }
+
+            Collection<? extends GrantedAuthority> authorities = authentication.getAuthorities();
+            if (hasAuthority(authorities, ROLE_ADMIN) == roles.admin()
+                    && hasAuthority(authorities, ROLE_DRIVER) == roles.driver()) {
+                return true;
+            }
+
+            Set<GrantedAuthority> revisedAuthorities = authorities.stream().filter(
+                    grantedAuth -> !grantedAuth.getAuthority().equals(ROLE_ADMIN)
+                            && !grantedAuth.getAuthority().equals(ROLE_DRIVER))
+                    .collect(Collectors.toSet());
+            if (roles.admin()) {
+                revisedAuthorities.add(new SimpleGrantedAuthority(ROLE_ADMIN));
+            }
+            if (roles.driver()) {
+                revisedAuthorities.add(new SimpleGrantedAuthority(ROLE_DRIVER));
+            }
+            Authentication newAuth = new OAuth2AuthenticationToken(principal, revisedAuthorities,
+                    (((OAuth2AuthenticationToken) authentication).getAuthorizedClientRegistrationId()));
+            SecurityContextHolder.getContext().setAuthentication(newAuth);
         }
         return true;
     }
-}
\ No newline at end of file
+
+    private static boolean hasAuthority(Collection<? extends GrantedAuthority> authorities, String role) {
+        return authorities.stream().anyMatch(grantedAuth -> role.equals(grantedAuth.getAuthority()));
+    }
+}
@@ -13,7 +13,8 @@ public class RoleInterceptorConfig implements WebMvcConfigurer {
 
     @Override
     public void addInterceptors(InterceptorRegistry registry) {
-        registry.addInterceptor(roleAdminDriverInterceptor);
+        // Roles only matter to the API; static assets and frontend routes skip the interceptor
+        registry.addInterceptor(roleAdminDriverInterceptor).addPathPatterns("/api/**");
     }
 
 }
\ No newline at end of file
@@ -0,0 +1,28 @@
+package edu.ucsb.cs156.gauchoride.models;
+
+import lombok.Data;
+import lombok.AllArgsConstructor;
+import lombok.NoArgsConstructor;
+import lombok.Builder;
+import lombok.AccessLevel;
+
+import edu.ucsb.cs156.gauchoride.events.EntityChangedEvent.ChangeType;
+
+/**
+ * One change pushed to clients of the change feed.
+ *
+ * entity is "ride" or "shift"; data is the ride or shift after the change
+ * (for DELETED, as it was before).  For RELOADED, id and data are null and
+ * clients should fetch the whole list again.
+ */
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+@Builder
+public class ChangeDelta {
+  private String entity;
+  private ChangeType change;
+  private Long id;
+  private Object data;
+}
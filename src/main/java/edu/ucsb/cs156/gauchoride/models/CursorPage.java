@@ -0,0 +1,113 @@
+package edu.ucsb.cs156.gauchoride.models;
+
+import lombok.Data;
+import lombok.AllArgsConstructor;
+import lombok.NoArgsConstructor;
+import lombok.Builder;
+import lombok.AccessLevel;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.List;
+
+import edu.ucsb.cs156.gauchoride.errors.BadRequestException;
+
+/**
+ * One page of a keyset (cursor) paginated list.
+ *
+ * nextCursor is an opaque token to pass back as the cursor parameter to get
+ * the following page; it is null on the last page.
+ */
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+@Builder
+public class CursorPage<T> {
+  private List<T> items;
+  private String nextCursor;
+
+  /**
+   * Where a page sorted by something other than id ended: the sort key and
+   * id of its last row
+   */
+  public record Position(String key, long id) {
+  }
+
+  /**
+   * Encode the id of the last row on a page as a cursor token
+   *
+   * @param lastId id of the last row returned
+   * @return opaque cursor token
+   */
+  public static String encodeCursor(long lastId) {
+    return Base64.getUrlEncoder().withoutPadding()
+        .encodeToString(Long.toString(lastId).getBytes(StandardCharsets.UTF_8));
+  }
+
+  /**
+   * Decode a cursor token produced by encodeCursor
+   *
+   * @param cursor cursor token, or null/empty for the first page
+   * @return the id after which the next page starts (0 for the first page)
+   * @throws BadRequestException if the cursor is not a valid token
+   */
+  public static long decodeCursor(String cursor) {
+    if (cursor == null || cursor.isEmpty()) {
+      return 0L;
+    }
+    try {
+      String decoded = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+      long lastId = Long.parseLong(decoded);
+      if (lastId < 0) {
+        throw new BadRequestException("Invalid cursor: %s".formatted(cursor));
+      }
+      return lastId;
+    } catch (IllegalArgumentException e) {
+      // also covers NumberFormatException
+      throw new BadRequestException("Invalid cursor: %s".formatted(cursor));
+    }
+  }
+
+  /**
+   * Encode the sort key and id of the last row on a page as a cursor token,
+   * for lists sorted by key and then id
+   *
+   * @param lastKey sort key of the last row returned, e.g. "2024-01-15"
+   * @param lastId  id of the last row returned
+   * @return opaque cursor token
+   */
+  public static String encodeCursor(String lastKey, long lastId) {
+    return Base64.getUrlEncoder().withoutPadding()
+        .encodeToString((lastKey + "|" + lastId).getBytes(StandardCharsets.UTF_8));
+  }
+
+  /**
+   * Decode a cursor token produced by encodeCursor(String, long)
+   *
+   * @param cursor cursor token, or null/empty for the first page
+   * @return the position after which the next page starts, or null for the
+   *         first page
+   * @throws BadRequestException if the cursor is not a valid token
+   */
+  public static Position decodePosition(String cursor) {
+    if (cursor == null || cursor.isEmpty()) {
+      return null;
+    }
+    try {
+      String decoded = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+      int separator = decoded.lastIndexOf('|');
+      if (separator < 0) {
+        throw new BadRequestException("Invalid cursor: %s".formatted(cursor));
+      }
+      long lastId = Long.parseLong(decoded.substring(separator + 1));
+      if (lastId < 0) {
+        throw new BadRequestException("Invalid cursor: %s".formatted(cursor));
+      }
+      return new Position(decoded.substring(0, separator), lastId);
+    } catch (IllegalArgumentException e) {
+      // also covers NumberFormatException
+      throw new BadRequestException("Invalid cursor: %s".formatted(cursor));
+    }
+  }
+}
@@ -0,0 +1,26 @@
+package edu.ucsb.cs156.gauchoride.models;
+
+import lombok.Data;
+import lombok.AllArgsConstructor;
+import lombok.NoArgsConstructor;
+import lombok.Builder;
+import lombok.AccessLevel;
+
+/**
+ * How well one day is covered by shifts; one row of
+ * GET /api/shift/stats/days, computed by the database.  scheduledMinutes
+ * adds up the length of every shift, so overlapping shifts count twice.
+ */
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+@Builder
+public class DayCoverage {
+  private String day;
+  private long shifts;
+  private long drivers;
+  private String firstShiftStart;
+  private String lastShiftEnd;
+  private long scheduledMinutes;
+}
@@ -0,0 +1,25 @@
+package edu.ucsb.cs156.gauchoride.models;
+
+import java.util.List;
+
+import lombok.Data;
+import lombok.AllArgsConstructor;
+import lombok.NoArgsConstructor;
+import lombok.Builder;
+import lombok.AccessLevel;
+
+/**
+ * What one driver has to do on one day: the rides in that driver's shifts,
+ * in start time order, grouped into stops.
+ */
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+@Builder
+public class DriverManifest {
+  private long driverId;
+  private String day;
+  private int rideCount;
+  private List<ManifestStop> stops;
+}
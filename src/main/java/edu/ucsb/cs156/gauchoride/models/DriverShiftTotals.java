@@ -0,0 +1,22 @@
+package edu.ucsb.cs156.gauchoride.models;
+
+import lombok.Data;
+import lombok.AllArgsConstructor;
+import lombok.NoArgsConstructor;
+import lombok.Builder;
+import lombok.AccessLevel;
+
+/**
+ * How many shifts a driver has and how many minutes they add up to; one row
+ * of GET /api/shift/stats/drivers, computed by the database.
+ */
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+@Builder
+public class DriverShiftTotals {
+  private long driverId;
+  private long shifts;
+  private long scheduledMinutes;
+}
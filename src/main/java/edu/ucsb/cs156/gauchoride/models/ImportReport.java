@@ -0,0 +1,35 @@
+package edu.ucsb.cs156.gauchoride.models;
+
+import lombok.Data;
+import lombok.AllArgsConstructor;
+import lombok.NoArgsConstructor;
+import lombok.Builder;
+import lombok.AccessLevel;
+
+import java.util.List;
+
+/**
+ * The result of a bulk import: how many rows were created and rejected, and
+ * the outcome of each row.  Rows are numbered from 1 in the order they were
+ * sent (for CSV, not counting the header line).
+ */
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+@Builder
+public class ImportReport {
+  private int created;
+  private int rejected;
+  private List<Row> rows;
+
+  @Data
+  @AllArgsConstructor
+  @NoArgsConstructor(access = AccessLevel.PROTECTED)
+  @Builder
+  public static class Row {
+    private int row;
+    private boolean created;
+    private String error;
+  }
+}
@@ -0,0 +1,106 @@
+package edu.ucsb.cs156.gauchoride.models;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.ToIntFunction;
+
+/**
+ * An immutable index of intervals [start, end] that finds an interval
+ * containing a given range in O(log n).
+ *
+ * Intervals are kept sorted by start, together with the running maximum of
+ * their ends.  The intervals that start no later than the range are a prefix
+ * of the array (one binary search); the first of them whose end reaches the
+ * end of the range is where the running maximum first reaches it (a second
+ * binary search, as the running maximum never decreases).
+ *
+ * Rebuilding costs O(n log n); build a new index when the intervals change.
+ */
+
+public class IntervalIndex<T> {
+
+  private final List<T> items;
+  private final int[] starts;
+  private final int[] maxEnds;
+
+  private IntervalIndex(List<T> items, int[] starts, int[] maxEnds) {
+    this.items = items;
+    this.starts = starts;
+    this.maxEnds = maxEnds;
+  }
+
+  /**
+   * Build an index
+   *
+   * @param intervals the items to index
+   * @param startOf   start of an item's interval
+   * @param endOf     end of an item's interval
+   * @return the index
+   */
+  public static <T> IntervalIndex<T> of(Collection<T> intervals, ToIntFunction<T> startOf, ToIntFunction<T> endOf) {
+    List<T> sorted = new ArrayList<>(intervals);
+    sorted.sort(Comparator.comparingInt(startOf).thenComparingInt(endOf));
+    int[] starts = new int[sorted.size()];
+    int[] maxEnds = new int[sorted.size()];
+    int maxEnd = Integer.MIN_VALUE;
+    for (int i = 0; i < sorted.size(); i++) {
+      starts[i] = startOf.applyAsInt(sorted.get(i));
+      maxEnd = Math.max(maxEnd, endOf.applyAsInt(sorted.get(i)));
+      maxEnds[i] = maxEnd;
+    }
+    return new IntervalIndex<>(List.copyOf(sorted), starts, maxEnds);
+  }
+
+  /**
+   * Find an interval that contains the whole range [start, end]; if there is
+   * more than one, the one that starts first.
+   *
+   * @param start start of the range
+   * @param end   end of the range
+   * @return an interval containing the range, or empty if there is none
+   */
+  public Optional<T> findContaining(int start, int end) {
+    // number of intervals that start at or before start
+    int candidates = upperBound(starts, start);
+    if (candidates == 0 || maxEnds[candidates - 1] < end) {
+      return Optional.empty();
+    }
+    // first position where the running maximum of the ends reaches end;
+    // the interval there is the one that raised it
+    int lo = 0;
+    int hi = candidates - 1;
+    while (lo < hi) {
+      int mid = (lo + hi) >>> 1;
+      if (maxEnds[mid] >= end) {
+        hi = mid;
+      } else {
+        lo = mid + 1;
+      }
+    }
+    return Optional.of(items.get(lo));
+  }
+
+  /**
+   * @return number of intervals in the index
+   */
+  public int size() {
+    return items.size();
+  }
+
+  private static int upperBound(int[] sorted, int key) {
+    int lo = 0;
+    int hi = sorted.length;
+    while (lo < hi) {
+      int mid = (lo + hi) >>> 1;
+      if (sorted[mid] <= key) {
+        lo = mid + 1;
+      } else {
+        hi = mid;
+      }
+    }
+    return lo;
+  }
+}
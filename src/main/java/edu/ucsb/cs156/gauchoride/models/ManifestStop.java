@@ -0,0 +1,24 @@
+package edu.ucsb.cs156.gauchoride.models;
+
+import java.util.List;
+
+import lombok.Data;
+import lombok.AllArgsConstructor;
+import lombok.NoArgsConstructor;
+import lombok.Builder;
+import lombok.AccessLevel;
+
+/**
+ * One stop on a driver's manifest: consecutive rides picked up at the same
+ * location.  startTime is the start time of the first of them.
+ */
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+@Builder
+public class ManifestStop {
+  private String pickupLocation;
+  private String startTime;
+  private List<RideSummary> rides;
+}
@@ -0,0 +1,26 @@
+package edu.ucsb.cs156.gauchoride.models;
+
+import lombok.Data;
+import lombok.AllArgsConstructor;
+import lombok.NoArgsConstructor;
+import lombok.Builder;
+import lombok.AccessLevel;
+
+/**
+ * The shift (and so the driver) that will serve a ride.  shiftId, driverId
+ * and driverBackupId are null when no shift covers the ride.
+ */
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+@Builder
+public class RideAssignment {
+  private long rideId;
+  private String day;
+  private String startTime;
+  private String endTime;
+  private Long shiftId;
+  private Long driverId;
+  private Long driverBackupId;
+}
@@ -0,0 +1,31 @@
+package edu.ucsb.cs156.gauchoride.models;
+
+import lombok.Data;
+import lombok.AllArgsConstructor;
+import lombok.NoArgsConstructor;
+import lombok.Builder;
+import lombok.AccessLevel;
+
+/**
+ * A ride without its free-text notes; returned by
+ * GET /api/ride_request/all?view=summary and read from the database with a
+ * constructor query, so the notes are never loaded.
+ */
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+@Builder
+public class RideSummary {
+  private long id;
+  private long riderId;
+  private String student;
+  private String day;
+  private String startTime;
+  private String endTime;
+  private String pickupLocation;
+  private String pickupRoom;
+  private String dropoffLocation;
+  private String dropoffRoom;
+  private String course;
+}
@@ -0,0 +1,41 @@
+package edu.ucsb.cs156.gauchoride.models;
+
+import java.sql.Date;
+
+import lombok.Data;
+import lombok.AllArgsConstructor;
+import lombok.NoArgsConstructor;
+import lombok.Builder;
+import lombok.AccessLevel;
+
+/**
+ * The columns of a rider application shown in the applications table (no
+ * perm number, description or notes); returned by the rider application
+ * lists with ?view=summary and read from the database with a constructor
+ * query.
+ */
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+@Builder
+public class RiderApplicationSummary {
+  private long id;
+  private Long userId;
+  private String email;
+  private String status;
+  private Date created_date;
+  private Date updated_date;
+  private Date cancelled_date;
+
+  // the constructor query: Hibernate types the entity's java.sql.Date
+  // columns as java.util.Date, although the values are java.sql.Dates
+  public RiderApplicationSummary(long id, Long userId, String email, String status, java.util.Date created_date,
+      java.util.Date updated_date, java.util.Date cancelled_date) {
+    this(id, userId, email, status, toSqlDate(created_date), toSqlDate(updated_date), toSqlDate(cancelled_date));
+  }
+
+  private static Date toSqlDate(java.util.Date date) {
+    return date == null || date instanceof Date ? (Date) date : new Date(date.getTime());
+  }
+}
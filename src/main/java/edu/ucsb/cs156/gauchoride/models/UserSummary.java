@@ -0,0 +1,28 @@
+package edu.ucsb.cs156.gauchoride.models;
+
+import lombok.Data;
+import lombok.AllArgsConstructor;
+import lombok.NoArgsConstructor;
+import lombok.Builder;
+import lombok.AccessLevel;
+
+/**
+ * The columns of a user shown in the admin users table; returned by
+ * GET /api/admin/users?view=summary and read from the database with a
+ * constructor query, so the other columns are never loaded.
+ */
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+@Builder
+public class UserSummary {
+  private long id;
+  private String email;
+  private String givenName;
+  private String familyName;
+  private boolean admin;
+  private boolean driver;
+  private boolean rider;
+  private long version; // for If-Match when toggling the flags
+}
@@ -0,0 +1,33 @@
+package edu.ucsb.cs156.gauchoride.repositories;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import javax.persistence.TypedQuery;
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.ParameterExpression;
+
+/**
+ * The values of a Criteria query, bound as parameters instead of inlined
+ * (Hibernate inlines numbers), so that the statement is the same for every
+ * cursor and filter value and its plan can be reused.
+ */
+class QueryParameters {
+  private final CriteriaBuilder cb;
+  private final Map<String, Object> values = new HashMap<>();
+
+  QueryParameters(CriteriaBuilder cb) {
+    this.cb = cb;
+  }
+
+  <T> ParameterExpression<T> bind(Class<T> type, T value) {
+    String name = "p" + values.size();
+    values.put(name, value);
+    return cb.parameter(type, name);
+  }
+
+  <T> TypedQuery<T> applyTo(TypedQuery<T> query) {
+    values.forEach(query::setParameter);
+    return query;
+  }
+}
@@ -1,13 +1,41 @@
 package edu.ucsb.cs156.gauchoride.repositories;
 
 import edu.ucsb.cs156.gauchoride.entities.Ride;
+import edu.ucsb.cs156.gauchoride.models.RideSummary;
 
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+
+import java.util.List;
 import java.util.Optional;
 
 @Repository
-public interface RideRepository extends CrudRepository<Ride, Long> {
+public interface RideRepository extends CrudRepository<Ride, Long>, RideRepositoryCustom {
   Iterable<Ride> findAllByRiderId(long riderId);
   Optional<Ride> findByIdAndRiderId(long id, long riderId);
+  List<Ride> findByDayOrderByStartTimeAscIdAsc(String day);
+
+  String SUMMARY = "SELECT new edu.ucsb.cs156.gauchoride.models.RideSummary("
+      + "r.id, r.riderId, r.student, r.day, r.startTime, r.endTime,"
+      + " r.pickupLocation, r.pickupRoom, r.dropoffLocation, r.dropoffRoom, r.course)"
+      + " FROM ride r";
+
+  @Query(SUMMARY + " ORDER BY r.id")
+  List<RideSummary> findAllSummaries();
+
+  @Query(SUMMARY + " WHERE r.riderId = :riderId ORDER BY r.id")
+  List<RideSummary> findSummariesByRiderId(@Param("riderId") long riderId);
+
+  /**
+   * Rides on the same day as the given shift whose times overlap it, in
+   * start time order.  Days and times are stored as numbers, so the whole
+   * comparison runs in the database.
+   */
+  @Query("SELECT r FROM ride r, shift s WHERE s.id = :shiftId"
+      + " AND r.day = s.day"
+      + " AND r.startTime < s.shiftEnd AND r.endTime > s.shiftStart"
+      + " ORDER BY r.startTime ASC, r.id ASC")
+  List<Ride> findOverlappingShift(@Param("shiftId") long shiftId);
 }
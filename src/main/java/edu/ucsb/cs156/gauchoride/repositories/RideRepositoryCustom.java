@@ -0,0 +1,23 @@
+package edu.ucsb.cs156.gauchoride.repositories;
+
+import java.util.List;
+
+import org.springframework.data.domain.Pageable;
+
+import edu.ucsb.cs156.gauchoride.entities.Ride;
+
+/**
+ * Ride queries whose WHERE clause depends on the arguments; implemented with
+ * the Criteria API in RideRepositoryCustomImpl.
+ */
+public interface RideRepositoryCustom {
+
+  /**
+   * Keyset pagination: rides with id greater than afterId, in id order.
+   * Null filters are left out of the query, so each combination of filters
+   * is a statement (and a plan) of its own: with a rider, a day or a course
+   * it reads a range of that column's (column, id) index.  Pass a Pageable
+   * with page 0 to limit the number of rows; no count query is issued.
+   */
+  List<Ride> findPageAfter(long afterId, String day, Long riderId, String course, Pageable pageable);
+}
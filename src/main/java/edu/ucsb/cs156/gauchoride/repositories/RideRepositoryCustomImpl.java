@@ -0,0 +1,47 @@
+package edu.ucsb.cs156.gauchoride.repositories;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.Predicate;
+import javax.persistence.criteria.Root;
+
+import org.springframework.data.domain.Pageable;
+
+import edu.ucsb.cs156.gauchoride.entities.Ride;
+
+class RideRepositoryCustomImpl implements RideRepositoryCustom {
+
+  @PersistenceContext
+  private EntityManager entityManager;
+
+  @Override
+  public List<Ride> findPageAfter(long afterId, String day, Long riderId, String course, Pageable pageable) {
+    CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+    CriteriaQuery<Ride> query = cb.createQuery(Ride.class);
+    Root<Ride> ride = query.from(Ride.class);
+    QueryParameters parameters = new QueryParameters(cb);
+
+    List<Predicate> where = new ArrayList<>();
+    where.add(cb.greaterThan(ride.get("id"), parameters.bind(Long.class, afterId)));
+    if (day != null) {
+      where.add(cb.equal(ride.get("day"), parameters.bind(String.class, day)));
+    }
+    if (riderId != null) {
+      where.add(cb.equal(ride.get("riderId"), parameters.bind(Long.class, riderId)));
+    }
+    if (course != null) {
+      where.add(cb.equal(ride.get("course"), parameters.bind(String.class, course)));
+    }
+    query.where(where.toArray(new Predicate[0])).orderBy(cb.asc(ride.get("id")));
+
+    return parameters.applyTo(entityManager.createQuery(query))
+        .setFirstResult((int) pageable.getOffset())
+        .setMaxResults(pageable.getPageSize())
+        .getResultList();
+  }
+}
@@ -1,9 +1,16 @@
 package edu.ucsb.cs156.gauchoride.repositories;
 
 import edu.ucsb.cs156.gauchoride.entities.RiderApplication;
+import edu.ucsb.cs156.gauchoride.models.RiderApplicationSummary;
+import edu.ucsb.cs156.gauchoride.models.StatusCount;
 
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import java.sql.Date;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
@@ -13,4 +20,82 @@ public interface RiderApplicationRepository extends CrudRepository<RiderApplicat
   Iterable<RiderApplication> findAllByUserId(Long userId);
   Optional<RiderApplication> findById(Long id);
   Optional<RiderApplication> findByIdAndUserId(Long id, Long userId);
+
+  String SUMMARY = "SELECT new edu.ucsb.cs156.gauchoride.models.RiderApplicationSummary("
+      + "a.id, a.userId, a.email, a.status, a.created_date, a.updated_date, a.cancelled_date)"
+      + " FROM riderApplication a";
+
+  @Query(SUMMARY + " ORDER BY a.id")
+  List<RiderApplicationSummary> findAllSummaries();
+
+  @Query(SUMMARY + " WHERE a.status = :status ORDER BY a.id")
+  List<RiderApplicationSummary> findSummariesByStatus(@Param("status") String status);
+
+  @Query(SUMMARY + " WHERE a.userId = :userId ORDER BY a.id")
+  List<RiderApplicationSummary> findSummariesByUserId(@Param("userId") Long userId);
+
+  // one query with and one without the status, so that each has a plan
+  // of its own: a range of rider_application_status_code_created_idx or of
+  // rider_application_created_idx
+  String QUEUE_RANGE = " a.created_date >= :from AND a.created_date <= :to";
+
+  String QUEUE_AFTER = " AND (a.created_date > :afterDate OR (a.created_date = :afterDate AND a.id > :afterId))"
+      + " ORDER BY a.created_date ASC, a.id ASC";
+
+  String QUEUE_BEFORE = " AND (a.created_date < :beforeDate OR (a.created_date = :beforeDate AND a.id < :beforeId))"
+      + " ORDER BY a.created_date DESC, a.id DESC";
+
+  /**
+   * Keyset pagination of the admin queue, oldest first: applications
+   * created in [from, to] after the given position in (created_date, id)
+   * order.  Pass a Pageable with page 0 to limit the number of rows; no
+   * count query is issued.
+   */
+  @Query(SUMMARY + " WHERE" + QUEUE_RANGE + QUEUE_AFTER)
+  List<RiderApplicationSummary> findQueueAfter(@Param("from") Date from,
+      @Param("to") Date to,
+      @Param("afterDate") Date afterDate,
+      @Param("afterId") long afterId,
+      Pageable pageable);
+
+  /**
+   * As findQueueAfter, of one status only
+   */
+  @Query(SUMMARY + " WHERE a.status = :status AND" + QUEUE_RANGE + QUEUE_AFTER)
+  List<RiderApplicationSummary> findQueueAfterByStatus(@Param("status") String status,
+      @Param("from") Date from,
+      @Param("to") Date to,
+      @Param("afterDate") Date afterDate,
+      @Param("afterId") long afterId,
+      Pageable pageable);
+
+  /**
+   * As findQueueAfter, newest first: applications before the given position
+   */
+  @Query(SUMMARY + " WHERE" + QUEUE_RANGE + QUEUE_BEFORE)
+  List<RiderApplicationSummary> findQueueBefore(@Param("from") Date from,
+      @Param("to") Date to,
+      @Param("beforeDate") Date beforeDate,
+      @Param("beforeId") long beforeId,
+      Pageable pageable);
+
+  /**
+   * As findQueueBefore, of one status only
+   */
+  @Query(SUMMARY + " WHERE a.status = :status AND" + QUEUE_RANGE + QUEUE_BEFORE)
+  List<RiderApplicationSummary> findQueueBeforeByStatus(@Param("status") String status,
+      @Param("from") Date from,
+      @Param("to") Date to,
+      @Param("beforeDate") Date beforeDate,
+      @Param("beforeId") long beforeId,
+      Pageable pageable);
+
+  /**
+   * Number of applications in each status, in ApplicationStatus order
+   * (pending first); applications without a known status are counted under
+   * a null status.
+   */
+  @Query("SELECT new edu.ucsb.cs156.gauchoride.models.StatusCount(a.status, COUNT(a))"
+      + " FROM riderApplication a GROUP BY a.status ORDER BY a.status")
+  List<StatusCount> countByStatus();
 }
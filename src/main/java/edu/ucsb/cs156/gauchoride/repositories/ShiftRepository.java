@@ -1,14 +1,78 @@
 package edu.ucsb.cs156.gauchoride.repositories;
 
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.CrudRepository;
 import org.springframework.stereotype.Repository;
 
+import edu.ucsb.cs156.gauchoride.config.HibernateCacheConfig;
+import edu.ucsb.cs156.gauchoride.converters.ClockTimeConverter;
+import edu.ucsb.cs156.gauchoride.converters.DayOfWeekConverter;
 import edu.ucsb.cs156.gauchoride.entities.Shift;
+import edu.ucsb.cs156.gauchoride.models.DayCoverage;
+import edu.ucsb.cs156.gauchoride.models.DriverShiftTotals;
 
-import java.util.Optional;
+import java.time.DayOfWeek;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import javax.persistence.QueryHint;
 
 @Repository
-public interface ShiftRepository extends CrudRepository<Shift, Long> {
-  Optional<Shift> findByDay(String day);
-  Optional<Shift> findByDriverID(Long driverID);
+public interface ShiftRepository extends CrudRepository<Shift, Long>, ShiftRepositoryCustom {
+  // read by every schedule page and the dispatcher; the result is cached
+  // until the shift table changes
+  @Override
+  @QueryHints({
+    @QueryHint(name = "org.hibernate.cacheable", value = "true"),
+    @QueryHint(name = "org.hibernate.cacheRegion", value = HibernateCacheConfig.ALL_SHIFTS_REGION)
+  })
+  Iterable<Shift> findAll();
+
+  List<Shift> findByDayOrderByShiftStartAscIdAsc(String day);
+  List<Shift> findByIdGreaterThanOrderByIdAsc(long id, Pageable pageable);
+
+  /**
+   * Number of shifts and scheduled minutes per driver, in driver id order;
+   * rows are [driverid, shifts, minutes]
+   */
+  @Query(value = "SELECT driverid, COUNT(*), SUM(end_minute - start_minute) FROM shift"
+      + " WHERE start_minute IS NOT NULL AND end_minute IS NOT NULL"
+      + " GROUP BY driverid ORDER BY driverid", nativeQuery = true)
+  List<Object[]> totalsByDriverRows();
+
+  /**
+   * Number of shifts and drivers, earliest start, latest end and scheduled
+   * minutes per day, in day order; rows are [day_of_week, shifts, drivers,
+   * first start, last end, minutes]
+   */
+  @Query(value = "SELECT day_of_week, COUNT(*), COUNT(DISTINCT driverid), MIN(start_minute), MAX(end_minute),"
+      + " SUM(end_minute - start_minute) FROM shift"
+      + " WHERE day_of_week IS NOT NULL AND start_minute IS NOT NULL AND end_minute IS NOT NULL"
+      + " GROUP BY day_of_week ORDER BY day_of_week", nativeQuery = true)
+  List<Object[]> coverageByDayRows();
+
+  default List<DriverShiftTotals> totalsByDriver() {
+    return totalsByDriverRows().stream()
+        .map(row -> DriverShiftTotals.builder()
+            .driverId(((Number) row[0]).longValue())
+            .shifts(((Number) row[1]).longValue())
+            .scheduledMinutes(((Number) row[2]).longValue())
+            .build())
+        .collect(Collectors.toList());
+  }
+
+  default List<DayCoverage> coverageByDay() {
+    return coverageByDayRows().stream()
+        .map(row -> DayCoverage.builder()
+            .day(DayOfWeekConverter.format(DayOfWeek.of(((Number) row[0]).intValue())))
+            .shifts(((Number) row[1]).longValue())
+            .drivers(((Number) row[2]).longValue())
+            .firstShiftStart(ClockTimeConverter.format(((Number) row[3]).intValue()))
+            .lastShiftEnd(ClockTimeConverter.format(((Number) row[4]).intValue()))
+            .scheduledMinutes(((Number) row[5]).longValue())
+            .build())
+        .collect(Collectors.toList());
+  }
 }
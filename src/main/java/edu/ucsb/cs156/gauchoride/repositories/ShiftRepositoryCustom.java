@@ -0,0 +1,23 @@
+package edu.ucsb.cs156.gauchoride.repositories;
+
+import java.util.List;
+
+import org.springframework.data.domain.Pageable;
+
+import edu.ucsb.cs156.gauchoride.entities.Shift;
+
+/**
+ * Shift queries whose WHERE clause depends on the arguments; implemented
+ * with the Criteria API in ShiftRepositoryCustomImpl.
+ */
+public interface ShiftRepositoryCustom {
+
+  /**
+   * Keyset pagination: shifts with id greater than afterId, in id order.
+   * Null filters are left out of the query, so each combination of filters
+   * is a statement (and a plan) of its own: with a day or a driver it reads
+   * a range of shift_day_id_idx or shift_driverid_id_idx.  Pass a Pageable
+   * with page 0 to limit the number of rows; no count query is issued.
+   */
+  List<Shift> findPageAfter(long afterId, String day, Long driverID, Pageable pageable);
+}
@@ -0,0 +1,44 @@
+package edu.ucsb.cs156.gauchoride.repositories;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.Predicate;
+import javax.persistence.criteria.Root;
+
+import org.springframework.data.domain.Pageable;
+
+import edu.ucsb.cs156.gauchoride.entities.Shift;
+
+class ShiftRepositoryCustomImpl implements ShiftRepositoryCustom {
+
+  @PersistenceContext
+  private EntityManager entityManager;
+
+  @Override
+  public List<Shift> findPageAfter(long afterId, String day, Long driverID, Pageable pageable) {
+    CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+    CriteriaQuery<Shift> query = cb.createQuery(Shift.class);
+    Root<Shift> shift = query.from(Shift.class);
+    QueryParameters parameters = new QueryParameters(cb);
+
+    List<Predicate> where = new ArrayList<>();
+    where.add(cb.greaterThan(shift.get("id"), parameters.bind(Long.class, afterId)));
+    if (day != null) {
+      where.add(cb.equal(shift.get("day"), parameters.bind(String.class, day)));
+    }
+    if (driverID != null) {
+      where.add(cb.equal(shift.get("driverID"), parameters.bind(Long.class, driverID)));
+    }
+    query.where(where.toArray(new Predicate[0])).orderBy(cb.asc(shift.get("id")));
+
+    return parameters.applyTo(entityManager.createQuery(query))
+        .setFirstResult((int) pageable.getOffset())
+        .setMaxResults(pageable.getPageSize())
+        .getResultList();
+  }
+}
@@ -1,13 +1,32 @@
 package edu.ucsb.cs156.gauchoride.repositories;
 
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.CrudRepository;
 import org.springframework.stereotype.Repository;
 
+import edu.ucsb.cs156.gauchoride.config.HibernateCacheConfig;
 import edu.ucsb.cs156.gauchoride.entities.User;
+import edu.ucsb.cs156.gauchoride.models.UserSummary;
 
+import java.util.List;
 import java.util.Optional;
 
+import javax.persistence.QueryHint;
+
 @Repository
 public interface UserRepository extends CrudRepository<User, Long> {
+  // runs on most requests; the result is cached until the users table changes
+  @QueryHints({
+    @QueryHint(name = "org.hibernate.cacheable", value = "true"),
+    @QueryHint(name = "org.hibernate.cacheRegion", value = HibernateCacheConfig.USERS_BY_EMAIL_REGION)
+  })
   Optional<User> findByEmail(String email);
+  List<User> findByIdGreaterThanOrderByIdAsc(long id, Pageable pageable);
+
+  @Query("SELECT new edu.ucsb.cs156.gauchoride.models.UserSummary("
+      + "u.id, u.email, u.givenName, u.familyName, u.admin, u.driver, u.rider, u.version)"
+      + " FROM users u ORDER BY u.id")
+  List<UserSummary> findAllSummaries();
 }
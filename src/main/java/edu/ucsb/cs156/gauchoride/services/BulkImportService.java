@@ -0,0 +1,253 @@
+package edu.ucsb.cs156.gauchoride.services;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.dataformat.csv.CsvMapper;
+import com.fasterxml.jackson.dataformat.csv.CsvSchema;
+
+import edu.ucsb.cs156.gauchoride.converters.ClockTimeConverter;
+import edu.ucsb.cs156.gauchoride.converters.DayOfWeekConverter;
+import edu.ucsb.cs156.gauchoride.entities.Ride;
+import edu.ucsb.cs156.gauchoride.entities.Shift;
+import edu.ucsb.cs156.gauchoride.errors.BadRequestException;
+import edu.ucsb.cs156.gauchoride.errors.ScheduleConflictException;
+import edu.ucsb.cs156.gauchoride.events.EntityChangedEvent;
+import edu.ucsb.cs156.gauchoride.models.ImportReport;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Creates many rides or shifts at once, e.g. the recurring rides and the
+ * shift schedule at the start of a quarter.
+ *
+ * Every row is validated first; the valid rows are then inserted with JDBC
+ * batch inserts (batchSize rows per round trip) in a single transaction,
+ * and the invalid ones are reported back with the reason.  A row that
+ * overlaps a stored shift (or ride) of its driver (or rider), or an earlier
+ * row of the same import, is invalid too: ScheduleConflictService checks
+ * each valid row against the database and keeps its owner locked until the
+ * transaction ends, and rows not yet flushed are compared here.  The ids are
+ * still generated by the identity columns: JDBC batching does not need
+ * them up front, unlike Hibernate's, which is disabled for IDENTITY ids.
+ *
+ * The rows bypass JPA, so no per-entity events are published; a single
+ * RELOADED EntityChangedEvent tells listeners to reload instead.
+ */
+
+@Slf4j
+@Service
+public class BulkImportService {
+
+  // column names follow Spring's physical naming strategy for the entities
+  static final String INSERT_RIDE = "INSERT INTO ride"
+      + " (rider_id, student, day_of_week, start_minute, end_minute, pickup_location, pickup_room,"
+      + " dropoff_location, dropoff_room, course, notes)"
+      + " VALUES (:riderId, :student, :day, :start, :end, :pickupLocation, :pickupRoom,"
+      + " :dropoffLocation, :dropoffRoom, :course, :notes)";
+
+  static final String INSERT_SHIFT = "INSERT INTO shift"
+      + " (day_of_week, start_minute, end_minute, driverid, driver_backupid)"
+      + " VALUES (:day, :start, :end, :driverId, :driverBackupId)";
+
+  private static final CsvMapper CSV_MAPPER = new CsvMapper();
+
+  @Autowired
+  NamedParameterJdbcTemplate jdbcTemplate;
+
+  @Autowired
+  ApplicationEventPublisher publisher;
+
+  @Autowired
+  ScheduleConflictService scheduleConflictService;
+
+  @Value("${app.import.batchSize:200}")
+  int batchSize;
+
+  @Value("${app.import.maxRows:5000}")
+  int maxRows;
+
+  /**
+   * Validate and insert rides
+   *
+   * @param rides the rides to create; ids are ignored
+   * @return the per-row report
+   * @throws BadRequestException if there are more than maxRows rows
+   */
+  @Transactional
+  public ImportReport importRides(List<Ride> rides) {
+    return importRows(rides, BulkImportService::checkRide,
+        ride -> scheduleConflictService.checkRide(null, ride.getDay(), ride.getStartTime(), ride.getEndTime(),
+            ride.getRiderId()),
+        BulkImportService::rideParameters, "riderId", INSERT_RIDE, Ride.class);
+  }
+
+  /**
+   * Validate and insert shifts
+   *
+   * @param shifts the shifts to create; ids are ignored
+   * @return the per-row report
+   * @throws BadRequestException if there are more than maxRows rows
+   */
+  @Transactional
+  public ImportReport importShifts(List<Shift> shifts) {
+    return importRows(shifts, BulkImportService::checkShift,
+        shift -> scheduleConflictService.checkShift(null, shift.getDay(), shift.getShiftStart(),
+            shift.getShiftEnd(), shift.getDriverID()),
+        BulkImportService::shiftParameters, "driverId", INSERT_SHIFT, Shift.class);
+  }
+
+  /**
+   * Read rows from CSV text with a header line naming the fields, e.g.
+   * {@code day,shiftStart,shiftEnd,driverID,driverBackupID}
+   *
+   * @param csv  the CSV text
+   * @param type Ride or Shift
+   * @return one object per data line
+   * @throws BadRequestException if the CSV cannot be read
+   */
+  public <T> List<T> parseCsv(String csv, Class<T> type) {
+    CsvSchema schema = CsvSchema.emptySchema().withHeader();
+    List<T> rows = new ArrayList<>();
+    try (MappingIterator<T> it = CSV_MAPPER.readerFor(type).with(schema).readValues(csv)) {
+      while (it.hasNextValue()) {
+        rows.add(it.nextValue());
+        checkRowCount(rows.size());
+      }
+    } catch (BadRequestException e) {
+      throw e;
+    } catch (IOException | RuntimeException e) {
+      throw new BadRequestException("Invalid CSV at row %d: %s".formatted(rows.size() + 1, e.getMessage()));
+    }
+    return rows;
+  }
+
+  private <T> ImportReport importRows(List<T> rows, Consumer<T> check, Consumer<T> checkStored,
+      Function<T, SqlParameterSource> parameters, String owner, String insert, Class<T> type) {
+    checkRowCount(rows.size());
+    List<ImportReport.Row> results = new ArrayList<>(rows.size());
+    List<SqlParameterSource> batch = new ArrayList<>(batchSize);
+    // the row number of each row in batch
+    List<Integer> batchRows = new ArrayList<>(batchSize);
+    int created = 0;
+    for (int i = 0; i < rows.size(); i++) {
+      T row = rows.get(i);
+      SqlParameterSource values;
+      try {
+        check.accept(row);
+        values = parameters.apply(row);
+        checkBatch(batch, batchRows, values, owner, type);
+        checkStored.accept(row);
+      } catch (IllegalArgumentException | ScheduleConflictException e) {
+        results.add(ImportReport.Row.builder().row(i + 1).created(false).error(e.getMessage()).build());
+        continue;
+      }
+      batch.add(values);
+      batchRows.add(i + 1);
+      results.add(ImportReport.Row.builder().row(i + 1).created(true).build());
+      created++;
+      if (batch.size() == batchSize) {
+        flush(insert, batch);
+        batchRows.clear();
+      }
+    }
+    flush(insert, batch);
+    if (created > 0) {
+      publisher.publishEvent(EntityChangedEvent.reloaded(type));
+    }
+    log.info("Imported {} {} rows, rejected {}", created, type.getSimpleName(), rows.size() - created);
+    return ImportReport.builder()
+        .created(created)
+        .rejected(rows.size() - created)
+        .rows(results)
+        .build();
+  }
+
+  private void flush(String insert, List<SqlParameterSource> batch) {
+    if (!batch.isEmpty()) {
+      jdbcTemplate.batchUpdate(insert, batch.toArray(new SqlParameterSource[0]));
+      batch.clear();
+    }
+  }
+
+  /** rows still in the batch are not in the database for ScheduleConflictService to find */
+  private static void checkBatch(List<SqlParameterSource> batch, List<Integer> batchRows, SqlParameterSource row,
+      String owner, Class<?> type) {
+    for (int i = 0; i < batch.size(); i++) {
+      SqlParameterSource other = batch.get(i);
+      if (other.getValue(owner).equals(row.getValue(owner))
+          && other.getValue("day").equals(row.getValue("day"))
+          && (int) other.getValue("start") < (int) row.getValue("end")
+          && (int) other.getValue("end") > (int) row.getValue("start")) {
+        throw new IllegalArgumentException("%s overlaps row %d".formatted(type.getSimpleName(), batchRows.get(i)));
+      }
+    }
+  }
+
+  private void checkRowCount(int rows) {
+    if (rows > maxRows) {
+      throw new BadRequestException("Too many rows: at most %d can be imported at once".formatted(maxRows));
+    }
+  }
+
+  private static void checkRide(Ride ride) {
+    if (ride.getRiderId() <= 0) {
+      throw new IllegalArgumentException("riderId is required");
+    }
+    DayOfWeekConverter.parse(ride.getDay());
+    ClockTimeConverter.checkRange(ride.getStartTime(), ride.getEndTime());
+    requireText(ride.getPickupLocation(), "pickupLocation");
+    requireText(ride.getDropoffLocation(), "dropoffLocation");
+    requireText(ride.getCourse(), "course");
+  }
+
+  private static void checkShift(Shift shift) {
+    if (shift.getDriverID() <= 0) {
+      throw new IllegalArgumentException("driverID is required");
+    }
+    DayOfWeekConverter.parse(shift.getDay());
+    ClockTimeConverter.checkRange(shift.getShiftStart(), shift.getShiftEnd());
+  }
+
+  private static void requireText(String value, String name) {
+    if (value == null || value.isBlank()) {
+      throw new IllegalArgumentException("%s is required".formatted(name));
+    }
+  }
+
+  private static SqlParameterSource rideParameters(Ride ride) {
+    return new MapSqlParameterSource()
+        .addValue("riderId", ride.getRiderId())
+        .addValue("student", ride.getStudent())
+        .addValue("day", DayOfWeekConverter.parse(ride.getDay()).getValue())
+        .addValue("start", ClockTimeConverter.toMinuteOfDay(ride.getStartTime()))
+        .addValue("end", ClockTimeConverter.toMinuteOfDay(ride.getEndTime()))
+        .addValue("pickupLocation", ride.getPickupLocation())
+        .addValue("pickupRoom", ride.getPickupRoom())
+        .addValue("dropoffLocation", ride.getDropoffLocation())
+        .addValue("dropoffRoom", ride.getDropoffRoom())
+        .addValue("course", ride.getCourse())
+        .addValue("notes", ride.getNotes());
+  }
+
+  private static SqlParameterSource shiftParameters(Shift shift) {
+    return new MapSqlParameterSource()
+        .addValue("day", DayOfWeekConverter.parse(shift.getDay()).getValue())
+        .addValue("start", ClockTimeConverter.toMinuteOfDay(shift.getShiftStart()))
+        .addValue("end", ClockTimeConverter.toMinuteOfDay(shift.getShiftEnd()))
+        .addValue("driverId", shift.getDriverID())
+        .addValue("driverBackupId", shift.getDriverBackupID());
+  }
+}
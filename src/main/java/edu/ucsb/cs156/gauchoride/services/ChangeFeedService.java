@@ -0,0 +1,224 @@
+package edu.ucsb.cs156.gauchoride.services;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import javax.annotation.PreDestroy;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.task.TaskExecutionAutoConfiguration;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import edu.ucsb.cs156.gauchoride.entities.Ride;
+import edu.ucsb.cs156.gauchoride.entities.Shift;
+import edu.ucsb.cs156.gauchoride.events.EntityChangedEvent;
+import edu.ucsb.cs156.gauchoride.models.ChangeDelta;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Pushes ride and shift changes to clients over server-sent events, so they
+ * do not have to poll the list endpoints.
+ *
+ * Changes arrive as EntityChangedEvents once their transaction has
+ * committed.  Each subscriber sees only what the list endpoints would show
+ * it: every shift, and either every ride (admins and drivers) or only its
+ * own rides.
+ *
+ * Each subscriber has its own queue, drained by a task on the application
+ * task executor (spring.task.execution.pool) only while there is something
+ * in it, so neither the request that made the change nor the other
+ * subscribers wait for a slow client.  A client that
+ * falls app.changes.queueSize events behind is disconnected; its browser
+ * reconnects and should read the lists again.
+ */
+
+@Slf4j
+@Service
+public class ChangeFeedService {
+
+  /**
+   * What a subscriber wants to see.
+   *
+   * @param rides    send ride changes
+   * @param shifts   send shift changes
+   * @param allRides send changes to every ride, not only the subscriber's own
+   * @param userId   id of the subscribing user
+   */
+  public record Filter(boolean rides, boolean shifts, boolean allRides, long userId) {
+
+    boolean accepts(ChangeDelta delta, Object entity) {
+      if (delta.getEntity().equals(RIDE)) {
+        return rides && (allRides || entity == null || ((Ride) entity).getRiderId() == userId);
+      }
+      return shifts;
+    }
+  }
+
+  private static class Subscriber {
+    final SseEmitter emitter;
+    final Filter filter;
+    final BlockingQueue<SseEmitter.SseEventBuilder> pending;
+    // set while a task is draining pending; at most one at a time
+    final AtomicBoolean sending = new AtomicBoolean();
+    volatile boolean dropped;
+    volatile Throwable error;
+
+    Subscriber(SseEmitter emitter, Filter filter, int queueSize) {
+      this.emitter = emitter;
+      this.filter = filter;
+      this.pending = new ArrayBlockingQueue<>(queueSize);
+    }
+  }
+
+  static final String RIDE = "ride";
+  static final String SHIFT = "shift";
+
+  private final List<Subscriber> subscribers = new CopyOnWriteArrayList<>();
+
+  // shut down with the context; replaced in tests to send synchronously
+  @Autowired
+  @Qualifier(TaskExecutionAutoConfiguration.APPLICATION_TASK_EXECUTOR_BEAN_NAME)
+  Executor executor;
+
+  // events a subscriber may fall behind by before it is disconnected
+  @Value("${app.changes.queueSize:100}")
+  int queueSize;
+
+  /**
+   * Start sending changes to a client
+   *
+   * @param emitter the client's event stream
+   * @param filter  the changes the client should see
+   */
+  public void subscribe(SseEmitter emitter, Filter filter) {
+    Subscriber subscriber = new Subscriber(emitter, filter, queueSize);
+    subscribers.add(subscriber);
+    emitter.onCompletion(() -> subscribers.remove(subscriber));
+    emitter.onTimeout(() -> subscribers.remove(subscriber));
+    emitter.onError(e -> subscribers.remove(subscriber));
+    log.debug("Change feed subscriber added for user {} ({} subscribers)", filter.userId(), subscribers.size());
+  }
+
+  /**
+   * @return number of connected clients
+   */
+  public int subscriberCount() {
+    return subscribers.size();
+  }
+
+  @TransactionalEventListener(fallbackExecution = true)
+  public void onEntityChanged(EntityChangedEvent event) {
+    String entity;
+    Long id = null;
+    if (event.isAbout(Ride.class)) {
+      entity = RIDE;
+      if (event.getEntity() != null) {
+        id = ((Ride) event.getEntity()).getId();
+      }
+    } else if (event.isAbout(Shift.class)) {
+      entity = SHIFT;
+      if (event.getEntity() != null) {
+        id = ((Shift) event.getEntity()).getId();
+      }
+    } else {
+      return;
+    }
+    if (subscribers.isEmpty()) {
+      return;
+    }
+    ChangeDelta delta = ChangeDelta.builder()
+        .entity(entity)
+        .change(event.getChangeType())
+        .id(id)
+        .data(event.getEntity())
+        .build();
+    for (Subscriber subscriber : subscribers) {
+      if (subscriber.filter.accepts(delta, event.getEntity())) {
+        enqueue(subscriber, SseEmitter.event().name(delta.getEntity()).data(delta));
+      }
+    }
+  }
+
+  /**
+   * Comment lines keep idle connections open through proxies (some close a
+   * connection after a minute without data) and find clients that have gone
+   * away.
+   */
+  @Scheduled(fixedDelayString = "${app.changes.heartbeatMillis:30000}")
+  public void heartbeat() {
+    for (Subscriber subscriber : subscribers) {
+      enqueue(subscriber, SseEmitter.event().comment("heartbeat"));
+    }
+  }
+
+  @PreDestroy
+  void shutdown() {
+    subscribers.forEach(subscriber -> subscriber.emitter.complete());
+    subscribers.clear();
+  }
+
+  private void enqueue(Subscriber subscriber, SseEmitter.SseEventBuilder event) {
+    if (!subscriber.pending.offer(event)) {
+      log.info("Change feed subscriber for user {} fell {} events behind; disconnecting it",
+          subscriber.filter.userId(), queueSize);
+      drop(subscriber, null);
+    }
+    schedule(subscriber);
+  }
+
+  private void schedule(Subscriber subscriber) {
+    if (subscriber.sending.compareAndSet(false, true)) {
+      executor.execute(() -> drain(subscriber));
+    }
+  }
+
+  private void drain(Subscriber subscriber) {
+    do {
+      SseEmitter.SseEventBuilder event;
+      while (!subscriber.dropped && (event = subscriber.pending.poll()) != null) {
+        send(subscriber, event);
+      }
+      if (subscriber.dropped) {
+        // sending stays set, so nothing is scheduled for it again
+        subscriber.pending.clear();
+        close(subscriber);
+        return;
+      }
+      subscriber.sending.set(false);
+      // an event queued after the last poll found sending still set
+    } while (!subscriber.pending.isEmpty() && subscriber.sending.compareAndSet(false, true));
+  }
+
+  private void send(Subscriber subscriber, SseEmitter.SseEventBuilder event) {
+    try {
+      subscriber.emitter.send(event);
+    } catch (IOException | IllegalStateException e) {
+      // the client has gone away
+      drop(subscriber, e);
+    }
+  }
+
+  private void drop(Subscriber subscriber, Throwable error) {
+    subscribers.remove(subscriber);
+    subscriber.error = error;
+    subscriber.dropped = true;
+  }
+
+  private void close(Subscriber subscriber) {
+    if (subscriber.error != null) {
+      subscriber.emitter.completeWithError(subscriber.error);
+    } else {
+      subscriber.emitter.complete();
+    }
+  }
+}
@@ -0,0 +1,97 @@
+package edu.ucsb.cs156.gauchoride.services;
+
+import java.util.Optional;
+
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+
+import edu.ucsb.cs156.gauchoride.entities.User;
+import edu.ucsb.cs156.gauchoride.models.CurrentUser;
+
+/**
+ * Holds the current user for the lifetime of a single HTTP request.
+ *
+ * The RoleInterceptor, the controllers (via CurrentUserService) and
+ * GrantedAuthoritiesService all need the current user; storing it as a
+ * request attribute means it is looked up in the database at most once per
+ * request. Outside of a request (e.g. in a unit test) nothing is cached.
+ */
+
+public final class CurrentUserRequestCache {
+
+  static final String USER_ATTRIBUTE = CurrentUserRequestCache.class.getName() + ".user";
+  static final String CURRENT_USER_ATTRIBUTE = CurrentUserRequestCache.class.getName() + ".currentUser";
+
+  private CurrentUserRequestCache() {
+  }
+
+  /**
+   * Get the User entity that was resolved earlier in this request, if any
+   *
+   * @return the cached user, or empty if none has been resolved yet
+   */
+  public static Optional<User> getUser() {
+    return get(USER_ATTRIBUTE, User.class);
+  }
+
+  /**
+   * Remember the User entity for the rest of this request.  Any CurrentUser
+   * built from a previous user is discarded.
+   *
+   * @param user the user entity for the logged in user
+   */
+  public static void setUser(User user) {
+    put(USER_ATTRIBUTE, user);
+    remove(CURRENT_USER_ATTRIBUTE);
+  }
+
+  /**
+   * Get the CurrentUser that was built earlier in this request, if any
+   *
+   * @return the cached CurrentUser, or empty if none has been built yet
+   */
+  public static Optional<CurrentUser> getCurrentUser() {
+    return get(CURRENT_USER_ATTRIBUTE, CurrentUser.class);
+  }
+
+  /**
+   * Remember the CurrentUser for the rest of this request
+   *
+   * @param currentUser the CurrentUser (user and roles) for this request
+   */
+  public static void setCurrentUser(CurrentUser currentUser) {
+    put(CURRENT_USER_ATTRIBUTE, currentUser);
+  }
+
+  /**
+   * Forget everything cached for this request; used when the roles of the
+   * logged in user change part way through a request.
+   */
+  public static void clear() {
+    remove(USER_ATTRIBUTE);
+    remove(CURRENT_USER_ATTRIBUTE);
+  }
+
+  private static <T> Optional<T> get(String name, Class<T> type) {
+    RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+    if (attributes == null) {
+      return Optional.empty();
+    }
+    Object value = attributes.getAttribute(name, RequestAttributes.SCOPE_REQUEST);
+    return type.isInstance(value) ? Optional.of(type.cast(value)) : Optional.empty();
+  }
+
+  private static void put(String name, Object value) {
+    RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+    if (attributes != null && value != null) {
+      attributes.setAttribute(name, value, RequestAttributes.SCOPE_REQUEST);
+    }
+  }
+
+  private static void remove(String name) {
+    RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+    if (attributes != null) {
+      attributes.removeAttribute(name, RequestAttributes.SCOPE_REQUEST);
+    }
+  }
+}
@@ -34,12 +34,23 @@ public class CurrentUserServiceImpl extends CurrentUserService {
   @Value("${app.admin.emails}")
   final private List<String> adminEmails = new ArrayList<String>();
 
+  /**
+   * Get the current user.  The result is resolved at most once per HTTP
+   * request; later calls in the same request return the cached value.
+   *
+   * @return the current user
+   */
   public CurrentUser getCurrentUser() {
+    Optional<CurrentUser> cached = CurrentUserRequestCache.getCurrentUser();
+    if (cached.isPresent()) {
+      return cached.get();
+    }
     CurrentUser cu = CurrentUser.builder()
       .user(this.getUser())
       .roles(this.getRoles())
       .build();
-    log.info("getCurrentUser returns {}",cu);
+    log.debug("getCurrentUser returns {}", cu);
+    CurrentUserRequestCache.setCurrentUser(cu);
     return cu;
   }
 
@@ -56,17 +67,18 @@ public class CurrentUserServiceImpl extends CurrentUserService {
     String locale = oAuthUser.getAttribute("locale");
     String hostedDomain = oAuthUser.getAttribute("hd");
 
-    java.util.Map<java.lang.String,java.lang.Object> attrs = oAuthUser.getAttributes();
-    log.info("attrs={}",attrs);
+    log.debug("attrs={}", oAuthUser.getAttributes());
 
-    Optional<User> ou = userRepository.findByEmail(email);
+    Optional<User> ou = CurrentUserRequestCache.getUser()
+        .filter(cached -> email != null && email.equals(cached.getEmail()))
+        .or(() -> userRepository.findByEmail(email));
     if (ou.isPresent()) {
       User u = ou.get();
       if (adminEmails.contains(email) && !u.getAdmin()) {
         u.setAdmin(true);
         userRepository.save(u);
       }
-      
+      CurrentUserRequestCache.setUser(u);
       return u;
     }
 
@@ -83,6 +95,7 @@ public class CurrentUserServiceImpl extends CurrentUserService {
         .admin(adminEmails.contains(email))
         .build();
     userRepository.save(u);
+    CurrentUserRequestCache.setUser(u);
   
     return u;
   }
@@ -0,0 +1,254 @@
+package edu.ucsb.cs156.gauchoride.services;
+
+import java.time.DayOfWeek;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import edu.ucsb.cs156.gauchoride.converters.ClockTimeConverter;
+import edu.ucsb.cs156.gauchoride.converters.DayOfWeekConverter;
+import edu.ucsb.cs156.gauchoride.entities.Ride;
+import edu.ucsb.cs156.gauchoride.entities.Shift;
+import edu.ucsb.cs156.gauchoride.errors.BadRequestException;
+import edu.ucsb.cs156.gauchoride.events.EntityChangedEvent;
+import edu.ucsb.cs156.gauchoride.events.EntityChangedEvent.ChangeType;
+import edu.ucsb.cs156.gauchoride.models.IntervalIndex;
+import edu.ucsb.cs156.gauchoride.models.RideAssignment;
+import edu.ucsb.cs156.gauchoride.repositories.RideRepository;
+import edu.ucsb.cs156.gauchoride.repositories.ShiftRepository;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Assigns rides to the driver shifts that will serve them.
+ *
+ * All shifts are loaded once and kept in one IntervalIndex per weekday, so
+ * finding the shift for a ride takes O(log n) instead of a scan over every
+ * shift.  The assignments for a day are computed when first asked for and
+ * kept until a ride or shift on that day changes.
+ *
+ * Changes arrive as EntityChangedEvents after their transaction commits:
+ * a changed shift rebuilds only the index of its day(s), and a changed ride
+ * only drops the cached assignments of its day(s).
+ *
+ * Readers take no lock.  The shifts and the assignments are read from the
+ * database outside the lock and published under it, and only if no change
+ * arrived while they were being read; otherwise they are returned to the
+ * caller but not kept.  Changes replace the shift index rather than modify
+ * it, so a reader always sees a complete one.
+ */
+
+@Slf4j
+@Service
+public class DispatchService {
+
+  @Autowired
+  ShiftRepository shiftRepository;
+
+  @Autowired
+  RideRepository rideRepository;
+
+  /** a shift as far as dispatch is concerned; copied so entities are not shared */
+  record ShiftSlot(long id, DayOfWeek day, int start, int end, long driverId, long driverBackupId) {
+  }
+
+  /** every usable shift, by id and indexed by day; never modified once published */
+  private record Shifts(Map<Long, ShiftSlot> byId, Map<DayOfWeek, IntervalIndex<ShiftSlot>> indexByDay) {
+  }
+
+  // guards publishing and changes; nothing that reads the database holds it
+  private final Object lock = new Object();
+
+  // incremented on every change, so a read that overlapped one is not published
+  private final AtomicLong changes = new AtomicLong();
+
+  private volatile Shifts shifts;
+  private final Map<DayOfWeek, List<RideAssignment>> assignmentsByDay = new ConcurrentHashMap<>();
+
+  /**
+   * Get the assignment of every ride on a day, in start time order
+   *
+   * @param day day name, e.g. "Tuesday"
+   * @return one assignment per ride on that day
+   * @throws BadRequestException if day is not the name of a day
+   */
+  public List<RideAssignment> getAssignments(String day) {
+    DayOfWeek dayOfWeek = DayOfWeekConverter.parse(day);
+    List<RideAssignment> cached = assignmentsByDay.get(dayOfWeek);
+    if (cached != null) {
+      return cached;
+    }
+    long seen = changes.get();
+    IntervalIndex<ShiftSlot> index = indexFor(dayOfWeek);
+    List<Ride> rides = rideRepository.findByDayOrderByStartTimeAscIdAsc(DayOfWeekConverter.format(dayOfWeek));
+    List<RideAssignment> assignments = rides.stream()
+        .map(ride -> assign(ride, index))
+        .collect(Collectors.toUnmodifiableList());
+    synchronized (lock) {
+      if (changes.get() == seen) {
+        assignmentsByDay.putIfAbsent(dayOfWeek, assignments);
+      }
+    }
+    return assignments;
+  }
+
+  /**
+   * Find the shift that covers a ride
+   *
+   * @param ride the ride
+   * @return the ride's assignment (with no shift if none covers it)
+   */
+  public RideAssignment assign(Ride ride) {
+    return assign(ride, indexFor(DayOfWeekConverter.parse(ride.getDay())));
+  }
+
+  // before DriverManifestService, which reads the assignments again
+  @Order(Ordered.HIGHEST_PRECEDENCE)
+  @TransactionalEventListener(fallbackExecution = true)
+  public void onEntityChanged(EntityChangedEvent event) {
+    synchronized (lock) {
+      if (event.isAbout(Shift.class)) {
+        changes.incrementAndGet();
+        shiftChanged(event);
+      } else if (event.isAbout(Ride.class)) {
+        changes.incrementAndGet();
+        rideChanged(event);
+      }
+    }
+  }
+
+  private void shiftChanged(EntityChangedEvent event) {
+    Shifts current = shifts;
+    if (current == null) {
+      return; // nothing loaded yet
+    }
+    if (event.getChangeType() == ChangeType.RELOADED) {
+      shifts = null;
+      assignmentsByDay.clear();
+      return;
+    }
+    Shift shift = (Shift) event.getEntity();
+    Map<Long, ShiftSlot> byId = new HashMap<>(current.byId());
+    ShiftSlot old = byId.remove(shift.getId());
+    Optional<ShiftSlot> slot = Optional.empty();
+    if (event.getChangeType() != ChangeType.DELETED) {
+      slot = toSlot(shift);
+      slot.ifPresent(s -> byId.put(s.id(), s));
+    }
+    Map<DayOfWeek, IntervalIndex<ShiftSlot>> indexByDay = new EnumMap<>(current.indexByDay());
+    if (old != null) {
+      rebuildDay(old.day(), byId, indexByDay);
+    }
+    slot.filter(s -> old == null || s.day() != old.day()).ifPresent(s -> rebuildDay(s.day(), byId, indexByDay));
+    shifts = new Shifts(byId, indexByDay);
+  }
+
+  private void rideChanged(EntityChangedEvent event) {
+    if (event.getChangeType() == ChangeType.RELOADED) {
+      assignmentsByDay.clear();
+      return;
+    }
+    Ride ride = (Ride) event.getEntity();
+    // the ride may have moved from another day
+    assignmentsByDay.values().removeIf(
+        assignments -> assignments.stream().anyMatch(a -> a.getRideId() == ride.getId()));
+    parseDay(ride.getDay()).ifPresent(assignmentsByDay::remove);
+  }
+
+  private void rebuildDay(DayOfWeek day, Map<Long, ShiftSlot> byId,
+      Map<DayOfWeek, IntervalIndex<ShiftSlot>> indexByDay) {
+    List<ShiftSlot> slots = byId.values().stream()
+        .filter(s -> s.day() == day)
+        .collect(Collectors.toList());
+    indexByDay.put(day, IntervalIndex.of(slots, ShiftSlot::start, ShiftSlot::end));
+    assignmentsByDay.remove(day);
+    log.debug("Rebuilt dispatch index for {} ({} shifts)", day, slots.size());
+  }
+
+  private IntervalIndex<ShiftSlot> indexFor(DayOfWeek day) {
+    Shifts current = shifts;
+    if (current == null) {
+      current = loadShifts();
+    }
+    return current.indexByDay().get(day);
+  }
+
+  private Shifts loadShifts() {
+    long seen = changes.get();
+    Map<Long, ShiftSlot> byId = new HashMap<>();
+    for (Shift shift : shiftRepository.findAll()) {
+      toSlot(shift).ifPresent(s -> byId.put(s.id(), s));
+    }
+    Map<DayOfWeek, List<ShiftSlot>> slotsByDay = new EnumMap<>(DayOfWeek.class);
+    for (DayOfWeek day : DayOfWeek.values()) {
+      slotsByDay.put(day, new ArrayList<>());
+    }
+    byId.values().forEach(s -> slotsByDay.get(s.day()).add(s));
+    Map<DayOfWeek, IntervalIndex<ShiftSlot>> indexByDay = new EnumMap<>(DayOfWeek.class);
+    slotsByDay.forEach((day, slots) -> indexByDay.put(day, IntervalIndex.of(slots, ShiftSlot::start, ShiftSlot::end)));
+    Shifts loaded = new Shifts(byId, indexByDay);
+    synchronized (lock) {
+      if (shifts != null) {
+        return shifts; // loaded by another thread meanwhile
+      }
+      if (changes.get() == seen) {
+        shifts = loaded;
+        log.info("Loaded {} shifts into the dispatch index", byId.size());
+      }
+    }
+    return loaded;
+  }
+
+  private static RideAssignment assign(Ride ride, IntervalIndex<ShiftSlot> index) {
+    RideAssignment.RideAssignmentBuilder assignment = RideAssignment.builder()
+        .rideId(ride.getId())
+        .day(ride.getDay())
+        .startTime(ride.getStartTime())
+        .endTime(ride.getEndTime());
+    Optional<ShiftSlot> shift = Optional.empty();
+    try {
+      shift = index.findContaining(ClockTimeConverter.toMinuteOfDay(ride.getStartTime()),
+          ClockTimeConverter.toMinuteOfDay(ride.getEndTime()));
+    } catch (IllegalArgumentException e) {
+      log.warn("Ride {} has an invalid time and cannot be assigned: {}", ride.getId(), e.getMessage());
+    }
+    shift.ifPresent(s -> assignment
+        .shiftId(s.id())
+        .driverId(s.driverId())
+        .driverBackupId(s.driverBackupId()));
+    return assignment.build();
+  }
+
+  private static Optional<ShiftSlot> toSlot(Shift shift) {
+    try {
+      return Optional.of(new ShiftSlot(shift.getId(),
+          DayOfWeekConverter.parse(shift.getDay()),
+          ClockTimeConverter.toMinuteOfDay(shift.getShiftStart()),
+          ClockTimeConverter.toMinuteOfDay(shift.getShiftEnd()),
+          shift.getDriverID(),
+          shift.getDriverBackupID()));
+    } catch (IllegalArgumentException e) {
+      log.warn("Shift {} is not usable for dispatch: {}", shift.getId(), e.getMessage());
+      return Optional.empty();
+    }
+  }
+
+  private static Optional<DayOfWeek> parseDay(String day) {
+    try {
+      return Optional.of(DayOfWeekConverter.parse(day));
+    } catch (IllegalArgumentException e) {
+      return Optional.empty();
+    }
+  }
+}
@@ -0,0 +1,206 @@
+package edu.ucsb.cs156.gauchoride.services;
+
+import java.time.DayOfWeek;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+import javax.annotation.PostConstruct;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import edu.ucsb.cs156.gauchoride.converters.ClockTimeConverter;
+import edu.ucsb.cs156.gauchoride.converters.DayOfWeekConverter;
+import edu.ucsb.cs156.gauchoride.entities.Ride;
+import edu.ucsb.cs156.gauchoride.entities.Shift;
+import edu.ucsb.cs156.gauchoride.errors.BadRequestException;
+import edu.ucsb.cs156.gauchoride.events.EntityChangedEvent;
+import edu.ucsb.cs156.gauchoride.events.EntityChangedEvent.ChangeType;
+import edu.ucsb.cs156.gauchoride.models.DriverManifest;
+import edu.ucsb.cs156.gauchoride.models.ManifestStop;
+import edu.ucsb.cs156.gauchoride.models.RideAssignment;
+import edu.ucsb.cs156.gauchoride.models.RideSummary;
+import edu.ucsb.cs156.gauchoride.repositories.RideRepository;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Builds each driver's daily manifest: the rides DispatchService assigns to
+ * the driver's shifts, sorted by start time, with consecutive pickups at the
+ * same location (e.g. three riders waiting at Phelps Hall) merged into one
+ * stop.
+ *
+ * Manifests are cached per driver and day.  A changed ride is patched into
+ * the cached manifests it affects (the one it was on and the one it is
+ * assigned to now) without going back to the database; the patch is
+ * idempotent, so it does no harm if the manifest was built after the change
+ * was committed.  A changed shift can move many rides between drivers, so
+ * shift changes drop every cached manifest.
+ */
+
+@Slf4j
+@Service
+public class DriverManifestService {
+
+  @Autowired
+  DispatchService dispatchService;
+
+  @Autowired
+  RideRepository rideRepository;
+
+  @Value("${app.driverManifest.maximumSize:1000}")
+  private long maximumSize;
+
+  private record Key(long driverId, DayOfWeek day) {
+  }
+
+  private static final Comparator<RideSummary> START_TIME_ORDER = Comparator
+      .comparingInt((RideSummary ride) -> ClockTimeConverter.toMinuteOfDay(ride.getStartTime()))
+      .thenComparingLong(RideSummary::getId);
+
+  private Cache<Key, DriverManifest> manifests;
+
+  @PostConstruct
+  void buildCache() {
+    manifests = Caffeine.newBuilder()
+        .maximumSize(maximumSize)
+        .build();
+  }
+
+  /**
+   * Get a driver's manifest for a day, building it only if it is not cached
+   *
+   * @param driverId id of the driver
+   * @param day      day name, e.g. "Tuesday"
+   * @return the driver's stops on that day, empty if the driver has no rides
+   * @throws BadRequestException if day is not the name of a day
+   */
+  public DriverManifest getManifest(long driverId, String day) {
+    return manifests.get(new Key(driverId, DayOfWeekConverter.parse(day)), this::load);
+  }
+
+  @TransactionalEventListener(fallbackExecution = true)
+  public void onEntityChanged(EntityChangedEvent event) {
+    if (event.isAbout(Shift.class)
+        || (event.isAbout(Ride.class) && event.getChangeType() == ChangeType.RELOADED)) {
+      manifests.invalidateAll();
+    } else if (event.isAbout(Ride.class)) {
+      rideChanged((Ride) event.getEntity(), event.getChangeType());
+    }
+  }
+
+  private void rideChanged(Ride ride, ChangeType changeType) {
+    Optional<Key> assignedTo = changeType == ChangeType.DELETED ? Optional.empty() : assignedKey(ride);
+    RideSummary summary = toSummary(ride);
+    for (Key key : List.copyOf(manifests.asMap().keySet())) {
+      boolean belongsHere = assignedTo.filter(key::equals).isPresent();
+      manifests.asMap().computeIfPresent(key, (k, manifest) -> belongsHere || contains(manifest, ride.getId())
+          ? withRide(manifest, summary, belongsHere)
+          : manifest);
+    }
+  }
+
+  private Optional<Key> assignedKey(Ride ride) {
+    try {
+      RideAssignment assignment = dispatchService.assign(ride);
+      if (assignment.getDriverId() == null) {
+        return Optional.empty();
+      }
+      return Optional.of(new Key(assignment.getDriverId(), DayOfWeekConverter.parse(ride.getDay())));
+    } catch (IllegalArgumentException e) {
+      return Optional.empty(); // not on a valid day, so on nobody's manifest
+    }
+  }
+
+  private DriverManifest load(Key key) {
+    String day = DayOfWeekConverter.format(key.day());
+    List<Long> rideIds = dispatchService.getAssignments(day).stream()
+        .filter(assignment -> Objects.equals(assignment.getDriverId(), key.driverId()))
+        .map(RideAssignment::getRideId)
+        .collect(Collectors.toList());
+    List<RideSummary> rides = new ArrayList<>();
+    if (!rideIds.isEmpty()) {
+      rideRepository.findAllById(rideIds).forEach(ride -> rides.add(toSummary(ride)));
+    }
+    log.debug("Built manifest for driver {} on {} ({} rides)", key.driverId(), day, rides.size());
+    return build(key.driverId(), day, rides);
+  }
+
+  private static boolean contains(DriverManifest manifest, long rideId) {
+    return manifest.getStops().stream()
+        .flatMap(stop -> stop.getRides().stream())
+        .anyMatch(ride -> ride.getId() == rideId);
+  }
+
+  /** the manifest without the ride, plus its new version if it belongs here */
+  private static DriverManifest withRide(DriverManifest manifest, RideSummary ride, boolean belongsHere) {
+    List<RideSummary> rides = manifest.getStops().stream()
+        .flatMap(stop -> stop.getRides().stream())
+        .filter(r -> r.getId() != ride.getId())
+        .collect(Collectors.toCollection(ArrayList::new));
+    if (belongsHere) {
+      rides.add(ride);
+    }
+    return build(manifest.getDriverId(), manifest.getDay(), rides);
+  }
+
+  /**
+   * Sort rides by start time and group consecutive pickups at the same
+   * location into stops
+   */
+  static DriverManifest build(long driverId, String day, List<RideSummary> rides) {
+    List<RideSummary> sorted = rides.stream().sorted(START_TIME_ORDER).collect(Collectors.toList());
+    List<ManifestStop> stops = new ArrayList<>();
+    List<RideSummary> current = null;
+    String currentLocation = null;
+    for (RideSummary ride : sorted) {
+      String location = normalize(ride.getPickupLocation());
+      if (current == null || !location.equals(currentLocation)) {
+        current = new ArrayList<>();
+        currentLocation = location;
+        stops.add(ManifestStop.builder()
+            .pickupLocation(ride.getPickupLocation())
+            .startTime(ride.getStartTime())
+            .rides(current)
+            .build());
+      }
+      current.add(ride);
+    }
+    return DriverManifest.builder()
+        .driverId(driverId)
+        .day(day)
+        .rideCount(sorted.size())
+        .stops(stops)
+        .build();
+  }
+
+  /** "Phelps Hall", " phelps  hall" and "PHELPS HALL" are the same stop */
+  private static String normalize(String location) {
+    return location == null ? "" : location.trim().replaceAll("\\s+", " ").toLowerCase(Locale.ROOT);
+  }
+
+  private static RideSummary toSummary(Ride ride) {
+    return RideSummary.builder()
+        .id(ride.getId())
+        .riderId(ride.getRiderId())
+        .student(ride.getStudent())
+        .day(ride.getDay())
+        .startTime(ride.getStartTime())
+        .endTime(ride.getEndTime())
+        .pickupLocation(ride.getPickupLocation())
+        .pickupRoom(ride.getPickupRoom())
+        .dropoffLocation(ride.getDropoffLocation())
+        .dropoffRoom(ride.getDropoffRoom())
+        .course(ride.getCourse())
+        .build();
+  }
+}
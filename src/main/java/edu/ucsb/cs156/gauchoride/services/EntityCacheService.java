@@ -0,0 +1,106 @@
+package edu.ucsb.cs156.gauchoride.services;
+
+import java.util.Set;
+import java.util.function.Supplier;
+
+import javax.persistence.EntityManagerFactory;
+
+import org.hibernate.Cache;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import edu.ucsb.cs156.gauchoride.config.HibernateCacheConfig;
+import edu.ucsb.cs156.gauchoride.entities.Shift;
+import edu.ucsb.cs156.gauchoride.entities.User;
+import edu.ucsb.cs156.gauchoride.events.EntityChangedEvent;
+import edu.ucsb.cs156.gauchoride.events.EntityChangedEvent.ChangeType;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Keeps the second-level cache (see HibernateCacheConfig) honest about
+ * writes that bypass JPA, and publishes its hit ratio per region as the
+ * gauchoride.cache.hit.ratio gauge when Hibernate statistics are enabled
+ * (app.entityCache.statistics).
+ *
+ * Rows inserted with plain JDBC (the bulk import) are announced with a
+ * RELOADED EntityChangedEvent; Hibernate never saw them, so the cached
+ * entities and query results for that type are dropped here.
+ */
+
+@Slf4j
+@Service
+public class EntityCacheService implements MeterBinder {
+
+  static final String HIT_RATIO = "gauchoride.cache.hit.ratio";
+
+  private static final Set<Class<?>> CACHED_TYPES = Set.of(User.class, Shift.class);
+
+  @Autowired
+  EntityManagerFactory entityManagerFactory;
+
+  @TransactionalEventListener(fallbackExecution = true)
+  public void onEntityChanged(EntityChangedEvent event) {
+    if (event.getChangeType() != ChangeType.RELOADED || !CACHED_TYPES.contains(event.getEntityType())) {
+      return;
+    }
+    Cache cache = sessionFactory().getCache();
+    cache.evictEntityData(event.getEntityType());
+    cache.evictQueryRegions();
+    log.debug("Evicted cached {} entities and queries", event.getEntityType().getSimpleName());
+  }
+
+  @Override
+  public void bindTo(MeterRegistry registry) {
+    if (!statistics().isStatisticsEnabled()) {
+      return;
+    }
+    for (String region : HibernateCacheConfig.ENTITY_REGIONS) {
+      hitRatioGauge(registry, region, () -> statistics().getDomainDataRegionStatistics(region));
+    }
+    for (String region : HibernateCacheConfig.QUERY_REGIONS) {
+      hitRatioGauge(registry, region, () -> statistics().getQueryRegionStatistics(region));
+    }
+  }
+
+  private void hitRatioGauge(MeterRegistry registry, String region, Supplier<CacheRegionStatistics> statistics) {
+    Gauge.builder(HIT_RATIO, statistics, EntityCacheService::hitRatio)
+        .description("Share of second-level cache lookups answered from the cache")
+        .tag("region", region)
+        .strongReference(true)
+        .register(registry);
+  }
+
+  /**
+   * @return hits / (hits + misses), or NaN before the first lookup
+   */
+  static double hitRatio(Supplier<CacheRegionStatistics> statistics) {
+    CacheRegionStatistics regionStatistics;
+    try {
+      regionStatistics = statistics.get();
+    } catch (IllegalArgumentException e) {
+      // region not created yet
+      return Double.NaN;
+    }
+    if (regionStatistics == null) {
+      return Double.NaN;
+    }
+    long hits = regionStatistics.getHitCount();
+    long lookups = hits + regionStatistics.getMissCount();
+    return lookups == 0 ? Double.NaN : (double) hits / lookups;
+  }
+
+  private SessionFactory sessionFactory() {
+    return entityManagerFactory.unwrap(SessionFactory.class);
+  }
+
+  private Statistics statistics() {
+    return sessionFactory().getStatistics();
+  }
+}
@@ -1,6 +1,7 @@
 package edu.ucsb.cs156.gauchoride.services;
 
 import java.util.Collection;
+import java.util.Optional;
 
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.GrantedAuthority;
@@ -8,17 +9,28 @@ import org.springframework.security.core.context.SecurityContext;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
 
+import edu.ucsb.cs156.gauchoride.models.CurrentUser;
 import lombok.extern.slf4j.Slf4j;
 
 @Slf4j
 @Service("grantedAuthorities")
 public class GrantedAuthoritiesService {
 
+    /**
+     * Get the authorities of the logged in user.  If the CurrentUser has
+     * already been resolved for this request, its roles are reused.
+     *
+     * @return the granted authorities of the logged in user
+     */
     public Collection<? extends GrantedAuthority> getGrantedAuthorities() {
+        Optional<CurrentUser> cached = CurrentUserRequestCache.getCurrentUser();
+        if (cached.isPresent()) {
+            return cached.get().getRoles();
+        }
         SecurityContext securityContext = SecurityContextHolder.getContext();
         Authentication authentication = securityContext.getAuthentication();
         Collection<? extends GrantedAuthority> authorities = authentication.getAuthorities();
-        log.info("authorities={}", authorities);
+        log.debug("authorities={}", authorities);
         return authorities;
     }
 
@@ -0,0 +1,277 @@
+package edu.ucsb.cs156.gauchoride.services;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.LongFunction;
+import java.util.function.Supplier;
+import java.util.function.ToLongFunction;
+
+import javax.annotation.PostConstruct;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import edu.ucsb.cs156.gauchoride.errors.BadRequestException;
+import edu.ucsb.cs156.gauchoride.errors.EntityNotFoundException;
+import edu.ucsb.cs156.gauchoride.errors.IdempotencyKeyReusedException;
+import edu.ucsb.cs156.gauchoride.errors.RequestInProgressException;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Makes a create request safe to repeat: a request sent again with the same
+ * Idempotency-Key header (a double tap, or a mobile client retrying after a
+ * timeout) gets the record the first one created instead of a duplicate.
+ *
+ * Keys are per user and kept for ttlMinutes, in a bounded in-memory cache,
+ * together with a fingerprint of the request and the id of the record it
+ * created; a repeat reads that record again, and a key sent with a
+ * different request is rejected (422).  A repeat that arrives while the
+ * first request is still running waits for it; the first request runs
+ * outside the cache, so only repeats of the same key wait.
+ *
+ * With several nodes behind a load balancer a retry may reach another
+ * node, so app.idempotency.database=true also records each key in the
+ * idempotency_key table: the first node to insert the key runs the request,
+ * and the others return the record it created (or a 409 if it has not
+ * finished yet).  A key whose request has not finished after leaseSeconds
+ * (e.g. its node stopped) may be taken over by the next retry.
+ *
+ * A request that fails (e.g. a schedule conflict) is not remembered, so it
+ * can be retried with the same key.
+ */
+
+@Slf4j
+@Service
+public class IdempotencyService {
+
+  static final int MAX_KEY_LENGTH = 255;
+
+  // a finished key after ttlMinutes, or an unfinished one after leaseSeconds
+  static final String DELETE_EXPIRED_KEY = "DELETE FROM idempotency_key"
+      + " WHERE scope = :scope AND user_id = :userId AND idempotency_key = :key"
+      + " AND (created_at < :cutoff OR (result_id IS NULL AND created_at < :leaseCutoff))";
+
+  static final String INSERT_KEY = "INSERT INTO idempotency_key"
+      + " (scope, user_id, idempotency_key, fingerprint, created_at)"
+      + " VALUES (:scope, :userId, :key, :fingerprint, :now)";
+
+  static final String SELECT_RESULT = "SELECT result_id, fingerprint FROM idempotency_key"
+      + " WHERE scope = :scope AND user_id = :userId AND idempotency_key = :key";
+
+  // created_at identifies this node's row, in case its lease was taken over
+  static final String UPDATE_RESULT = "UPDATE idempotency_key SET result_id = :resultId"
+      + " WHERE scope = :scope AND user_id = :userId AND idempotency_key = :key AND created_at = :now";
+
+  static final String DELETE_KEY = "DELETE FROM idempotency_key"
+      + " WHERE scope = :scope AND user_id = :userId AND idempotency_key = :key AND created_at = :now";
+
+  static final String DELETE_EXPIRED_KEYS = "DELETE FROM idempotency_key"
+      + " WHERE created_at < :cutoff OR (result_id IS NULL AND created_at < :leaseCutoff)";
+
+  @Autowired
+  NamedParameterJdbcTemplate jdbcTemplate;
+
+  @Value("${app.idempotency.ttlMinutes:1440}")
+  long ttlMinutes;
+
+  @Value("${app.idempotency.maximumSize:10000}")
+  long maximumSize;
+
+  @Value("${app.idempotency.database:false}")
+  boolean database;
+
+  @Value("${app.idempotency.leaseSeconds:60}")
+  long leaseSeconds;
+
+  private record Key(String scope, long userId, String key) {
+  }
+
+  /** a request with a key: its fingerprint, and the id it created once done */
+  private record Attempt(String fingerprint, CompletableFuture<Long> resultId) {
+  }
+
+  private Cache<Key, Attempt> attempts;
+
+  @PostConstruct
+  void buildCache() {
+    attempts = Caffeine.newBuilder()
+        .maximumSize(maximumSize)
+        .expireAfterWrite(Duration.ofMinutes(ttlMinutes))
+        .build();
+  }
+
+  /**
+   * A fingerprint of a request, to recognize a key sent with a different
+   * one
+   *
+   * @param parts the request's parameters, in a fixed order; may be null
+   * @return a SHA-256 hash of the parts
+   */
+  public static String fingerprint(Object... parts) {
+    try {
+      MessageDigest digest = MessageDigest.getInstance("SHA-256");
+      for (Object part : parts) {
+        // length prefix, so that ("ab", "c") and ("a", "bc") differ
+        String text = Objects.toString(part, "");
+        digest.update((part == null ? "-1:" : text.length() + ":").getBytes(StandardCharsets.UTF_8));
+        digest.update(text.getBytes(StandardCharsets.UTF_8));
+      }
+      return HexFormat.of().formatHex(digest.digest());
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException(e); // every JVM has SHA-256
+    }
+  }
+
+  /**
+   * Create a record, unless this user already did so with the same key
+   *
+   * @param type        type of the record, e.g. Ride.class
+   * @param userId      the current user
+   * @param key         the Idempotency-Key header
+   * @param fingerprint fingerprint of the request, see fingerprint()
+   * @param create      creates and saves the record
+   * @param idOf        returns the id of a saved record
+   * @param findById    reads the record created by an earlier request
+   * @return the record created by the first request with this key
+   * @throws BadRequestException           if the key is empty or too long
+   * @throws IdempotencyKeyReusedException  if the key was used for a
+   *                                        different request
+   * @throws RequestInProgressException     if the first request is still
+   *                                        creating the record after
+   *                                        leaseSeconds, or on another node
+   * @throws EntityNotFoundException        if the record has since been
+   *                                        deleted
+   */
+  public <T> T execute(Class<T> type, long userId, String key, String fingerprint, Supplier<T> create,
+      ToLongFunction<T> idOf, LongFunction<Optional<T>> findById) {
+    if (key.isBlank() || key.length() > MAX_KEY_LENGTH) {
+      throw new BadRequestException("Idempotency-Key must be 1 to %d characters".formatted(MAX_KEY_LENGTH));
+    }
+    Key cacheKey = new Key(type.getSimpleName(), userId, key);
+    while (true) {
+      Attempt attempt = new Attempt(fingerprint, new CompletableFuture<>());
+      Attempt first = attempts.asMap().putIfAbsent(cacheKey, attempt);
+      if (first == null) {
+        return run(type, cacheKey, attempt, create, idOf, findById);
+      }
+      if (!first.fingerprint().equals(fingerprint)) {
+        throw new IdempotencyKeyReusedException(key);
+      }
+      long id;
+      try {
+        // a repeat of a request that is still running waits here, for as
+        // long as another node would; copied, so the timeout is only ours
+        id = first.resultId().copy().orTimeout(leaseSeconds, TimeUnit.SECONDS).join();
+      } catch (CompletionException e) {
+        if (e.getCause() instanceof TimeoutException) {
+          throw new RequestInProgressException(key);
+        }
+        continue; // the first request failed and was forgotten; try again
+      }
+      return findById.apply(id).orElseThrow(() -> new EntityNotFoundException(type, id));
+    }
+  }
+
+  /**
+   * Forget keys older than ttlMinutes, and keys whose request has not
+   * finished after leaseSeconds, in the idempotency_key table; nothing to do
+   * for the in-memory cache, which expires them itself
+   */
+  @Scheduled(fixedDelayString = "${app.idempotency.cleanupMillis:3600000}")
+  public void deleteExpiredKeys() {
+    if (database) {
+      int deleted = jdbcTemplate.update(DELETE_EXPIRED_KEYS, new MapSqlParameterSource()
+          .addValue("cutoff", cutoff())
+          .addValue("leaseCutoff", leaseCutoff()));
+      log.debug("Deleted {} expired idempotency keys", deleted);
+    }
+  }
+
+  /** run the first request with a key, and tell the repeats waiting for it */
+  private <T> T run(Class<T> type, Key key, Attempt attempt, Supplier<T> create, ToLongFunction<T> idOf,
+      LongFunction<Optional<T>> findById) {
+    try {
+      T result = database ? createOnce(type, key, attempt.fingerprint(), create, idOf, findById) : create.get();
+      attempt.resultId().complete(idOf.applyAsLong(result));
+      return result;
+    } catch (RuntimeException e) {
+      attempts.asMap().remove(key, attempt);
+      attempt.resultId().completeExceptionally(e);
+      throw e;
+    }
+  }
+
+  private <T> T createOnce(Class<T> type, Key key, String fingerprint, Supplier<T> create, ToLongFunction<T> idOf,
+      LongFunction<Optional<T>> findById) {
+    MapSqlParameterSource parameters = new MapSqlParameterSource()
+        .addValue("scope", key.scope())
+        .addValue("userId", key.userId())
+        .addValue("key", key.key())
+        .addValue("fingerprint", fingerprint)
+        // stored exactly, so UPDATE_RESULT and DELETE_KEY find the row again
+        .addValue("now", Timestamp.from(Instant.now().truncatedTo(ChronoUnit.MILLIS)))
+        .addValue("cutoff", cutoff())
+        .addValue("leaseCutoff", leaseCutoff());
+    jdbcTemplate.update(DELETE_EXPIRED_KEY, parameters);
+    try {
+      jdbcTemplate.update(INSERT_KEY, parameters);
+    } catch (DuplicateKeyException e) {
+      List<Map<String, Object>> rows = jdbcTemplate.queryForList(SELECT_RESULT, parameters);
+      // no row: the other request failed and released the key just now
+      if (rows.isEmpty()) {
+        throw new RequestInProgressException(key.key());
+      }
+      if (!fingerprint.equals(rows.get(0).get("fingerprint"))) {
+        throw new IdempotencyKeyReusedException(key.key());
+      }
+      Number resultId = (Number) rows.get(0).get("result_id");
+      if (resultId == null) {
+        throw new RequestInProgressException(key.key());
+      }
+      long id = resultId.longValue();
+      return findById.apply(id).orElseThrow(() -> new EntityNotFoundException(type, id));
+    }
+    T created;
+    try {
+      created = create.get();
+    } catch (RuntimeException e) {
+      jdbcTemplate.update(DELETE_KEY, parameters);
+      throw e;
+    }
+    if (jdbcTemplate.update(UPDATE_RESULT, parameters.addValue("resultId", idOf.applyAsLong(created))) == 0) {
+      log.warn("Idempotency-Key {} of user {} outlived its lease; a retry may have created another {}",
+          key.key(), key.userId(), type.getSimpleName());
+    }
+    return created;
+  }
+
+  private Timestamp cutoff() {
+    return Timestamp.from(Instant.now().minus(Duration.ofMinutes(ttlMinutes)));
+  }
+
+  private Timestamp leaseCutoff() {
+    return Timestamp.from(Instant.now().minus(Duration.ofSeconds(leaseSeconds)));
+  }
+}
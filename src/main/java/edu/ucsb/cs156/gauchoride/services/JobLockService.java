@@ -0,0 +1,87 @@
+package edu.ucsb.cs156.gauchoride.services;
+
+import java.lang.management.ManagementFactory;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.UUID;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Keeps a scheduled job from running on more than one node at a time,
+ * using a row per job in the job_lock table.
+ *
+ * A lock is taken with a single conditional UPDATE (or, the first time, an
+ * INSERT), so two nodes can never both succeed.  It is held for at most the
+ * given duration: a node that dies while holding it does not block the job
+ * forever.  Lock times come from the nodes' clocks, so the duration should
+ * be well above any clock difference between them.
+ */
+
+@Slf4j
+@Service
+public class JobLockService {
+
+  static final String UPDATE_LOCK = "UPDATE job_lock"
+      + " SET locked_until = :until, locked_at = :now, locked_by = :owner"
+      + " WHERE name = :name AND locked_until <= :now";
+
+  static final String INSERT_LOCK = "INSERT INTO job_lock (name, locked_until, locked_at, locked_by)"
+      + " VALUES (:name, :until, :now, :owner)";
+
+  static final String RELEASE_LOCK = "UPDATE job_lock SET locked_until = :now"
+      + " WHERE name = :name AND locked_by = :owner";
+
+  @Autowired
+  NamedParameterJdbcTemplate jdbcTemplate;
+
+  // pid@host, plus a random part in case two nodes share both
+  private final String owner = ManagementFactory.getRuntimeMXBean().getName() + "/"
+      + UUID.randomUUID().toString().substring(0, 8);
+
+  /**
+   * Take a lock, unless some node (this one included) already holds it
+   *
+   * @param name      name of the job
+   * @param lockAtMost how long to hold the lock if it is not released
+   * @return when the lock runs out, or null if it is held elsewhere
+   */
+  public Instant tryLock(String name, Duration lockAtMost) {
+    Instant now = Instant.now();
+    Instant until = now.plus(lockAtMost);
+    MapSqlParameterSource parameters = new MapSqlParameterSource()
+        .addValue("name", name)
+        .addValue("now", Timestamp.from(now))
+        .addValue("until", Timestamp.from(until))
+        .addValue("owner", owner);
+    if (jdbcTemplate.update(UPDATE_LOCK, parameters) == 0) {
+      try {
+        jdbcTemplate.update(INSERT_LOCK, parameters);
+      } catch (DuplicateKeyException e) {
+        log.debug("Lock {} is held by another run", name);
+        return null;
+      }
+    }
+    return until;
+  }
+
+  /**
+   * Release a lock taken by this node, so the job can run again straight
+   * away
+   *
+   * @param name name of the job
+   */
+  public void unlock(String name) {
+    jdbcTemplate.update(RELEASE_LOCK, new MapSqlParameterSource()
+        .addValue("name", name)
+        .addValue("now", Timestamp.from(Instant.now()))
+        .addValue("owner", owner));
+  }
+}
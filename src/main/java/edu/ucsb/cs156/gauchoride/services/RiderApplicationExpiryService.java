@@ -0,0 +1,144 @@
+package edu.ucsb.cs156.gauchoride.services;
+
+import java.sql.Date;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.stream.Collectors;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import edu.ucsb.cs156.gauchoride.entities.ApplicationStatus;
+import edu.ucsb.cs156.gauchoride.entities.RiderApplication;
+import edu.ucsb.cs156.gauchoride.events.EntityChangedEvent;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Expires rider applications that have been pending for more than
+ * maxAgeDays, once a night, so the pending queue only holds applications
+ * someone may still act on.
+ *
+ * Applications are expired with set-based UPDATEs of at most chunkSize rows
+ * each (oldest first, along the status index), each in its own
+ * transaction, so no statement holds row locks for long and members and
+ * admins are never kept waiting.  A JobLockService lock makes sure only
+ * one node runs the job; a run that outlasts its lock stops between chunks
+ * and leaves the rest to the next run.
+ *
+ * Metrics: gauchoride.applications.expired counts expired applications and
+ * gauchoride.jobs times each run, tagged with the outcome (completed,
+ * failed, or skipped because another node held the lock).  The rows bypass JPA, so a
+ * RELOADED EntityChangedEvent is published when any were changed.
+ */
+
+@Slf4j
+@Service
+public class RiderApplicationExpiryService {
+
+  static final String JOB_NAME = "rider_application_expiry";
+
+  // column names follow Spring's physical naming strategy for the entity;
+  // :expirable is the codes of the statuses RiderApplicationStatusService
+  // allows to expire (only pending); the status is checked again in the
+  // outer WHERE in case an admin decided on the application after the
+  // subquery read it, and the version is bumped so an admin holding the
+  // pending application cannot save over the expiry
+  static final String EXPIRE_CHUNK = "UPDATE rider_application"
+      + " SET status_code = :expired, updated_date = :today, version = version + 1"
+      + " WHERE status_code IN (:expirable) AND id IN ("
+      + "SELECT id FROM rider_application"
+      + " WHERE status_code IN (:expirable) AND created_date < :cutoff"
+      + " ORDER BY created_date, id LIMIT :chunkSize)";
+
+  static final String EXPIRED_COUNTER = "gauchoride.applications.expired";
+  static final String JOB_TIMER = "gauchoride.jobs";
+
+  @Autowired
+  NamedParameterJdbcTemplate jdbcTemplate;
+
+  @Autowired
+  JobLockService jobLockService;
+
+  @Autowired
+  ApplicationEventPublisher publisher;
+
+  @Autowired
+  MeterRegistry meterRegistry;
+
+  @Value("${app.riderApplications.expiry.maxAgeDays:90}")
+  int maxAgeDays;
+
+  @Value("${app.riderApplications.expiry.chunkSize:500}")
+  int chunkSize;
+
+  @Value("${app.riderApplications.expiry.lockMinutes:30}")
+  long lockMinutes;
+
+  /**
+   * Expire every application created more than maxAgeDays ago that is still
+   * pending, unless another node is already doing so
+   *
+   * @return the number of applications expired
+   */
+  @Scheduled(cron = "${app.riderApplications.expiry.cron:0 15 3 * * *}")
+  public int expireStaleApplications() {
+    Timer.Sample sample = Timer.start(meterRegistry);
+    Instant lockedUntil = jobLockService.tryLock(JOB_NAME, Duration.ofMinutes(lockMinutes));
+    if (lockedUntil == null) {
+      sample.stop(jobTimer("skipped"));
+      return 0;
+    }
+    int expired = 0;
+    String outcome = "failed";
+    try {
+      LocalDate today = LocalDate.now();
+      MapSqlParameterSource parameters = new MapSqlParameterSource()
+          .addValue("expired", ApplicationStatus.EXPIRED.getCode())
+          .addValue("expirable", RiderApplicationStatusService.statusesThatCanBecome(ApplicationStatus.EXPIRED)
+              .stream().map(ApplicationStatus::getCode).collect(Collectors.toList()))
+          .addValue("today", Date.valueOf(today))
+          .addValue("cutoff", Date.valueOf(today.minusDays(maxAgeDays)))
+          .addValue("chunkSize", chunkSize);
+      int updated;
+      do {
+        if (Instant.now().isAfter(lockedUntil)) {
+          log.warn("Expiry of rider applications ran out of time after {}; the rest is left for the next run",
+              expired);
+          break;
+        }
+        updated = jdbcTemplate.update(EXPIRE_CHUNK, parameters);
+        expired += updated;
+      } while (updated == chunkSize);
+      outcome = "completed";
+    } finally {
+      jobLockService.unlock(JOB_NAME);
+      Counter.builder(EXPIRED_COUNTER)
+          .description("Rider applications expired after being pending too long")
+          .register(meterRegistry)
+          .increment(expired);
+      sample.stop(jobTimer(outcome));
+    }
+    if (expired > 0) {
+      log.info("Expired {} rider applications pending for more than {} days", expired, maxAgeDays);
+      publisher.publishEvent(EntityChangedEvent.reloaded(RiderApplication.class));
+    }
+    return expired;
+  }
+
+  private Timer jobTimer(String outcome) {
+    return Timer.builder(JOB_TIMER)
+        .description("Time spent in scheduled jobs")
+        .tag("job", JOB_NAME)
+        .tag("outcome", outcome)
+        .register(meterRegistry);
+  }
+}
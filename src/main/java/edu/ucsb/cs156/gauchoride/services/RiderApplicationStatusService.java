@@ -0,0 +1,114 @@
+package edu.ucsb.cs156.gauchoride.services;
+
+import static edu.ucsb.cs156.gauchoride.entities.ApplicationStatus.ACCEPTED;
+import static edu.ucsb.cs156.gauchoride.entities.ApplicationStatus.CANCELLED;
+import static edu.ucsb.cs156.gauchoride.entities.ApplicationStatus.DECLINED;
+import static edu.ucsb.cs156.gauchoride.entities.ApplicationStatus.EXPIRED;
+import static edu.ucsb.cs156.gauchoride.entities.ApplicationStatus.PENDING;
+
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.Map;
+import java.util.Set;
+
+import org.springframework.stereotype.Service;
+
+import edu.ucsb.cs156.gauchoride.converters.ApplicationStatusConverter;
+import edu.ucsb.cs156.gauchoride.entities.ApplicationStatus;
+import edu.ucsb.cs156.gauchoride.entities.RiderApplication;
+import edu.ucsb.cs156.gauchoride.errors.BadRequestException;
+
+/**
+ * The rules for changing a rider application's status.
+ *
+ * A pending application can be accepted, declined, cancelled or expire;
+ * every other status is final.  An application whose stored status is
+ * missing or unknown (left over from before statuses were checked) may be
+ * given any status, so that an admin can repair it.
+ *
+ * Applications are changed one at a time through changeStatus, except by
+ * RiderApplicationExpiryService, which expires them in bulk with SQL; it
+ * takes the statuses it may expire from statusesThatCanBecome(EXPIRED).
+ */
+
+@Service
+public class RiderApplicationStatusService {
+
+  private static final Map<ApplicationStatus, Set<ApplicationStatus>> TRANSITIONS = new EnumMap<>(ApplicationStatus.class);
+
+  static {
+    for (ApplicationStatus status : ApplicationStatus.values()) {
+      TRANSITIONS.put(status, Collections.emptySet());
+    }
+    TRANSITIONS.put(PENDING, EnumSet.of(ACCEPTED, DECLINED, CANCELLED, EXPIRED));
+  }
+
+  /**
+   * @param status a status
+   * @return the known statuses an application can change to it from (not
+   *         counting the status itself), e.g. only pending for expired
+   */
+  public static Set<ApplicationStatus> statusesThatCanBecome(ApplicationStatus status) {
+    Set<ApplicationStatus> from = EnumSet.noneOf(ApplicationStatus.class);
+    TRANSITIONS.forEach((current, next) -> {
+      if (next.contains(status)) {
+        from.add(current);
+      }
+    });
+    return from;
+  }
+
+  /**
+   * @param application a rider application
+   * @return whether it is pending, i.e. can still be edited by its applicant
+   */
+  public boolean isPending(RiderApplication application) {
+    return current(application) == PENDING;
+  }
+
+  /**
+   * @param application a rider application
+   * @param status      the status it would change to
+   * @return whether the change is allowed; staying in the same status is
+   */
+  public boolean canChange(RiderApplication application, ApplicationStatus status) {
+    ApplicationStatus current = current(application);
+    return current == null || current == status || TRANSITIONS.get(current).contains(status);
+  }
+
+  /**
+   * Change the status of an application (without saving it)
+   *
+   * @param application a rider application
+   * @param status      status name, e.g. "accepted"
+   * @throws BadRequestException if status is not the name of a status, or
+   *                             the application cannot change to it
+   */
+  public void changeStatus(RiderApplication application, String status) {
+    changeStatus(application, ApplicationStatusConverter.parse(status));
+  }
+
+  /**
+   * Change the status of an application (without saving it)
+   *
+   * @param application a rider application
+   * @param status      the new status
+   * @throws BadRequestException if the application cannot change to it
+   */
+  public void changeStatus(RiderApplication application, ApplicationStatus status) {
+    if (!canChange(application, status)) {
+      throw new BadRequestException("RiderApplication with \"%s\" status cannot become \"%s\""
+          .formatted(application.getStatus(), ApplicationStatusConverter.format(status)));
+    }
+    application.setStatus(ApplicationStatusConverter.format(status));
+  }
+
+  private static ApplicationStatus current(RiderApplication application) {
+    try {
+      return ApplicationStatusConverter.parse(application.getStatus());
+    } catch (IllegalArgumentException e) {
+      return null;
+    }
+  }
+}
@@ -0,0 +1,148 @@
+package edu.ucsb.cs156.gauchoride.services;
+
+import java.util.Optional;
+import java.util.function.Supplier;
+
+import javax.annotation.PostConstruct;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import edu.ucsb.cs156.gauchoride.converters.ClockTimeConverter;
+import edu.ucsb.cs156.gauchoride.converters.DayOfWeekConverter;
+import edu.ucsb.cs156.gauchoride.entities.Ride;
+import edu.ucsb.cs156.gauchoride.entities.Shift;
+import edu.ucsb.cs156.gauchoride.errors.ScheduleConflictException;
+import edu.ucsb.cs156.gauchoride.repositories.RideRepository;
+import edu.ucsb.cs156.gauchoride.repositories.ShiftRepository;
+
+/**
+ * Saves a shift only if it does not overlap another shift of the same
+ * driver, and a ride only if it does not overlap another ride of the same
+ * rider.
+ *
+ * The check runs in the transaction that saves the record: it locks the
+ * driver's (or rider's) users row, so saves for one owner wait for each
+ * other on every node, and then queries for an overlap through the index
+ * on day and start time (V5).  Shifts or rides that only touch at an
+ * endpoint do not overlap.
+ */
+
+@Service
+public class ScheduleConflictService {
+
+  // serializes saves for one driver or rider across nodes until commit
+  static final String LOCK_OWNER = "SELECT id FROM users WHERE id = :ownerId FOR UPDATE";
+
+  static final String SHIFT_OVERLAPS = "SELECT id FROM shift WHERE driverid = :ownerId AND day_of_week = :day"
+      + " AND start_minute < :end AND end_minute > :start AND id <> :id ORDER BY start_minute, id";
+
+  static final String RIDE_OVERLAPS = "SELECT id FROM ride WHERE rider_id = :ownerId AND day_of_week = :day"
+      + " AND start_minute < :end AND end_minute > :start AND id <> :id ORDER BY start_minute, id";
+
+  @Autowired
+  ShiftRepository shiftRepository;
+
+  @Autowired
+  RideRepository rideRepository;
+
+  @Autowired
+  NamedParameterJdbcTemplate jdbcTemplate;
+
+  @Autowired
+  PlatformTransactionManager transactionManager;
+
+  private TransactionTemplate transactionTemplate;
+
+  @PostConstruct
+  void buildTransactionTemplate() {
+    transactionTemplate = new TransactionTemplate(transactionManager);
+  }
+
+  /**
+   * Save a shift unless it would overlap another shift of its driver
+   *
+   * @param id       id of the shift being updated, or null for a new one
+   * @param day      day name, e.g. "Tuesday"
+   * @param start    start time, e.g. "11:00AM"
+   * @param end      end time, e.g. "1:37PM"
+   * @param driverId the shift's driver
+   * @param save     saves the shift
+   * @return the saved shift
+   * @throws ScheduleConflictException with the overlapping shift, if any
+   */
+  public <T> T saveShift(Long id, String day, String start, String end, long driverId, Supplier<T> save) {
+    return transactionTemplate.execute(status -> {
+      checkShift(id, day, start, end, driverId);
+      return save.get();
+    });
+  }
+
+  /**
+   * Save a ride unless it would overlap another ride of its rider
+   *
+   * @param id      id of the ride being updated, or null for a new one
+   * @param day     day name, e.g. "Tuesday"
+   * @param start   start time, e.g. "11:00AM"
+   * @param end     end time, e.g. "1:37PM"
+   * @param riderId the ride's rider
+   * @param save    saves the ride
+   * @return the saved ride
+   * @throws ScheduleConflictException with the overlapping ride, if any
+   */
+  public <T> T saveRide(Long id, String day, String start, String end, long riderId, Supplier<T> save) {
+    return transactionTemplate.execute(status -> {
+      checkRide(id, day, start, end, riderId);
+      return save.get();
+    });
+  }
+
+  /**
+   * Check a shift about to be saved by the current transaction, e.g. a row
+   * of the bulk import; its driver stays locked until the transaction ends
+   *
+   * @throws ScheduleConflictException with the overlapping shift, if any
+   */
+  @Transactional(propagation = Propagation.MANDATORY)
+  public void checkShift(Long id, String day, String start, String end, long driverId) {
+    Optional<Shift> conflict = findOverlap(SHIFT_OVERLAPS, id, day, start, end, driverId)
+        .flatMap(shiftRepository::findById);
+    if (conflict.isPresent()) {
+      throw new ScheduleConflictException(Shift.class, conflict.get().getId(), conflict.get());
+    }
+  }
+
+  /**
+   * Check a ride about to be saved by the current transaction, e.g. a row
+   * of the bulk import; its rider stays locked until the transaction ends
+   *
+   * @throws ScheduleConflictException with the overlapping ride, if any
+   */
+  @Transactional(propagation = Propagation.MANDATORY)
+  public void checkRide(Long id, String day, String start, String end, long riderId) {
+    Optional<Ride> conflict = findOverlap(RIDE_OVERLAPS, id, day, start, end, riderId)
+        .flatMap(rideRepository::findById);
+    if (conflict.isPresent()) {
+      throw new ScheduleConflictException(Ride.class, conflict.get().getId(), conflict.get());
+    }
+  }
+
+  private Optional<Long> findOverlap(String overlapQuery, Long id, String day, String start, String end,
+      long ownerId) {
+    MapSqlParameterSource parameters = new MapSqlParameterSource()
+        .addValue("ownerId", ownerId)
+        .addValue("day", DayOfWeekConverter.parse(day).getValue())
+        .addValue("start", ClockTimeConverter.toMinuteOfDay(start))
+        .addValue("end", ClockTimeConverter.toMinuteOfDay(end))
+        // ids start at 1, so 0 excludes nothing
+        .addValue("id", id == null ? 0L : id);
+    jdbcTemplate.queryForList(LOCK_OWNER, parameters, Long.class);
+    return jdbcTemplate.queryForList(overlapQuery, parameters, Long.class).stream().findFirst();
+  }
+}
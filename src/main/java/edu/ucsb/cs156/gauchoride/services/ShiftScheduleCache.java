@@ -0,0 +1,120 @@
+package edu.ucsb.cs156.gauchoride.services;
+
+import java.io.UncheckedIOException;
+import java.time.DayOfWeek;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.annotation.PostConstruct;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.util.DigestUtils;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import edu.ucsb.cs156.gauchoride.converters.DayOfWeekConverter;
+import edu.ucsb.cs156.gauchoride.entities.Shift;
+import edu.ucsb.cs156.gauchoride.errors.BadRequestException;
+import edu.ucsb.cs156.gauchoride.events.EntityChangedEvent;
+import edu.ucsb.cs156.gauchoride.events.EntityChangedEvent.ChangeType;
+import edu.ucsb.cs156.gauchoride.repositories.ShiftRepository;
+
+/**
+ * The shift schedule served by GET /api/shift/all, kept as serialized JSON
+ * together with its ETag, for the whole week and for each day.  The schedule
+ * changes a few times a week, so almost every request is answered without a
+ * query or serialization, and a client that already has it gets a 304.
+ *
+ * Entries are keyed by a version number as well as the day.  invalidate()
+ * moves to a new version, so a schedule that was being read while a shift
+ * changed is stored under the old version and never served.
+ * ShiftController invalidates after every change it makes; bulk imports
+ * arrive as a RELOADED EntityChangedEvent.  Shifts changed any other way
+ * (another instance, or SQL run by hand) are picked up when the entry
+ * expires, after app.shiftSchedule.expireAfterWriteSeconds.
+ */
+
+@Service
+public class ShiftScheduleCache {
+
+  @Autowired
+  ShiftRepository shiftRepository;
+
+  @Autowired
+  ObjectMapper mapper;
+
+  // one entry per day plus the whole week, for the current version
+  @Value("${app.shiftSchedule.maximumSize:16}")
+  private long maximumSize;
+
+  @Value("${app.shiftSchedule.expireAfterWriteSeconds:60}")
+  private long expireAfterWriteSeconds;
+
+  private final AtomicLong version = new AtomicLong();
+
+  private Cache<Key, Schedule> schedules;
+
+  /**
+   * @param body JSON array of shifts
+   * @param etag weak ETag computed from the body
+   */
+  public record Schedule(byte[] body, String etag) {
+  }
+
+  private record Key(long version, DayOfWeek day) {
+  }
+
+  @PostConstruct
+  void buildCache() {
+    schedules = Caffeine.newBuilder()
+        .maximumSize(maximumSize)
+        .expireAfterWrite(Duration.ofSeconds(expireAfterWriteSeconds))
+        .build();
+  }
+
+  /**
+   * Get the schedule, reading and serializing it only if it is not cached
+   *
+   * @param day day name (e.g. "Tuesday") for the shifts on that day, or null
+   *            for all shifts
+   * @return the serialized schedule and its ETag
+   * @throws BadRequestException if day is not the name of a day
+   */
+  public Schedule get(String day) {
+    DayOfWeek dayOfWeek = day == null ? null : DayOfWeekConverter.parse(day);
+    return schedules.get(new Key(version.get(), dayOfWeek), this::load);
+  }
+
+  /**
+   * Forget all cached schedules; call after any change to a shift
+   */
+  public void invalidate() {
+    version.incrementAndGet();
+    schedules.invalidateAll();
+  }
+
+  @TransactionalEventListener(fallbackExecution = true)
+  public void onEntityChanged(EntityChangedEvent event) {
+    if (event.isAbout(Shift.class) && event.getChangeType() == ChangeType.RELOADED) {
+      invalidate();
+    }
+  }
+
+  private Schedule load(Key key) {
+    Iterable<Shift> shifts = key.day() == null
+        ? shiftRepository.findAll()
+        : shiftRepository.findByDayOrderByShiftStartAscIdAsc(DayOfWeekConverter.format(key.day()));
+    try {
+      byte[] body = mapper.writeValueAsBytes(shifts);
+      return new Schedule(body, "W/\"" + DigestUtils.md5DigestAsHex(body) + "\"");
+    } catch (JsonProcessingException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+}
@@ -0,0 +1,10 @@
+-- One row per scheduled job that must run on only one node at a time
+-- (JobLockService).  A node holds the lock until locked_until, or until it
+-- releases it early by setting locked_until to the time it finished.
+
+CREATE TABLE IF NOT EXISTS job_lock (
+    name VARCHAR(64) PRIMARY KEY,
+    locked_until TIMESTAMP NOT NULL,
+    locked_at TIMESTAMP NOT NULL,
+    locked_by VARCHAR(255) NOT NULL
+);
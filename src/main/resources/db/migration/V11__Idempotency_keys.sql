@@ -0,0 +1,18 @@
+-- Idempotency-Key headers seen by each node when
+-- app.idempotency.database=true (IdempotencyService): one row per scope
+-- (e.g. Ride), user and key, with a fingerprint (SHA-256, hex) of the
+-- request and the id of the record the first request created.  result_id
+-- is NULL while that request is still running.
+
+CREATE TABLE IF NOT EXISTS idempotency_key (
+    scope VARCHAR(32) NOT NULL,
+    user_id BIGINT NOT NULL,
+    idempotency_key VARCHAR(255) NOT NULL,
+    fingerprint VARCHAR(64) NOT NULL,
+    result_id BIGINT,
+    created_at TIMESTAMP NOT NULL,
+    PRIMARY KEY (scope, user_id, idempotency_key)
+);
+
+-- expired keys are deleted by created_at
+CREATE INDEX IF NOT EXISTS idempotency_key_created_at_idx ON idempotency_key (created_at);
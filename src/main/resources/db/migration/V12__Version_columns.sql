@@ -0,0 +1,9 @@
+-- Optimistic locking: Hibernate adds "AND version = ?" to every UPDATE of
+-- these tables and bumps the version, so an update based on a stale read
+-- changes no row and fails instead of overwriting someone else's change.
+-- Existing rows start at version 0.
+
+ALTER TABLE ride ADD COLUMN IF NOT EXISTS version BIGINT DEFAULT 0 NOT NULL;
+ALTER TABLE shift ADD COLUMN IF NOT EXISTS version BIGINT DEFAULT 0 NOT NULL;
+ALTER TABLE users ADD COLUMN IF NOT EXISTS version BIGINT DEFAULT 0 NOT NULL;
+ALTER TABLE rider_application ADD COLUMN IF NOT EXISTS version BIGINT DEFAULT 0 NOT NULL;
@@ -0,0 +1,57 @@
+-- The schema as it was when Hibernate (ddl-auto=update) still created it,
+-- before the admin flag was added in V4.  Databases created that way are
+-- baselined at version 1 (spring.flyway.baseline-on-migrate), so this only
+-- runs against an empty database.
+
+CREATE TABLE IF NOT EXISTS users (
+    id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    email VARCHAR(255),
+    google_sub VARCHAR(255),
+    picture_url VARCHAR(255),
+    full_name VARCHAR(255),
+    given_name VARCHAR(255),
+    family_name VARCHAR(255),
+    email_verified BOOLEAN NOT NULL,
+    locale VARCHAR(255),
+    hosted_domain VARCHAR(255),
+    cellphone VARCHAR(255),
+    driver BOOLEAN NOT NULL,
+    rider BOOLEAN NOT NULL
+);
+
+CREATE TABLE IF NOT EXISTS ride (
+    id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    rider_id BIGINT NOT NULL,
+    student VARCHAR(255),
+    day VARCHAR(255),
+    start_time VARCHAR(255),
+    end_time VARCHAR(255),
+    pickup_location VARCHAR(255),
+    pickup_room VARCHAR(255),
+    dropoff_location VARCHAR(255),
+    dropoff_room VARCHAR(255),
+    course VARCHAR(255),
+    notes VARCHAR(255)
+);
+
+CREATE TABLE IF NOT EXISTS shift (
+    id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    day VARCHAR(255),
+    shift_start VARCHAR(255),
+    shift_end VARCHAR(255),
+    driverid BIGINT NOT NULL,
+    driver_backupid BIGINT NOT NULL
+);
+
+CREATE TABLE IF NOT EXISTS rider_application (
+    id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    status VARCHAR(255),
+    user_id BIGINT,
+    perm_number VARCHAR(255),
+    email VARCHAR(255),
+    created_date DATE,
+    updated_date DATE,
+    cancelled_date DATE,
+    description VARCHAR(255),
+    notes VARCHAR(255)
+);
@@ -0,0 +1,36 @@
+-- Days and times of rides and shifts are stored as numbers so the database
+-- can compare, sort and index them:
+--   day_of_week   ISO day number, 1 = Monday ... 7 = Sunday
+--   start_minute  minutes since midnight
+--   end_minute    minutes since midnight
+-- This adds the columns (if Hibernate has not already) and fills in the
+-- days from the old text column, e.g. 'Tuesday'.
+
+ALTER TABLE ride ADD COLUMN IF NOT EXISTS day_of_week INTEGER;
+ALTER TABLE ride ADD COLUMN IF NOT EXISTS start_minute INTEGER;
+ALTER TABLE ride ADD COLUMN IF NOT EXISTS end_minute INTEGER;
+ALTER TABLE shift ADD COLUMN IF NOT EXISTS day_of_week INTEGER;
+ALTER TABLE shift ADD COLUMN IF NOT EXISTS start_minute INTEGER;
+ALTER TABLE shift ADD COLUMN IF NOT EXISTS end_minute INTEGER;
+
+UPDATE ride SET day_of_week = CASE UPPER(TRIM(day))
+    WHEN 'MONDAY' THEN 1 WHEN 'TUESDAY' THEN 2 WHEN 'WEDNESDAY' THEN 3
+    WHEN 'THURSDAY' THEN 4 WHEN 'FRIDAY' THEN 5 WHEN 'SATURDAY' THEN 6
+    WHEN 'SUNDAY' THEN 7 END
+  WHERE day_of_week IS NULL;
+
+UPDATE shift SET day_of_week = CASE UPPER(TRIM(day))
+    WHEN 'MONDAY' THEN 1 WHEN 'TUESDAY' THEN 2 WHEN 'WEDNESDAY' THEN 3
+    WHEN 'THURSDAY' THEN 4 WHEN 'FRIDAY' THEN 5 WHEN 'SATURDAY' THEN 6
+    WHEN 'SUNDAY' THEN 7 END
+  WHERE day_of_week IS NULL;
+
+-- The times are filled in by V5_1 (db.migration.V5_1__Clock_time_minutes),
+-- which parses them with ClockTimeConverter itself.
+
+CREATE INDEX IF NOT EXISTS ride_day_start_idx ON ride (day_of_week, start_minute);
+CREATE INDEX IF NOT EXISTS shift_day_start_idx ON shift (day_of_week, start_minute);
+
+-- the keyset pagination index on day now covers the numeric column
+DROP INDEX IF EXISTS ride_day_id_idx;
+CREATE INDEX ride_day_id_idx ON ride (day_of_week, id);
@@ -0,0 +1,45 @@
+-- Indexes for the columns the repositories look rows up by.
+
+-- UserRepository.findByEmail runs on every request that needs the current
+-- user; an email identifies exactly one user.
+--
+-- Before this constraint, two first logins racing each other could both
+-- insert the user, so merge any duplicates first: the oldest row of each
+-- email is kept, gets the roles of all of them, and takes over their rides,
+-- shifts and rider applications.
+UPDATE users SET
+    admin = admin OR EXISTS (SELECT 1 FROM users d WHERE d.email = users.email AND d.id > users.id AND d.admin),
+    driver = driver OR EXISTS (SELECT 1 FROM users d WHERE d.email = users.email AND d.id > users.id AND d.driver),
+    rider = rider OR EXISTS (SELECT 1 FROM users d WHERE d.email = users.email AND d.id > users.id AND d.rider)
+  WHERE id = (SELECT MIN(k.id) FROM users k WHERE k.email = users.email)
+    AND EXISTS (SELECT 1 FROM users d WHERE d.email = users.email AND d.id > users.id);
+
+UPDATE ride SET rider_id =
+    (SELECT MIN(k.id) FROM users k, users d WHERE d.id = ride.rider_id AND k.email = d.email)
+  WHERE rider_id IN (SELECT d.id FROM users d, users k WHERE k.email = d.email AND k.id < d.id);
+
+UPDATE rider_application SET user_id =
+    (SELECT MIN(k.id) FROM users k, users d WHERE d.id = rider_application.user_id AND k.email = d.email)
+  WHERE user_id IN (SELECT d.id FROM users d, users k WHERE k.email = d.email AND k.id < d.id);
+
+UPDATE shift SET driverid =
+    (SELECT MIN(k.id) FROM users k, users d WHERE d.id = shift.driverid AND k.email = d.email)
+  WHERE driverid IN (SELECT d.id FROM users d, users k WHERE k.email = d.email AND k.id < d.id);
+
+UPDATE shift SET driver_backupid =
+    (SELECT MIN(k.id) FROM users k, users d WHERE d.id = shift.driver_backupid AND k.email = d.email)
+  WHERE driver_backupid IN (SELECT d.id FROM users d, users k WHERE k.email = d.email AND k.id < d.id);
+
+DELETE FROM users WHERE id IN (SELECT d.id FROM users d, users k WHERE k.email = d.email AND k.id < d.id);
+
+ALTER TABLE users ADD CONSTRAINT users_email_key UNIQUE (email);
+
+-- RideRepository.findAllByRiderId / findPageAfter (riderId filter)
+CREATE INDEX IF NOT EXISTS ride_rider_id_id_idx ON ride (rider_id, id);
+-- RideRepository.findPageAfter (course filter)
+CREATE INDEX IF NOT EXISTS ride_course_id_idx ON ride (course, id);
+
+-- RiderApplicationRepository.findAllByStatus
+CREATE INDEX IF NOT EXISTS rider_application_status_idx ON rider_application (status);
+-- RiderApplicationRepository.findAllByUserId / findByIdAndUserId
+CREATE INDEX IF NOT EXISTS rider_application_user_id_idx ON rider_application (user_id);
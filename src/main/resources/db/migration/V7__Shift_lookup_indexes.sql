@@ -0,0 +1,5 @@
+-- Keyset pagination over shifts (ShiftRepository.findPageAfter) filtered
+-- by day or by driver; id last so "id > cursor ORDER BY id" stays in the
+-- index.  The driver index also serves the per-driver totals.
+CREATE INDEX IF NOT EXISTS shift_day_id_idx ON shift (day_of_week, id);
+CREATE INDEX IF NOT EXISTS shift_driverid_id_idx ON shift (driverid, id);
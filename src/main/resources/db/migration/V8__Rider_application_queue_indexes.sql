@@ -0,0 +1,10 @@
+-- The admin queue (RiderApplicationRepository.findQueueAfter/Before) reads
+-- applications in (created_date, id) order, optionally of one status, so
+-- a page is a range of one of these indexes.  The status index from
+-- V6 is a prefix of the new composite one, which also serves
+-- findAllByStatus and the count by status.
+CREATE INDEX IF NOT EXISTS rider_application_status_created_idx
+    ON rider_application (status, created_date, id);
+CREATE INDEX IF NOT EXISTS rider_application_created_idx
+    ON rider_application (created_date, id);
+DROP INDEX IF EXISTS rider_application_status_idx;
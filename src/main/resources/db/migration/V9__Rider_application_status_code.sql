@@ -0,0 +1,21 @@
+-- Rider application statuses are stored as the smallint code of
+-- ApplicationStatus (0 = pending, 1 = accepted, 2 = declined, 3 = expired,
+-- 4 = cancelled).  This adds the column (if Hibernate has not already) and
+-- fills it in from the old text column; statuses that are not one of these
+-- are left NULL, so they no longer show up as pending or anything else.
+-- Any other code is rejected; a new status must widen the check.
+
+ALTER TABLE rider_application ADD COLUMN IF NOT EXISTS status_code SMALLINT;
+
+UPDATE rider_application SET status_code = CASE LOWER(TRIM(status))
+    WHEN 'pending' THEN 0 WHEN 'accepted' THEN 1 WHEN 'declined' THEN 2
+    WHEN 'expired' THEN 3 WHEN 'cancelled' THEN 4 END
+  WHERE status_code IS NULL;
+
+ALTER TABLE rider_application ADD CONSTRAINT rider_application_status_code_check
+    CHECK (status_code BETWEEN 0 AND 4);
+
+-- the queue index now covers the numeric column
+DROP INDEX IF EXISTS rider_application_status_created_idx;
+CREATE INDEX IF NOT EXISTS rider_application_status_code_created_idx
+    ON rider_application (status_code, created_date, id);
@@ -0,0 +1,237 @@
+package edu.ucsb.cs156.gauchoride;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+/**
+ * Runs the migrations in db/migration against in-memory H2 databases: once
+ * as H2 (development and tests) and once in H2's PostgreSQL mode, standing
+ * in for production.
+ */
+class DatabaseMigrationTests {
+
+  private static final String H2 = "";
+  private static final String POSTGRES = ";MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE";
+
+  private String url(String mode) {
+    return "jdbc:h2:mem:" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1" + mode;
+  }
+
+  private Flyway flyway(String url) {
+    return Flyway.configure()
+        .dataSource(url, "sa", "")
+        .locations("classpath:db/migration")
+        .baselineOnMigrate(true)
+        .baselineVersion("1")
+        .load();
+  }
+
+  /** index name -> whether it is unique, for the indexes on one column */
+  private Map<String, Boolean> indexesOn(Connection connection, String table, String column) throws SQLException {
+    DatabaseMetaData metaData = connection.getMetaData();
+    boolean upper = metaData.storesUpperCaseIdentifiers();
+    Map<String, Boolean> indexes = new HashMap<>();
+    try (ResultSet rs = metaData.getIndexInfo(null, null, upper ? table.toUpperCase() : table, false, false)) {
+      while (rs.next()) {
+        if (column.equalsIgnoreCase(rs.getString("COLUMN_NAME"))) {
+          indexes.put(rs.getString("INDEX_NAME").toLowerCase(), !rs.getBoolean("NON_UNIQUE"));
+        }
+      }
+    }
+    return indexes;
+  }
+
+  private String plan(Connection connection, String query) throws SQLException {
+    try (Statement statement = connection.createStatement();
+        ResultSet rs = statement.executeQuery("EXPLAIN " + query)) {
+      rs.next();
+      return rs.getString(1).toLowerCase();
+    }
+  }
+
+  @ParameterizedTest
+  @ValueSource(strings = { H2, POSTGRES })
+  void lookup_columns_are_indexed(String mode) throws Exception {
+    String url = url(mode);
+    flyway(url).migrate();
+
+    try (Connection connection = DriverManager.getConnection(url, "sa", "")) {
+      assertTrue(indexesOn(connection, "users", "email").containsValue(true));
+      assertTrue(indexesOn(connection, "ride", "rider_id").containsKey("ride_rider_id_id_idx"));
+      assertTrue(indexesOn(connection, "rider_application", "status_code")
+          .containsKey("rider_application_status_code_created_idx"));
+      assertTrue(indexesOn(connection, "rider_application", "created_date").containsKey("rider_application_created_idx"));
+      assertTrue(indexesOn(connection, "rider_application", "user_id").containsKey("rider_application_user_id_idx"));
+      assertTrue(indexesOn(connection, "shift", "day_of_week").containsKey("shift_day_id_idx"));
+      assertTrue(indexesOn(connection, "shift", "driverid").containsKey("shift_driverid_id_idx"));
+    }
+  }
+
+  @ParameterizedTest
+  @ValueSource(strings = { H2, POSTGRES })
+  void repository_lookups_use_the_indexes(String mode) throws Exception {
+    String url = url(mode);
+    flyway(url).migrate();
+
+    try (Connection connection = DriverManager.getConnection(url, "sa", "")) {
+      assertTrue(plan(connection, "SELECT * FROM users WHERE email = 'cgaucho@ucsb.edu'").contains("users_email_key"));
+      assertTrue(plan(connection, "SELECT * FROM ride WHERE rider_id = 1").contains("ride_rider_id_id_idx"));
+      assertTrue(plan(connection, "SELECT * FROM rider_application WHERE status_code = 0")
+          .contains("rider_application_status_code_created_idx"));
+      assertTrue(plan(connection, "SELECT * FROM rider_application WHERE status_code = 0"
+          + " AND created_date >= DATE '2024-01-08' ORDER BY created_date, id")
+          .contains("rider_application_status_code_created_idx"));
+      assertTrue(plan(connection, "SELECT * FROM rider_application WHERE user_id = 1")
+          .contains("rider_application_user_id_idx"));
+      assertTrue(plan(connection, "SELECT * FROM shift WHERE driverid = 5")
+          .contains("shift_driverid_id_idx"));
+    }
+  }
+
+  @ParameterizedTest
+  @ValueSource(strings = { H2, POSTGRES })
+  void emails_are_unique(String mode) throws Exception {
+    String url = url(mode);
+    flyway(url).migrate();
+
+    try (Connection connection = DriverManager.getConnection(url, "sa", "");
+        Statement statement = connection.createStatement()) {
+      String insert = "INSERT INTO users (email, email_verified, admin, driver, rider)"
+          + " VALUES ('cgaucho@ucsb.edu', TRUE, FALSE, FALSE, FALSE)";
+      statement.executeUpdate(insert);
+      assertThrows(SQLException.class, () -> statement.executeUpdate(insert));
+    }
+  }
+
+  @ParameterizedTest
+  @ValueSource(strings = { H2, POSTGRES })
+  void unknown_status_codes_are_rejected(String mode) throws Exception {
+    String url = url(mode);
+    flyway(url).migrate();
+
+    try (Connection connection = DriverManager.getConnection(url, "sa", "");
+        Statement statement = connection.createStatement()) {
+      statement.executeUpdate("INSERT INTO rider_application (status_code) VALUES (4), (NULL)");
+      assertThrows(SQLException.class,
+          () -> statement.executeUpdate("INSERT INTO rider_application (status_code) VALUES (5)"));
+      assertThrows(SQLException.class,
+          () -> statement.executeUpdate("INSERT INTO rider_application (status_code) VALUES (-1)"));
+    }
+  }
+
+  @ParameterizedTest
+  @ValueSource(strings = { H2, POSTGRES })
+  void existing_databases_are_baselined_and_upgraded(String mode) throws Exception {
+    String url = url(mode);
+    // a database created by Hibernate before there were migrations
+    Flyway.configure().dataSource(url, "sa", "").locations("classpath:db/migration").target("1").load().migrate();
+    try (Connection connection = DriverManager.getConnection(url, "sa", "");
+        Statement statement = connection.createStatement()) {
+      statement.executeUpdate("DROP TABLE \"flyway_schema_history\"");
+      // the same user twice, from two first logins racing each other
+      statement.executeUpdate("INSERT INTO users (id, email, email_verified, driver, rider)"
+          + " VALUES (1, 'cgaucho@ucsb.edu', TRUE, FALSE, TRUE), (2, 'cgaucho@ucsb.edu', TRUE, TRUE, FALSE)");
+      statement.executeUpdate("INSERT INTO ride (rider_id, day, start_time, end_time)"
+          + " VALUES (2, 'Tuesday', '1:37PM', '2:15PM')");
+      statement.executeUpdate("INSERT INTO rider_application (status) VALUES (' Accepted'), ('approved')");
+    }
+
+    flyway(url).migrate();
+
+    try (Connection connection = DriverManager.getConnection(url, "sa", "");
+        Statement statement = connection.createStatement();
+        ResultSet rs = statement.executeQuery("SELECT day_of_week, start_minute, end_minute FROM ride")) {
+      assertTrue(rs.next());
+      assertEquals(2, rs.getInt(1));
+      assertEquals(13 * 60 + 37, rs.getInt(2));
+      assertEquals(14 * 60 + 15, rs.getInt(3));
+      assertFalse(rs.next());
+      assertTrue(indexesOn(connection, "users", "email").containsValue(true));
+      // V4 added the admin flag
+      statement.executeQuery("SELECT admin FROM users").close();
+    }
+
+    try (Connection connection = DriverManager.getConnection(url, "sa", "");
+        Statement statement = connection.createStatement();
+        ResultSet rs = statement.executeQuery("SELECT status_code FROM rider_application ORDER BY id")) {
+      assertTrue(rs.next());
+      assertEquals(1, rs.getInt(1));
+      // not a known status, so not in any status
+      assertTrue(rs.next());
+      rs.getInt(1);
+      assertTrue(rs.wasNull());
+      assertFalse(rs.next());
+    }
+
+    // V6: duplicate users are merged into the oldest one
+    try (Connection connection = DriverManager.getConnection(url, "sa", "");
+        Statement statement = connection.createStatement();
+        ResultSet rs = statement.executeQuery("SELECT id, driver, rider FROM users")) {
+      assertTrue(rs.next());
+      assertEquals(1L, rs.getLong(1));
+      assertTrue(rs.getBoolean(2));
+      assertTrue(rs.getBoolean(3));
+      assertFalse(rs.next());
+    }
+    try (Connection connection = DriverManager.getConnection(url, "sa", "");
+        Statement statement = connection.createStatement();
+        ResultSet rs = statement.executeQuery("SELECT rider_id FROM ride")) {
+      assertTrue(rs.next());
+      assertEquals(1L, rs.getLong(1));
+    }
+
+    // V12: existing rows start at version 0
+    try (Connection connection = DriverManager.getConnection(url, "sa", "");
+        Statement statement = connection.createStatement();
+        ResultSet rs = statement.executeQuery("SELECT version FROM ride")) {
+      assertTrue(rs.next());
+      assertEquals(0L, rs.getLong(1));
+    }
+  }
+
+  @ParameterizedTest
+  @ValueSource(strings = { H2, POSTGRES })
+  void legacy_times_are_read_the_way_the_api_reads_them(String mode) throws Exception {
+    String url = url(mode);
+    Flyway.configure().dataSource(url, "sa", "").locations("classpath:db/migration").target("1").load().migrate();
+    try (Connection connection = DriverManager.getConnection(url, "sa", "");
+        Statement statement = connection.createStatement()) {
+      statement.executeUpdate("DROP TABLE \"flyway_schema_history\"");
+      statement.executeUpdate("INSERT INTO ride (id, rider_id, day, start_time, end_time)"
+          + " VALUES (1, 1, 'Tuesday', '1:37 PM', ' 02:15pm '), (2, 1, 'Tuesday', 'ab:cdPM', 'noon')");
+    }
+
+    // a value ClockTimeConverter rejects does not stop the migration
+    flyway(url).migrate();
+
+    try (Connection connection = DriverManager.getConnection(url, "sa", "");
+        Statement statement = connection.createStatement();
+        ResultSet rs = statement.executeQuery("SELECT start_minute, end_minute FROM ride ORDER BY id")) {
+      assertTrue(rs.next());
+      assertEquals(13 * 60 + 37, rs.getInt(1));
+      assertEquals(14 * 60 + 15, rs.getInt(2));
+      assertTrue(rs.next());
+      rs.getInt(1);
+      assertTrue(rs.wasNull());
+      rs.getInt(2);
+      assertTrue(rs.wasNull());
+      assertFalse(rs.next());
+    }
+  }
+}
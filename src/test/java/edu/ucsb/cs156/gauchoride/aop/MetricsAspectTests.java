@@ -0,0 +1,86 @@
+package edu.ucsb.cs156.gauchoride.aop;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+import org.springframework.web.bind.annotation.GetMapping;
+
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+public class MetricsAspectTests {
+
+  public static class SampleController {
+    @GetMapping("/ok")
+    public String ok() {
+      return "ok";
+    }
+
+    @GetMapping("/fail")
+    public String fail() {
+      throw new IllegalStateException("boom");
+    }
+
+    public String notAnEndpoint() {
+      return "plain";
+    }
+  }
+
+  private SimpleMeterRegistry meterRegistry;
+  private SampleController controller;
+
+  @BeforeEach
+  void setup() {
+    meterRegistry = new SimpleMeterRegistry();
+    MetricsAspect aspect = new MetricsAspect();
+    aspect.meterRegistry = meterRegistry;
+    AspectJProxyFactory factory = new AspectJProxyFactory(new SampleController());
+    factory.setProxyTargetClass(true);
+    factory.addAspect(aspect);
+    controller = factory.getProxy();
+  }
+
+  @Test
+  void controller_methods_are_timed() {
+    assertEquals("ok", controller.ok());
+    assertEquals("ok", controller.ok());
+
+    Timer timer = meterRegistry.find(MetricsAspect.TIMER_NAME)
+        .tags("controller", "SampleController", "method", "ok", "exception", "none")
+        .timer();
+    assertEquals(2, timer.count());
+  }
+
+  @Test
+  void exceptions_are_tagged_and_rethrown() {
+    assertThrows(IllegalStateException.class, () -> controller.fail());
+
+    Timer timer = meterRegistry.find(MetricsAspect.TIMER_NAME)
+        .tags("method", "fail", "exception", "IllegalStateException")
+        .timer();
+    assertEquals(1, timer.count());
+  }
+
+  @Test
+  void each_timer_is_registered_once() {
+    controller.ok();
+    Timer first = meterRegistry.find(MetricsAspect.TIMER_NAME).tags("method", "ok").timer();
+    meterRegistry.remove(first);
+
+    controller.ok();
+
+    // looked up again rather than registered again
+    assertNull(meterRegistry.find(MetricsAspect.TIMER_NAME).tags("method", "ok").timer());
+    assertEquals(2, first.count());
+  }
+
+  @Test
+  void other_methods_are_not_timed() {
+    assertEquals("plain", controller.notAnEndpoint());
+    assertNull(meterRegistry.find(MetricsAspect.TIMER_NAME).timer());
+  }
+}
@@ -0,0 +1,18 @@
+package edu.ucsb.cs156.gauchoride.config;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.time.Duration;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.CacheControl;
+
+class HttpCachingConfigTests {
+
+  @Test
+  void hashed_bundles_are_marked_immutable() {
+    CacheControl cacheControl = HttpCachingConfig.immutable(CacheControl.maxAge(Duration.ofDays(365)).cachePublic());
+
+    assertEquals("max-age=31536000, public, immutable", cacheControl.getHeaderValue());
+  }
+}
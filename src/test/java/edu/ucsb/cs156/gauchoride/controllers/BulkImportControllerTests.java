@@ -0,0 +1,148 @@
+package edu.ucsb.cs156.gauchoride.controllers;
+
+import edu.ucsb.cs156.gauchoride.ControllerTestCase;
+import edu.ucsb.cs156.gauchoride.entities.Ride;
+import edu.ucsb.cs156.gauchoride.entities.Shift;
+import edu.ucsb.cs156.gauchoride.errors.BadRequestException;
+import edu.ucsb.cs156.gauchoride.models.ImportReport;
+import edu.ucsb.cs156.gauchoride.repositories.UserRepository;
+import edu.ucsb.cs156.gauchoride.services.BulkImportService;
+
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.MediaType;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.servlet.MvcResult;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@WebMvcTest(controllers = BulkImportController.class)
+public class BulkImportControllerTests extends ControllerTestCase {
+
+  @MockBean
+  UserRepository userRepository;
+
+  @MockBean
+  BulkImportService bulkImportService;
+
+  private final ImportReport report = ImportReport.builder()
+      .created(1)
+      .rejected(1)
+      .rows(List.of(
+          ImportReport.Row.builder().row(1).created(true).build(),
+          ImportReport.Row.builder().row(2).created(false).error("Invalid day: Funday").build()))
+      .build();
+
+  @WithMockUser(roles = { "USER", "DRIVER" })
+  @Test
+  public void non_admin_cannot_import() throws Exception {
+    mockMvc.perform(post("/api/admin/import/shifts")
+        .contentType(MediaType.APPLICATION_JSON)
+        .content("[]")
+        .with(csrf()))
+        .andExpect(status().is(403));
+  }
+
+  @WithMockUser(roles = { "ADMIN", "USER" })
+  @Test
+  public void admin_can_import_shifts_as_json() throws Exception {
+
+    // arrange
+    List<Shift> shifts = List.of(
+        Shift.builder().day("Monday").shiftStart("8:00AM").shiftEnd("12:00PM").driverID(1L).driverBackupID(2L).build(),
+        Shift.builder().day("Funday").shiftStart("8:00AM").shiftEnd("12:00PM").driverID(1L).driverBackupID(2L).build());
+    when(bulkImportService.importShifts(eq(shifts))).thenReturn(report);
+
+    // act
+    MvcResult response = mockMvc.perform(post("/api/admin/import/shifts")
+        .contentType(MediaType.APPLICATION_JSON)
+        .content(mapper.writeValueAsString(shifts))
+        .with(csrf()))
+        .andExpect(status().isOk()).andReturn();
+
+    // assert
+    verify(bulkImportService, times(1)).importShifts(shifts);
+    assertEquals(mapper.writeValueAsString(report), response.getResponse().getContentAsString());
+  }
+
+  @WithMockUser(roles = { "ADMIN", "USER" })
+  @Test
+  public void admin_can_import_rides_as_csv() throws Exception {
+
+    // arrange
+    String csv = "riderId,day,startTime,endTime,pickupLocation,dropoffLocation,course\n"
+        + "7,Monday,2:00PM,3:15PM,Phelps Hall,South Hall,CMPSC 156\n";
+    List<Ride> rides = List.of(Ride.builder().riderId(7L).build());
+    when(bulkImportService.parseCsv(csv, Ride.class)).thenReturn(rides);
+    when(bulkImportService.importRides(rides)).thenReturn(report);
+
+    // act
+    MvcResult response = mockMvc.perform(post("/api/admin/import/rides")
+        .contentType("text/csv")
+        .content(csv)
+        .with(csrf()))
+        .andExpect(status().isOk()).andReturn();
+
+    // assert
+    verify(bulkImportService, times(1)).importRides(rides);
+    assertEquals(mapper.writeValueAsString(report), response.getResponse().getContentAsString());
+  }
+
+  @WithMockUser(roles = { "ADMIN", "USER" })
+  @Test
+  public void admin_can_import_rides_as_json_and_shifts_as_csv() throws Exception {
+
+    // arrange
+    when(bulkImportService.importRides(any())).thenReturn(report);
+    when(bulkImportService.parseCsv("day\nMonday\n", Shift.class)).thenReturn(List.of());
+    when(bulkImportService.importShifts(List.of())).thenReturn(report);
+
+    // act
+    mockMvc.perform(post("/api/admin/import/rides")
+        .contentType(MediaType.APPLICATION_JSON)
+        .content("[]")
+        .with(csrf()))
+        .andExpect(status().isOk());
+    mockMvc.perform(post("/api/admin/import/shifts")
+        .contentType("text/csv")
+        .content("day\nMonday\n")
+        .with(csrf()))
+        .andExpect(status().isOk());
+
+    // assert
+    verify(bulkImportService, times(1)).importRides(List.of());
+    verify(bulkImportService, times(1)).importShifts(List.of());
+  }
+
+  @WithMockUser(roles = { "ADMIN", "USER" })
+  @Test
+  public void unreadable_csv_returns_bad_request() throws Exception {
+
+    // arrange
+    when(bulkImportService.parseCsv(any(), eq(Shift.class)))
+        .thenThrow(new BadRequestException("Invalid CSV at row 1: bad"));
+
+    // act
+    MvcResult response = mockMvc.perform(post("/api/admin/import/shifts")
+        .contentType("text/csv")
+        .content("nonsense")
+        .with(csrf()))
+        .andExpect(status().isBadRequest()).andReturn();
+
+    // assert
+    Map<String, Object> json = responseToJson(response);
+    assertEquals("Invalid CSV at row 1: bad", json.get("message"));
+  }
+}
@@ -0,0 +1,68 @@
+package edu.ucsb.cs156.gauchoride.controllers;
+
+import edu.ucsb.cs156.gauchoride.ControllerTestCase;
+import edu.ucsb.cs156.gauchoride.repositories.UserRepository;
+import edu.ucsb.cs156.gauchoride.services.ChangeFeedService;
+
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@WebMvcTest(controllers = ChangeFeedController.class)
+public class ChangeFeedControllerTests extends ControllerTestCase {
+
+  @MockBean
+  UserRepository userRepository;
+
+  @MockBean
+  ChangeFeedService changeFeedService;
+
+  private ChangeFeedService.Filter subscribedFilter() {
+    ArgumentCaptor<ChangeFeedService.Filter> filter = ArgumentCaptor.forClass(ChangeFeedService.Filter.class);
+    verify(changeFeedService, times(1)).subscribe(any(SseEmitter.class), filter.capture());
+    return filter.getValue();
+  }
+
+  @Test
+  public void changes__logged_out() throws Exception {
+    mockMvc.perform(get("/api/changes"))
+        .andExpect(status().is(403));
+  }
+
+  @WithMockUser(roles = { "USER" })
+  @Test
+  public void rider_only_gets_their_own_rides() throws Exception {
+    mockMvc.perform(get("/api/changes"))
+        .andExpect(request().asyncStarted());
+
+    assertEquals(new ChangeFeedService.Filter(true, true, false, 1L), subscribedFilter());
+  }
+
+  @WithMockUser(roles = { "DRIVER" })
+  @Test
+  public void driver_gets_all_rides() throws Exception {
+    mockMvc.perform(get("/api/changes?shifts=false"))
+        .andExpect(request().asyncStarted());
+
+    assertEquals(new ChangeFeedService.Filter(true, false, true, 1L), subscribedFilter());
+  }
+
+  @WithMockUser(roles = { "ADMIN", "USER" })
+  @Test
+  public void admin_can_ask_for_only_their_own_rides() throws Exception {
+    mockMvc.perform(get("/api/changes?mine=true"))
+        .andExpect(request().asyncStarted());
+
+    assertEquals(new ChangeFeedService.Filter(true, true, false, 1L), subscribedFilter());
+  }
+}
@@ -0,0 +1,114 @@
+package edu.ucsb.cs156.gauchoride.controllers;
+
+import edu.ucsb.cs156.gauchoride.ControllerTestCase;
+import edu.ucsb.cs156.gauchoride.errors.BadRequestException;
+import edu.ucsb.cs156.gauchoride.models.RideAssignment;
+import edu.ucsb.cs156.gauchoride.repositories.UserRepository;
+import edu.ucsb.cs156.gauchoride.services.DispatchService;
+
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.web.util.NestedServletException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@WebMvcTest(controllers = DispatchController.class)
+public class DispatchControllerTests extends ControllerTestCase {
+
+  @MockBean
+  UserRepository userRepository;
+
+  @MockBean
+  DispatchService dispatchService;
+
+  @Test
+  public void assignments__logged_out() throws Exception {
+    mockMvc.perform(get("/api/dispatch/assignments?day=Monday"))
+        .andExpect(status().is(403));
+  }
+
+  @WithMockUser(roles = { "USER" })
+  @Test
+  public void assignments__user_logged_in() throws Exception {
+    mockMvc.perform(get("/api/dispatch/assignments?day=Monday"))
+        .andExpect(status().is(403));
+  }
+
+  @WithMockUser(roles = { "DRIVER" })
+  @Test
+  public void assignments__driver_logged_in() throws Exception {
+
+    // arrange
+
+    List<RideAssignment> assignments = List.of(
+        RideAssignment.builder().rideId(1L).day("Monday").startTime("9:30AM").endTime("10:45AM")
+            .shiftId(3L).driverId(5L).driverBackupId(6L).build(),
+        RideAssignment.builder().rideId(2L).day("Monday").startTime("9:30PM").endTime("10:45PM").build());
+    when(dispatchService.getAssignments("Monday")).thenReturn(assignments);
+    String expectedJson = mapper.writeValueAsString(assignments);
+
+    // act
+    MvcResult response = mockMvc.perform(get("/api/dispatch/assignments?day=Monday"))
+        .andExpect(status().isOk()).andReturn();
+
+    // assert
+    verify(dispatchService, times(1)).getAssignments("Monday");
+    assertEquals(expectedJson, response.getResponse().getContentAsString());
+  }
+
+  @WithMockUser(roles = { "ADMIN" })
+  @Test
+  public void assignments__invalid_day() throws Exception {
+
+    // arrange
+    when(dispatchService.getAssignments("Funday")).thenThrow(new BadRequestException("Invalid day: Funday"));
+
+    // act
+    MvcResult response = mockMvc.perform(get("/api/dispatch/assignments?day=Funday"))
+        .andExpect(status().isBadRequest()).andReturn();
+
+    // assert
+    Map<String, Object> json = responseToJson(response);
+    assertEquals("Invalid day: Funday", json.get("message"));
+  }
+
+  @WithMockUser(roles = { "ADMIN" })
+  @Test
+  public void assignments__bad_request_without_a_message() throws Exception {
+
+    // arrange
+    when(dispatchService.getAssignments("Funday")).thenThrow(new BadRequestException(null));
+
+    // act
+    MvcResult response = mockMvc.perform(get("/api/dispatch/assignments?day=Funday"))
+        .andExpect(status().isBadRequest()).andReturn();
+
+    // assert
+    Map<String, Object> json = responseToJson(response);
+    assertEquals("BadRequestException", json.get("type"));
+    assertEquals("", json.get("message"));
+  }
+
+  @WithMockUser(roles = { "ADMIN" })
+  @Test
+  public void assignments__other_illegal_arguments_are_not_bad_requests() throws Exception {
+
+    // arrange
+    when(dispatchService.getAssignments("Monday")).thenThrow(new IllegalArgumentException("Invalid minute of day: -1"));
+
+    // act and assert
+    assertThrows(NestedServletException.class, () -> mockMvc.perform(get("/api/dispatch/assignments?day=Monday")));
+  }
+}
@@ -0,0 +1,89 @@
+package edu.ucsb.cs156.gauchoride.controllers;
+
+import edu.ucsb.cs156.gauchoride.ControllerTestCase;
+import edu.ucsb.cs156.gauchoride.errors.BadRequestException;
+import edu.ucsb.cs156.gauchoride.models.DriverManifest;
+import edu.ucsb.cs156.gauchoride.models.ManifestStop;
+import edu.ucsb.cs156.gauchoride.models.RideSummary;
+import edu.ucsb.cs156.gauchoride.repositories.UserRepository;
+import edu.ucsb.cs156.gauchoride.services.DriverManifestService;
+
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.servlet.MvcResult;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@WebMvcTest(controllers = DriverManifestController.class)
+public class DriverManifestControllerTests extends ControllerTestCase {
+
+  @MockBean
+  UserRepository userRepository;
+
+  @MockBean
+  DriverManifestService driverManifestService;
+
+  @Test
+  public void manifest__logged_out() throws Exception {
+    mockMvc.perform(get("/api/driver/manifest?day=Monday"))
+        .andExpect(status().is(403));
+  }
+
+  @WithMockUser(roles = { "USER" })
+  @Test
+  public void manifest__user_logged_in() throws Exception {
+    mockMvc.perform(get("/api/driver/manifest?day=Monday"))
+        .andExpect(status().is(403));
+  }
+
+  @WithMockUser(roles = { "DRIVER" })
+  @Test
+  public void manifest__driver_gets_their_own_manifest() throws Exception {
+
+    // arrange
+
+    RideSummary ride = RideSummary.builder().id(7L).riderId(2L).student("Chris Gaucho").day("Monday")
+        .startTime("9:30AM").endTime("10:45AM").pickupLocation("Phelps Hall").pickupRoom("1444")
+        .dropoffLocation("Broida Hall").dropoffRoom("1610").course("CMPSC 156").build();
+    DriverManifest manifest = DriverManifest.builder().driverId(1L).day("Monday").rideCount(1)
+        .stops(List.of(ManifestStop.builder().pickupLocation("Phelps Hall").startTime("9:30AM")
+            .rides(List.of(ride)).build()))
+        .build();
+    when(driverManifestService.getManifest(1L, "Monday")).thenReturn(manifest);
+    String expectedJson = mapper.writeValueAsString(manifest);
+
+    // act
+    MvcResult response = mockMvc.perform(get("/api/driver/manifest?day=Monday"))
+        .andExpect(status().isOk()).andReturn();
+
+    // assert
+    verify(driverManifestService, times(1)).getManifest(1L, "Monday");
+    assertEquals(expectedJson, response.getResponse().getContentAsString());
+  }
+
+  @WithMockUser(roles = { "DRIVER" })
+  @Test
+  public void manifest__invalid_day() throws Exception {
+
+    // arrange
+    when(driverManifestService.getManifest(1L, "Funday")).thenThrow(new BadRequestException("Invalid day: Funday"));
+
+    // act
+    MvcResult response = mockMvc.perform(get("/api/driver/manifest?day=Funday"))
+        .andExpect(status().isBadRequest()).andReturn();
+
+    // assert
+    Map<String, Object> json = responseToJson(response);
+    assertEquals("Invalid day: Funday", json.get("message"));
+  }
+}
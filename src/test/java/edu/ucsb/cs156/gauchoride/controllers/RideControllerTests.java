@@ -4,16 +4,27 @@ import edu.ucsb.cs156.gauchoride.repositories.UserRepository;
 import edu.ucsb.cs156.gauchoride.testconfig.TestConfig;
 import edu.ucsb.cs156.gauchoride.ControllerTestCase;
 import edu.ucsb.cs156.gauchoride.entities.Ride;
+import edu.ucsb.cs156.gauchoride.models.CursorPage;
+import edu.ucsb.cs156.gauchoride.models.RideSummary;
 import edu.ucsb.cs156.gauchoride.repositories.RideRepository;
+import edu.ucsb.cs156.gauchoride.errors.ScheduleConflictException;
+import edu.ucsb.cs156.gauchoride.services.IdempotencyService;
+import edu.ucsb.cs156.gauchoride.services.ScheduleConflictService;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
 import java.util.Map;
+import java.util.function.Supplier;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.web.servlet.MvcResult;
 
@@ -25,13 +36,16 @@ import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 @WebMvcTest(controllers = RideController.class)
-@Import(TestConfig.class)
+@Import({ TestConfig.class, IdempotencyService.class })
 public class RideControllerTests extends ControllerTestCase {
 
         @MockBean
@@ -40,6 +54,21 @@ public class RideControllerTests extends ControllerTestCase {
         @MockBean
         UserRepository userRepository;
 
+        @MockBean
+        ScheduleConflictService scheduleConflictService;
+
+        @MockBean
+        NamedParameterJdbcTemplate jdbcTemplate;
+
+        @BeforeEach
+        public void saveReturnsTheRide() {
+                // like JPA; the controller responds with the saved ride and its version
+                when(rideRepository.save(any())).thenAnswer(invocation -> invocation.getArgument(0));
+                // no overlaps: the ride is saved as requested
+                when(scheduleConflictService.saveRide(any(), any(), any(), any(), anyLong(), any()))
+                                .thenAnswer(invocation -> invocation.<Supplier<?>>getArgument(5).get());
+        }
+
         // Authorization tests for /api/ride_request/all
 
         @Test
@@ -536,7 +565,162 @@ public class RideControllerTests extends ControllerTestCase {
                 assertEquals(expectedJson, responseString);
         }
 
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void ride_list_is_not_sent_again_when_the_etag_matches() throws Exception {
+
+                long userId = currentUserService.getCurrentUser().getUser().getId();
+                Ride ride1 = Ride.builder().id(1L).riderId(userId).day("Monday")
+                                .startTime("2:00PM").endTime("3:15PM").build();
+                when(rideRepository.findAllByRiderId(eq(userId))).thenReturn(Arrays.asList(ride1));
+
+                // act
+                MvcResult first = mockMvc.perform(get("/api/ride_request/all"))
+                                .andExpect(status().isOk()).andReturn();
+                String etag = first.getResponse().getHeader("ETag");
+
+                // assert
+                mockMvc.perform(get("/api/ride_request/all").header("If-None-Match", etag))
+                                .andExpect(status().isNotModified());
+        }
+
+
+
+
+        // GET PAGE
+
+        @Test
+        public void logged_out_users_cannot_get_page() throws Exception {
+                mockMvc.perform(get("/api/ride_request/page"))
+                                .andExpect(status().is(403));
+        }
+
+        @WithMockUser(roles = { "ADMIN", "USER" })
+        @Test
+        public void logged_in_admin_gets_first_page_with_next_cursor() throws Exception {
+
+                Ride ride1 = Ride.builder().id(3L).riderId(5L).day("Monday").course("CMPSC 156").build();
+                Ride ride2 = Ride.builder().id(8L).riderId(6L).day("Monday").course("CMPSC 156").build();
+                Ride ride3 = Ride.builder().id(9L).riderId(6L).day("Monday").course("CMPSC 156").build();
+
+                when(rideRepository.findPageAfter(eq(0L), eq("Monday"), isNull(), isNull(), any()))
+                                .thenReturn(new ArrayList<>(Arrays.asList(ride1, ride2, ride3)));
+
+                // act
+                MvcResult response = mockMvc.perform(get("/api/ride_request/page?size=2&day=Monday"))
+                                .andExpect(status().isOk()).andReturn();
+
+                // assert
+                verify(rideRepository, times(1)).findPageAfter(eq(0L), eq("Monday"), isNull(), isNull(),
+                                eq(PageRequest.of(0, 3)));
+                CursorPage<Ride> expected = CursorPage.<Ride>builder()
+                                .items(Arrays.asList(ride1, ride2))
+                                .nextCursor(CursorPage.encodeCursor(8L))
+                                .build();
+                assertEquals(mapper.writeValueAsString(expected), response.getResponse().getContentAsString());
+        }
+
+        @WithMockUser(roles = { "DRIVER" })
+        @Test
+        public void logged_in_driver_gets_last_page_without_next_cursor() throws Exception {
+
+                Ride ride1 = Ride.builder().id(12L).riderId(5L).day("Tuesday").course("MATH 3A").build();
+
+                when(rideRepository.findPageAfter(eq(8L), isNull(), eq(5L), eq("MATH 3A"), any()))
+                                .thenReturn(new ArrayList<>(Arrays.asList(ride1)));
+
+                // act
+                String cursor = CursorPage.encodeCursor(8L);
+                MvcResult response = mockMvc.perform(
+                                get("/api/ride_request/page?riderId=5&course=MATH 3A&cursor=" + cursor))
+                                .andExpect(status().isOk()).andReturn();
+
+                // assert
+                verify(rideRepository, times(1)).findPageAfter(eq(8L), isNull(), eq(5L), eq("MATH 3A"),
+                                eq(PageRequest.of(0, 51)));
+                Map<String, Object> json = responseToJson(response);
+                assertEquals(null, json.get("nextCursor"));
+                assertEquals(1, ((java.util.List<?>) json.get("items")).size());
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void logged_in_user_only_pages_through_their_own_rides() throws Exception {
+
+                long userId = currentUserService.getCurrentUser().getUser().getId();
+
+                when(rideRepository.findPageAfter(eq(0L), isNull(), eq(userId), isNull(), any()))
+                                .thenReturn(new ArrayList<>());
+
+                // act
+                MvcResult response = mockMvc.perform(get("/api/ride_request/page?riderId=99&size=100000"))
+                                .andExpect(status().isOk()).andReturn();
+
+                // assert
+                verify(rideRepository, times(1)).findPageAfter(eq(0L), isNull(), eq(userId), isNull(),
+                                eq(PageRequest.of(0, 501)));
+                Map<String, Object> json = responseToJson(response);
+                assertEquals(null, json.get("nextCursor"));
+        }
+
+        @WithMockUser(roles = { "ADMIN" })
+        @Test
+        public void invalid_cursor_returns_bad_request() throws Exception {
+
+                // act
+                MvcResult response = mockMvc.perform(get("/api/ride_request/page?cursor=not-a-cursor"))
+                                .andExpect(status().isBadRequest()).andReturn();
+
+                // assert
+                Map<String, Object> json = responseToJson(response);
+                assertEquals("BadRequestException", json.get("type"));
+                assertEquals("Invalid cursor: not-a-cursor", json.get("message"));
+        }
+
+        @WithMockUser(roles = { "ADMIN" })
+        @Test
+        public void invalid_day_filter_returns_bad_request() throws Exception {
+
+                // act
+                MvcResult response = mockMvc.perform(get("/api/ride_request/page?day=Funday"))
+                                .andExpect(status().isBadRequest()).andReturn();
+
+                // assert
+                verify(rideRepository, times(0)).findPageAfter(anyLong(), any(), any(), any(), any());
+                Map<String, Object> json = responseToJson(response);
+                assertEquals("Invalid day: Funday", json.get("message"));
+        }
+
+        // GET OVERLAPPING SHIFT
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void rider_cannot_list_rides_during_a_shift() throws Exception {
+                mockMvc.perform(get("/api/ride_request/shift?shiftId=3"))
+                                .andExpect(status().is(403));
+        }
 
+        @WithMockUser(roles = { "DRIVER" })
+        @Test
+        public void driver_can_list_rides_during_a_shift() throws Exception {
+
+                Ride ride1 = Ride.builder().id(4L).riderId(1L).day("Monday")
+                                .startTime("9:30AM").endTime("10:45AM").build();
+                Ride ride2 = Ride.builder().id(2L).riderId(1L).day("Monday")
+                                .startTime("12:30PM").endTime("1:45PM").build();
+                ArrayList<Ride> expectedRides = new ArrayList<>(Arrays.asList(ride1, ride2));
+
+                when(rideRepository.findOverlappingShift(eq(3L))).thenReturn(expectedRides);
+
+                // act
+                MvcResult response = mockMvc.perform(get("/api/ride_request/shift?shiftId=3"))
+                                .andExpect(status().isOk()).andReturn();
+
+                // assert
+                verify(rideRepository, times(1)).findOverlappingShift(3L);
+                String expectedJson = mapper.writeValueAsString(expectedRides);
+                assertEquals(expectedJson, response.getResponse().getContentAsString());
+        }
 
         // POST
 
@@ -580,6 +764,189 @@ public class RideControllerTests extends ControllerTestCase {
                 assertEquals(expectedJson, responseString);
         }
 
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void a_repeated_post_with_the_same_idempotency_key_returns_the_first_ride() throws Exception {
+                // arrange
+
+                long userId = currentUserService.getCurrentUser().getUser().getId();
+
+                Ride unsaved = Ride.builder()
+                                .riderId(userId)
+                                .student("Fake user")
+                                .day("Monday")
+                                .course("CMPSC 156")
+                                .startTime("2:00PM")
+                                .endTime("3:15PM")
+                                .dropoffLocation("South Hall")
+                                .dropoffRoom("1431")
+                                .pickupLocation("Phelps Hall")
+                                .pickupRoom("1160")
+                                .notes("A random note")
+                                .build();
+                Ride saved = Ride.builder()
+                                .id(17L)
+                                .riderId(userId)
+                                .student("Fake user")
+                                .day("Monday")
+                                .course("CMPSC 156")
+                                .startTime("2:00PM")
+                                .endTime("3:15PM")
+                                .dropoffLocation("South Hall")
+                                .dropoffRoom("1431")
+                                .pickupLocation("Phelps Hall")
+                                .pickupRoom("1160")
+                                .notes("A random note")
+                                .build();
+
+                when(rideRepository.save(eq(unsaved))).thenReturn(saved);
+                when(rideRepository.findById(17L)).thenReturn(Optional.of(saved));
+
+                String postRequesString = "day=Monday&course=CMPSC 156&startTime=2:00PM&endTime=3:15PM&pickupLocation=Phelps Hall&pickupRoom=1160&dropoffLocation=South Hall&dropoffRoom=1431&notes=A random note";
+
+                // act
+                MvcResult first = mockMvc.perform(
+                                post("/api/ride_request/post?" + postRequesString)
+                                                .header("Idempotency-Key", "a8098c1a-f86e-11da-bd1a-00112444be1e")
+                                                .with(csrf()))
+                                .andExpect(status().isOk()).andReturn();
+                MvcResult retry = mockMvc.perform(
+                                post("/api/ride_request/post?" + postRequesString)
+                                                .header("Idempotency-Key", "a8098c1a-f86e-11da-bd1a-00112444be1e")
+                                                .with(csrf()))
+                                .andExpect(status().isOk()).andReturn();
+
+                // assert
+                verify(rideRepository, times(1)).save(unsaved);
+                verify(scheduleConflictService, times(1)).saveRide(isNull(), eq("Monday"), eq("2:00PM"), eq("3:15PM"),
+                                eq(userId), any());
+                String expectedJson = mapper.writeValueAsString(saved);
+                assertEquals(expectedJson, first.getResponse().getContentAsString());
+                assertEquals(expectedJson, retry.getResponse().getContentAsString());
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void an_idempotency_key_reused_for_another_ride_is_rejected() throws Exception {
+
+                // arrange
+                when(rideRepository.save(any())).thenAnswer(invocation -> {
+                        Ride ride = invocation.getArgument(0);
+                        ride.setId(18L);
+                        return ride;
+                });
+
+                String mondayRequest = "day=Monday&course=CMPSC 156&startTime=2:00PM&endTime=3:15PM&pickupLocation=Phelps Hall&pickupRoom=1160&dropoffLocation=South Hall&dropoffRoom=1431&notes=A random note";
+                String tuesdayRequest = mondayRequest.replace("Monday", "Tuesday");
+
+                // act
+                mockMvc.perform(
+                                post("/api/ride_request/post?" + mondayRequest)
+                                                .header("Idempotency-Key", "0b1e7f3c-2d4a-4f6b-8c9d-reused")
+                                                .with(csrf()))
+                                .andExpect(status().isOk());
+                MvcResult response = mockMvc.perform(
+                                post("/api/ride_request/post?" + tuesdayRequest)
+                                                .header("Idempotency-Key", "0b1e7f3c-2d4a-4f6b-8c9d-reused")
+                                                .with(csrf()))
+                                .andExpect(status().isUnprocessableEntity()).andReturn();
+
+                // assert
+                verify(rideRepository, times(1)).save(any());
+                Map<String, Object> json = responseToJson(response);
+                assertEquals("IdempotencyKeyReusedException", json.get("type"));
+                assertEquals("Idempotency-Key 0b1e7f3c-2d4a-4f6b-8c9d-reused was already used for a different request",
+                                json.get("message"));
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void an_overlong_idempotency_key_is_rejected() throws Exception {
+
+                String postRequesString = "day=Monday&course=CMPSC 156&startTime=2:00PM&endTime=3:15PM&pickupLocation=Phelps Hall&pickupRoom=1160&dropoffLocation=South Hall&dropoffRoom=1431&notes=A random note";
+
+                // act
+                MvcResult response = mockMvc.perform(
+                                post("/api/ride_request/post?" + postRequesString)
+                                                .header("Idempotency-Key", "k".repeat(256))
+                                                .with(csrf()))
+                                .andExpect(status().isBadRequest()).andReturn();
+
+                // assert
+                verify(rideRepository, times(0)).save(any());
+                assertEquals("Idempotency-Key must be 1 to 255 characters", responseToJson(response).get("message"));
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void a_ride_with_an_invalid_time_is_rejected() throws Exception {
+
+                String postRequesString = "day=Monday&course=CMPSC 156&startTime=2:00&endTime=3:15PM&pickupLocation=Phelps Hall&pickupRoom=1160&dropoffLocation=South Hall&dropoffRoom=1431&notes=A random note";
+
+                // act
+                MvcResult response = mockMvc.perform(
+                                post("/api/ride_request/post?" + postRequesString)
+                                                .with(csrf()))
+                                .andExpect(status().isBadRequest()).andReturn();
+
+                // assert
+                verify(rideRepository, times(0)).save(any());
+                Map<String, Object> json = responseToJson(response);
+                assertEquals("Invalid time: 2:00", json.get("message"));
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void a_ride_overlapping_another_of_the_same_rider_is_a_conflict() throws Exception {
+                // arrange
+
+                long userId = currentUserService.getCurrentUser().getUser().getId();
+
+                Ride existing = Ride.builder()
+                                .id(7L)
+                                .riderId(userId)
+                                .day("Monday")
+                                .startTime("1:00PM")
+                                .endTime("2:30PM")
+                                .build();
+                doThrow(new ScheduleConflictException(Ride.class, 7L, existing))
+                                .when(scheduleConflictService).saveRide(isNull(), eq("Monday"), eq("2:00PM"), eq("3:15PM"),
+                                                eq(userId), any());
+
+                String postRequesString = "day=Monday&course=CMPSC 156&startTime=2:00PM&endTime=3:15PM&pickupLocation=Phelps Hall&pickupRoom=1160&dropoffLocation=South Hall&dropoffRoom=1431&notes=A random note";
+
+                // act
+                MvcResult response = mockMvc.perform(
+                                post("/api/ride_request/post?" + postRequesString)
+                                                .with(csrf()))
+                                .andExpect(status().isConflict()).andReturn();
+
+                // assert
+                verify(rideRepository, times(0)).save(any());
+                Map<String, Object> json = responseToJson(response);
+                assertEquals("ScheduleConflictException", json.get("type"));
+                assertEquals("Ride overlaps Ride with id 7", json.get("message"));
+                assertEquals(mapper.readValue(mapper.writeValueAsString(existing), Map.class), json.get("conflict"));
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void a_ride_that_ends_before_it_starts_is_rejected() throws Exception {
+
+                String postRequesString = "day=Monday&course=CMPSC 156&startTime=3:15PM&endTime=2:00PM&pickupLocation=Phelps Hall&pickupRoom=1160&dropoffLocation=South Hall&dropoffRoom=1431&notes=A random note";
+
+                // act
+                MvcResult response = mockMvc.perform(
+                                post("/api/ride_request/post?" + postRequesString)
+                                                .with(csrf()))
+                                .andExpect(status().isBadRequest()).andReturn();
+
+                // assert
+                verify(rideRepository, times(0)).save(any());
+                Map<String, Object> json = responseToJson(response);
+                assertEquals("End time 2:00PM is not after start time 3:15PM", json.get("message"));
+        }
+
 
         
 
@@ -1150,4 +1517,153 @@ public class RideControllerTests extends ControllerTestCase {
                 Map<String, Object> json = responseToJson(response);
                 assertEquals("Ride with id 67 not found", json.get("message"));
         }
-}
\ No newline at end of file
+
+        // GET ALL (summary view)
+
+        private RideSummary rideSummary(long id, long riderId) {
+                return RideSummary.builder().id(id).riderId(riderId).student("CGaucho").day("Tuesday")
+                                .startTime("5:00PM").endTime("7:30PM").pickupLocation("Phelps").pickupRoom("1160")
+                                .dropoffLocation("HSSB").dropoffRoom("1001").course("CMPSC 156").build();
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void user_gets_summaries_of_only_their_own_rides() throws Exception {
+
+                long userId = currentUserService.getCurrentUser().getUser().getId();
+                List<RideSummary> expected = Arrays.asList(rideSummary(1L, userId));
+                when(rideRepository.findSummariesByRiderId(eq(userId))).thenReturn(expected);
+
+                // act
+                MvcResult response = mockMvc.perform(get("/api/ride_request/all?view=summary"))
+                                .andExpect(status().isOk()).andReturn();
+
+                // assert
+                verify(rideRepository, times(1)).findSummariesByRiderId(userId);
+                verify(rideRepository, times(0)).findAllSummaries();
+                assertEquals(mapper.writeValueAsString(expected), response.getResponse().getContentAsString());
+        }
+
+        @WithMockUser(roles = { "DRIVER" })
+        @Test
+        public void driver_gets_summaries_of_all_rides_without_notes() throws Exception {
+
+                List<RideSummary> expected = Arrays.asList(rideSummary(1L, 2L), rideSummary(2L, 3L));
+                when(rideRepository.findAllSummaries()).thenReturn(expected);
+
+                // act
+                MvcResult response = mockMvc.perform(get("/api/ride_request/all?view=summary"))
+                                .andExpect(status().isOk()).andReturn();
+
+                // assert
+                verify(rideRepository, times(1)).findAllSummaries();
+                verify(rideRepository, times(0)).findAll();
+                String responseString = response.getResponse().getContentAsString();
+                assertEquals(mapper.writeValueAsString(expected), responseString);
+                assertEquals(false, responseString.contains("notes"));
+        }
+
+        // Optimistic locking: ETag, If-Match and concurrent updates
+
+        private Ride versionedRide(long riderId, long version) {
+                return Ride.builder().id(67L).riderId(riderId).student("CGaucho").day("Monday")
+                                .course("CMPSC 156").startTime("2:00PM").endTime("3:15PM")
+                                .dropoffLocation("South Hall").dropoffRoom("1431")
+                                .pickupLocation("Phelps Hall").pickupRoom("1160")
+                                .notes("A random note").version(version).build();
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void the_version_of_a_ride_is_its_etag() throws Exception {
+                // arrange
+                long userId = currentUserService.getCurrentUser().getUser().getId();
+                when(rideRepository.findByIdAndRiderId(eq(67L), eq(userId))).thenReturn(Optional.of(versionedRide(userId, 3L)));
+
+                // act
+                MvcResult response = mockMvc.perform(get("/api/ride_request?id=67"))
+                                .andExpect(status().isOk()).andReturn();
+
+                // assert
+                assertEquals("\"3\"", response.getResponse().getHeader("ETag"));
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void an_edit_with_the_current_version_returns_the_next_one() throws Exception {
+                // arrange
+                long userId = currentUserService.getCurrentUser().getUser().getId();
+                Ride ride_edited = versionedRide(userId, 3L);
+                ride_edited.setDay("Thursday");
+                String requestBody = mapper.writeValueAsString(ride_edited);
+
+                when(rideRepository.findByIdAndRiderId(eq(67L), eq(userId))).thenReturn(Optional.of(versionedRide(userId, 3L)));
+                when(rideRepository.save(any())).thenReturn(versionedRide(userId, 4L));
+
+                // act
+                MvcResult response = mockMvc.perform(
+                                put("/api/ride_request?id=67")
+                                                .header("If-Match", "\"3\"")
+                                                .contentType(MediaType.APPLICATION_JSON)
+                                                .characterEncoding("utf-8")
+                                                .content(requestBody)
+                                                .with(csrf()))
+                                .andExpect(status().isOk()).andReturn();
+
+                // assert
+                verify(rideRepository, times(1)).save(any());
+                assertEquals("\"4\"", response.getResponse().getHeader("ETag"));
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void an_edit_based_on_a_stale_version_is_rejected() throws Exception {
+                // arrange
+                long userId = currentUserService.getCurrentUser().getUser().getId();
+                String requestBody = mapper.writeValueAsString(versionedRide(userId, 2L));
+
+                when(rideRepository.findByIdAndRiderId(eq(67L), eq(userId))).thenReturn(Optional.of(versionedRide(userId, 3L)));
+
+                // act
+                MvcResult response = mockMvc.perform(
+                                put("/api/ride_request?id=67")
+                                                .header("If-Match", "\"2\"")
+                                                .contentType(MediaType.APPLICATION_JSON)
+                                                .characterEncoding("utf-8")
+                                                .content(requestBody)
+                                                .with(csrf()))
+                                .andExpect(status().isPreconditionFailed()).andReturn();
+
+                // assert
+                verify(rideRepository, times(0)).save(any());
+                Map<String, Object> json = responseToJson(response);
+                assertEquals("PreconditionFailedException", json.get("type"));
+                assertEquals("Ride with id 67 has changed; its current version is 3", json.get("message"));
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void an_edit_that_loses_a_race_with_another_is_a_conflict() throws Exception {
+                // arrange
+                long userId = currentUserService.getCurrentUser().getUser().getId();
+                String requestBody = mapper.writeValueAsString(versionedRide(userId, 3L));
+
+                when(rideRepository.findByIdAndRiderId(eq(67L), eq(userId))).thenReturn(Optional.of(versionedRide(userId, 3L)));
+                when(rideRepository.save(any())).thenThrow(new ObjectOptimisticLockingFailureException(Ride.class, 67L));
+
+                // act
+                MvcResult response = mockMvc.perform(
+                                put("/api/ride_request?id=67")
+                                                .header("If-Match", "*")
+                                                .contentType(MediaType.APPLICATION_JSON)
+                                                .characterEncoding("utf-8")
+                                                .content(requestBody)
+                                                .with(csrf()))
+                                .andExpect(status().isConflict()).andReturn();
+
+                // assert
+                Map<String, Object> json = responseToJson(response);
+                assertEquals("ObjectOptimisticLockingFailureException", json.get("type"));
+                assertEquals("Ride with id 67 was changed by another request", json.get("message"));
+        }
+}
@@ -6,16 +6,23 @@ import edu.ucsb.cs156.gauchoride.ControllerTestCase;
 import edu.ucsb.cs156.gauchoride.entities.Ride;
 import edu.ucsb.cs156.gauchoride.entities.RiderApplication;
 import edu.ucsb.cs156.gauchoride.repositories.RiderApplicationRepository;
+import edu.ucsb.cs156.gauchoride.services.RiderApplicationStatusService;
+import edu.ucsb.cs156.gauchoride.models.CursorPage;
+import edu.ucsb.cs156.gauchoride.models.RiderApplicationSummary;
+import edu.ucsb.cs156.gauchoride.models.StatusCount;
 
 import java.sql.Date;
 import java.time.LocalDate;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
 import java.util.Map;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.http.MediaType;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.web.servlet.MvcResult;
@@ -28,13 +35,14 @@ import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 @WebMvcTest(controllers = RiderApplicationController.class)
-@Import(TestConfig.class)
+@Import({ TestConfig.class, RiderApplicationStatusService.class })
 
 public class RiderApplicationControllerTests extends ControllerTestCase {
         @MockBean
@@ -43,6 +51,12 @@ public class RiderApplicationControllerTests extends ControllerTestCase {
         @MockBean
         UserRepository userRepository;
 
+        @BeforeEach
+        public void saveReturnsTheApplication() {
+                // like JPA; the controller responds with the saved application and its version
+                when(riderApplicationRepository.save(any())).thenAnswer(invocation -> invocation.getArgument(0));
+        }
+
         // // Authorization test for MEMBER
 
         // Authorization tests for get /api/rider
@@ -1173,6 +1187,59 @@ public class RiderApplicationControllerTests extends ControllerTestCase {
         assertEquals(expectedString, responseString);  
     }
 
+    @WithMockUser(roles = { "ADMIN" })
+    @Test
+    public void admin_cannot_move_an_application_out_of_a_final_status() throws Exception
+    {
+        // arrange
+        RiderApplication accepted = RiderApplication.builder()
+                        .id(67L)
+                        .status("accepted")
+                        .userId(1L)
+                        .created_date(Date.valueOf("2023-03-20"))
+                        .notes("")
+                        .build();
+
+        when(riderApplicationRepository.findById(eq(67L))).thenReturn(Optional.of(accepted));
+
+        // act
+        MvcResult response = mockMvc.perform(
+                        put("/api/rider/admin?id=67&status=pending&notes=")
+                                        .with(csrf()))
+                        .andExpect(status().isBadRequest()).andReturn();
+
+        // assert
+        assertEquals("RiderApplication with \"accepted\" status cannot become \"pending\"",
+                        responseToJson(response).get("message"));
+        assertEquals("accepted", accepted.getStatus());
+        verify(riderApplicationRepository, times(0)).save(any());
+    }
+
+    @WithMockUser(roles = { "ADMIN" })
+    @Test
+    public void admin_cannot_set_an_unknown_status() throws Exception
+    {
+        // arrange
+        RiderApplication pending = RiderApplication.builder()
+                        .id(67L)
+                        .status("pending")
+                        .userId(1L)
+                        .notes("")
+                        .build();
+
+        when(riderApplicationRepository.findById(eq(67L))).thenReturn(Optional.of(pending));
+
+        // act
+        MvcResult response = mockMvc.perform(
+                        put("/api/rider/admin?id=67&status=approved&notes=")
+                                        .with(csrf()))
+                        .andExpect(status().isBadRequest()).andReturn();
+
+        // assert
+        assertEquals("Invalid status: approved", responseToJson(response).get("message"));
+        verify(riderApplicationRepository, times(0)).save(any());
+    }
+
     @WithMockUser(roles = { "ADMIN", "MEMBER" })
     @Test
     public void test_that_logged_in_admin_can_update_notes_only_when_the_application_exists() throws Exception
@@ -1312,4 +1379,257 @@ public class RiderApplicationControllerTests extends ControllerTestCase {
         Map<String, Object> json = responseToJson(response);
         assertEquals("RiderApplication with id 67 not found", json.get("message")); 
     }
+
+    // Summary views
+
+    private RiderApplicationSummary applicationSummary(long id, long userId, String status) {
+        return RiderApplicationSummary.builder().id(id).userId(userId).email("cgaucho@ucsb.edu").status(status)
+                .created_date(Date.valueOf("2023-04-17")).updated_date(Date.valueOf("2023-04-17")).build();
+    }
+
+    @WithMockUser(roles = { "MEMBER" })
+    @Test
+    public void member_gets_summaries_of_their_own_applications() throws Exception {
+
+        long userId = currentUserService.getCurrentUser().getUser().getId();
+        List<RiderApplicationSummary> expected = Arrays.asList(applicationSummary(1L, userId, "pending"));
+        when(riderApplicationRepository.findSummariesByUserId(eq(userId))).thenReturn(expected);
+
+        // act
+        MvcResult response = mockMvc.perform(get("/api/rider?view=summary"))
+                .andExpect(status().isOk()).andReturn();
+
+        // assert
+        verify(riderApplicationRepository, times(1)).findSummariesByUserId(userId);
+        assertEquals(mapper.writeValueAsString(expected), response.getResponse().getContentAsString());
+    }
+
+    @WithMockUser(roles = { "ADMIN" })
+    @Test
+    public void admin_gets_summaries_of_all_and_of_pending_applications() throws Exception {
+
+        List<RiderApplicationSummary> all = Arrays.asList(applicationSummary(1L, 2L, "pending"),
+                applicationSummary(2L, 3L, "accepted"));
+        List<RiderApplicationSummary> pending = Arrays.asList(applicationSummary(1L, 2L, "pending"));
+        when(riderApplicationRepository.findAllSummaries()).thenReturn(all);
+        when(riderApplicationRepository.findSummariesByStatus(eq("pending"))).thenReturn(pending);
+
+        // act
+        MvcResult allResponse = mockMvc.perform(get("/api/rider/admin/all?view=summary"))
+                .andExpect(status().isOk()).andReturn();
+        MvcResult pendingResponse = mockMvc.perform(get("/api/rider/admin/pending?view=summary"))
+                .andExpect(status().isOk()).andReturn();
+
+        // assert
+        verify(riderApplicationRepository, times(0)).findAll();
+        assertEquals(mapper.writeValueAsString(all), allResponse.getResponse().getContentAsString());
+        assertEquals(mapper.writeValueAsString(pending), pendingResponse.getResponse().getContentAsString());
+        assertEquals(false, allResponse.getResponse().getContentAsString().contains("perm_number"));
+    }
+
+    @WithMockUser(roles = { "MEMBER" })
+    @Test
+    public void members_cannot_get_summaries_of_all_applications() throws Exception {
+        mockMvc.perform(get("/api/rider/admin/all?view=summary"))
+                .andExpect(status().is(403));
+    }
+
+    // Admin queue
+
+    private RiderApplicationSummary created(long id, String status, String createdDate) {
+        return RiderApplicationSummary.builder().id(id).userId(2L).email("cgaucho@ucsb.edu").status(status)
+                .created_date(Date.valueOf(createdDate)).updated_date(Date.valueOf(createdDate)).build();
+    }
+
+    @WithMockUser(roles = { "MEMBER" })
+    @Test
+    public void members_cannot_get_the_queue_or_counts() throws Exception {
+        mockMvc.perform(get("/api/rider/admin/queue"))
+                .andExpect(status().is(403));
+        mockMvc.perform(get("/api/rider/admin/counts"))
+                .andExpect(status().is(403));
+    }
+
+    @WithMockUser(roles = { "ADMIN" })
+    @Test
+    public void admin_gets_first_page_of_the_queue_oldest_first() throws Exception {
+
+        RiderApplicationSummary first = created(4L, "pending", "2024-01-08");
+        RiderApplicationSummary second = created(2L, "pending", "2024-01-09");
+        RiderApplicationSummary third = created(3L, "pending", "2024-01-09");
+        when(riderApplicationRepository.findQueueAfterByStatus(eq("pending"), any(), any(), any(), anyLong(), any()))
+                .thenReturn(new ArrayList<>(Arrays.asList(first, second, third)));
+
+        // act
+        MvcResult response = mockMvc.perform(get("/api/rider/admin/queue?status=pending&size=2&from=2024-01-08"))
+                .andExpect(status().isOk()).andReturn();
+
+        // assert
+        verify(riderApplicationRepository, times(1)).findQueueAfterByStatus("pending", Date.valueOf("2024-01-08"),
+                Date.valueOf("9999-12-31"), Date.valueOf("2024-01-08"), 0L, PageRequest.of(0, 3));
+        CursorPage<RiderApplicationSummary> expected = CursorPage.<RiderApplicationSummary>builder()
+                .items(Arrays.asList(first, second))
+                .nextCursor(CursorPage.encodeCursor("2024-01-09", 2L))
+                .build();
+        assertEquals(mapper.writeValueAsString(expected), response.getResponse().getContentAsString());
+    }
+
+    @WithMockUser(roles = { "ADMIN" })
+    @Test
+    public void admin_continues_the_queue_newest_first_from_a_cursor() throws Exception {
+
+        RiderApplicationSummary older = created(1L, "accepted", "2024-01-02");
+        when(riderApplicationRepository.findQueueBefore(any(), any(), any(), anyLong(), any()))
+                .thenReturn(new ArrayList<>(Arrays.asList(older)));
+
+        // act
+        String cursor = CursorPage.encodeCursor("2024-01-09", 2L);
+        MvcResult response = mockMvc.perform(
+                get("/api/rider/admin/queue?sort=desc&to=2024-03-22&size=100000&cursor=" + cursor))
+                .andExpect(status().isOk()).andReturn();
+
+        // assert
+        verify(riderApplicationRepository, times(1)).findQueueBefore(Date.valueOf("1900-01-01"),
+                Date.valueOf("2024-03-22"), Date.valueOf("2024-01-09"), 2L, PageRequest.of(0, 501));
+        Map<String, Object> json = responseToJson(response);
+        assertEquals(null, json.get("nextCursor"));
+        assertEquals(1, ((List<?>) json.get("items")).size());
+        verify(riderApplicationRepository, times(0)).findQueueBeforeByStatus(any(), any(), any(), any(), anyLong(),
+                any());
+    }
+
+    @WithMockUser(roles = { "ADMIN" })
+    @Test
+    public void queue_rejects_bad_parameters() throws Exception {
+
+        MvcResult badSort = mockMvc.perform(get("/api/rider/admin/queue?sort=sideways"))
+                .andExpect(status().isBadRequest()).andReturn();
+        assertEquals("Invalid sort: sideways", responseToJson(badSort).get("message"));
+
+        MvcResult badRange = mockMvc.perform(get("/api/rider/admin/queue?from=2024-03-22&to=2024-01-08"))
+                .andExpect(status().isBadRequest()).andReturn();
+        assertEquals("from 2024-03-22 is after to 2024-01-08", responseToJson(badRange).get("message"));
+
+        String notADate = CursorPage.encodeCursor("yesterday", 2L);
+        MvcResult badCursor = mockMvc.perform(get("/api/rider/admin/queue?cursor=" + notADate))
+                .andExpect(status().isBadRequest()).andReturn();
+        assertEquals("Invalid cursor: " + notADate, responseToJson(badCursor).get("message"));
+
+        MvcResult idCursor = mockMvc.perform(get("/api/rider/admin/queue?cursor=" + CursorPage.encodeCursor(2L)))
+                .andExpect(status().isBadRequest()).andReturn();
+        assertEquals("BadRequestException", responseToJson(idCursor).get("type"));
+
+        MvcResult badStatus = mockMvc.perform(get("/api/rider/admin/queue?status=approved"))
+                .andExpect(status().isBadRequest()).andReturn();
+        assertEquals("Invalid status: approved", responseToJson(badStatus).get("message"));
+
+        verify(riderApplicationRepository, times(0)).findQueueAfter(any(), any(), any(), anyLong(), any());
+        verify(riderApplicationRepository, times(0)).findQueueAfterByStatus(any(), any(), any(), any(), anyLong(),
+                any());
+    }
+
+    @WithMockUser(roles = { "ADMIN" })
+    @Test
+    public void admin_gets_counts_by_status() throws Exception {
+
+        List<StatusCount> counts = Arrays.asList(new StatusCount("accepted", 12L), new StatusCount("pending", 3L));
+        when(riderApplicationRepository.countByStatus()).thenReturn(counts);
+
+        // act
+        MvcResult response = mockMvc.perform(get("/api/rider/admin/counts"))
+                .andExpect(status().isOk()).andReturn();
+
+        // assert
+        verify(riderApplicationRepository, times(1)).countByStatus();
+        assertEquals(mapper.writeValueAsString(counts), response.getResponse().getContentAsString());
+    }
+
+    // Optimistic locking: ETag and If-Match
+
+    private RiderApplication versionedApplication(String status, long version) {
+        return RiderApplication.builder()
+                        .id(67L)
+                        .status(status)
+                        .userId(currentUserService.getCurrentUser().getUser().getId())
+                        .perm_number("9876543")
+                        .email(currentUserService.getCurrentUser().getUser().getEmail())
+                        .created_date(Date.valueOf("2023-03-20"))
+                        .updated_date(Date.valueOf("2023-03-29"))
+                        .description("My legs are broken")
+                        .notes("")
+                        .version(version)
+                        .build();
+    }
+
+    @WithMockUser(roles = { "ADMIN", "MEMBER" })
+    @Test
+    public void the_version_of_an_application_is_its_etag() throws Exception {
+
+        when(riderApplicationRepository.findById(eq(67L))).thenReturn(Optional.of(versionedApplication("pending", 2L)));
+
+        // act
+        MvcResult response = mockMvc.perform(get("/api/rider/admin?id=67"))
+                .andExpect(status().isOk()).andReturn();
+
+        // assert
+        assertEquals("\"2\"", response.getResponse().getHeader("ETag"));
+    }
+
+    @WithMockUser(roles = { "ADMIN", "MEMBER" })
+    @Test
+    public void admin_update_with_the_current_version_returns_the_next_one() throws Exception {
+
+        when(riderApplicationRepository.findById(eq(67L))).thenReturn(Optional.of(versionedApplication("pending", 2L)));
+        when(riderApplicationRepository.save(any())).thenReturn(versionedApplication("accepted", 3L));
+
+        // act
+        MvcResult response = mockMvc.perform(
+                        put("/api/rider/admin?id=67&status=accepted&notes=")
+                                        .header("If-Match", "\"1\", \"2\"")
+                                        .with(csrf()))
+                        .andExpect(status().isOk()).andReturn();
+
+        // assert
+        verify(riderApplicationRepository, times(1)).save(any());
+        assertEquals("\"3\"", response.getResponse().getHeader("ETag"));
+    }
+
+    @WithMockUser(roles = { "ADMIN", "MEMBER" })
+    @Test
+    public void admin_cannot_update_an_application_that_changed_since_it_was_read() throws Exception {
+
+        when(riderApplicationRepository.findById(eq(67L))).thenReturn(Optional.of(versionedApplication("cancelled", 3L)));
+
+        // act
+        MvcResult response = mockMvc.perform(
+                        put("/api/rider/admin?id=67&status=accepted&notes=")
+                                        .header("If-Match", "\"2\"")
+                                        .with(csrf()))
+                        .andExpect(status().isPreconditionFailed()).andReturn();
+
+        // assert
+        verify(riderApplicationRepository, times(0)).save(any());
+        Map<String, Object> json = responseToJson(response);
+        assertEquals("PreconditionFailedException", json.get("type"));
+        assertEquals("RiderApplication with id 67 has changed; its current version is 3", json.get("message"));
+    }
+
+    @WithMockUser(roles = { "MEMBER" })
+    @Test
+    public void member_cannot_cancel_an_application_that_changed_since_it_was_read() throws Exception {
+
+        long userId = currentUserService.getCurrentUser().getUser().getId();
+        when(riderApplicationRepository.findByIdAndUserId(eq(67L), eq(userId)))
+                .thenReturn(Optional.of(versionedApplication("accepted", 3L)));
+
+        // act
+        mockMvc.perform(
+                        put("/api/riderApplication/cancel?id=67")
+                                        .header("If-Match", "\"2\"")
+                                        .with(csrf()))
+                        .andExpect(status().isPreconditionFailed());
+
+        // assert
+        verify(riderApplicationRepository, times(0)).save(any());
+    }
 }
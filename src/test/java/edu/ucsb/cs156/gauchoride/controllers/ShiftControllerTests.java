@@ -4,17 +4,29 @@ import edu.ucsb.cs156.gauchoride.repositories.UserRepository;
 import edu.ucsb.cs156.gauchoride.testconfig.TestConfig;
 import edu.ucsb.cs156.gauchoride.ControllerTestCase;
 import edu.ucsb.cs156.gauchoride.entities.Shift;
+import edu.ucsb.cs156.gauchoride.models.CursorPage;
+import edu.ucsb.cs156.gauchoride.models.DayCoverage;
+import edu.ucsb.cs156.gauchoride.models.DriverShiftTotals;
 import edu.ucsb.cs156.gauchoride.repositories.ShiftRepository;
+import edu.ucsb.cs156.gauchoride.errors.ScheduleConflictException;
+import edu.ucsb.cs156.gauchoride.services.ScheduleConflictService;
+import edu.ucsb.cs156.gauchoride.services.ShiftScheduleCache;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
 import java.util.Map;
+import java.util.function.Supplier;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.http.MediaType;
 import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.TestPropertySource;
 import org.springframework.test.web.servlet.MvcResult;
 
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
@@ -24,14 +36,19 @@ import static org.springframework.security.test.web.servlet.request.SecurityMock
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.mockito.ArgumentMatchers.any;
 
 @WebMvcTest(controllers = ShiftController.class)
-@Import(TestConfig.class)
+@Import({ TestConfig.class, ShiftScheduleCache.class })
+@TestPropertySource(properties = "app.streaming.chunkSize=2")
 public class ShiftControllerTests extends ControllerTestCase {
 
         @MockBean
@@ -40,6 +57,26 @@ public class ShiftControllerTests extends ControllerTestCase {
         @MockBean
         UserRepository userRepository;
 
+        @MockBean
+        ScheduleConflictService scheduleConflictService;
+
+        @Autowired
+        ShiftScheduleCache shiftScheduleCache;
+
+        @BeforeEach
+        public void emptyScheduleCache() {
+                shiftScheduleCache.invalidate();
+        }
+
+        @BeforeEach
+        public void saveReturnsTheShift() {
+                // like JPA; the controller responds with the saved shift and its version
+                when(shiftRepository.save(any())).thenAnswer(invocation -> invocation.getArgument(0));
+                // no overlaps: the shift is saved as requested
+                when(scheduleConflictService.saveShift(any(), any(), any(), any(), anyLong(), any()))
+                                .thenAnswer(invocation -> invocation.<Supplier<?>>getArgument(5).get());
+        }
+
         //Authorization tests for /api/shift/all
 
         @Test
@@ -385,6 +422,283 @@ public class ShiftControllerTests extends ControllerTestCase {
                 assertEquals(expectedJson, responseString);
         }
 
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void shift_list_is_not_sent_again_when_the_etag_matches() throws Exception {
+
+                Shift shift1 = Shift.builder().id(1L).day("Monday").shiftStart("10:30AM").shiftEnd("12:30PM")
+                                .driverID(2L).driverBackupID(3L).build();
+                when(shiftRepository.findAll()).thenReturn(Arrays.asList(shift1));
+
+                // act
+                MvcResult first = mockMvc.perform(get("/api/shift/all"))
+                                .andExpect(status().isOk())
+                                .andExpect(header().string("Cache-Control", "no-cache, private"))
+                                .andReturn();
+                String etag = first.getResponse().getHeader("ETag");
+
+                MvcResult second = mockMvc.perform(get("/api/shift/all").header("If-None-Match", etag))
+                                .andExpect(status().isNotModified()).andReturn();
+
+                // assert
+                assertTrue(etag.startsWith("W/\""));
+                assertEquals("", second.getResponse().getContentAsString());
+
+                // a different list gets a different tag
+                when(shiftRepository.findAll()).thenReturn(new ArrayList<>());
+                shiftScheduleCache.invalidate();
+                mockMvc.perform(get("/api/shift/all").header("If-None-Match", etag))
+                                .andExpect(status().isOk());
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void unchanged_schedule_is_served_from_the_cache() throws Exception {
+
+                Shift shift1 = Shift.builder().id(1L).day("Monday").shiftStart("10:30AM").shiftEnd("12:30PM")
+                                .driverID(2L).driverBackupID(3L).build();
+                when(shiftRepository.findAll()).thenReturn(Arrays.asList(shift1));
+
+                // act
+                MvcResult first = mockMvc.perform(get("/api/shift/all"))
+                                .andExpect(status().isOk()).andReturn();
+                MvcResult second = mockMvc.perform(get("/api/shift/all"))
+                                .andExpect(status().isOk()).andReturn();
+
+                // assert
+                verify(shiftRepository, times(1)).findAll();
+                assertEquals(mapper.writeValueAsString(Arrays.asList(shift1)), second.getResponse().getContentAsString());
+                assertEquals(first.getResponse().getHeader("ETag"), second.getResponse().getHeader("ETag"));
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void schedule_for_one_day_is_cached_separately() throws Exception {
+
+                Shift shift1 = Shift.builder().id(1L).day("Monday").shiftStart("10:30AM").shiftEnd("12:30PM")
+                                .driverID(2L).driverBackupID(3L).build();
+                when(shiftRepository.findByDayOrderByShiftStartAscIdAsc("Monday")).thenReturn(Arrays.asList(shift1));
+                when(shiftRepository.findAll()).thenReturn(new ArrayList<>());
+
+                // act
+                MvcResult monday = mockMvc.perform(get("/api/shift/all?day=monday"))
+                                .andExpect(status().isOk()).andReturn();
+                mockMvc.perform(get("/api/shift/all?day=Monday"))
+                                .andExpect(status().isOk());
+                MvcResult all = mockMvc.perform(get("/api/shift/all"))
+                                .andExpect(status().isOk()).andReturn();
+
+                // assert
+                verify(shiftRepository, times(1)).findByDayOrderByShiftStartAscIdAsc("Monday");
+                verify(shiftRepository, times(1)).findAll();
+                assertEquals(mapper.writeValueAsString(Arrays.asList(shift1)), monday.getResponse().getContentAsString());
+                assertEquals("[]", all.getResponse().getContentAsString());
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void schedule_for_an_invalid_day_is_a_bad_request() throws Exception {
+                MvcResult response = mockMvc.perform(get("/api/shift/all?day=Funday"))
+                                .andExpect(status().isBadRequest()).andReturn();
+
+                Map<String, Object> json = responseToJson(response);
+                assertEquals("Invalid day: Funday", json.get("message"));
+        }
+
+        @WithMockUser(roles = { "ADMIN", "USER" })
+        @Test
+        public void changing_a_shift_refreshes_the_cached_schedule() throws Exception {
+
+                Shift shift1 = Shift.builder().id(15L).day("Monday").shiftStart("10:30AM").shiftEnd("12:30PM")
+                                .driverID(2L).driverBackupID(3L).build();
+                when(shiftRepository.findAll()).thenReturn(Arrays.asList(shift1));
+                when(shiftRepository.findById(eq(15L))).thenReturn(Optional.of(shift1));
+                mockMvc.perform(get("/api/shift/all")).andExpect(status().isOk());
+
+                // act
+                when(shiftRepository.findAll()).thenReturn(new ArrayList<>());
+                mockMvc.perform(delete("/api/shift?id=15").with(csrf()))
+                                .andExpect(status().isOk());
+                MvcResult response = mockMvc.perform(get("/api/shift/all"))
+                                .andExpect(status().isOk()).andReturn();
+
+                // assert
+                verify(shiftRepository, times(2)).findAll();
+                assertEquals("[]", response.getResponse().getContentAsString());
+        }
+
+
+        // GET ALL (streamed)
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void logged_in_user_can_stream_all_shifts_in_chunks() throws Exception {
+
+                Shift shift1 = Shift.builder().id(1L).day("Monday").shiftStart("10:00AM").shiftEnd("12:30PM")
+                                .driverID(2L).driverBackupID(3L).build();
+                Shift shift2 = Shift.builder().id(4L).day("Tuesday").shiftStart("1:00PM").shiftEnd("3:30PM")
+                                .driverID(2L).driverBackupID(3L).build();
+                Shift shift3 = Shift.builder().id(9L).day("Friday").shiftStart("8:00AM").shiftEnd("11:00AM")
+                                .driverID(5L).driverBackupID(2L).build();
+
+                // chunk size is 2 (see @TestPropertySource), so three rows take two queries
+                when(shiftRepository.findByIdGreaterThanOrderByIdAsc(eq(0L), eq(PageRequest.of(0, 2))))
+                                .thenReturn(Arrays.asList(shift1, shift2));
+                when(shiftRepository.findByIdGreaterThanOrderByIdAsc(eq(4L), eq(PageRequest.of(0, 2))))
+                                .thenReturn(Arrays.asList(shift3));
+
+                // act
+                MvcResult started = mockMvc.perform(get("/api/shift/all?stream=true"))
+                                .andExpect(request().asyncStarted()).andReturn();
+                started.getAsyncResult();
+                MvcResult response = mockMvc.perform(asyncDispatch(started))
+                                .andExpect(status().isOk()).andReturn();
+
+                // assert
+                verify(shiftRepository, times(1)).findByIdGreaterThanOrderByIdAsc(eq(0L), any());
+                verify(shiftRepository, times(1)).findByIdGreaterThanOrderByIdAsc(eq(4L), any());
+                verify(shiftRepository, times(0)).findAll();
+                String expectedJson = mapper.writeValueAsString(Arrays.asList(shift1, shift2, shift3));
+                assertEquals(expectedJson, response.getResponse().getContentAsString());
+        }
+
+        @WithMockUser(roles = { "DRIVER" })
+        @Test
+        public void streaming_an_empty_table_returns_an_empty_array() throws Exception {
+
+                when(shiftRepository.findByIdGreaterThanOrderByIdAsc(eq(0L), any()))
+                                .thenReturn(new ArrayList<>());
+
+                // act
+                MvcResult started = mockMvc.perform(get("/api/shift/all?stream=true"))
+                                .andExpect(request().asyncStarted()).andReturn();
+                started.getAsyncResult();
+                MvcResult response = mockMvc.perform(asyncDispatch(started))
+                                .andExpect(status().isOk()).andReturn();
+
+                // assert
+                verify(shiftRepository, times(1)).findByIdGreaterThanOrderByIdAsc(eq(0L), any());
+                assertEquals("[]", response.getResponse().getContentAsString());
+        }
+
+
+        // GET PAGE
+
+        @Test
+        public void logged_out_users_cannot_get_page() throws Exception {
+                mockMvc.perform(get("/api/shift/page"))
+                                .andExpect(status().is(403));
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void logged_in_user_gets_first_page_of_a_day_with_next_cursor() throws Exception {
+
+                Shift shift1 = Shift.builder().id(3L).day("Monday").shiftStart("8:00AM").shiftEnd("10:00AM").driverID(5L).build();
+                Shift shift2 = Shift.builder().id(8L).day("Monday").shiftStart("9:00AM").shiftEnd("1:00PM").driverID(6L).build();
+                Shift shift3 = Shift.builder().id(9L).day("Monday").shiftStart("2:00PM").shiftEnd("5:00PM").driverID(6L).build();
+
+                when(shiftRepository.findPageAfter(eq(0L), eq("Monday"), isNull(), any()))
+                                .thenReturn(new ArrayList<>(Arrays.asList(shift1, shift2, shift3)));
+
+                // act
+                MvcResult response = mockMvc.perform(get("/api/shift/page?size=2&day=Monday"))
+                                .andExpect(status().isOk()).andReturn();
+
+                // assert
+                verify(shiftRepository, times(1)).findPageAfter(eq(0L), eq("Monday"), isNull(), eq(PageRequest.of(0, 3)));
+                CursorPage<Shift> expected = CursorPage.<Shift>builder()
+                                .items(Arrays.asList(shift1, shift2))
+                                .nextCursor(CursorPage.encodeCursor(8L))
+                                .build();
+                assertEquals(mapper.writeValueAsString(expected), response.getResponse().getContentAsString());
+        }
+
+        @WithMockUser(roles = { "DRIVER" })
+        @Test
+        public void logged_in_driver_gets_last_page_of_a_driver_without_next_cursor() throws Exception {
+
+                Shift shift1 = Shift.builder().id(12L).day("Tuesday").shiftStart("8:00AM").shiftEnd("10:00AM").driverID(5L).build();
+
+                when(shiftRepository.findPageAfter(eq(8L), isNull(), eq(5L), any()))
+                                .thenReturn(new ArrayList<>(Arrays.asList(shift1)));
+
+                // act
+                String cursor = CursorPage.encodeCursor(8L);
+                MvcResult response = mockMvc.perform(get("/api/shift/page?driverID=5&size=100000&cursor=" + cursor))
+                                .andExpect(status().isOk()).andReturn();
+
+                // assert
+                verify(shiftRepository, times(1)).findPageAfter(eq(8L), isNull(), eq(5L), eq(PageRequest.of(0, 501)));
+                Map<String, Object> json = responseToJson(response);
+                assertEquals(null, json.get("nextCursor"));
+                assertEquals(1, ((List<?>) json.get("items")).size());
+        }
+
+        @WithMockUser(roles = { "ADMIN" })
+        @Test
+        public void shift_page_with_an_invalid_day_is_a_bad_request() throws Exception {
+
+                // act
+                MvcResult response = mockMvc.perform(get("/api/shift/page?day=Funday"))
+                                .andExpect(status().isBadRequest()).andReturn();
+
+                // assert
+                verify(shiftRepository, times(0)).findPageAfter(anyLong(), any(), any(), any());
+                Map<String, Object> json = responseToJson(response);
+                assertEquals("Invalid day: Funday", json.get("message"));
+        }
+
+        // GET STATS
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void logged_in_users_cannot_get_stats() throws Exception {
+                mockMvc.perform(get("/api/shift/stats/drivers"))
+                                .andExpect(status().is(403));
+                mockMvc.perform(get("/api/shift/stats/days"))
+                                .andExpect(status().is(403));
+        }
+
+        @WithMockUser(roles = { "ADMIN" })
+        @Test
+        public void admin_gets_shift_totals_per_driver() throws Exception {
+
+                // arrange
+                when(shiftRepository.totalsByDriver()).thenCallRealMethod();
+                when(shiftRepository.totalsByDriverRows()).thenReturn(List.of(
+                                new Object[] { 5L, 2L, 360L },
+                                new Object[] { new java.math.BigInteger("6"), 1L, 240 }));
+
+                // act
+                MvcResult response = mockMvc.perform(get("/api/shift/stats/drivers"))
+                                .andExpect(status().isOk()).andReturn();
+
+                // assert
+                List<DriverShiftTotals> expected = List.of(
+                                DriverShiftTotals.builder().driverId(5L).shifts(2L).scheduledMinutes(360L).build(),
+                                DriverShiftTotals.builder().driverId(6L).shifts(1L).scheduledMinutes(240L).build());
+                assertEquals(mapper.writeValueAsString(expected), response.getResponse().getContentAsString());
+        }
+
+        @WithMockUser(roles = { "DRIVER" })
+        @Test
+        public void driver_gets_coverage_per_day() throws Exception {
+
+                // arrange
+                when(shiftRepository.coverageByDay()).thenCallRealMethod();
+                when(shiftRepository.coverageByDayRows()).thenReturn(List.<Object[]>of(
+                                new Object[] { 1, 3L, 2L, 8 * 60, 17 * 60, 540L }));
+
+                // act
+                MvcResult response = mockMvc.perform(get("/api/shift/stats/days"))
+                                .andExpect(status().isOk()).andReturn();
+
+                // assert
+                List<DayCoverage> expected = List.of(DayCoverage.builder().day("Monday").shifts(3L).drivers(2L)
+                                .firstShiftStart("8:00AM").lastShiftEnd("5:00PM").scheduledMinutes(540L).build());
+                assertEquals(mapper.writeValueAsString(expected), response.getResponse().getContentAsString());
+        }
 
         // POST
         @WithMockUser(roles = { "ADMIN" })
@@ -419,6 +733,57 @@ public class ShiftControllerTests extends ControllerTestCase {
                 assertEquals(expectedJson, responseString);
         }
 
+        @WithMockUser(roles = { "ADMIN" })
+        @Test
+        public void admin_cannot_post_a_shift_on_an_invalid_day() throws Exception {
+
+                String postRequestString = "day=Funday&shiftStart=10:30AM&shiftEnd=12:30PM&driverID=1&driverBackupID=1";
+
+                // act
+                MvcResult response = mockMvc.perform(
+                                post("/api/shift/post?" + postRequestString)
+                                                .with(csrf()))
+                                .andExpect(status().isBadRequest()).andReturn();
+
+                // assert
+                verify(shiftRepository, times(0)).save(any());
+                Map<String, Object> json = responseToJson(response);
+                assertEquals("Invalid day: Funday", json.get("message"));
+        }
+
+        @WithMockUser(roles = { "ADMIN" })
+        @Test
+        public void admin_cannot_post_a_shift_overlapping_another_of_the_same_driver() throws Exception {
+                // arrange
+
+                Shift existing = Shift.builder()
+                                .id(3L)
+                                .driverID(2L)
+                                .day("Monday")
+                                .shiftStart("9:00AM")
+                                .shiftEnd("11:00AM")
+                                .driverBackupID(1)
+                                .build();
+                doThrow(new ScheduleConflictException(Shift.class, 3L, existing))
+                                .when(scheduleConflictService).saveShift(isNull(), eq("Monday"), eq("10:30AM"), eq("12:30PM"),
+                                                eq(2L), any());
+
+                String postRequestString = "day=Monday&shiftStart=10:30AM&shiftEnd=12:30PM&driverID=2&driverBackupID=1";
+
+                // act
+                MvcResult response = mockMvc.perform(
+                                post("/api/shift/post?" + postRequestString)
+                                                .with(csrf()))
+                                .andExpect(status().isConflict()).andReturn();
+
+                // assert
+                verify(shiftRepository, times(0)).save(any());
+                Map<String, Object> json = responseToJson(response);
+                assertEquals("ScheduleConflictException", json.get("type"));
+                assertEquals("Shift overlaps Shift with id 3", json.get("message"));
+                assertEquals(mapper.readValue(mapper.writeValueAsString(existing), Map.class), json.get("conflict"));
+        }
+
         @WithMockUser(roles = { "ADMIN" })
         @Test
         public void admin_can_delete_a_shift() throws Exception {
@@ -505,6 +870,8 @@ public class ShiftControllerTests extends ControllerTestCase {
                 // assert
                 verify(shiftRepository, times(1)).findById(7L);
                 verify(shiftRepository, times(1)).save(shiftEdited);
+                verify(scheduleConflictService, times(1)).saveShift(eq(7L), eq("Wednesday"), eq("5:00PM"), eq("9:00PM"),
+                                eq(userId + 1), any());
                 String responseString = response.getResponse().getContentAsString();
                 assertEquals(requestBody, responseString);
         }
@@ -541,4 +908,50 @@ public class ShiftControllerTests extends ControllerTestCase {
                 Map<String, Object> json = responseToJson(response);
                 assertEquals("Shift with id 10 not found", json.get("message"));
         }
-}
\ No newline at end of file
+
+        // Optimistic locking: ETag and If-Match
+
+        @WithMockUser(roles = { "DRIVER" })
+        @Test
+        public void the_version_of_a_shift_is_its_etag() throws Exception {
+                // arrange
+                Shift shift = Shift.builder().id(7L).driverID(1L).day("Monday").shiftStart("10:00AM")
+                        .shiftEnd("12:00PM").driverBackupID(2L).version(5L).build();
+                when(shiftRepository.findById(eq(7L))).thenReturn(Optional.of(shift));
+
+                // act
+                MvcResult response = mockMvc.perform(get("/api/shift?id=7"))
+                        .andExpect(status().isOk()).andReturn();
+
+                // assert
+                assertEquals("\"5\"", response.getResponse().getHeader("ETag"));
+        }
+
+        @WithMockUser(roles = { "ADMIN", "USER" })
+        @Test
+        public void admin_cannot_update_a_shift_that_changed_since_it_was_read() throws Exception {
+                // arrange
+                Shift shiftOrig = Shift.builder().id(7L).driverID(1L).day("Monday").shiftStart("10:00AM")
+                        .shiftEnd("12:00PM").driverBackupID(2L).version(5L).build();
+                Shift shiftEdited = Shift.builder().id(7L).driverID(1L).day("Tuesday").shiftStart("10:00AM")
+                        .shiftEnd("12:00PM").driverBackupID(2L).version(4L).build();
+                String requestBody = mapper.writeValueAsString(shiftEdited);
+
+                when(shiftRepository.findById(eq(7L))).thenReturn(Optional.of(shiftOrig));
+
+                // act
+                MvcResult response = mockMvc.perform(
+                        put("/api/shift?id=7")
+                                .header("If-Match", "\"4\"")
+                                .contentType(MediaType.APPLICATION_JSON)
+                                .characterEncoding("utf-8")
+                                .content(requestBody)
+                                .with(csrf()))
+                        .andExpect(status().isPreconditionFailed()).andReturn();
+
+                // assert
+                verify(shiftRepository, times(0)).save(any());
+                Map<String, Object> json = responseToJson(response);
+                assertEquals("Shift with id 7 has changed; its current version is 5", json.get("message"));
+        }
+}
@@ -26,6 +26,35 @@ public class SystemInfoControllerTests extends ControllerTestCase {
   @MockBean
   SystemInfoService mockSystemInfoService;
 
+  @Test
+  public void actuator__logged_out() throws Exception {
+    mockMvc.perform(get("/actuator/prometheus"))
+        .andExpect(status().is(403));
+    mockMvc.perform(get("/actuator/mappings"))
+        .andExpect(status().is(403));
+  }
+
+  @WithMockUser(roles = { "USER" })
+  @Test
+  public void actuator__user_logged_in() throws Exception {
+    mockMvc.perform(get("/actuator/prometheus"))
+        .andExpect(status().is(403));
+  }
+
+  @WithMockUser(roles = { "ADMIN", "USER" })
+  @Test
+  public void actuator__admin_logged_in() throws Exception {
+    // the actuator endpoints are not part of this test context; getting past security is enough
+    mockMvc.perform(get("/actuator/prometheus"))
+        .andExpect(status().is(404));
+  }
+
+  @Test
+  public void actuator_health__logged_out() throws Exception {
+    mockMvc.perform(get("/actuator/health"))
+        .andExpect(status().is(404));
+  }
+
   @Test
   public void systemInfo__logged_out() throws Exception {
     mockMvc.perform(get("/api/systemInfo"))
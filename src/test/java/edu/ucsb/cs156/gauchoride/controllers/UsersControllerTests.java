@@ -2,12 +2,15 @@ package edu.ucsb.cs156.gauchoride.controllers;
 
 import edu.ucsb.cs156.gauchoride.ControllerTestCase;
 import edu.ucsb.cs156.gauchoride.entities.User;
+import edu.ucsb.cs156.gauchoride.interceptors.RoleInterceptor;
+import edu.ucsb.cs156.gauchoride.models.UserSummary;
 import edu.ucsb.cs156.gauchoride.repositories.UserRepository;
 import edu.ucsb.cs156.gauchoride.testconfig.TestConfig;
 
 import org.junit.jupiter.api.Test;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.boot.test.mock.mockito.SpyBean;
 import org.springframework.context.annotation.Import;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.web.servlet.MvcResult;
@@ -35,6 +38,9 @@ public class UsersControllerTests extends ControllerTestCase {
   @MockBean
   UserRepository userRepository;
 
+  @SpyBean
+  RoleInterceptor roleInterceptor;
+
   @Test
   public void users__logged_out() throws Exception {
     mockMvc.perform(get("/api/admin/users"))
@@ -77,6 +83,44 @@ public class UsersControllerTests extends ControllerTestCase {
 
   }
 
+  @WithMockUser(roles = { "USER" })
+  @Test
+  public void users_streamed__user_logged_in() throws Exception {
+    mockMvc.perform(get("/api/admin/users?stream=true"))
+        .andExpect(status().is(403));
+  }
+
+  @WithMockUser(roles = { "ADMIN", "USER" })
+  @Test
+  public void users_streamed__admin_logged_in() throws Exception {
+
+    // arrange
+
+    User u1 = User.builder().id(1L).build();
+    User u2 = User.builder().id(2L).build();
+
+    ArrayList<User> expectedUsers = new ArrayList<>();
+    expectedUsers.addAll(Arrays.asList(u1, u2));
+
+    when(userRepository.findByIdGreaterThanOrderByIdAsc(eq(0L), any())).thenReturn(expectedUsers);
+    String expectedJson = mapper.writeValueAsString(expectedUsers);
+
+    // act
+
+    MvcResult started = mockMvc.perform(get("/api/admin/users?stream=true"))
+        .andExpect(request().asyncStarted()).andReturn();
+    started.getAsyncResult();
+    MvcResult response = mockMvc.perform(asyncDispatch(started))
+        .andExpect(status().isOk()).andReturn();
+
+    // assert
+
+    verify(userRepository, times(1)).findByIdGreaterThanOrderByIdAsc(eq(0L), any());
+    verify(userRepository, times(0)).findAll();
+    String responseString = response.getResponse().getContentAsString();
+    assertEquals(expectedJson, responseString);
+  }
+
   @WithMockUser(roles = { "ADMIN" })
   @Test
   public void api_users__admin_logged_in__returns_a_user_that_exists() throws Exception {
@@ -141,6 +185,7 @@ public class UsersControllerTests extends ControllerTestCase {
           // assert
           verify(userRepository, times(1)).findById(15L);
           verify(userRepository, times(1)).delete(any());
+          verify(roleInterceptor, times(1)).invalidate("cgaucho@ucsb.edu");
 
           Map<String, Object> json = responseToJson(response);
           assertEquals("User with id 15 deleted", json.get("message"));
@@ -194,6 +239,7 @@ public class UsersControllerTests extends ControllerTestCase {
           // assert
           verify(userRepository, times(1)).findById(15L);
           verify(userRepository, times(1)).save(userAfter);
+          verify(roleInterceptor, times(1)).invalidate("cgaucho@ucsb.edu");
 
           Map<String, Object> json = responseToJson(response);
           assertEquals("User with id 15 has toggled admin status to true", json.get("message"));
@@ -227,6 +273,7 @@ public class UsersControllerTests extends ControllerTestCase {
           // assert
           verify(userRepository, times(1)).findById(15L);
           verify(userRepository, times(1)).save(userAfter);
+          verify(roleInterceptor, times(1)).invalidate("cgaucho@ucsb.edu");
 
           Map<String, Object> json = responseToJson(response);
           assertEquals("User with id 15 has toggled admin status to false", json.get("message"));
@@ -283,6 +330,7 @@ public class UsersControllerTests extends ControllerTestCase {
           // assert
           verify(userRepository, times(1)).findById(15L);
           verify(userRepository, times(1)).save(userAfter);
+          verify(roleInterceptor, times(1)).invalidate("cgaucho@ucsb.edu");
 
           Map<String, Object> json = responseToJson(response);
           assertEquals("User with id 15 has toggled driver status to true", json.get("message"));
@@ -316,6 +364,7 @@ public class UsersControllerTests extends ControllerTestCase {
           // assert
           verify(userRepository, times(1)).findById(15L);
           verify(userRepository, times(1)).save(userAfter);
+          verify(roleInterceptor, times(1)).invalidate("cgaucho@ucsb.edu");
 
           Map<String, Object> json = responseToJson(response);
           assertEquals("User with id 15 has toggled driver status to false", json.get("message"));
@@ -432,4 +481,88 @@ public class UsersControllerTests extends ControllerTestCase {
           Map<String, Object> json = responseToJson(response);
           assertEquals("User with id 15 not found", json.get("message"));
   }
+
+  @WithMockUser(roles = { "ADMIN", "USER" })
+  @Test
+  public void admin_can_get_user_summaries() throws Exception {
+
+    // arrange
+    UserSummary u1 = UserSummary.builder().id(1L).email("cgaucho@ucsb.edu").givenName("Chris").familyName("Gaucho")
+        .admin(true).build();
+    UserSummary u2 = UserSummary.builder().id(2L).email("ldelplaya@ucsb.edu").givenName("Laurie").familyName("Del Playa")
+        .driver(true).build();
+    when(userRepository.findAllSummaries()).thenReturn(Arrays.asList(u1, u2));
+
+    // act
+    MvcResult response = mockMvc.perform(get("/api/admin/users?view=summary"))
+        .andExpect(status().isOk()).andReturn();
+
+    // assert
+    verify(userRepository, times(1)).findAllSummaries();
+    verify(userRepository, times(0)).findAll();
+    String expectedJson = mapper.writeValueAsString(Arrays.asList(u1, u2));
+    String responseString = response.getResponse().getContentAsString();
+    assertEquals(expectedJson, responseString);
+    assertEquals(false, responseString.contains("googleSub"));
+  }
+
+  @WithMockUser(roles = { "USER" })
+  @Test
+  public void users_cannot_get_user_summaries() throws Exception {
+    mockMvc.perform(get("/api/admin/users?view=summary"))
+        .andExpect(status().is(403));
+  }
+
+  @WithMockUser(roles = { "ADMIN" })
+  @Test
+  public void the_version_of_a_user_is_its_etag() throws Exception {
+    User user = User.builder().email("cgaucho@ucsb.edu").id(42L).version(6L).build();
+    when(userRepository.findById(eq(42L))).thenReturn(Optional.of(user));
+
+    // act
+    MvcResult response = mockMvc.perform(get("/api/admin/users/get?id=42"))
+        .andExpect(status().isOk()).andReturn();
+
+    // assert
+    assertEquals("\"6\"", response.getResponse().getHeader("ETag"));
+  }
+
+  @WithMockUser(roles = { "ADMIN", "USER" })
+  @Test
+  public void admin_toggle_with_the_current_version_returns_the_next_one() throws Exception {
+    User userBefore = User.builder().email("cgaucho@ucsb.edu").id(15L).driver(false).version(6L).build();
+    User userAfter = User.builder().email("cgaucho@ucsb.edu").id(15L).driver(true).version(7L).build();
+    when(userRepository.findById(eq(15L))).thenReturn(Optional.of(userBefore));
+    when(userRepository.save(any())).thenReturn(userAfter);
+
+    // act
+    MvcResult response = mockMvc.perform(
+        post("/api/admin/users/toggleDriver?id=15")
+            .header("If-Match", "\"6\"")
+            .with(csrf()))
+        .andExpect(status().isOk()).andReturn();
+
+    // assert
+    assertEquals("\"7\"", response.getResponse().getHeader("ETag"));
+  }
+
+  @WithMockUser(roles = { "ADMIN", "USER" })
+  @Test
+  public void admin_cannot_toggle_a_user_that_changed_since_it_was_read() throws Exception {
+    User user = User.builder().email("cgaucho@ucsb.edu").id(15L).admin(false).version(7L).build();
+    when(userRepository.findById(eq(15L))).thenReturn(Optional.of(user));
+
+    // act
+    MvcResult response = mockMvc.perform(
+        post("/api/admin/users/toggleAdmin?id=15")
+            .header("If-Match", "\"6\"")
+            .with(csrf()))
+        .andExpect(status().isPreconditionFailed()).andReturn();
+
+    // assert
+    verify(userRepository, times(0)).save(any());
+    verify(roleInterceptor, times(0)).invalidate(any());
+    Map<String, Object> json = responseToJson(response);
+    assertEquals("User with id 15 has changed; its current version is 7", json.get("message"));
+  }
 }
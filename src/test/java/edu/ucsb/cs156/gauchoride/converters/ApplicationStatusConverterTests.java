@@ -0,0 +1,42 @@
+package edu.ucsb.cs156.gauchoride.converters;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import org.junit.jupiter.api.Test;
+
+import edu.ucsb.cs156.gauchoride.entities.ApplicationStatus;
+
+public class ApplicationStatusConverterTests {
+
+  private final ApplicationStatusConverter converter = new ApplicationStatusConverter();
+
+  @Test
+  public void statuses_are_stored_as_codes() {
+    assertEquals((short) 0, converter.convertToDatabaseColumn("pending"));
+    assertEquals((short) 1, converter.convertToDatabaseColumn("accepted"));
+    assertEquals((short) 4, converter.convertToDatabaseColumn(" Cancelled "));
+    assertNull(converter.convertToDatabaseColumn(null));
+  }
+
+  @Test
+  public void codes_are_read_back_as_status_names() {
+    assertEquals("pending", converter.convertToEntityAttribute((short) 0));
+    assertEquals("declined", converter.convertToEntityAttribute((short) 2));
+    assertEquals("expired", converter.convertToEntityAttribute((short) 3));
+    assertNull(converter.convertToEntityAttribute(null));
+    assertThrows(IllegalArgumentException.class, () -> converter.convertToEntityAttribute((short) 99));
+  }
+
+  @Test
+  public void parse_rejects_invalid_statuses() {
+    assertEquals(ApplicationStatus.ACCEPTED, ApplicationStatusConverter.parse("ACCEPTED"));
+
+    IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+        () -> ApplicationStatusConverter.parse("approved"));
+    assertEquals("Invalid status: approved", e.getMessage());
+    assertThrows(IllegalArgumentException.class, () -> ApplicationStatusConverter.parse(null));
+    assertThrows(IllegalArgumentException.class, () -> converter.convertToDatabaseColumn("approved"));
+  }
+}
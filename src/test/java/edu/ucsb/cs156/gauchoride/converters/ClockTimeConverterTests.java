@@ -0,0 +1,54 @@
+package edu.ucsb.cs156.gauchoride.converters;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.time.LocalTime;
+
+import org.junit.jupiter.api.Test;
+
+public class ClockTimeConverterTests {
+
+  private final ClockTimeConverter converter = new ClockTimeConverter();
+
+  @Test
+  public void times_are_stored_as_minutes_since_midnight() {
+    assertEquals(0, converter.convertToDatabaseColumn("12:00AM"));
+    assertEquals(59, converter.convertToDatabaseColumn("12:59AM"));
+    assertEquals(660, converter.convertToDatabaseColumn("11:00AM"));
+    assertEquals(720, converter.convertToDatabaseColumn("12:00PM"));
+    assertEquals(817, converter.convertToDatabaseColumn("1:37PM"));
+    assertEquals(817, converter.convertToDatabaseColumn("01:37pm"));
+    assertEquals(1439, converter.convertToDatabaseColumn("11:59PM"));
+    assertNull(converter.convertToDatabaseColumn(null));
+  }
+
+  @Test
+  public void minutes_are_read_back_as_clock_times() {
+    assertEquals("12:00AM", converter.convertToEntityAttribute(0));
+    assertEquals("11:00AM", converter.convertToEntityAttribute(660));
+    assertEquals("12:00PM", converter.convertToEntityAttribute(720));
+    assertEquals("1:37PM", converter.convertToEntityAttribute(817));
+    assertEquals("11:59PM", converter.convertToEntityAttribute(1439));
+    assertNull(converter.convertToEntityAttribute(null));
+  }
+
+  @Test
+  public void parse_returns_local_time() {
+    assertEquals(LocalTime.of(13, 37), ClockTimeConverter.parse("1:37PM"));
+  }
+
+  @Test
+  public void invalid_times_are_rejected() {
+    IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+        () -> ClockTimeConverter.toMinuteOfDay("13:00PM"));
+    assertEquals("Invalid time: 13:00PM", e.getMessage());
+    assertThrows(IllegalArgumentException.class, () -> ClockTimeConverter.toMinuteOfDay("0:30AM"));
+    assertThrows(IllegalArgumentException.class, () -> ClockTimeConverter.toMinuteOfDay("10:60AM"));
+    assertThrows(IllegalArgumentException.class, () -> ClockTimeConverter.toMinuteOfDay("10:00"));
+    assertThrows(IllegalArgumentException.class, () -> ClockTimeConverter.toMinuteOfDay(null));
+    assertThrows(IllegalArgumentException.class, () -> ClockTimeConverter.format(-1));
+    assertThrows(IllegalArgumentException.class, () -> ClockTimeConverter.format(1440));
+  }
+}
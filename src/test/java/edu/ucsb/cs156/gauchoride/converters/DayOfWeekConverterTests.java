@@ -0,0 +1,41 @@
+package edu.ucsb.cs156.gauchoride.converters;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.time.DayOfWeek;
+
+import org.junit.jupiter.api.Test;
+
+public class DayOfWeekConverterTests {
+
+  private final DayOfWeekConverter converter = new DayOfWeekConverter();
+
+  @Test
+  public void days_are_stored_as_iso_day_numbers() {
+    assertEquals(1, converter.convertToDatabaseColumn("Monday"));
+    assertEquals(2, converter.convertToDatabaseColumn("Tuesday"));
+    assertEquals(7, converter.convertToDatabaseColumn("Sunday"));
+    assertEquals(4, converter.convertToDatabaseColumn(" thursday "));
+    assertNull(converter.convertToDatabaseColumn(null));
+  }
+
+  @Test
+  public void day_numbers_are_read_back_as_day_names() {
+    assertEquals("Monday", converter.convertToEntityAttribute(1));
+    assertEquals("Wednesday", converter.convertToEntityAttribute(3));
+    assertEquals("Sunday", converter.convertToEntityAttribute(7));
+    assertNull(converter.convertToEntityAttribute(null));
+  }
+
+  @Test
+  public void parse_rejects_invalid_days() {
+    assertEquals(DayOfWeek.FRIDAY, DayOfWeekConverter.parse("FRIDAY"));
+
+    IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+        () -> DayOfWeekConverter.parse("Funday"));
+    assertEquals("Invalid day: Funday", e.getMessage());
+    assertThrows(IllegalArgumentException.class, () -> DayOfWeekConverter.parse(null));
+  }
+}
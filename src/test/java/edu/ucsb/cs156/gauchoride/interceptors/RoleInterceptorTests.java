@@ -35,6 +35,7 @@ import static org.mockito.Mockito.times;
 
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
 
 @SpringBootTest
 @AutoConfigureMockMvc
@@ -46,8 +47,13 @@ public class RoleInterceptorTests extends ControllerTestCase {
         @Autowired
         private RequestMappingHandlerMapping mapping;
 
+        @Autowired
+        private RoleInterceptor roleInterceptor;
+
         @BeforeEach
         public void mockLogin() {
+                roleInterceptor.invalidateAll();
+
                 Map<String, Object> attributes = new HashMap<>();
                 attributes.put("sub", "sub");
                 attributes.put("name", "name");
@@ -206,4 +212,78 @@ public class RoleInterceptorTests extends ControllerTestCase {
                 assertTrue(role_driver, "ROLE_DRIVER should be in roles list");
                 assertTrue(role_member, "ROLE_MEMBER should be in roles list");
         }
-}
\ No newline at end of file
+
+        @Test
+        public void roles_are_cached_between_requests() throws Exception {
+                User user = User.builder()
+                                .email("cgaucho@ucsb.edu")
+                                .id(15L)
+                                .admin(false)
+                                .driver(true)
+                                .build();
+                when(userRepository.findByEmail("cgaucho@ucsb.edu")).thenReturn(Optional.of(user));
+
+                MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/currentUser");
+                MockHttpServletResponse response = new MockHttpServletResponse();
+
+                roleInterceptor.preHandle(request, response, null);
+                roleInterceptor.preHandle(request, response, null);
+
+                verify(userRepository, times(1)).findByEmail("cgaucho@ucsb.edu");
+                Collection<? extends GrantedAuthority> authorities = SecurityContextHolder.getContext()
+                                .getAuthentication().getAuthorities();
+                assertFalse(authorities.stream()
+                                .anyMatch(grantedAuth -> grantedAuth.getAuthority().equals("ROLE_ADMIN")));
+        }
+
+        @Test
+        public void invalidate_forces_roles_to_be_read_again() throws Exception {
+                User user = User.builder()
+                                .email("cgaucho@ucsb.edu")
+                                .id(15L)
+                                .admin(true)
+                                .driver(true)
+                                .build();
+                when(userRepository.findByEmail("cgaucho@ucsb.edu")).thenReturn(Optional.of(user));
+
+                MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/currentUser");
+                MockHttpServletResponse response = new MockHttpServletResponse();
+
+                roleInterceptor.preHandle(request, response, null);
+                roleInterceptor.invalidate("cgaucho@ucsb.edu");
+                roleInterceptor.preHandle(request, response, null);
+
+                verify(userRepository, times(2)).findByEmail("cgaucho@ucsb.edu");
+        }
+
+        @Test
+        public void authentication_is_not_replaced_when_roles_are_unchanged() throws Exception {
+                User user = User.builder()
+                                .email("cgaucho@ucsb.edu")
+                                .id(15L)
+                                .admin(true)
+                                .driver(true)
+                                .build();
+                when(userRepository.findByEmail("cgaucho@ucsb.edu")).thenReturn(Optional.of(user));
+                Authentication before = SecurityContextHolder.getContext().getAuthentication();
+
+                MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/currentUser");
+                roleInterceptor.preHandle(request, new MockHttpServletResponse(), null);
+
+                assertSame(before, SecurityContextHolder.getContext().getAuthentication());
+        }
+
+        @Test
+        public void RoleInterceptorIsNotAppliedToFrontendRoutes() throws Exception {
+
+                MockHttpServletRequest request = new MockHttpServletRequest("GET", "/ride");
+                HandlerExecutionChain chain = mapping.getHandler(request);
+
+                assert chain != null;
+                boolean present = chain.getInterceptorList()
+                                .stream()
+                                .anyMatch(RoleInterceptor.class::isInstance);
+
+                assertFalse(present);
+        }
+}
@@ -0,0 +1,71 @@
+package edu.ucsb.cs156.gauchoride.models;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+public class IntervalIndexTests {
+
+  private static IntervalIndex<int[]> index(int[]... intervals) {
+    return IntervalIndex.of(List.of(intervals), i -> i[0], i -> i[1]);
+  }
+
+  @Test
+  public void empty_index_finds_nothing() {
+    IntervalIndex<int[]> index = index();
+    assertEquals(0, index.size());
+    assertTrue(index.findContaining(10, 20).isEmpty());
+  }
+
+  @Test
+  public void finds_the_first_interval_containing_the_range() {
+    int[] morning = { 480, 720 };
+    int[] longDay = { 540, 1020 };
+    int[] afternoon = { 720, 1020 };
+    IntervalIndex<int[]> index = index(afternoon, longDay, morning);
+
+    assertEquals(3, index.size());
+    assertEquals(morning, index.findContaining(480, 600).get());
+    assertEquals(morning, index.findContaining(600, 720).get());
+    assertEquals(longDay, index.findContaining(700, 800).get());
+    assertEquals(longDay, index.findContaining(720, 800).get());
+    assertTrue(index.findContaining(470, 500).isEmpty());
+    assertTrue(index.findContaining(1000, 1030).isEmpty());
+  }
+
+  @Test
+  public void a_long_early_interval_is_found_behind_shorter_ones() {
+    int[] allDay = { 0, 1439 };
+    int[] shortOne = { 60, 90 };
+    int[] shortTwo = { 100, 130 };
+    IntervalIndex<int[]> index = index(shortTwo, allDay, shortOne);
+
+    assertEquals(allDay, index.findContaining(120, 500).get());
+  }
+
+  @Test
+  public void agrees_with_a_linear_scan() {
+    Random random = new Random(156);
+    List<int[]> intervals = new ArrayList<>();
+    for (int i = 0; i < 500; i++) {
+      int start = random.nextInt(1200);
+      intervals.add(new int[] { start, start + 1 + random.nextInt(240) });
+    }
+    IntervalIndex<int[]> index = IntervalIndex.of(intervals, i -> i[0], i -> i[1]);
+
+    for (int q = 0; q < 2000; q++) {
+      int start = random.nextInt(1400);
+      int end = start + random.nextInt(120);
+      boolean expected = intervals.stream().anyMatch(i -> i[0] <= start && i[1] >= end);
+      Optional<int[]> found = index.findContaining(start, end);
+      assertEquals(expected, found.isPresent());
+      found.ifPresent(i -> assertTrue(i[0] <= start && i[1] >= end));
+    }
+  }
+}
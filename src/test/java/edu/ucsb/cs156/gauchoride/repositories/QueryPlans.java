@@ -0,0 +1,48 @@
+package edu.ucsb.cs156.gauchoride.repositories;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+import javax.sql.DataSource;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+/**
+ * Records the SQL Hibernate sends, so that a test can ask the database how
+ * it runs the statement a repository method generates; install it with
+ * the property in {@link #INSPECTOR}.
+ */
+public class QueryPlans implements StatementInspector {
+
+  public static final String INSPECTOR =
+      "spring.jpa.properties.hibernate.session_factory.statement_inspector="
+          + "edu.ucsb.cs156.gauchoride.repositories.QueryPlans";
+
+  private static volatile String lastSql;
+
+  @Override
+  public String inspect(String sql) {
+    lastSql = sql;
+    return sql;
+  }
+
+  /**
+   * The plan of the statement a repository call runs, in lower case
+   *
+   * @param dataSource the database the repository uses
+   * @param query      calls the repository
+   */
+  public static String planOf(DataSource dataSource, Runnable query) throws SQLException {
+    lastSql = null;
+    query.run();
+    // H2 explains a statement with parameters without their values
+    try (Connection connection = dataSource.getConnection();
+        PreparedStatement explain = connection.prepareStatement("EXPLAIN " + lastSql);
+        ResultSet rs = explain.executeQuery()) {
+      rs.next();
+      return rs.getString(1).toLowerCase();
+    }
+  }
+}
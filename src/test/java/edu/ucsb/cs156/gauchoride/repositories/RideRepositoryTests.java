@@ -0,0 +1,72 @@
+package edu.ucsb.cs156.gauchoride.repositories;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+
+import javax.sql.DataSource;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.PageRequest;
+
+import edu.ucsb.cs156.gauchoride.entities.Ride;
+
+/**
+ * Runs RideRepository.findPageAfter against the migrated schema in H2, and
+ * checks that each filter reads a range of its (column, id) index.
+ */
+@DataJpaTest(properties = QueryPlans.INSPECTOR)
+class RideRepositoryTests {
+
+  @Autowired
+  RideRepository repository;
+
+  @Autowired
+  DataSource dataSource;
+
+  private Ride ride(long riderId, String day, String course) {
+    return repository.save(Ride.builder().riderId(riderId).day(day).startTime("2:00PM").endTime("3:15PM")
+        .course(course).build());
+  }
+
+  private String planOf(String day, Long riderId, String course) throws Exception {
+    return QueryPlans.planOf(dataSource,
+        () -> repository.findPageAfter(0L, day, riderId, course, PageRequest.of(0, 10)));
+  }
+
+  @Test
+  void each_filter_reads_its_index() throws Exception {
+    String byDay = planOf("Tuesday", null, null);
+    String byRider = planOf(null, 7L, null);
+    String byCourse = planOf(null, null, "CMPSC 156");
+
+    assertTrue(byDay.contains("ride_day_id_idx"), byDay);
+    assertTrue(byRider.contains("ride_rider_id_id_idx"), byRider);
+    assertTrue(byCourse.contains("ride_course_id_idx"), byCourse);
+    for (String plan : List.of(byDay, byRider, byCourse, planOf(null, null, null), planOf("Tuesday", 7L, "x"))) {
+      assertFalse(plan.contains("is null"), plan);
+      // the cursor and the filters are parameters, not literals
+      assertFalse(plan.contains("id > 0"), plan);
+    }
+  }
+
+  @Test
+  void pages_are_filtered_and_limited() {
+    Ride first = ride(7L, "Tuesday", "CMPSC 156");
+    ride(8L, "Tuesday", "CMPSC 156");
+    Ride third = ride(7L, "Tuesday", "CMPSC 156");
+    Ride monday = ride(7L, "Monday", "CMPSC 156");
+    ride(7L, "Tuesday", "MATH 3A");
+
+    assertEquals(List.of(first, third),
+        repository.findPageAfter(0L, "Tuesday", 7L, "CMPSC 156", PageRequest.of(0, 10)));
+    assertEquals(List.of(third),
+        repository.findPageAfter(first.getId(), "Tuesday", 7L, "CMPSC 156", PageRequest.of(0, 1)));
+    assertEquals(List.of(first, third, monday),
+        repository.findPageAfter(0L, null, 7L, "CMPSC 156", PageRequest.of(0, 10)));
+  }
+}
@@ -0,0 +1,89 @@
+package edu.ucsb.cs156.gauchoride.repositories;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.sql.Date;
+import java.util.List;
+
+import javax.sql.DataSource;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.PageRequest;
+
+import edu.ucsb.cs156.gauchoride.entities.RiderApplication;
+import edu.ucsb.cs156.gauchoride.models.RiderApplicationSummary;
+
+/**
+ * Runs the admin queue queries against the migrated schema in H2, and
+ * checks that each one reads a range of an index rather than filtering
+ * the whole table.
+ */
+@DataJpaTest(properties = QueryPlans.INSPECTOR)
+class RiderApplicationRepositoryTests {
+
+  private static final Date FROM = Date.valueOf("2024-01-01");
+  private static final Date TO = Date.valueOf("2024-12-31");
+
+  @Autowired
+  RiderApplicationRepository repository;
+
+  @Autowired
+  DataSource dataSource;
+
+  private RiderApplication application(String status, String created) {
+    return repository.save(RiderApplication.builder()
+        .userId(1L)
+        .email("cgaucho@ucsb.edu")
+        .status(status)
+        .created_date(Date.valueOf(created))
+        .updated_date(Date.valueOf(created))
+        .build());
+  }
+
+  @Test
+  void the_queue_of_one_status_reads_the_status_index() throws Exception {
+    String after = QueryPlans.planOf(dataSource,
+        () -> repository.findQueueAfterByStatus("pending", FROM, TO, FROM, 0L, PageRequest.of(0, 10)));
+    String before = QueryPlans.planOf(dataSource,
+        () -> repository.findQueueBeforeByStatus("pending", FROM, TO, TO, Long.MAX_VALUE, PageRequest.of(0, 10)));
+
+    for (String plan : List.of(after, before)) {
+      assertTrue(plan.contains("rider_application_status_code_created_idx"), plan);
+      assertFalse(plan.contains("is null"), plan);
+    }
+  }
+
+  @Test
+  void the_whole_queue_reads_the_created_date_index() throws Exception {
+    String after = QueryPlans.planOf(dataSource,
+        () -> repository.findQueueAfter(FROM, TO, FROM, 0L, PageRequest.of(0, 10)));
+    String before = QueryPlans.planOf(dataSource,
+        () -> repository.findQueueBefore(FROM, TO, TO, Long.MAX_VALUE, PageRequest.of(0, 10)));
+
+    for (String plan : List.of(after, before)) {
+      assertTrue(plan.contains("rider_application_created_idx"), plan);
+      assertFalse(plan.contains("is null"), plan);
+    }
+  }
+
+  @Test
+  void the_queue_is_filtered_and_ordered() {
+    RiderApplication first = application("pending", "2024-01-08");
+    RiderApplication accepted = application("accepted", "2024-01-09");
+    RiderApplication second = application("pending", "2024-01-09");
+    application("pending", "2023-12-31");
+
+    List<RiderApplicationSummary> pending = repository.findQueueAfterByStatus("pending", FROM, TO, FROM, 0L,
+        PageRequest.of(0, 10));
+    List<RiderApplicationSummary> all = repository.findQueueBefore(FROM, TO, TO, Long.MAX_VALUE,
+        PageRequest.of(0, 10));
+
+    assertEquals(List.of(first.getId(), second.getId()), pending.stream().map(RiderApplicationSummary::getId).toList());
+    assertEquals(List.of(second.getId(), accepted.getId(), first.getId()),
+        all.stream().map(RiderApplicationSummary::getId).toList());
+  }
+}
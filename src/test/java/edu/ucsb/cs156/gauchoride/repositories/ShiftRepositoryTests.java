@@ -0,0 +1,66 @@
+package edu.ucsb.cs156.gauchoride.repositories;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+
+import javax.sql.DataSource;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.PageRequest;
+
+import edu.ucsb.cs156.gauchoride.entities.Shift;
+
+/**
+ * Runs ShiftRepository.findPageAfter against the migrated schema in H2, and
+ * checks that each filter reads a range of its (column, id) index.
+ */
+@DataJpaTest(properties = QueryPlans.INSPECTOR)
+class ShiftRepositoryTests {
+
+  @Autowired
+  ShiftRepository repository;
+
+  @Autowired
+  DataSource dataSource;
+
+  private Shift shift(long driverID, String day) {
+    return repository.save(Shift.builder().driverID(driverID).day(day).shiftStart("8:00AM").shiftEnd("11:00AM")
+        .build());
+  }
+
+  private String planOf(String day, Long driverID) throws Exception {
+    return QueryPlans.planOf(dataSource,
+        () -> repository.findPageAfter(0L, day, driverID, PageRequest.of(0, 10)));
+  }
+
+  @Test
+  void each_filter_reads_its_index() throws Exception {
+    String byDay = planOf("Tuesday", null);
+    String byDriver = planOf(null, 7L);
+
+    assertTrue(byDay.contains("shift_day_id_idx"), byDay);
+    assertTrue(byDriver.contains("shift_driverid_id_idx"), byDriver);
+    for (String plan : List.of(byDay, byDriver, planOf(null, null), planOf("Tuesday", 7L))) {
+      assertFalse(plan.contains("is null"), plan);
+      // the cursor and the filters are parameters, not literals
+      assertFalse(plan.contains("id > 0"), plan);
+    }
+  }
+
+  @Test
+  void pages_are_filtered_and_limited() {
+    Shift first = shift(7L, "Tuesday");
+    shift(8L, "Tuesday");
+    Shift third = shift(7L, "Tuesday");
+    Shift monday = shift(7L, "Monday");
+
+    assertEquals(List.of(first, third), repository.findPageAfter(0L, "Tuesday", 7L, PageRequest.of(0, 10)));
+    assertEquals(List.of(third), repository.findPageAfter(first.getId(), "Tuesday", 7L, PageRequest.of(0, 1)));
+    assertEquals(List.of(first, third, monday), repository.findPageAfter(0L, null, 7L, PageRequest.of(0, 10)));
+  }
+}
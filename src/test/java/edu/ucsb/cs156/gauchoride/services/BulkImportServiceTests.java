@@ -0,0 +1,213 @@
+package edu.ucsb.cs156.gauchoride.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.event.ApplicationEvents;
+import org.springframework.test.context.event.RecordApplicationEvents;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import edu.ucsb.cs156.gauchoride.entities.Ride;
+import edu.ucsb.cs156.gauchoride.entities.Shift;
+import edu.ucsb.cs156.gauchoride.errors.ScheduleConflictException;
+import edu.ucsb.cs156.gauchoride.events.EntityChangedEvent;
+import edu.ucsb.cs156.gauchoride.models.ImportReport;
+
+@ExtendWith(SpringExtension.class)
+@ContextConfiguration(classes = BulkImportService.class)
+@TestPropertySource(properties = { "app.import.batchSize=2", "app.import.maxRows=5" })
+@RecordApplicationEvents
+class BulkImportServiceTests {
+
+  @MockBean
+  NamedParameterJdbcTemplate jdbcTemplate;
+
+  @MockBean
+  ScheduleConflictService scheduleConflictService;
+
+  @Autowired
+  BulkImportService bulkImportService;
+
+  @Autowired
+  ApplicationEvents events;
+
+  private static Shift shift(String day, String start, String end, long driverId) {
+    return Shift.builder().day(day).shiftStart(start).shiftEnd(end).driverID(driverId).driverBackupID(2L).build();
+  }
+
+  private static Ride ride(long riderId, String pickupLocation) {
+    return Ride.builder().riderId(riderId).student("CGaucho").day("Monday").startTime("2:00PM").endTime("3:15PM")
+        .pickupLocation(pickupLocation).dropoffLocation("South Hall").course("CMPSC 156").build();
+  }
+
+  @Test
+  void valid_shifts_are_inserted_in_batches_and_invalid_ones_reported() {
+    List<Shift> shifts = List.of(
+        shift("Monday", "8:00AM", "12:00PM", 1L),
+        shift("Funday", "8:00AM", "12:00PM", 1L),
+        shift("Tuesday", "8:00AM", "12:00PM", 1L),
+        shift("Wednesday", "3:00PM", "1:00PM", 1L),
+        shift("Friday", "1:00PM", "5:00PM", 1L));
+
+    ImportReport report = bulkImportService.importShifts(shifts);
+
+    assertEquals(3, report.getCreated());
+    assertEquals(2, report.getRejected());
+    assertEquals(5, report.getRows().size());
+    assertTrue(report.getRows().get(0).getCreated());
+    assertNull(report.getRows().get(0).getError());
+    assertEquals(2, report.getRows().get(1).getRow());
+    assertFalse(report.getRows().get(1).getCreated());
+    assertEquals("Invalid day: Funday", report.getRows().get(1).getError());
+    assertEquals("End time 1:00PM is not after start time 3:00PM", report.getRows().get(3).getError());
+
+    // batches of 2: the first two valid rows, then the last one
+    ArgumentCaptor<SqlParameterSource[]> batches = ArgumentCaptor.forClass(SqlParameterSource[].class);
+    verify(jdbcTemplate, times(2)).batchUpdate(anyString(), batches.capture());
+    assertEquals(2, batches.getAllValues().get(0).length);
+    assertEquals(1, batches.getAllValues().get(1).length);
+    SqlParameterSource first = batches.getAllValues().get(0)[0];
+    assertEquals(1, first.getValue("day"));
+    assertEquals(480, first.getValue("start"));
+    assertEquals(720, first.getValue("end"));
+    assertEquals(5, batches.getAllValues().get(1)[0].getValue("day"));
+
+    assertEquals(1, events.stream(EntityChangedEvent.class)
+        .filter(e -> e.isAbout(Shift.class) && e.getChangeType() == EntityChangedEvent.ChangeType.RELOADED)
+        .count());
+  }
+
+  @Test
+  void rides_need_a_rider_and_locations() {
+    Ride valid = ride(7L, "Phelps Hall");
+    Ride noRider = ride(0L, "Phelps Hall");
+    Ride noPickup = ride(7L, " ");
+
+    ImportReport report = bulkImportService.importRides(List.of(valid, noRider, noPickup));
+
+    assertEquals(1, report.getCreated());
+    assertEquals("riderId is required", report.getRows().get(1).getError());
+    assertEquals("pickupLocation is required", report.getRows().get(2).getError());
+    verify(jdbcTemplate, times(1)).batchUpdate(eq(BulkImportService.INSERT_RIDE), any(SqlParameterSource[].class));
+  }
+
+  @Test
+  void overlapping_shifts_are_reported_and_not_inserted() {
+    Shift stored = shift("Monday", "9:00AM", "10:00AM", 1L);
+    doThrow(new ScheduleConflictException(Shift.class, 3L, stored))
+        .when(scheduleConflictService).checkShift(null, "Monday", "8:00AM", "12:00PM", 1L);
+    List<Shift> shifts = List.of(
+        shift("Monday", "8:00AM", "12:00PM", 1L),
+        shift("Tuesday", "8:00AM", "12:00PM", 1L));
+
+    ImportReport report = bulkImportService.importShifts(shifts);
+
+    assertEquals(1, report.getCreated());
+    assertEquals("Shift overlaps Shift with id 3", report.getRows().get(0).getError());
+    verify(scheduleConflictService).checkShift(null, "Tuesday", "8:00AM", "12:00PM", 1L);
+    ArgumentCaptor<SqlParameterSource[]> batches = ArgumentCaptor.forClass(SqlParameterSource[].class);
+    verify(jdbcTemplate, times(1)).batchUpdate(anyString(), batches.capture());
+    assertEquals(1, batches.getValue().length);
+    assertEquals(2, batches.getValue()[0].getValue("day"));
+  }
+
+  @Test
+  void shifts_overlapping_a_row_not_yet_inserted_are_reported() {
+    List<Shift> shifts = List.of(
+        shift("Monday", "8:00AM", "12:00PM", 1L),
+        shift("Monday", "11:00AM", "1:00PM", 1L),
+        shift("Monday", "11:00AM", "1:00PM", 2L),
+        shift("Monday", "12:00PM", "1:00PM", 1L));
+
+    ImportReport report = bulkImportService.importShifts(shifts);
+
+    assertEquals(3, report.getCreated());
+    assertEquals("Shift overlaps row 1", report.getRows().get(1).getError());
+    // the first batch has been inserted, so the database check sees row 1
+    verify(scheduleConflictService).checkShift(null, "Monday", "12:00PM", "1:00PM", 1L);
+  }
+
+  @Test
+  void invalid_rows_are_not_checked_for_overlaps() {
+    bulkImportService.importRides(List.of(ride(0L, "Phelps Hall"), ride(7L, "Phelps Hall")));
+
+    verify(scheduleConflictService, times(1)).checkRide(any(), anyString(), anyString(), anyString(), anyLong());
+    verify(scheduleConflictService).checkRide(null, "Monday", "2:00PM", "3:15PM", 7L);
+  }
+
+  @Test
+  void nothing_valid_means_nothing_inserted() {
+    ImportReport report = bulkImportService.importShifts(List.of(shift("Monday", "8:00AM", "12:00PM", 0L)));
+
+    assertEquals(0, report.getCreated());
+    assertEquals("driverID is required", report.getRows().get(0).getError());
+    verify(jdbcTemplate, times(0)).batchUpdate(anyString(), any(SqlParameterSource[].class));
+    assertEquals(0, events.stream(EntityChangedEvent.class).count());
+  }
+
+  @Test
+  void too_many_rows_are_rejected() {
+    List<Shift> shifts = Collections.nCopies(6, shift("Monday", "8:00AM", "12:00PM", 1L));
+
+    IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+        () -> bulkImportService.importShifts(shifts));
+    assertEquals("Too many rows: at most 5 can be imported at once", e.getMessage());
+  }
+
+  @Test
+  void csv_rows_are_read_by_header() {
+    String csv = "day,shiftStart,shiftEnd,driverID,driverBackupID\n"
+        + "Monday,8:00AM,12:00PM,1,2\n"
+        + "Tuesday,1:00PM,5:00PM,3,4\n";
+
+    List<Shift> shifts = bulkImportService.parseCsv(csv, Shift.class);
+
+    assertEquals(2, shifts.size());
+    assertEquals("Monday", shifts.get(0).getDay());
+    assertEquals("12:00PM", shifts.get(0).getShiftEnd());
+    assertEquals(3L, shifts.get(1).getDriverID());
+    assertEquals(4L, shifts.get(1).getDriverBackupID());
+  }
+
+  @Test
+  void unreadable_csv_is_rejected() {
+    String csv = "day,shiftStart,shiftEnd,driverID\n"
+        + "Monday,8:00AM,12:00PM,1\n"
+        + "Tuesday,1:00PM,5:00PM,three\n";
+
+    IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+        () -> bulkImportService.parseCsv(csv, Shift.class));
+    assertTrue(e.getMessage().startsWith("Invalid CSV at row 2"));
+  }
+
+  @Test
+  void csv_with_too_many_rows_is_rejected() {
+    String csv = "day,shiftStart,shiftEnd,driverID\n" + "Monday,8:00AM,12:00PM,1\n".repeat(6);
+
+    IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+        () -> bulkImportService.parseCsv(csv, Shift.class));
+    assertEquals("Too many rows: at most 5 can be imported at once", e.getMessage());
+  }
+}
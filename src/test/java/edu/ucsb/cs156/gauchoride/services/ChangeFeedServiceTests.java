@@ -0,0 +1,167 @@
+package edu.ucsb.cs156.gauchoride.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import edu.ucsb.cs156.gauchoride.entities.Ride;
+import edu.ucsb.cs156.gauchoride.entities.Shift;
+import edu.ucsb.cs156.gauchoride.events.EntityChangedEvent;
+import edu.ucsb.cs156.gauchoride.events.EntityChangedEvent.ChangeType;
+import edu.ucsb.cs156.gauchoride.models.ChangeDelta;
+
+class ChangeFeedServiceTests {
+
+  /** keeps the deltas sent to it instead of writing them to a response */
+  static class RecordingEmitter extends SseEmitter {
+    final List<ChangeDelta> deltas = new ArrayList<>();
+    int comments = 0;
+    boolean broken = false;
+    boolean completed = false;
+
+    @Override
+    public void complete() {
+      completed = true;
+      super.complete();
+    }
+
+    @Override
+    public void send(SseEventBuilder builder) throws IOException {
+      if (broken) {
+        throw new IOException("Broken pipe");
+      }
+      builder.build().stream()
+          .map(part -> part.getData())
+          .filter(Objects::nonNull)
+          .forEach(data -> {
+            if (data instanceof ChangeDelta delta) {
+              deltas.add(delta);
+            } else if (data.toString().startsWith(":heartbeat")) {
+              comments++;
+            }
+          });
+    }
+  }
+
+  private ChangeFeedService changeFeedService;
+
+  @BeforeEach
+  void setup() {
+    changeFeedService = new ChangeFeedService();
+    changeFeedService.executor = Runnable::run;
+    changeFeedService.queueSize = 100;
+  }
+
+  private final Ride ride1 = Ride.builder().id(5L).riderId(1L).day("Monday").startTime("2:00PM").endTime("3:15PM").build();
+  private final Ride ride2 = Ride.builder().id(6L).riderId(2L).day("Monday").startTime("2:00PM").endTime("3:15PM").build();
+  private final Shift shift = Shift.builder().id(7L).day("Monday").shiftStart("8:00AM").shiftEnd("12:00PM").build();
+
+  @Test
+  void riders_only_see_their_own_rides() {
+    RecordingEmitter rider = new RecordingEmitter();
+    RecordingEmitter driver = new RecordingEmitter();
+    changeFeedService.subscribe(rider, new ChangeFeedService.Filter(true, true, false, 1L));
+    changeFeedService.subscribe(driver, new ChangeFeedService.Filter(true, true, true, 3L));
+    assertEquals(2, changeFeedService.subscriberCount());
+
+    changeFeedService.onEntityChanged(new EntityChangedEvent(Ride.class, ride1, ChangeType.CREATED));
+    changeFeedService.onEntityChanged(new EntityChangedEvent(Ride.class, ride2, ChangeType.UPDATED));
+    changeFeedService.onEntityChanged(new EntityChangedEvent(Shift.class, shift, ChangeType.DELETED));
+
+    assertEquals(2, rider.deltas.size());
+    assertEquals("ride", rider.deltas.get(0).getEntity());
+    assertEquals(ChangeType.CREATED, rider.deltas.get(0).getChange());
+    assertEquals(5L, rider.deltas.get(0).getId());
+    assertSame(ride1, rider.deltas.get(0).getData());
+    assertEquals("shift", rider.deltas.get(1).getEntity());
+    assertEquals(ChangeType.DELETED, rider.deltas.get(1).getChange());
+
+    assertEquals(3, driver.deltas.size());
+    assertEquals(6L, driver.deltas.get(1).getId());
+  }
+
+  @Test
+  void subscribers_can_leave_out_rides_or_shifts() {
+    RecordingEmitter shiftsOnly = new RecordingEmitter();
+    RecordingEmitter ridesOnly = new RecordingEmitter();
+    changeFeedService.subscribe(shiftsOnly, new ChangeFeedService.Filter(false, true, true, 3L));
+    changeFeedService.subscribe(ridesOnly, new ChangeFeedService.Filter(true, false, true, 3L));
+
+    changeFeedService.onEntityChanged(new EntityChangedEvent(Ride.class, ride1, ChangeType.CREATED));
+    changeFeedService.onEntityChanged(new EntityChangedEvent(Shift.class, shift, ChangeType.UPDATED));
+
+    assertEquals(1, shiftsOnly.deltas.size());
+    assertEquals("shift", shiftsOnly.deltas.get(0).getEntity());
+    assertEquals(1, ridesOnly.deltas.size());
+    assertEquals("ride", ridesOnly.deltas.get(0).getEntity());
+  }
+
+  @Test
+  void reloads_go_to_everyone_without_data() {
+    RecordingEmitter rider = new RecordingEmitter();
+    changeFeedService.subscribe(rider, new ChangeFeedService.Filter(true, true, false, 1L));
+
+    changeFeedService.onEntityChanged(EntityChangedEvent.reloaded(Ride.class));
+    changeFeedService.onEntityChanged(new EntityChangedEvent(String.class, "not ours", ChangeType.CREATED));
+
+    assertEquals(1, rider.deltas.size());
+    assertEquals(ChangeType.RELOADED, rider.deltas.get(0).getChange());
+    assertNull(rider.deltas.get(0).getId());
+    assertNull(rider.deltas.get(0).getData());
+  }
+
+  @Test
+  void broken_connections_are_dropped() {
+    RecordingEmitter gone = new RecordingEmitter();
+    RecordingEmitter alive = new RecordingEmitter();
+    changeFeedService.subscribe(gone, new ChangeFeedService.Filter(true, true, true, 3L));
+    changeFeedService.subscribe(alive, new ChangeFeedService.Filter(true, true, true, 4L));
+    gone.broken = true;
+
+    changeFeedService.heartbeat();
+
+    assertEquals(1, changeFeedService.subscriberCount());
+    assertEquals(1, alive.comments);
+    changeFeedService.onEntityChanged(new EntityChangedEvent(Shift.class, shift, ChangeType.CREATED));
+    assertEquals(1, alive.deltas.size());
+  }
+
+  @Test
+  void subscribers_that_fall_behind_are_dropped() {
+    // the send tasks run only when the test says so
+    List<Runnable> tasks = new ArrayList<>();
+    changeFeedService.executor = tasks::add;
+    changeFeedService.queueSize = 2;
+    RecordingEmitter slow = new RecordingEmitter();
+    RecordingEmitter fast = new RecordingEmitter();
+    changeFeedService.subscribe(slow, new ChangeFeedService.Filter(true, true, true, 3L));
+    changeFeedService.subscribe(fast, new ChangeFeedService.Filter(true, true, true, 4L));
+
+    for (int i = 0; i < 3; i++) {
+      changeFeedService.onEntityChanged(new EntityChangedEvent(Shift.class, shift, ChangeType.UPDATED));
+      // only the fast subscriber's send task runs
+      tasks.get(tasks.size() - 1).run();
+    }
+
+    assertEquals(3, fast.deltas.size());
+    assertEquals(1, changeFeedService.subscriberCount());
+    assertFalse(slow.completed);
+
+    // the slow subscriber's task, still waiting to run, closes its stream
+    tasks.get(0).run();
+    assertTrue(slow.completed);
+    assertEquals(0, slow.deltas.size());
+    assertFalse(fast.completed);
+  }
+}
@@ -0,0 +1,82 @@
+package edu.ucsb.cs156.gauchoride.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import edu.ucsb.cs156.gauchoride.entities.User;
+import edu.ucsb.cs156.gauchoride.models.CurrentUser;
+
+class CurrentUserRequestCacheTests {
+
+  @AfterEach
+  void resetRequestContext() {
+    RequestContextHolder.resetRequestAttributes();
+  }
+
+  private void startRequest() {
+    RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(new MockHttpServletRequest()));
+  }
+
+  @Test
+  void nothing_is_cached_outside_of_a_request() {
+    RequestContextHolder.resetRequestAttributes();
+
+    CurrentUserRequestCache.setUser(User.builder().id(1L).build());
+    CurrentUserRequestCache.setCurrentUser(CurrentUser.builder().build());
+
+    assertFalse(CurrentUserRequestCache.getUser().isPresent());
+    assertFalse(CurrentUserRequestCache.getCurrentUser().isPresent());
+  }
+
+  @Test
+  void user_and_current_user_are_cached_for_the_request() {
+    startRequest();
+    User user = User.builder().id(7L).email("cgaucho@ucsb.edu").build();
+    CurrentUser currentUser = CurrentUser.builder()
+        .user(user)
+        .roles(List.of(new SimpleGrantedAuthority("ROLE_USER")))
+        .build();
+
+    CurrentUserRequestCache.setUser(user);
+    CurrentUserRequestCache.setCurrentUser(currentUser);
+
+    assertSame(user, CurrentUserRequestCache.getUser().get());
+    assertSame(currentUser, CurrentUserRequestCache.getCurrentUser().get());
+  }
+
+  @Test
+  void setting_a_new_user_discards_the_current_user() {
+    startRequest();
+    CurrentUserRequestCache.setCurrentUser(CurrentUser.builder().build());
+
+    User user = User.builder().id(8L).build();
+    CurrentUserRequestCache.setUser(user);
+
+    assertEquals(8L, CurrentUserRequestCache.getUser().get().getId());
+    assertFalse(CurrentUserRequestCache.getCurrentUser().isPresent());
+  }
+
+  @Test
+  void clear_removes_everything() {
+    startRequest();
+    CurrentUserRequestCache.setUser(User.builder().id(9L).build());
+    CurrentUserRequestCache.setCurrentUser(CurrentUser.builder().build());
+    assertTrue(CurrentUserRequestCache.getUser().isPresent());
+
+    CurrentUserRequestCache.clear();
+
+    assertFalse(CurrentUserRequestCache.getUser().isPresent());
+    assertFalse(CurrentUserRequestCache.getCurrentUser().isPresent());
+  }
+}
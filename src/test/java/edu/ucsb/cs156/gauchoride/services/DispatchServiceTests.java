@@ -0,0 +1,195 @@
+package edu.ucsb.cs156.gauchoride.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import edu.ucsb.cs156.gauchoride.entities.Ride;
+import edu.ucsb.cs156.gauchoride.entities.Shift;
+import edu.ucsb.cs156.gauchoride.events.EntityChangedEvent;
+import edu.ucsb.cs156.gauchoride.events.EntityChangedEvent.ChangeType;
+import edu.ucsb.cs156.gauchoride.models.RideAssignment;
+import edu.ucsb.cs156.gauchoride.repositories.RideRepository;
+import edu.ucsb.cs156.gauchoride.repositories.ShiftRepository;
+
+@ExtendWith(SpringExtension.class)
+@ContextConfiguration(classes = DispatchService.class)
+class DispatchServiceTests {
+
+  @MockBean
+  ShiftRepository shiftRepository;
+
+  @MockBean
+  RideRepository rideRepository;
+
+  @Autowired
+  DispatchService dispatchService;
+
+  private final Shift morning = Shift.builder().id(1L).day("Monday").shiftStart("8:00AM").shiftEnd("12:00PM")
+      .driverID(10L).driverBackupID(11L).build();
+  private final Shift afternoon = Shift.builder().id(2L).day("Monday").shiftStart("12:00PM").shiftEnd("5:00PM")
+      .driverID(20L).driverBackupID(21L).build();
+  private final Shift tuesday = Shift.builder().id(3L).day("Tuesday").shiftStart("8:00AM").shiftEnd("5:00PM")
+      .driverID(30L).driverBackupID(31L).build();
+
+  private final Ride early = Ride.builder().id(100L).day("Monday").startTime("9:30AM").endTime("10:45AM").build();
+  private final Ride late = Ride.builder().id(101L).day("Monday").startTime("2:00PM").endTime("3:15PM").build();
+  private final Ride evening = Ride.builder().id(102L).day("Monday").startTime("7:00PM").endTime("8:00PM").build();
+
+  @BeforeEach
+  void forgetEverything() {
+    // the service is a singleton shared by all tests in this class
+    dispatchService.onEntityChanged(EntityChangedEvent.reloaded(Shift.class));
+  }
+
+  @Test
+  void rides_are_assigned_to_the_shift_that_covers_them() {
+    when(shiftRepository.findAll()).thenReturn(List.of(morning, afternoon, tuesday));
+    when(rideRepository.findByDayOrderByStartTimeAscIdAsc("Monday")).thenReturn(List.of(early, late, evening));
+
+    List<RideAssignment> assignments = dispatchService.getAssignments("monday");
+
+    assertEquals(3, assignments.size());
+    assertEquals(1L, assignments.get(0).getShiftId());
+    assertEquals(10L, assignments.get(0).getDriverId());
+    assertEquals(11L, assignments.get(0).getDriverBackupId());
+    assertEquals(2L, assignments.get(1).getShiftId());
+    assertEquals(20L, assignments.get(1).getDriverId());
+    assertEquals(102L, assignments.get(2).getRideId());
+    assertNull(assignments.get(2).getShiftId());
+    assertNull(assignments.get(2).getDriverId());
+  }
+
+  @Test
+  void assignments_are_cached_until_something_changes() {
+    when(shiftRepository.findAll()).thenReturn(List.of(morning, afternoon));
+    when(rideRepository.findByDayOrderByStartTimeAscIdAsc("Monday")).thenReturn(List.of(early));
+
+    List<RideAssignment> first = dispatchService.getAssignments("Monday");
+    assertSame(first, dispatchService.getAssignments("Monday"));
+    verify(rideRepository, times(1)).findByDayOrderByStartTimeAscIdAsc("Monday");
+
+    dispatchService.onEntityChanged(new EntityChangedEvent(Ride.class, late, ChangeType.CREATED));
+    dispatchService.getAssignments("Monday");
+    verify(rideRepository, times(2)).findByDayOrderByStartTimeAscIdAsc("Monday");
+    verify(shiftRepository, times(1)).findAll();
+  }
+
+  @Test
+  void shift_changes_update_the_index_without_reloading() {
+    when(shiftRepository.findAll()).thenReturn(List.of(morning));
+    when(rideRepository.findByDayOrderByStartTimeAscIdAsc("Monday")).thenReturn(List.of(evening));
+    assertNull(dispatchService.getAssignments("Monday").get(0).getShiftId());
+
+    Shift night = Shift.builder().id(4L).day("Monday").shiftStart("6:00PM").shiftEnd("11:00PM")
+        .driverID(40L).driverBackupID(41L).build();
+    dispatchService.onEntityChanged(new EntityChangedEvent(Shift.class, night, ChangeType.CREATED));
+    assertEquals(4L, dispatchService.getAssignments("Monday").get(0).getShiftId());
+
+    // the shift moves to another day
+    Shift movedNight = Shift.builder().id(4L).day("Friday").shiftStart("6:00PM").shiftEnd("11:00PM")
+        .driverID(40L).driverBackupID(41L).build();
+    dispatchService.onEntityChanged(new EntityChangedEvent(Shift.class, movedNight, ChangeType.UPDATED));
+    assertNull(dispatchService.getAssignments("Monday").get(0).getShiftId());
+
+    Ride fridayRide = Ride.builder().id(103L).day("Friday").startTime("7:00PM").endTime("8:00PM").build();
+    assertEquals(4L, dispatchService.assign(fridayRide).getShiftId());
+
+    dispatchService.onEntityChanged(new EntityChangedEvent(Shift.class, movedNight, ChangeType.DELETED));
+    assertNull(dispatchService.assign(fridayRide).getShiftId());
+
+    verify(shiftRepository, times(1)).findAll();
+  }
+
+  @Test
+  void reloaded_shifts_are_read_again() {
+    when(shiftRepository.findAll()).thenReturn(List.of(morning));
+    assertEquals(1L, dispatchService.assign(early).getShiftId());
+
+    when(shiftRepository.findAll()).thenReturn(List.of());
+    dispatchService.onEntityChanged(EntityChangedEvent.reloaded(Shift.class));
+    assertNull(dispatchService.assign(early).getShiftId());
+    verify(shiftRepository, times(2)).findAll();
+  }
+
+  @Test
+  void a_slow_read_does_not_hold_up_other_days() throws Exception {
+    when(shiftRepository.findAll()).thenReturn(List.of(morning, tuesday));
+    dispatchService.assign(early); // load the shifts first
+    Ride tuesdayRide = Ride.builder().id(104L).day("Tuesday").startTime("9:30AM").endTime("10:45AM").build();
+    CountDownLatch reading = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+    when(rideRepository.findByDayOrderByStartTimeAscIdAsc("Monday")).thenAnswer(invocation -> {
+      reading.countDown();
+      release.await(5, TimeUnit.SECONDS);
+      return List.of(early);
+    });
+    when(rideRepository.findByDayOrderByStartTimeAscIdAsc("Tuesday")).thenReturn(List.of(tuesdayRide));
+
+    CompletableFuture<List<RideAssignment>> monday =
+        CompletableFuture.supplyAsync(() -> dispatchService.getAssignments("Monday"));
+    reading.await(5, TimeUnit.SECONDS);
+
+    assertTimeoutPreemptively(Duration.ofSeconds(2), () -> {
+      assertEquals(3L, dispatchService.getAssignments("Tuesday").get(0).getShiftId());
+      dispatchService.onEntityChanged(new EntityChangedEvent(Ride.class, tuesdayRide, ChangeType.UPDATED));
+    });
+    release.countDown();
+    assertEquals(1L, monday.get(5, TimeUnit.SECONDS).get(0).getShiftId());
+  }
+
+  @Test
+  void assignments_read_while_a_ride_changed_are_not_kept() {
+    when(shiftRepository.findAll()).thenReturn(List.of(morning, afternoon));
+    when(rideRepository.findByDayOrderByStartTimeAscIdAsc("Monday"))
+        .thenAnswer(invocation -> {
+          // the ride is saved after the read, and its event arrives before the read returns
+          dispatchService.onEntityChanged(new EntityChangedEvent(Ride.class, late, ChangeType.CREATED));
+          return List.of(early);
+        })
+        .thenReturn(List.of(early, late));
+
+    assertEquals(1, dispatchService.getAssignments("Monday").size());
+    assertEquals(2, dispatchService.getAssignments("Monday").size());
+    assertEquals(2, dispatchService.getAssignments("Monday").size());
+    verify(rideRepository, times(2)).findByDayOrderByStartTimeAscIdAsc("Monday");
+  }
+
+  @Test
+  void shifts_read_while_a_shift_changed_are_not_kept() {
+    when(shiftRepository.findAll())
+        .thenAnswer(invocation -> {
+          dispatchService.onEntityChanged(new EntityChangedEvent(Shift.class, afternoon, ChangeType.CREATED));
+          return List.of(morning);
+        })
+        .thenReturn(List.of(morning, afternoon));
+
+    assertNull(dispatchService.assign(late).getShiftId());
+    assertEquals(2L, dispatchService.assign(late).getShiftId());
+    verify(shiftRepository, times(2)).findAll();
+  }
+
+  @Test
+  void invalid_day_is_rejected() {
+    assertThrows(IllegalArgumentException.class, () -> dispatchService.getAssignments("Funday"));
+  }
+}
@@ -0,0 +1,167 @@
+package edu.ucsb.cs156.gauchoride.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import edu.ucsb.cs156.gauchoride.entities.Ride;
+import edu.ucsb.cs156.gauchoride.entities.Shift;
+import edu.ucsb.cs156.gauchoride.events.EntityChangedEvent;
+import edu.ucsb.cs156.gauchoride.events.EntityChangedEvent.ChangeType;
+import edu.ucsb.cs156.gauchoride.models.DriverManifest;
+import edu.ucsb.cs156.gauchoride.models.ManifestStop;
+import edu.ucsb.cs156.gauchoride.models.RideAssignment;
+import edu.ucsb.cs156.gauchoride.repositories.RideRepository;
+
+@ExtendWith(SpringExtension.class)
+@ContextConfiguration(classes = DriverManifestService.class)
+class DriverManifestServiceTests {
+
+  @MockBean
+  DispatchService dispatchService;
+
+  @MockBean
+  RideRepository rideRepository;
+
+  @Autowired
+  DriverManifestService driverManifestService;
+
+  private final Ride library = ride(1L, "8:00AM", "Library");
+  private final Ride phelps = ride(2L, "9:30AM", "Phelps Hall");
+  private final Ride phelpsAgain = ride(3L, "9:30AM", " phelps  hall");
+  private final Ride girvetz = ride(4L, "10:00AM", "Girvetz Hall");
+  private final Ride phelpsLater = ride(5L, "11:00AM", "Phelps Hall");
+
+  private static Ride ride(long id, String startTime, String pickupLocation) {
+    return Ride.builder().id(id).riderId(100L + id).day("Monday").startTime(startTime).endTime("11:45AM")
+        .pickupLocation(pickupLocation).dropoffLocation("Broida Hall").build();
+  }
+
+  private static RideAssignment assignment(Ride ride, Long driverId) {
+    return RideAssignment.builder().rideId(ride.getId()).day(ride.getDay())
+        .startTime(ride.getStartTime()).endTime(ride.getEndTime()).driverId(driverId).build();
+  }
+
+  private static List<List<Long>> rideIdsByStop(DriverManifest manifest) {
+    return manifest.getStops().stream()
+        .map(stop -> stop.getRides().stream().map(r -> r.getId()).collect(Collectors.toList()))
+        .collect(Collectors.toList());
+  }
+
+  @BeforeEach
+  void forgetEverything() {
+    // the service is a singleton shared by all tests in this class
+    driverManifestService.onEntityChanged(EntityChangedEvent.reloaded(Shift.class));
+  }
+
+  @Test
+  void rides_are_sorted_by_start_time_and_grouped_into_stops() {
+    when(dispatchService.getAssignments("Monday")).thenReturn(List.of(
+        assignment(library, 10L), assignment(phelps, 10L), assignment(phelpsAgain, 10L),
+        assignment(girvetz, 20L), assignment(phelpsLater, 10L)));
+    // in no particular order
+    when(rideRepository.findAllById(any())).thenReturn(List.of(phelpsLater, phelpsAgain, library, phelps));
+
+    DriverManifest manifest = driverManifestService.getManifest(10L, "monday");
+
+    assertEquals(10L, manifest.getDriverId());
+    assertEquals("Monday", manifest.getDay());
+    assertEquals(4, manifest.getRideCount());
+    assertEquals(List.of(List.of(1L), List.of(2L, 3L, 5L)), rideIdsByStop(manifest));
+    ManifestStop phelpsStop = manifest.getStops().get(1);
+    assertEquals("Phelps Hall", phelpsStop.getPickupLocation());
+    assertEquals("9:30AM", phelpsStop.getStartTime());
+  }
+
+  @Test
+  void a_different_location_in_between_starts_a_new_stop() {
+    when(dispatchService.getAssignments("Monday")).thenReturn(List.of(
+        assignment(phelps, 10L), assignment(girvetz, 10L), assignment(phelpsLater, 10L)));
+    when(rideRepository.findAllById(any())).thenReturn(List.of(phelps, girvetz, phelpsLater));
+
+    DriverManifest manifest = driverManifestService.getManifest(10L, "Monday");
+
+    assertEquals(List.of(List.of(2L), List.of(4L), List.of(5L)), rideIdsByStop(manifest));
+  }
+
+  @Test
+  void manifests_are_cached_per_driver_and_day() {
+    when(dispatchService.getAssignments("Monday")).thenReturn(List.of(assignment(library, 10L)));
+    when(rideRepository.findAllById(any())).thenReturn(List.of(library));
+
+    DriverManifest first = driverManifestService.getManifest(10L, "Monday");
+    assertSame(first, driverManifestService.getManifest(10L, "Monday"));
+    verify(rideRepository, times(1)).findAllById(any());
+
+    DriverManifest other = driverManifestService.getManifest(20L, "Monday");
+    assertEquals(0, other.getRideCount());
+    assertTrue(other.getStops().isEmpty());
+    // nothing to read for a driver with no rides
+    verify(rideRepository, times(1)).findAllById(any());
+  }
+
+  @Test
+  void ride_changes_are_patched_into_cached_manifests() {
+    when(dispatchService.getAssignments("Monday")).thenReturn(List.of(
+        assignment(library, 10L), assignment(phelps, 10L), assignment(girvetz, 20L)));
+    when(rideRepository.findAllById(any())).thenReturn(List.of(library, phelps), List.of(girvetz));
+    driverManifestService.getManifest(10L, "Monday");
+    driverManifestService.getManifest(20L, "Monday");
+
+    // the library ride moves later, into driver 20's shift
+    Ride movedLibrary = ride(1L, "10:30AM", "Library");
+    when(dispatchService.assign(movedLibrary)).thenReturn(assignment(movedLibrary, 20L));
+    driverManifestService.onEntityChanged(new EntityChangedEvent(Ride.class, movedLibrary, ChangeType.UPDATED));
+
+    assertEquals(List.of(List.of(2L)), rideIdsByStop(driverManifestService.getManifest(10L, "Monday")));
+    DriverManifest driver20 = driverManifestService.getManifest(20L, "Monday");
+    assertEquals(List.of(List.of(4L), List.of(1L)), rideIdsByStop(driver20));
+    assertEquals("10:30AM", driver20.getStops().get(1).getStartTime());
+
+    // a new ride at Phelps Hall joins the existing stop
+    when(dispatchService.assign(phelpsAgain)).thenReturn(assignment(phelpsAgain, 10L));
+    driverManifestService.onEntityChanged(new EntityChangedEvent(Ride.class, phelpsAgain, ChangeType.CREATED));
+    assertEquals(List.of(List.of(2L, 3L)), rideIdsByStop(driverManifestService.getManifest(10L, "Monday")));
+
+    driverManifestService.onEntityChanged(new EntityChangedEvent(Ride.class, phelps, ChangeType.DELETED));
+    assertEquals(List.of(List.of(3L)), rideIdsByStop(driverManifestService.getManifest(10L, "Monday")));
+
+    verify(rideRepository, times(2)).findAllById(any());
+    verify(dispatchService, times(1)).getAssignments("Monday");
+  }
+
+  @Test
+  void shift_changes_rebuild_the_manifests() {
+    when(dispatchService.getAssignments("Monday")).thenReturn(List.of(assignment(library, 10L)));
+    when(rideRepository.findAllById(any())).thenReturn(List.of(library));
+    driverManifestService.getManifest(10L, "Monday");
+
+    Shift shift = Shift.builder().id(1L).day("Monday").shiftStart("8:00AM").shiftEnd("12:00PM")
+        .driverID(10L).driverBackupID(11L).build();
+    driverManifestService.onEntityChanged(new EntityChangedEvent(Shift.class, shift, ChangeType.UPDATED));
+    driverManifestService.getManifest(10L, "Monday");
+
+    verify(rideRepository, times(2)).findAllById(any());
+  }
+
+  @Test
+  void invalid_day_is_rejected() {
+    assertThrows(IllegalArgumentException.class, () -> driverManifestService.getManifest(10L, "Funday"));
+  }
+}
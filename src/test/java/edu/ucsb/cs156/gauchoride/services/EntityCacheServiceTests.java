@@ -0,0 +1,116 @@
+package edu.ucsb.cs156.gauchoride.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import javax.persistence.EntityManagerFactory;
+
+import org.hibernate.Cache;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import edu.ucsb.cs156.gauchoride.config.HibernateCacheConfig;
+import edu.ucsb.cs156.gauchoride.entities.Ride;
+import edu.ucsb.cs156.gauchoride.entities.Shift;
+import edu.ucsb.cs156.gauchoride.entities.User;
+import edu.ucsb.cs156.gauchoride.events.EntityChangedEvent;
+import edu.ucsb.cs156.gauchoride.events.EntityChangedEvent.ChangeType;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+@ExtendWith(SpringExtension.class)
+@ContextConfiguration(classes = EntityCacheService.class)
+class EntityCacheServiceTests {
+
+  @MockBean
+  EntityManagerFactory entityManagerFactory;
+
+  @Autowired
+  EntityCacheService entityCacheService;
+
+  private final SessionFactory sessionFactory = mock(SessionFactory.class);
+  private final Cache cache = mock(Cache.class);
+  private final Statistics statistics = mock(Statistics.class);
+
+  @BeforeEach
+  void setup() {
+    when(entityManagerFactory.unwrap(SessionFactory.class)).thenReturn(sessionFactory);
+    when(sessionFactory.getCache()).thenReturn(cache);
+    when(sessionFactory.getStatistics()).thenReturn(statistics);
+    when(statistics.isStatisticsEnabled()).thenReturn(true);
+  }
+
+  private static CacheRegionStatistics regionStatistics(long hits, long misses) {
+    CacheRegionStatistics regionStatistics = mock(CacheRegionStatistics.class);
+    when(regionStatistics.getHitCount()).thenReturn(hits);
+    when(regionStatistics.getMissCount()).thenReturn(misses);
+    return regionStatistics;
+  }
+
+  @Test
+  void bulk_changes_to_cached_types_evict_them() {
+    entityCacheService.onEntityChanged(EntityChangedEvent.reloaded(Shift.class));
+
+    verify(cache, times(1)).evictEntityData(Shift.class);
+    verify(cache, times(1)).evictQueryRegions();
+  }
+
+  @Test
+  void changes_made_through_jpa_and_uncached_types_are_left_to_hibernate() {
+    entityCacheService.onEntityChanged(new EntityChangedEvent(User.class, User.builder().id(1L).build(), ChangeType.UPDATED));
+    entityCacheService.onEntityChanged(EntityChangedEvent.reloaded(Ride.class));
+
+    verify(cache, never()).evictEntityData(any(Class.class));
+    verify(cache, never()).evictQueryRegions();
+  }
+
+  @Test
+  void hit_ratio_is_published_per_region() {
+    CacheRegionStatistics users = regionStatistics(3, 1);
+    when(statistics.getDomainDataRegionStatistics(HibernateCacheConfig.USERS_REGION)).thenReturn(users);
+    when(statistics.getDomainDataRegionStatistics(HibernateCacheConfig.SHIFTS_REGION))
+        .thenThrow(new IllegalArgumentException("Unknown cache region"));
+    CacheRegionStatistics byEmail = regionStatistics(0, 0);
+    when(statistics.getQueryRegionStatistics(HibernateCacheConfig.USERS_BY_EMAIL_REGION)).thenReturn(byEmail);
+    when(statistics.getQueryRegionStatistics(HibernateCacheConfig.ALL_SHIFTS_REGION)).thenReturn(regionStatistics(1, 1));
+
+    SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    entityCacheService.bindTo(registry);
+
+    assertEquals(0.75, gauge(registry, HibernateCacheConfig.USERS_REGION));
+    assertTrue(Double.isNaN(gauge(registry, HibernateCacheConfig.SHIFTS_REGION)));
+    assertTrue(Double.isNaN(gauge(registry, HibernateCacheConfig.USERS_BY_EMAIL_REGION)));
+    assertEquals(0.5, gauge(registry, HibernateCacheConfig.ALL_SHIFTS_REGION));
+
+    when(byEmail.getHitCount()).thenReturn(9L);
+    when(byEmail.getMissCount()).thenReturn(1L);
+    assertEquals(0.9, gauge(registry, HibernateCacheConfig.USERS_BY_EMAIL_REGION));
+  }
+
+  @Test
+  void no_hit_ratio_is_published_without_statistics() {
+    when(statistics.isStatisticsEnabled()).thenReturn(false);
+
+    SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    entityCacheService.bindTo(registry);
+
+    assertTrue(registry.find(EntityCacheService.HIT_RATIO).gauges().isEmpty());
+  }
+
+  private static double gauge(SimpleMeterRegistry registry, String region) {
+    return registry.get(EntityCacheService.HIT_RATIO).tag("region", region).gauge().value();
+  }
+}
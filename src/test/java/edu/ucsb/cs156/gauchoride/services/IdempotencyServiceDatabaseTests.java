@@ -0,0 +1,168 @@
+package edu.ucsb.cs156.gauchoride.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.sql.DataSource;
+
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import edu.ucsb.cs156.gauchoride.entities.Ride;
+import edu.ucsb.cs156.gauchoride.errors.EntityNotFoundException;
+import edu.ucsb.cs156.gauchoride.errors.IdempotencyKeyReusedException;
+import edu.ucsb.cs156.gauchoride.errors.RequestInProgressException;
+
+/**
+ * Runs the idempotency_key statements against a migrated in-memory H2
+ * database, standing in for the other nodes by writing rows directly.
+ */
+@ExtendWith(SpringExtension.class)
+@ContextConfiguration(classes = { IdempotencyService.class, IdempotencyServiceDatabaseTests.Database.class })
+@TestPropertySource(properties = { "app.idempotency.database=true", "app.idempotency.ttlMinutes=60",
+    "app.idempotency.leaseSeconds=30" })
+class IdempotencyServiceDatabaseTests {
+
+  @Configuration
+  static class Database {
+    @Bean
+    DataSource dataSource() {
+      DriverManagerDataSource dataSource = new DriverManagerDataSource(
+          "jdbc:h2:mem:" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1", "sa", "");
+      Flyway.configure().dataSource(dataSource).locations("classpath:db/migration").load().migrate();
+      return dataSource;
+    }
+
+    @Bean
+    NamedParameterJdbcTemplate jdbcTemplate(DataSource dataSource) {
+      return new NamedParameterJdbcTemplate(dataSource);
+    }
+  }
+
+  @Autowired
+  NamedParameterJdbcTemplate jdbcTemplate;
+
+  @Autowired
+  IdempotencyService idempotencyService;
+
+  private final AtomicInteger created = new AtomicInteger();
+
+  private final Ride stored = Ride.builder().id(42L).riderId(1L).day("Monday").build();
+
+  private static final String FINGERPRINT = IdempotencyService.fingerprint("Monday", "2:00PM", "3:15PM");
+
+  private Ride execute(String key) {
+    return execute(key, FINGERPRINT);
+  }
+
+  private Ride execute(String key, String fingerprint) {
+    return idempotencyService.execute(Ride.class, 1L, key, fingerprint,
+        () -> Ride.builder().id(100 + created.incrementAndGet()).riderId(1L).build(),
+        Ride::getId, id -> id == 42L ? Optional.of(stored) : Optional.empty());
+  }
+
+  /** a key recorded by another node */
+  private void insertKey(String key, Long resultId, Instant createdAt) {
+    jdbcTemplate.update("INSERT INTO idempotency_key"
+        + " (scope, user_id, idempotency_key, fingerprint, result_id, created_at)"
+        + " VALUES ('Ride', 1, :key, :fingerprint, :resultId, :createdAt)", new MapSqlParameterSource()
+            .addValue("key", key)
+            .addValue("fingerprint", FINGERPRINT)
+            .addValue("resultId", resultId)
+            .addValue("createdAt", Timestamp.from(createdAt)));
+  }
+
+  private List<Map<String, Object>> rows(String key) {
+    return jdbcTemplate.queryForList("SELECT result_id FROM idempotency_key WHERE idempotency_key = :key",
+        new MapSqlParameterSource("key", key));
+  }
+
+  @Test
+  void new_keys_are_recorded_with_the_created_id() {
+    assertEquals(101L, execute("new").getId());
+
+    assertEquals(101L, ((Number) rows("new").get(0).get("result_id")).longValue());
+  }
+
+  @Test
+  void a_key_recorded_by_another_node_returns_its_record() {
+    insertKey("elsewhere", 42L, Instant.now());
+
+    assertEquals(stored, execute("elsewhere"));
+    assertEquals(0, created.get());
+
+    insertKey("deleted", 43L, Instant.now());
+    assertThrows(EntityNotFoundException.class, () -> execute("deleted"));
+  }
+
+  @Test
+  void a_key_still_running_on_another_node_is_a_conflict() {
+    insertKey("running", null, Instant.now());
+
+    assertThrows(RequestInProgressException.class, () -> execute("running"));
+    assertEquals(0, created.get());
+  }
+
+  @Test
+  void a_key_recorded_for_a_different_request_is_rejected() {
+    insertKey("reused", 42L, Instant.now());
+
+    assertThrows(IdempotencyKeyReusedException.class,
+        () -> execute("reused", IdempotencyService.fingerprint("Tuesday", "2:00PM", "3:15PM")));
+    assertEquals(0, created.get());
+  }
+
+  @Test
+  void an_unfinished_key_is_taken_over_after_its_lease() {
+    insertKey("abandoned", null, Instant.now().minus(Duration.ofMinutes(1)));
+
+    assertEquals(101L, execute("abandoned").getId());
+    assertEquals(101L, ((Number) rows("abandoned").get(0).get("result_id")).longValue());
+
+    insertKey("stuck", null, Instant.now().minus(Duration.ofMinutes(1)));
+    insertKey("busy", null, Instant.now());
+    idempotencyService.deleteExpiredKeys();
+    assertEquals(0, rows("stuck").size());
+    assertEquals(1, rows("busy").size());
+  }
+
+  @Test
+  void expired_keys_are_reused_and_deleted() {
+    insertKey("old", 42L, Instant.now().minus(Duration.ofHours(2)));
+    assertEquals(101L, execute("old").getId());
+
+    insertKey("older", 42L, Instant.now().minus(Duration.ofHours(3)));
+    idempotencyService.deleteExpiredKeys();
+    assertEquals(0, rows("older").size());
+    assertEquals(1, rows("old").size());
+  }
+
+  @Test
+  void failed_requests_release_their_key() {
+    assertThrows(IllegalStateException.class, () -> idempotencyService.execute(Ride.class, 1L, "failing",
+        FINGERPRINT, () -> {
+          throw new IllegalStateException("database is down");
+        }, Ride::getId, id -> Optional.empty()));
+
+    assertEquals(0, rows("failing").size());
+  }
+}
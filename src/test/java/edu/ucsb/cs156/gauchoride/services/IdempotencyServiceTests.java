@@ -0,0 +1,209 @@
+package edu.ucsb.cs156.gauchoride.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.verifyNoInteractions;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import edu.ucsb.cs156.gauchoride.entities.Ride;
+import edu.ucsb.cs156.gauchoride.errors.EntityNotFoundException;
+import edu.ucsb.cs156.gauchoride.errors.IdempotencyKeyReusedException;
+import edu.ucsb.cs156.gauchoride.errors.RequestInProgressException;
+
+@ExtendWith(SpringExtension.class)
+@ContextConfiguration(classes = IdempotencyService.class)
+class IdempotencyServiceTests {
+
+  @MockBean
+  NamedParameterJdbcTemplate jdbcTemplate;
+
+  @Autowired
+  IdempotencyService idempotencyService;
+
+  private final AtomicInteger created = new AtomicInteger();
+
+  // stands in for the repository
+  private final Map<Long, Ride> saved = new ConcurrentHashMap<>();
+
+  private static final String MONDAY = IdempotencyService.fingerprint("Monday", "2:00PM", "3:15PM");
+
+  private Ride create() {
+    Ride ride = Ride.builder().id(created.incrementAndGet()).riderId(1L).day("Monday").build();
+    saved.put(ride.getId(), ride);
+    return ride;
+  }
+
+  private Ride execute(long userId, String key, Supplier<Ride> create) {
+    return execute(userId, key, MONDAY, create);
+  }
+
+  private Ride execute(long userId, String key, String fingerprint, Supplier<Ride> create) {
+    return idempotencyService.execute(Ride.class, userId, key, fingerprint, create, Ride::getId,
+        id -> Optional.ofNullable(saved.get(id)));
+  }
+
+  @Test
+  void a_repeated_key_returns_the_first_result() {
+    Ride first = execute(1L, "repeat", this::create);
+
+    // read again, not kept in memory
+    Ride stored = Ride.builder().id(first.getId()).riderId(1L).day("Monday").notes("edited since").build();
+    saved.put(first.getId(), stored);
+    assertSame(stored, execute(1L, "repeat", this::create));
+    assertEquals(1, created.get());
+    // keys belong to one user
+    execute(2L, "repeat", this::create);
+    execute(1L, "another", this::create);
+    assertEquals(3, created.get());
+    verifyNoInteractions(jdbcTemplate);
+  }
+
+  @Test
+  void failures_are_not_remembered() {
+    assertThrows(IllegalStateException.class, () -> execute(1L, "failure", () -> {
+      throw new IllegalStateException("database is down");
+    }));
+
+    execute(1L, "failure", this::create);
+    assertEquals(1, created.get());
+  }
+
+  @Test
+  void a_repeat_waits_for_the_first_request() throws Exception {
+    CountDownLatch started = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+    ExecutorService executor = Executors.newFixedThreadPool(2);
+    try {
+      Future<Ride> first = executor.submit(() -> execute(1L, "double-tap", () -> {
+        started.countDown();
+        try {
+          release.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+        }
+        return create();
+      }));
+      started.await(5, TimeUnit.SECONDS);
+      Future<Ride> second = executor.submit(() -> execute(1L, "double-tap", this::create));
+      release.countDown();
+
+      assertSame(first.get(5, TimeUnit.SECONDS), second.get(5, TimeUnit.SECONDS));
+      assertEquals(1, created.get());
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  @Test
+  void a_repeat_gives_up_waiting_after_the_lease() throws Exception {
+    CountDownLatch started = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+    ExecutorService executor = Executors.newFixedThreadPool(1);
+    long leaseSeconds = idempotencyService.leaseSeconds;
+    idempotencyService.leaseSeconds = 1;
+    try {
+      Future<Ride> first = executor.submit(() -> execute(1L, "stuck", () -> {
+        started.countDown();
+        try {
+          release.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+        }
+        return create();
+      }));
+      started.await(5, TimeUnit.SECONDS);
+
+      assertThrows(RequestInProgressException.class, () -> execute(1L, "stuck", this::create));
+
+      // the first request is not affected, and later repeats get its result
+      release.countDown();
+      Ride ride = first.get(5, TimeUnit.SECONDS);
+      assertSame(ride, execute(1L, "stuck", this::create));
+      assertEquals(1, created.get());
+    } finally {
+      idempotencyService.leaseSeconds = leaseSeconds;
+      executor.shutdownNow();
+    }
+  }
+
+  @Test
+  void a_key_sent_with_a_different_request_is_rejected() {
+    execute(1L, "reused", this::create);
+
+    IdempotencyKeyReusedException e = assertThrows(IdempotencyKeyReusedException.class,
+        () -> execute(1L, "reused", IdempotencyService.fingerprint("Tuesday", "2:00PM", "3:15PM"), this::create));
+    assertEquals("Idempotency-Key reused was already used for a different request", e.getMessage());
+    assertEquals(1, created.get());
+  }
+
+  @Test
+  void a_deleted_record_is_not_found() {
+    Ride first = execute(1L, "deleted", this::create);
+    saved.remove(first.getId());
+
+    assertThrows(EntityNotFoundException.class, () -> execute(1L, "deleted", this::create));
+  }
+
+  @Test
+  void a_repeat_of_a_failed_request_runs_it_again() throws Exception {
+    CountDownLatch started = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+    ExecutorService executor = Executors.newFixedThreadPool(2);
+    try {
+      Future<Ride> first = executor.submit(() -> execute(1L, "flaky", () -> {
+        started.countDown();
+        try {
+          release.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+        }
+        throw new IllegalStateException("database is down");
+      }));
+      started.await(5, TimeUnit.SECONDS);
+      Future<Ride> second = executor.submit(() -> execute(1L, "flaky", this::create));
+      release.countDown();
+
+      assertThrows(Exception.class, () -> first.get(5, TimeUnit.SECONDS));
+      assertEquals(1L, second.get(5, TimeUnit.SECONDS).getId());
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  @Test
+  void fingerprints_depend_on_every_part() {
+    assertEquals(MONDAY, IdempotencyService.fingerprint("Monday", "2:00PM", "3:15PM"));
+    assertNotEquals(IdempotencyService.fingerprint("ab", "c"), IdempotencyService.fingerprint("a", "bc"));
+    assertNotEquals(IdempotencyService.fingerprint("a", null), IdempotencyService.fingerprint("a", ""));
+    assertEquals(64, MONDAY.length());
+  }
+
+  @Test
+  void invalid_keys_are_rejected() {
+    IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+        () -> execute(1L, " ", this::create));
+    assertEquals("Idempotency-Key must be 1 to 255 characters", e.getMessage());
+    assertThrows(IllegalArgumentException.class, () -> execute(1L, "k".repeat(256), this::create));
+    assertEquals(0, created.get());
+  }
+}
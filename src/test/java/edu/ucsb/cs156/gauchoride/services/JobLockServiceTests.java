@@ -0,0 +1,71 @@
+package edu.ucsb.cs156.gauchoride.services;
+
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
+import static org.mockito.Mockito.when;
+
+import java.time.Duration;
+import java.time.Instant;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+@ExtendWith(SpringExtension.class)
+@ContextConfiguration(classes = JobLockService.class)
+class JobLockServiceTests {
+
+  @MockBean
+  NamedParameterJdbcTemplate jdbcTemplate;
+
+  @Autowired
+  JobLockService jobLockService;
+
+  @Test
+  void an_expired_lock_is_taken_over() {
+    when(jdbcTemplate.update(eq(JobLockService.UPDATE_LOCK), any(SqlParameterSource.class))).thenReturn(1);
+
+    Instant until = jobLockService.tryLock("job", Duration.ofMinutes(10));
+
+    assertNotNull(until);
+    assertTrue(until.isAfter(Instant.now().plus(Duration.ofMinutes(9))));
+    verify(jdbcTemplate, never()).update(eq(JobLockService.INSERT_LOCK), any(SqlParameterSource.class));
+  }
+
+  @Test
+  void a_new_lock_is_inserted() {
+    when(jdbcTemplate.update(eq(JobLockService.UPDATE_LOCK), any(SqlParameterSource.class))).thenReturn(0);
+    when(jdbcTemplate.update(eq(JobLockService.INSERT_LOCK), any(SqlParameterSource.class))).thenReturn(1);
+
+    assertNotNull(jobLockService.tryLock("job", Duration.ofMinutes(10)));
+  }
+
+  @Test
+  void a_lock_held_elsewhere_is_not_taken() {
+    when(jdbcTemplate.update(eq(JobLockService.UPDATE_LOCK), any(SqlParameterSource.class))).thenReturn(0);
+    when(jdbcTemplate.update(eq(JobLockService.INSERT_LOCK), any(SqlParameterSource.class)))
+        .thenThrow(new DuplicateKeyException("job"));
+
+    assertNull(jobLockService.tryLock("job", Duration.ofMinutes(10)));
+  }
+
+  @Test
+  void unlock_releases_only_this_nodes_lock() {
+    jobLockService.unlock("job");
+
+    verify(jdbcTemplate).update(eq(JobLockService.RELEASE_LOCK), any(SqlParameterSource.class));
+    verifyNoMoreInteractions(jdbcTemplate);
+  }
+}
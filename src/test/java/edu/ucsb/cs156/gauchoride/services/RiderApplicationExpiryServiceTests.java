@@ -0,0 +1,135 @@
+package edu.ucsb.cs156.gauchoride.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+
+import java.sql.Date;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.UUID;
+
+import javax.sql.DataSource;
+
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.event.ApplicationEvents;
+import org.springframework.test.context.event.RecordApplicationEvents;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import edu.ucsb.cs156.gauchoride.entities.RiderApplication;
+import edu.ucsb.cs156.gauchoride.events.EntityChangedEvent;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Runs the expiry statements against a migrated in-memory H2 database.
+ */
+@ExtendWith(SpringExtension.class)
+@ContextConfiguration(classes = { RiderApplicationExpiryService.class, JobLockService.class,
+    RiderApplicationExpiryServiceTests.Database.class })
+@TestPropertySource(properties = { "app.riderApplications.expiry.maxAgeDays=30",
+    "app.riderApplications.expiry.chunkSize=2" })
+@RecordApplicationEvents
+class RiderApplicationExpiryServiceTests {
+
+  @Configuration
+  static class Database {
+    @Bean
+    DataSource dataSource() {
+      DriverManagerDataSource dataSource = new DriverManagerDataSource(
+          "jdbc:h2:mem:" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1", "sa", "");
+      Flyway.configure().dataSource(dataSource).locations("classpath:db/migration").load().migrate();
+      return dataSource;
+    }
+
+    @Bean
+    NamedParameterJdbcTemplate jdbcTemplate(DataSource dataSource) {
+      return new NamedParameterJdbcTemplate(dataSource);
+    }
+
+    @Bean
+    MeterRegistry meterRegistry() {
+      return new SimpleMeterRegistry();
+    }
+  }
+
+  @Autowired
+  NamedParameterJdbcTemplate jdbcTemplate;
+
+  @Autowired
+  JobLockService jobLockService;
+
+  @Autowired
+  MeterRegistry meterRegistry;
+
+  @Autowired
+  RiderApplicationExpiryService riderApplicationExpiryService;
+
+  @Autowired
+  ApplicationEvents events;
+
+  @BeforeEach
+  void emptyTables() {
+    jdbcTemplate.update("DELETE FROM rider_application", new MapSqlParameterSource());
+    jdbcTemplate.update("DELETE FROM job_lock", new MapSqlParameterSource());
+  }
+
+  private void insert(long id, int statusCode, int daysOld) {
+    jdbcTemplate.update("INSERT INTO rider_application (id, status_code, created_date) VALUES (:id, :status, :created)",
+        new MapSqlParameterSource()
+            .addValue("id", id)
+            .addValue("status", statusCode)
+            .addValue("created", Date.valueOf(LocalDate.now().minusDays(daysOld))));
+  }
+
+  private List<Integer> statusCodes() {
+    return jdbcTemplate.queryForList("SELECT status_code FROM rider_application ORDER BY id",
+        new MapSqlParameterSource(), Integer.class);
+  }
+
+  private double timerCount(String outcome) {
+    return meterRegistry.get(RiderApplicationExpiryService.JOB_TIMER).tag("outcome", outcome).timer().count();
+  }
+
+  @Test
+  void old_pending_applications_are_expired_in_chunks() {
+    insert(1, 0, 100); // pending, old
+    insert(2, 0, 31); // pending, old
+    insert(3, 0, 45); // pending, old
+    insert(4, 0, 5); // pending, recent
+    insert(5, 1, 100); // accepted, old
+
+    assertEquals(3, riderApplicationExpiryService.expireStaleApplications());
+
+    assertEquals(List.of(3, 3, 3, 0, 1), statusCodes());
+    assertEquals(3, meterRegistry.counter(RiderApplicationExpiryService.EXPIRED_COUNTER).count());
+    assertEquals(1, events.stream(EntityChangedEvent.class)
+        .filter(event -> event.isAbout(RiderApplication.class)).count());
+
+    // the lock was released, and there is nothing left to do
+    assertEquals(0, riderApplicationExpiryService.expireStaleApplications());
+    assertEquals(1, events.stream(EntityChangedEvent.class).count());
+  }
+
+  @Test
+  void nothing_is_expired_while_another_node_holds_the_lock() {
+    insert(1, 0, 100);
+
+    assertNotNull(jobLockService.tryLock(RiderApplicationExpiryService.JOB_NAME, Duration.ofMinutes(5)));
+    assertEquals(0, riderApplicationExpiryService.expireStaleApplications());
+
+    assertEquals(List.of(0), statusCodes());
+    assertEquals(1, timerCount("skipped"));
+  }
+}
@@ -0,0 +1,81 @@
+package edu.ucsb.cs156.gauchoride.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import edu.ucsb.cs156.gauchoride.entities.ApplicationStatus;
+import edu.ucsb.cs156.gauchoride.entities.RiderApplication;
+
+@ExtendWith(SpringExtension.class)
+@ContextConfiguration(classes = RiderApplicationStatusService.class)
+class RiderApplicationStatusServiceTests {
+
+  @Autowired
+  RiderApplicationStatusService riderApplicationStatusService;
+
+  private static RiderApplication withStatus(String status) {
+    return RiderApplication.builder().id(1L).status(status).build();
+  }
+
+  @Test
+  void pending_applications_can_reach_every_final_status() {
+    for (ApplicationStatus status : ApplicationStatus.values()) {
+      RiderApplication application = withStatus("pending");
+      assertTrue(riderApplicationStatusService.isPending(application));
+
+      riderApplicationStatusService.changeStatus(application, status);
+      assertEquals(status.getLabel(), application.getStatus());
+    }
+  }
+
+  @Test
+  void only_pending_applications_can_expire() {
+    assertEquals(Set.of(ApplicationStatus.PENDING),
+        RiderApplicationStatusService.statusesThatCanBecome(ApplicationStatus.EXPIRED));
+    assertEquals(Set.of(), RiderApplicationStatusService.statusesThatCanBecome(ApplicationStatus.PENDING));
+  }
+
+  @Test
+  void final_statuses_cannot_change() {
+    RiderApplication declined = withStatus("declined");
+    assertFalse(riderApplicationStatusService.isPending(declined));
+    assertFalse(riderApplicationStatusService.canChange(declined, ApplicationStatus.ACCEPTED));
+    assertTrue(riderApplicationStatusService.canChange(declined, ApplicationStatus.DECLINED));
+
+    IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+        () -> riderApplicationStatusService.changeStatus(declined, "accepted"));
+    assertEquals("RiderApplication with \"declined\" status cannot become \"accepted\"", e.getMessage());
+    assertEquals("declined", declined.getStatus());
+
+    assertThrows(IllegalArgumentException.class,
+        () -> riderApplicationStatusService.changeStatus(withStatus("expired"), ApplicationStatus.PENDING));
+    assertThrows(IllegalArgumentException.class,
+        () -> riderApplicationStatusService.changeStatus(withStatus("cancelled"), ApplicationStatus.ACCEPTED));
+  }
+
+  @Test
+  void applications_without_a_known_status_can_be_repaired() {
+    RiderApplication legacy = withStatus(null);
+    assertFalse(riderApplicationStatusService.isPending(legacy));
+
+    riderApplicationStatusService.changeStatus(legacy, "Pending");
+    assertEquals("pending", legacy.getStatus());
+  }
+
+  @Test
+  void unknown_statuses_are_rejected() {
+    IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+        () -> riderApplicationStatusService.changeStatus(withStatus("pending"), "approved"));
+    assertEquals("Invalid status: approved", e.getMessage());
+  }
+}
@@ -0,0 +1,161 @@
+package edu.ucsb.cs156.gauchoride.services;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+import java.util.Optional;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import edu.ucsb.cs156.gauchoride.entities.Ride;
+import edu.ucsb.cs156.gauchoride.entities.Shift;
+import edu.ucsb.cs156.gauchoride.errors.ScheduleConflictException;
+import edu.ucsb.cs156.gauchoride.repositories.RideRepository;
+import edu.ucsb.cs156.gauchoride.repositories.ShiftRepository;
+
+@ExtendWith(SpringExtension.class)
+@ContextConfiguration(classes = ScheduleConflictService.class)
+class ScheduleConflictServiceTests {
+
+  @MockBean
+  ShiftRepository shiftRepository;
+
+  @MockBean
+  RideRepository rideRepository;
+
+  @MockBean
+  NamedParameterJdbcTemplate jdbcTemplate;
+
+  @MockBean
+  PlatformTransactionManager transactionManager;
+
+  @Autowired
+  ScheduleConflictService scheduleConflictService;
+
+  private final Shift afternoon = Shift.builder().id(2L).day("Monday").shiftStart("1:00PM").shiftEnd("5:00PM")
+      .driverID(10L).driverBackupID(11L).build();
+
+  private final Ride lecture = Ride.builder().id(100L).riderId(5L).day("Tuesday").startTime("9:30AM")
+      .endTime("10:45AM").build();
+
+  private Shift saveShift(Long id, String day, String start, String end, long driverId) {
+    return scheduleConflictService.saveShift(id, day, start, end, driverId,
+        () -> Shift.builder().id(id == null ? 1000L : id).day(day).shiftStart(start).shiftEnd(end)
+            .driverID(driverId).build());
+  }
+
+  private void overlaps(String query, Long... ids) {
+    when(jdbcTemplate.queryForList(eq(query), any(SqlParameterSource.class), eq(Long.class)))
+        .thenReturn(List.of(ids));
+  }
+
+  @Test
+  void overlapping_shift_of_the_same_driver_is_rejected_with_the_existing_one() {
+    overlaps(ScheduleConflictService.SHIFT_OVERLAPS, 2L);
+    when(shiftRepository.findById(2L)).thenReturn(Optional.of(afternoon));
+
+    ScheduleConflictException e = assertThrows(ScheduleConflictException.class,
+        () -> saveShift(null, "monday", "12:30PM", "2:00PM", 10L));
+
+    assertSame(afternoon, e.getConflict());
+    assertEquals("Shift overlaps Shift with id 2", e.getMessage());
+    verify(transactionManager).rollback(any());
+    verify(transactionManager, never()).commit(any());
+  }
+
+  @Test
+  void the_owner_is_locked_before_the_overlap_query() {
+    Shift saved = saveShift(7L, "Wednesday", "8:00AM", "12:00PM", 10L);
+
+    assertEquals(7L, saved.getId());
+    ArgumentCaptor<SqlParameterSource> parameters = ArgumentCaptor.forClass(SqlParameterSource.class);
+    InOrder inOrder = inOrder(transactionManager, jdbcTemplate);
+    inOrder.verify(transactionManager).getTransaction(any());
+    inOrder.verify(jdbcTemplate).queryForList(eq(ScheduleConflictService.LOCK_OWNER), any(SqlParameterSource.class),
+        eq(Long.class));
+    inOrder.verify(jdbcTemplate).queryForList(eq(ScheduleConflictService.SHIFT_OVERLAPS), parameters.capture(),
+        eq(Long.class));
+    inOrder.verify(transactionManager).commit(any());
+    assertEquals(10L, parameters.getValue().getValue("ownerId"));
+    assertEquals(3, parameters.getValue().getValue("day"));
+    assertEquals(480, parameters.getValue().getValue("start"));
+    assertEquals(720, parameters.getValue().getValue("end"));
+    // an updated shift does not conflict with itself
+    assertEquals(7L, parameters.getValue().getValue("id"));
+  }
+
+  @Test
+  void a_new_shift_excludes_no_id() {
+    saveShift(null, "Monday", "8:00AM", "12:00PM", 10L);
+
+    ArgumentCaptor<SqlParameterSource> parameters = ArgumentCaptor.forClass(SqlParameterSource.class);
+    verify(jdbcTemplate).queryForList(eq(ScheduleConflictService.SHIFT_OVERLAPS), parameters.capture(),
+        eq(Long.class));
+    assertEquals(0L, parameters.getValue().getValue("id"));
+  }
+
+  @Test
+  void a_conflict_that_was_deleted_meanwhile_is_ignored() {
+    overlaps(ScheduleConflictService.SHIFT_OVERLAPS, 1L);
+    when(shiftRepository.findById(1L)).thenReturn(Optional.empty());
+
+    assertDoesNotThrow(() -> saveShift(null, "Monday", "9:00AM", "10:00AM", 10L));
+  }
+
+  @Test
+  void overlapping_ride_of_the_same_rider_is_rejected() {
+    overlaps(ScheduleConflictService.RIDE_OVERLAPS, 100L);
+    when(rideRepository.findById(100L)).thenReturn(Optional.of(lecture));
+
+    ScheduleConflictException e = assertThrows(ScheduleConflictException.class,
+        () -> scheduleConflictService.saveRide(null, "Tuesday", "10:00AM", "11:00AM", 5L, () -> {
+          throw new IllegalStateException("saved despite the overlap");
+        }));
+
+    assertSame(lecture, e.getConflict());
+    assertEquals("Ride overlaps Ride with id 100", e.getMessage());
+  }
+
+  @Test
+  void a_failed_save_is_rolled_back() {
+    assertThrows(IllegalStateException.class,
+        () -> scheduleConflictService.saveRide(null, "Tuesday", "10:00AM", "11:00AM", 5L, () -> {
+          throw new IllegalStateException("database is down");
+        }));
+
+    verify(transactionManager).rollback(any());
+  }
+
+  @Test
+  void imported_rows_are_checked_in_the_callers_transaction() {
+    overlaps(ScheduleConflictService.SHIFT_OVERLAPS, 2L);
+    when(shiftRepository.findById(2L)).thenReturn(Optional.of(afternoon));
+
+    ScheduleConflictException e = assertThrows(ScheduleConflictException.class,
+        () -> scheduleConflictService.checkShift(null, "Monday", "11:00AM", "1:30PM", 10L));
+
+    assertSame(afternoon, e.getConflict());
+    verify(jdbcTemplate).queryForList(eq(ScheduleConflictService.LOCK_OWNER), any(SqlParameterSource.class),
+        eq(Long.class));
+    verify(transactionManager, never()).getTransaction(any());
+  }
+}
@@ -0,0 +1,43 @@
+package edu.ucsb.cs156.gauchoride.services;
+
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import edu.ucsb.cs156.gauchoride.entities.Shift;
+import edu.ucsb.cs156.gauchoride.repositories.ShiftRepository;
+
+@ExtendWith(SpringExtension.class)
+@ContextConfiguration(classes = { ShiftScheduleCache.class, ObjectMapper.class })
+@TestPropertySource(properties = "app.shiftSchedule.expireAfterWriteSeconds=0")
+class ShiftScheduleCacheExpiryTests {
+
+  @MockBean
+  ShiftRepository shiftRepository;
+
+  @Autowired
+  ShiftScheduleCache shiftScheduleCache;
+
+  @Test
+  void expired_schedule_is_read_again_without_an_invalidation() {
+    Shift monday = Shift.builder().id(1L).day("Monday").shiftStart("8:00AM").shiftEnd("12:00PM").build();
+    when(shiftRepository.findAll()).thenReturn(List.of(monday));
+
+    shiftScheduleCache.get(null);
+    shiftScheduleCache.get(null);
+
+    verify(shiftRepository, times(2)).findAll();
+  }
+}
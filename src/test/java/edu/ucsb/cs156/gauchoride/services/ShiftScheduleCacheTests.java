@@ -0,0 +1,99 @@
+package edu.ucsb.cs156.gauchoride.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import edu.ucsb.cs156.gauchoride.entities.Ride;
+import edu.ucsb.cs156.gauchoride.entities.Shift;
+import edu.ucsb.cs156.gauchoride.events.EntityChangedEvent;
+import edu.ucsb.cs156.gauchoride.repositories.ShiftRepository;
+
+@ExtendWith(SpringExtension.class)
+@ContextConfiguration(classes = { ShiftScheduleCache.class, ObjectMapper.class })
+class ShiftScheduleCacheTests {
+
+  @MockBean
+  ShiftRepository shiftRepository;
+
+  @Autowired
+  ShiftScheduleCache shiftScheduleCache;
+
+  private final Shift monday = Shift.builder().id(1L).day("Monday").shiftStart("8:00AM").shiftEnd("12:00PM")
+      .driverID(2L).driverBackupID(3L).build();
+
+  @BeforeEach
+  void setup() {
+    shiftScheduleCache.invalidate();
+  }
+
+  @Test
+  void schedule_is_read_once_until_invalidated() {
+    when(shiftRepository.findAll()).thenReturn(List.of(monday));
+
+    ShiftScheduleCache.Schedule first = shiftScheduleCache.get(null);
+    ShiftScheduleCache.Schedule second = shiftScheduleCache.get(null);
+
+    assertSame(first, second);
+    verify(shiftRepository, times(1)).findAll();
+    assertTrue(new String(first.body(), StandardCharsets.UTF_8).contains("\"day\":\"Monday\""));
+    assertTrue(first.etag().startsWith("W/\""));
+
+    when(shiftRepository.findAll()).thenReturn(List.of());
+    shiftScheduleCache.invalidate();
+    ShiftScheduleCache.Schedule third = shiftScheduleCache.get(null);
+
+    verify(shiftRepository, times(2)).findAll();
+    assertEquals("[]", new String(third.body(), StandardCharsets.UTF_8));
+    assertNotEquals(first.etag(), third.etag());
+  }
+
+  @Test
+  void same_schedule_gets_the_same_etag_after_a_reload() {
+    when(shiftRepository.findByDayOrderByShiftStartAscIdAsc("Monday")).thenReturn(List.of(monday));
+
+    String before = shiftScheduleCache.get("Monday").etag();
+    shiftScheduleCache.invalidate();
+    String after = shiftScheduleCache.get("MONDAY").etag();
+
+    assertEquals(before, after);
+    verify(shiftRepository, times(2)).findByDayOrderByShiftStartAscIdAsc("Monday");
+  }
+
+  @Test
+  void bulk_imports_of_shifts_invalidate_the_schedule() {
+    when(shiftRepository.findAll()).thenReturn(List.of(monday));
+    shiftScheduleCache.get(null);
+
+    shiftScheduleCache.onEntityChanged(EntityChangedEvent.reloaded(Ride.class));
+    shiftScheduleCache.get(null);
+    verify(shiftRepository, times(1)).findAll();
+
+    shiftScheduleCache.onEntityChanged(EntityChangedEvent.reloaded(Shift.class));
+    shiftScheduleCache.get(null);
+    verify(shiftRepository, times(2)).findAll();
+  }
+
+  @Test
+  void invalid_days_are_rejected() {
+    assertThrows(IllegalArgumentException.class, () -> shiftScheduleCache.get("Funday"));
+  }
+}